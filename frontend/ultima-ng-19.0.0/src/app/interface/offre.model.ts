@@ -108,6 +108,16 @@ export interface OffreStats {
     aujourd_hui: number;
 }
 
+/**
+ * Page d'une liste d'offres (pagination par curseur côté serveur).
+ * curseurSuivant est null sur la dernière page ; le nombre total vient de /stats.
+ */
+export interface PageOffres {
+    offres: Offre[];
+    hasMore: boolean;
+    curseurSuivant: string | null;
+}
+
 /**
  * Statuts possibles d'une offre
  */
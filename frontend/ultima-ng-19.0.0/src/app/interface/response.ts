@@ -118,6 +118,9 @@ export interface IResponse {
 
         // Métadonnées
         total?: number;
+        taille?: number;
+        hasMore?: boolean;
+        curseurSuivant?: string | null;
         regionUuid?: string;
         villeUuid?: string;
         communeUuid?: string;
@@ -88,6 +88,7 @@ export class OffresTransportComponent implements OnInit {
 
     // Signals
     offres = signal<Offre[]>([]);
+    curseurSuivant = signal<string | null>(null);
     trajets = signal<Trajet[]>([]);
     vehicules = signal<Vehicule[]>([]);
     stats = signal<OffreStats | null>(null);
@@ -129,7 +130,8 @@ export class OffresTransportComponent implements OnInit {
         return result;
     });
 
-    totalOffres = computed(() => this.offres().length);
+    // Total de toutes les offres : compteur de /stats (les pages n'en portent pas)
+    totalOffres = computed(() => this.stats()?.total ?? this.offres().length);
     offresOuvertes = computed(() => this.offres().filter((o) => o.statut === 'OUVERT').length);
     offresEnCours = computed(() => this.offres().filter((o) => o.statut === 'EN_COURS').length);
     offresAujourdHui = computed(() => {
@@ -216,11 +218,34 @@ export class OffresTransportComponent implements OnInit {
         });
     }
 
+    /**
+     * Recharge la première page ; loadMoreOffres() ajoute les suivantes (curseur serveur).
+     */
     loadOffres(): void {
         this.loading.set(true);
         this.offreService.getAll().subscribe({
-            next: (data) => {
-                this.offres.set(data);
+            next: (page) => {
+                this.offres.set(page.offres);
+                this.curseurSuivant.set(page.hasMore ? page.curseurSuivant : null);
+                this.loading.set(false);
+            },
+            error: (err) => {
+                this.messageService.add({ severity: 'error', summary: 'Erreur', detail: err });
+                this.loading.set(false);
+            }
+        });
+    }
+
+    loadMoreOffres(): void {
+        const curseur = this.curseurSuivant();
+        if (!curseur) {
+            return;
+        }
+        this.loading.set(true);
+        this.offreService.getAll(curseur).subscribe({
+            next: (page) => {
+                this.offres.update((offres) => [...offres, ...page.offres]);
+                this.curseurSuivant.set(page.hasMore ? page.curseurSuivant : null);
                 this.loading.set(false);
             },
             error: (err) => {
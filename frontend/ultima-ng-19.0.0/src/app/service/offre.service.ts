@@ -3,7 +3,7 @@ import { HttpClient, HttpErrorResponse, HttpParams } from '@angular/common/http'
 import { catchError, map, Observable, throwError } from 'rxjs';
 import { server } from '@/utils/fileutils';
 import { IResponse } from '@/interface/response';
-import { Offre, OffreRequest, OffreStats } from '@/interface/offre.model';
+import { Offre, OffreRequest, OffreStats, PageOffres } from '@/interface/offre.model';
 
 @Injectable({
     providedIn: 'root'
@@ -15,23 +15,17 @@ export class OffreService {
     // ========== LECTURE ==========
 
     /**
-     * Récupère toutes les offres
+     * Récupère une page de toutes les offres (curseur absent = première page)
      */
-    getAll(): Observable<Offre[]> {
-        return this.http.get<IResponse>(this.baseUrl).pipe(
-            map((response) => response.data?.offres || []),
-            catchError(this.handleError)
-        );
+    getAll(curseur?: string | null, taille?: number): Observable<PageOffres> {
+        return this.getPage(this.baseUrl, curseur, taille);
     }
 
     /**
-     * Récupère les offres ouvertes (EN_ATTENTE, OUVERT)
+     * Récupère une page des offres ouvertes (EN_ATTENTE, OUVERT)
      */
-    getOuvertes(): Observable<Offre[]> {
-        return this.http.get<IResponse>(`${this.baseUrl}/ouvertes`).pipe(
-            map((response) => response.data?.offres || []),
-            catchError(this.handleError)
-        );
+    getOuvertes(curseur?: string | null, taille?: number): Observable<PageOffres> {
+        return this.getPage(`${this.baseUrl}/ouvertes`, curseur, taille);
     }
 
     /**
@@ -85,13 +79,10 @@ export class OffreService {
     }
 
     /**
-     * Récupère les offres par statut
+     * Récupère une page des offres d'un statut
      */
-    getByStatut(statut: string): Observable<Offre[]> {
-        return this.http.get<IResponse>(`${this.baseUrl}/statut/${statut}`).pipe(
-            map((response) => response.data?.offres || []),
-            catchError(this.handleError)
-        );
+    getByStatut(statut: string, curseur?: string | null, taille?: number): Observable<PageOffres> {
+        return this.getPage(`${this.baseUrl}/statut/${statut}`, curseur, taille);
     }
 
     /**
@@ -163,23 +154,17 @@ export class OffreService {
     }
 
     /**
-     * Récupère les offres à venir
+     * Récupère une page des offres à venir
      */
-    getAVenir(): Observable<Offre[]> {
-        return this.http.get<IResponse>(`${this.baseUrl}/a-venir`).pipe(
-            map((response) => response.data?.offres || []),
-            catchError(this.handleError)
-        );
+    getAVenir(curseur?: string | null, taille?: number): Observable<PageOffres> {
+        return this.getPage(`${this.baseUrl}/a-venir`, curseur, taille);
     }
 
     /**
-     * Récupère les offres passées
+     * Récupère une page des offres passées (les plus récentes d'abord)
      */
-    getPassees(): Observable<Offre[]> {
-        return this.http.get<IResponse>(`${this.baseUrl}/passees`).pipe(
-            map((response) => response.data?.offres || []),
-            catchError(this.handleError)
-        );
+    getPassees(curseur?: string | null, taille?: number): Observable<PageOffres> {
+        return this.getPage(`${this.baseUrl}/passees`, curseur, taille);
     }
 
     /**
@@ -193,13 +178,10 @@ export class OffreService {
     }
 
     /**
-     * Recherche textuelle d'offres
+     * Recherche textuelle d'offres (une page)
      */
-    search(query: string): Observable<Offre[]> {
-        return this.http.get<IResponse>(`${this.baseUrl}/search`, { params: { q: query } }).pipe(
-            map((response) => response.data?.offres || []),
-            catchError(this.handleError)
-        );
+    search(query: string, curseur?: string | null, taille?: number): Observable<PageOffres> {
+        return this.getPage(`${this.baseUrl}/search`, curseur, taille, new HttpParams().set('q', query));
     }
 
     // ========== ÉCRITURE ==========
@@ -380,6 +362,29 @@ export class OffreService {
         );
     }
 
+    // ========== PAGINATION ==========
+
+    /**
+     * Lit une page d'une liste paginée par curseur. total est le nombre d'offres de
+     * toute la liste ; passer curseurSuivant pour obtenir la page suivante.
+     */
+    private getPage(url: string, curseur?: string | null, taille?: number, params = new HttpParams()): Observable<PageOffres> {
+        if (curseur) {
+            params = params.set('curseur', curseur);
+        }
+        if (taille) {
+            params = params.set('taille', taille);
+        }
+        return this.http.get<IResponse>(url, { params }).pipe(
+            map((response) => ({
+                offres: response.data?.offres || [],
+                hasMore: response.data?.hasMore ?? false,
+                curseurSuivant: response.data?.curseurSuivant ?? null
+            })),
+            catchError(this.handleError)
+        );
+    }
+
     // ========== GESTION DES ERREURS ==========
 
     private handleError = (error: HttpErrorResponse): Observable<never> => {
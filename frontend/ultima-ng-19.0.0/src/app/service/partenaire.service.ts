@@ -70,8 +70,10 @@ export class PartenaireService {
         );
     }
 
-    search(query: string): Observable<Partenaire[]> {
-        return this.http.get<IResponse>(`${this.baseUrl}/search`, { params: { q: query } }).pipe(
+    /** Recherche paginée côté serveur (20 résultats par défaut, 100 au plus) : page pleine = page suivante possible. */
+    search(query: string, page = 0, size = 20): Observable<Partenaire[]> {
+        const params = new HttpParams().set('q', query).set('page', page).set('size', size);
+        return this.http.get<IResponse>(`${this.baseUrl}/search`, { params }).pipe(
             map((response) => response.data?.partenaires || []),
             catchError(this.handleError)
         );
@@ -91,8 +91,10 @@ export class VehiculeService {
         );
     }
 
-    search(query: string): Observable<Vehicule[]> {
-        return this.http.get<IResponse>(`${this.baseUrl}/search`, { params: { q: query } }).pipe(
+    /** Recherche paginée côté serveur (20 résultats par défaut, 100 au plus) : page pleine = page suivante possible. */
+    search(query: string, page = 0, size = 20): Observable<Vehicule[]> {
+        const params = new HttpParams().set('q', query).set('page', page).set('size', size);
+        return this.http.get<IResponse>(`${this.baseUrl}/search`, { params }).pipe(
             map((response) => response.data?.vehicules || []),
             catchError(this.handleError)
         );
@@ -1,14 +1,18 @@
 package io.multi.authorizationserver.service;
 
+import io.multi.clients.jobs.CoordinateurJobs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * Purge planifiée des refresh tokens expirés (sinon la table refresh_token
  * grossit indéfiniment). Tourne chaque jour à 4h. Cf dette
- * backend-refresh-token-cleanup-cron-monitoring (monitoring à ajouter).
+ * backend-refresh-token-cleanup-cron-monitoring. Une seule réplique purge ;
+ * chaque passage est tracé dans executions_jobs (cf {@link CoordinateurJobs}).
  */
 @Slf4j
 @Component
@@ -16,14 +20,14 @@ import org.springframework.stereotype.Component;
 public class RefreshTokenCleanupJob {
 
     private final RefreshTokenStore store;
+    private final CoordinateurJobs coordinateurJobs;
 
     @Scheduled(cron = "0 0 4 * * *")
     public void cleanupExpired() {
-        try {
+        coordinateurJobs.executer("refreshTokenCleanup", Duration.ofHours(1), () -> {
             int n = store.deleteExpired();
             log.info("refresh_token cleanup : {} token(s) expiré(s) supprimé(s)", n);
-        } catch (Exception e) {
-            log.error("refresh_token cleanup échoué : {}", e.getMessage());
-        }
+            return n;
+        });
     }
 }
@@ -0,0 +1,70 @@
+package io.multi.billetterieservice.securite;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Débit JMH de l'émission (signature) et de la vérification en mémoire d'un QR
+ * billet Ed25519, sur un thread. Les résultats sont renvoyés à JMH (blackhole
+ * implicite) : le JIT ne peut pas éliminer le calcul.
+ * Compilé et lancé seulement avec : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBilletsBenchmark {
+
+    private static final LocalDate DEPART = LocalDate.of(2026, 3, 1);
+
+    private QrCodeBillets qr;
+    private String emis;
+    private long billetId;
+
+    @Setup
+    public void demarrer() throws Exception {
+        qr = new QrCodeBillets(SignatureBilletsTest.demarree(SignatureBilletsTest.paire(), null));
+        emis = qr.emettre(1L, 1L, DEPART, 1, "BLT-00000");
+    }
+
+    @Benchmark
+    public QrCodeBillets.ContenuQr verification() {
+        return qr.verifier(emis);
+    }
+
+    @Benchmark
+    public String emission() {
+        long id = ++billetId;
+        return qr.emettre(id, 1L, DEPART, 1, "BLT-" + id);
+    }
+
+    @Test
+    void lancer() throws Exception {
+        demarrer();
+        assertEquals("BLT-00000", verification().getCodeBillet());
+        new Runner(new OptionsBuilder()
+                .include(SignatureBilletsBenchmark.class.getName() + "\\.")
+                .build())
+                .run();
+    }
+}
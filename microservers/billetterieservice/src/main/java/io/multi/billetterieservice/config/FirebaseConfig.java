@@ -4,7 +4,10 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.messaging.FirebaseMessaging;
+import io.multi.billetterieservice.service.PasserellePush;
+import io.multi.billetterieservice.service.impl.PasserellePushFirebase;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -48,4 +51,11 @@ public class FirebaseConfig {
             return null;
         }
     }
+
+    /** Envoi multicast derrière PasserellePush (null si Firebase n'est pas configuré). */
+    @Bean
+    public PasserellePush passerellePush(ObjectProvider<FirebaseMessaging> firebaseMessaging) {
+        FirebaseMessaging messaging = firebaseMessaging.getIfAvailable();
+        return messaging != null ? new PasserellePushFirebase(messaging) : null;
+    }
 }
@@ -0,0 +1,23 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bilan d'un envoi push multicast (un appel FcmSender).
+ * tokensPurges : tokens morts (UNREGISTERED / INVALID_ARGUMENT) supprimés en fin d'envoi.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BilanPush {
+    private int tokens;
+    private int lots;
+    private int envoyes;
+    private int echecs;
+    private int tokensPurges;
+    private long dureeMs;
+}
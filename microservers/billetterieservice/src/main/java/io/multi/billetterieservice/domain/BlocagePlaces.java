@@ -0,0 +1,29 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Blocage temporaire de places sur une offre, pris à l'ouverture du formulaire
+ * passagers et consommé par la commande (ou expiré à l'échéance).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlocagePlaces {
+
+    private Long blocageId;
+    private String blocageUuid;
+    private Long offreId;
+    private String offreUuid;
+    private Long userId;
+    private Integer nombrePlaces;
+    private String statut;
+    private OffsetDateTime expireAt;
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,31 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Itinéraire origine → destination en un ou plusieurs tronçons.
+ * correspondances = tronçons - 1 ; attenteMinutes cumule les temps d'attente
+ * entre tronçons ; placesDisponibles est le minimum sur les tronçons.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Itineraire {
+    private List<TronconItineraire> troncons;
+    private int correspondances;
+    private LocalDateTime depart;
+    private LocalDateTime arrivee;
+    private long dureeMinutes;
+    private long attenteMinutes;
+    private int placesDisponibles;
+    private BigDecimal montantTotal;
+    private String devise;
+}
@@ -91,6 +91,9 @@ public class Offre {
     private String userEmail;
     private String userPhone;
 
+    // ========== Blocages temporaires (renseigné à l'affichage) ==========
+    private Integer nombrePlacesBloquees;
+
     // ========== Champs calculés ==========
     /**
      * Retourne le montant effectif (promotion ou montant normal)
@@ -0,0 +1,24 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de commandes d'un utilisateur. total compte toutes ses commandes ;
+ * page est null quand la liste complète a été demandée (sans pagination).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCommandes {
+    private List<Commande> commandes;
+    private long total;
+    private boolean hasMore;
+    private Integer page;
+    private int size;
+}
@@ -0,0 +1,21 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page du fil de notifications (pagination keyset). curseurSuivant est null sur la dernière page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageNotifications {
+    private List<InAppNotification> notifications;
+    private String curseurSuivant;
+    private boolean hasMore;
+}
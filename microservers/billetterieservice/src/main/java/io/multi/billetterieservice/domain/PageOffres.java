@@ -0,0 +1,21 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page d'offres (pagination keyset). curseurSuivant est null sur la dernière page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageOffres {
+    private List<Offre> offres;
+    private String curseurSuivant;
+    private boolean hasMore;
+}
@@ -0,0 +1,24 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * État des places d'une offre poussé aux abonnés SSE (/billetterie/offres/places/flux).
+ * delta : variation des places disponibles depuis l'état précédent (0 pour l'état initial).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlacesOffre {
+    private String offreUuid;
+    private Integer disponibles;
+    private Integer reservees;
+    private Integer total;
+    private Integer niveauRemplissage;
+    private String statut;
+    private int delta;
+}
@@ -0,0 +1,27 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Résultat d'un scan rejoué (synchronisation hors ligne ou validation en lot).
+ * resultat : VALIDE | DEJA_UTILISE | ANNULE | NON_VALIDE | INCONNU
+ *            | QR_INVALIDE | QR_PERIME | AUTRE_JOUR (QR signés, validation en lot)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultatScan {
+    private String codeBillet;
+    private String resultat;
+    private String nomPassager;
+    private OffsetDateTime dateValidation;
+    private String numeroSiege;
+    private String trajet;
+    private int nombreScans;    // > 1 : code scanné plusieurs fois dans le lot (premier scan retenu)
+}
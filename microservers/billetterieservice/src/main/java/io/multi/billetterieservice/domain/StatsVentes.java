@@ -0,0 +1,28 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ventes d'un jour (ou d'une période si jour est null), lues sur stats_ventes_jour (V48).
+ * commandes / places / montant : commandes non annulées ;
+ * annulations / placesAnnulees / montantAnnule : commandes ANNULEE ou REMBOURSEE.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsVentes {
+    private LocalDate jour;
+    private long commandes;
+    private long places;
+    private BigDecimal montant;
+    private long annulations;
+    private long placesAnnulees;
+    private BigDecimal montantAnnule;
+}
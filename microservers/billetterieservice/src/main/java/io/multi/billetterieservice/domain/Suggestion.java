@@ -0,0 +1,27 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat d'autocomplétion (ville, site, trajet, commune ou quartier).
+ * contexte : rattachement affiché sous le libellé (ex. "Kaloum, Conakry").
+ * popularite : réservations récentes rattachées à l'élément (critère de classement).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+
+    /** Ordre de déclaration = priorité à popularité égale. */
+    public enum Type { VILLE, SITE, TRAJET, COMMUNE, QUARTIER }
+
+    private Type type;
+    private String uuid;
+    private String libelle;
+    private String contexte;
+    private long popularite;
+}
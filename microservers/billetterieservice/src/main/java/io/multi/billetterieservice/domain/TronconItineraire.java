@@ -0,0 +1,33 @@
+package io.multi.billetterieservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Tronçon d'un itinéraire : une offre datée, réservable séparément.
+ * arrivee : heure d'arrivée estimée (heure_arrivee_estimee ou durée du trajet).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TronconItineraire {
+    private String offreUuid;
+    private String trajetLibelle;
+    private String villeDepartUuid;
+    private String villeDepartLibelle;
+    private String siteDepart;
+    private String villeArriveeUuid;
+    private String villeArriveeLibelle;
+    private String siteArrivee;
+    private LocalDateTime depart;
+    private LocalDateTime arrivee;
+    private Integer placesDisponibles;
+    private BigDecimal montant;
+    private String devise;
+}
@@ -0,0 +1,25 @@
+package io.multi.billetterieservice.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlocagePlacesRequest {
+
+    @NotBlank(message = "L'offre est obligatoire")
+    private String offreUuid;
+
+    @NotNull(message = "Le nombre de places est obligatoire")
+    @Min(value = 1, message = "Au moins une place doit être bloquée")
+    @Max(value = 20, message = "Au plus 20 places peuvent être bloquées")
+    private Integer nombrePlaces;
+}
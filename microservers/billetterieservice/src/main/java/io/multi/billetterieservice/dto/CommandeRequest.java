@@ -31,6 +31,9 @@ public class CommandeRequest {
     @NotNull(message = "Le montant total est obligatoire")
     private BigDecimal montantTotal;
 
+    /** Blocage de places obtenu à l'ouverture du formulaire (optionnel). */
+    private String blocageUuid;
+
     @Data
     @Builder
     @NoArgsConstructor
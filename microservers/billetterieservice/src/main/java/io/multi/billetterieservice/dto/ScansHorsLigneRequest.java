@@ -0,0 +1,38 @@
+package io.multi.billetterieservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScansHorsLigneRequest {
+
+    @NotEmpty(message = "Au moins un scan est requis")
+    @Size(max = 1000, message = "1000 scans maximum par envoi")
+    @Valid
+    private List<ScanDto> scans;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ScanDto {
+        @NotBlank(message = "Le code billet est obligatoire")
+        private String codeBillet;
+
+        @NotNull(message = "La date du scan est obligatoire")
+        private OffsetDateTime scanneLe;
+    }
+}
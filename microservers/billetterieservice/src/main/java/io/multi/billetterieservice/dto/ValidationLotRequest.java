@@ -0,0 +1,23 @@
+package io.multi.billetterieservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidationLotRequest {
+
+    /** Codes billet saisis ou QR signés, dans l'ordre de passage */
+    @NotEmpty(message = "Au moins un code est requis")
+    @Size(max = 200, message = "200 codes maximum par lot")
+    private List<@NotBlank(message = "Code billet vide") String> codes;
+}
@@ -0,0 +1,22 @@
+package io.multi.billetterieservice.exception;
+
+import lombok.Getter;
+
+/**
+ * Offre complète (ou plus assez de places) au moment de la réservation.
+ * Levée sous verrou / par UPDATE conditionnel : le client peut la distinguer
+ * d'une erreur de validation (HTTP 409, statut COMPLET).
+ */
+@Getter
+public class PlacesInsuffisantesException extends ApiException {
+    private final String offreUuid;
+    private final int placesDisponibles;
+    private final int placesDemandees;
+
+    public PlacesInsuffisantesException(String offreUuid, int placesDisponibles, int placesDemandees) {
+        super("Places insuffisantes. Disponibles: " + placesDisponibles + ", demandées: " + placesDemandees);
+        this.offreUuid = offreUuid;
+        this.placesDisponibles = placesDisponibles;
+        this.placesDemandees = placesDemandees;
+    }
+}
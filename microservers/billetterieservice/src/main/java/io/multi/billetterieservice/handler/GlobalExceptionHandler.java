@@ -1,6 +1,7 @@
 package io.multi.billetterieservice.handler;
 
 import io.multi.billetterieservice.exception.BilletAlreadyUsedException;
+import io.multi.billetterieservice.exception.PlacesInsuffisantesException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,6 +24,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
 
+    @ExceptionHandler(PlacesInsuffisantesException.class)
+    public ResponseEntity<Map<String, Object>> handlePlacesInsuffisantes(PlacesInsuffisantesException e) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", e.getMessage());
+        body.put("status", "COMPLET");
+        body.put("offreUuid", e.getOffreUuid());
+        body.put("placesDisponibles", e.getPlacesDisponibles());
+        body.put("placesDemandees", e.getPlacesDemandees());
+        body.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException e) {
         Map<String, String> error = new HashMap<>();
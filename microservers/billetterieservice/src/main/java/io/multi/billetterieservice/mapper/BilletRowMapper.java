@@ -0,0 +1,35 @@
+package io.multi.billetterieservice.mapper;
+
+import io.multi.billetterieservice.domain.Billet;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+
+/**
+ * RowMapper pour convertir les résultats SQL en objets Billet (colonnes de la table billets).
+ */
+@Component
+public class BilletRowMapper implements RowMapper<Billet> {
+
+    @Override
+    public Billet mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return Billet.builder()
+                .billetId(rs.getLong("billet_id"))
+                .billetUuid(rs.getString("billet_uuid"))
+                .commandeId(rs.getLong("commande_id"))
+                .codeBillet(rs.getString("code_billet"))
+                .numeroSiege(rs.getString("numero_siege"))
+                .nomPassager(rs.getString("nom_passager"))
+                .telephonePassager(rs.getString("telephone_passager"))
+                .pieceIdentite(rs.getString("piece_identite"))
+                .statut(rs.getString("statut"))
+                .dateValidation(rs.getObject("date_validation", OffsetDateTime.class))
+                .qrCodeData(rs.getString("qr_code_data"))
+                .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+                .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
+                .build();
+    }
+}
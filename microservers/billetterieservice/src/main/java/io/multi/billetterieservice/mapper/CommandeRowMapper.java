@@ -0,0 +1,59 @@
+package io.multi.billetterieservice.mapper;
+
+import io.multi.billetterieservice.domain.Commande;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+
+/**
+ * RowMapper pour convertir les résultats SQL en objets Commande
+ * (commande + offre/trajet/véhicule des requêtes FIND_COMMANDE*). Les billets sont chargés à part.
+ */
+@Component
+public class CommandeRowMapper implements RowMapper<Commande> {
+
+    @Override
+    public Commande mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return Commande.builder()
+                .commandeId(rs.getLong("commande_id"))
+                .commandeUuid(rs.getString("commande_uuid"))
+                .numeroCommande(rs.getString("numero_commande"))
+                .offreId(rs.getLong("offre_id"))
+                .userId(rs.getLong("user_id"))
+                .modeReglementId(rs.getLong("mode_reglement_id"))
+                .nombrePlaces(rs.getInt("nombre_places"))
+                .montantUnitaire(rs.getBigDecimal("montant_unitaire"))
+                .montantTotal(rs.getBigDecimal("montant_total"))
+                .montantFrais(rs.getBigDecimal("montant_frais"))
+                .montantRemise(rs.getBigDecimal("montant_remise"))
+                .montantPaye(rs.getBigDecimal("montant_paye"))
+                .devise(rs.getString("devise"))
+                .statut(rs.getString("statut"))
+                .dateReservation(rs.getObject("date_reservation", OffsetDateTime.class))
+                .dateConfirmation(rs.getObject("date_confirmation", OffsetDateTime.class))
+                .datePaiement(rs.getObject("date_paiement", OffsetDateTime.class))
+                .referencePaiement(rs.getString("reference_paiement"))
+                .notes(rs.getString("notes"))
+                .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+                .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
+                .offreUuid(rs.getString("offre_uuid"))
+                .dateDepart(rs.getObject("date_depart", LocalDate.class))
+                .heureDepart(rs.getObject("heure_depart", LocalTime.class))
+                .villeDepartLibelle(rs.getString("ville_depart_libelle"))
+                .villeArriveeLibelle(rs.getString("ville_arrivee_libelle"))
+                .siteDepart(rs.getString("site_depart"))
+                .siteArrivee(rs.getString("site_arrivee"))
+                .vehiculeImmatriculation(rs.getString("vehicule_immatriculation"))
+                .nomChauffeur(rs.getString("nom_chauffeur"))
+                .contactChauffeur(rs.getString("contact_chauffeur"))
+                .niveauRemplissage(rs.getObject("niveau_remplissage", Integer.class))
+                .pointRendezVous(rs.getString("point_rendez_vous"))
+                .typeVehicule(rs.getString("type_vehicule"))
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package io.multi.billetterieservice.query;
+
+public final class AutocompletionQuery {
+
+    private AutocompletionQuery() {}
+
+    /**
+     * Réservations récentes (hors annulées / remboursées) par trajet : base du
+     * classement, répercutée sur les sites, villes, communes et quartiers desservis.
+     */
+    public static final String POPULARITE_TRAJETS = """
+        SELECT t.trajet_uuid, COUNT(*) AS reservations
+        FROM commandes c
+        INNER JOIN offres o ON o.offre_id = c.offre_id
+        INNER JOIN trajets t ON t.trajet_id = o.trajet_id
+        WHERE c.date_reservation >= now() - CAST(:fenetre AS INTERVAL)
+          AND c.statut NOT IN ('ANNULEE', 'REMBOURSEE')
+        GROUP BY t.trajet_uuid
+        """;
+}
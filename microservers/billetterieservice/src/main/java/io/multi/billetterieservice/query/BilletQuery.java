@@ -40,4 +40,188 @@ public final class BilletQuery {
     public static final String COUNT_NON_UTILISE_BY_COMMANDE = """
         SELECT COUNT(*) FROM billets WHERE commande_id = :commandeId AND statut != 'UTILISE'
         """;
+
+    // ========== MANIFESTE HORS LIGNE (CONTRÔLEURS) ==========
+
+    /** Borne haute du delta : toute transaction d'identifiant inférieur est terminée (V41). */
+    public static final String SNAPSHOT_XMIN = """
+        SELECT pg_snapshot_xmin(pg_current_snapshot())::TEXT::BIGINT
+        """;
+
+    private static final String MANIFESTE_SELECT = """
+        SELECT b.code_billet, b.nom_passager, b.numero_siege, b.statut,
+               b.date_validation, b.version, o.offre_uuid, o.heure_depart
+        FROM billets b
+        INNER JOIN commandes c ON b.commande_id = c.commande_id
+        INNER JOIN offres o ON c.offre_id = o.offre_id
+        """;
+
+    // :operateurId NULL = contrôleur ou admin (toutes les offres) ; sinon offres de ce transporteur seulement
+
+    public static final String FIND_MANIFESTE_BY_OFFRE = MANIFESTE_SELECT + """
+        WHERE o.offre_uuid = :offreUuid
+          AND (CAST(:operateurId AS BIGINT) IS NULL OR o.user_id = CAST(:operateurId AS BIGINT))
+          AND b.version >= :depuis AND b.version < :jusqua
+        ORDER BY b.billet_id
+        """;
+
+    /** Tous les départs d'un site (gare) pour un jour donné. */
+    public static final String FIND_MANIFESTE_BY_SITE_DATE = MANIFESTE_SELECT + """
+        INNER JOIN trajets t ON o.trajet_id = t.trajet_id
+        INNER JOIN departs dep ON t.depart_id = dep.depart_id
+        INNER JOIN sites sd ON dep.site_id = sd.site_id
+        WHERE sd.site_uuid = :siteUuid
+          AND o.date_depart = :dateDepart
+          AND (CAST(:operateurId AS BIGINT) IS NULL OR o.user_id = CAST(:operateurId AS BIGINT))
+          AND b.version >= :depuis AND b.version < :jusqua
+        ORDER BY o.heure_depart, b.billet_id
+        """;
+
+    /** Billets sortis de l'offre (commande déplacée, V52) sur la même fenêtre de versions. */
+    public static final String FIND_RETRAITS_BY_OFFRE = """
+        SELECT r.code_billet, r.motif
+        FROM billets_retraits r
+        INNER JOIN offres o ON r.offre_id = o.offre_id
+        WHERE o.offre_uuid = :offreUuid
+          AND (CAST(:operateurId AS BIGINT) IS NULL OR o.user_id = CAST(:operateurId AS BIGINT))
+          AND r.version >= :depuis AND r.version < :jusqua
+        ORDER BY r.retrait_id
+        """;
+
+    public static final String FIND_RETRAITS_BY_SITE_DATE = """
+        SELECT r.code_billet, r.motif
+        FROM billets_retraits r
+        INNER JOIN offres o ON r.offre_id = o.offre_id
+        INNER JOIN trajets t ON o.trajet_id = t.trajet_id
+        INNER JOIN departs dep ON t.depart_id = dep.depart_id
+        INNER JOIN sites sd ON dep.site_id = sd.site_id
+        WHERE sd.site_uuid = :siteUuid
+          AND o.date_depart = :dateDepart
+          AND (CAST(:operateurId AS BIGINT) IS NULL OR o.user_id = CAST(:operateurId AS BIGINT))
+          AND r.version >= :depuis AND r.version < :jusqua
+        ORDER BY r.retrait_id
+        """;
+
+    /**
+     * Retraits des offres parties depuis plus de :joursConservation jours (ou supprimées) :
+     * plus aucun contrôleur ne charge leur manifeste.
+     */
+    public static final String PURGER_RETRAITS = """
+        DELETE FROM billets_retraits r
+        WHERE NOT EXISTS (
+            SELECT 1 FROM offres o
+            WHERE o.offre_id = r.offre_id
+              AND o.date_depart >= CURRENT_DATE - CAST(:joursConservation AS INTEGER)
+        )
+        """;
+
+    public static final String EXISTS_OFFRE_OPERATEUR = """
+        SELECT EXISTS (SELECT 1 FROM offres WHERE offre_uuid = :offreUuid AND user_id = :operateurId)
+        """;
+
+    /**
+     * Rejoue un lot de scans hors ligne en une instruction. Un code scanné
+     * plusieurs fois (plusieurs appareils) garde son premier scan. La CTE
+     * "avant" lit l'état antérieur (même snapshot que l'UPDATE) : un billet non
+     * mis à jour était déjà utilisé, annulé, inconnu ou présenté avec un QR
+     * remplacé depuis (:qrCodes aligné sur :codes, NULL pour un code saisi).
+     * Un billet hors des offres de :operateurId (transporteur qui n'est pas
+     * contrôleur) n'est ni lu ni modifié : il ressort INCONNU.
+     */
+    public static final String REJOUER_SCANS = """
+        WITH scans AS (
+            SELECT s.code_billet, MIN(s.scanne_le) AS scanne_le, COUNT(*) AS nombre_scans, MAX(s.qr_code) AS qr_code
+            FROM unnest(CAST(:codes AS TEXT[]), CAST(CAST(:scannesLe AS TEXT[]) AS TIMESTAMPTZ[]),
+                        CAST(:qrCodes AS TEXT[]))
+                 AS s(code_billet, scanne_le, qr_code)
+            GROUP BY s.code_billet
+        ),
+        avant AS (
+            SELECT b.billet_id, b.code_billet, b.commande_id, b.statut, b.date_validation, b.nom_passager,
+                   (s.qr_code IS NOT NULL AND s.qr_code IS DISTINCT FROM b.qr_code_data) AS qr_perime
+            FROM billets b
+            INNER JOIN scans s ON s.code_billet = b.code_billet
+            INNER JOIN commandes cb ON cb.commande_id = b.commande_id
+            INNER JOIN offres ob ON ob.offre_id = cb.offre_id
+            WHERE CAST(:operateurId AS BIGINT) IS NULL OR ob.user_id = CAST(:operateurId AS BIGINT)
+        ),
+        maj AS (
+            UPDATE billets b SET statut = 'UTILISE', date_validation = s.scanne_le,
+                   valide_par = :validePar, updated_at = CURRENT_TIMESTAMP
+            FROM scans s, avant a
+            WHERE b.code_billet = s.code_billet AND a.billet_id = b.billet_id
+              AND b.statut = 'VALIDE' AND NOT a.qr_perime
+            RETURNING b.billet_id
+        )
+        SELECT s.code_billet, s.scanne_le, s.nombre_scans, a.billet_id, a.commande_id,
+               a.statut AS statut_avant, a.date_validation AS date_validation_avant,
+               a.nom_passager, a.qr_perime, (m.billet_id IS NOT NULL) AS valide
+        FROM scans s
+        LEFT JOIN avant a ON a.code_billet = s.code_billet
+        LEFT JOIN maj m ON m.billet_id = a.billet_id
+        """;
+
+    /**
+     * Validation en lot à l'embarquement (un seul aller-retour) : billets VALIDE
+     * passés UTILISE, QR périmés exclus, avec de quoi notifier les voyageurs.
+     * :qrCodes est aligné sur :codes (NULL pour un code saisi). Villes lues dans
+     * offre_search, recalculées depuis les tables de base (v_offre_search_source)
+     * si la ligne manque. Un billet hors des offres de :operateurId (transporteur
+     * qui n'est pas contrôleur) n'est ni lu ni modifié : il ressort INCONNU.
+     */
+    public static final String VALIDER_LOT = """
+        WITH scans AS (
+            SELECT s.code_billet, MIN(s.ordre) AS ordre, COUNT(*) AS nombre_scans, MAX(s.qr_code) AS qr_code
+            FROM unnest(CAST(:codes AS TEXT[]), CAST(:qrCodes AS TEXT[])) WITH ORDINALITY
+                 AS s(code_billet, qr_code, ordre)
+            GROUP BY s.code_billet
+        ),
+        avant AS (
+            SELECT b.billet_id, b.code_billet, b.commande_id, b.statut, b.date_validation,
+                   b.nom_passager, b.telephone_passager, b.numero_siege,
+                   (s.qr_code IS NOT NULL AND s.qr_code IS DISTINCT FROM b.qr_code_data) AS qr_perime
+            FROM billets b
+            INNER JOIN scans s ON s.code_billet = b.code_billet
+            INNER JOIN commandes cb ON cb.commande_id = b.commande_id
+            INNER JOIN offres ob ON ob.offre_id = cb.offre_id
+            WHERE CAST(:operateurId AS BIGINT) IS NULL OR ob.user_id = CAST(:operateurId AS BIGINT)
+        ),
+        maj AS (
+            UPDATE billets b SET statut = 'UTILISE', date_validation = CURRENT_TIMESTAMP,
+                   valide_par = :validePar, updated_at = CURRENT_TIMESTAMP
+            FROM avant a
+            WHERE b.billet_id = a.billet_id AND b.statut = 'VALIDE' AND NOT a.qr_perime
+            RETURNING b.billet_id, b.date_validation
+        )
+        SELECT s.code_billet, s.nombre_scans, a.billet_id, a.commande_id,
+               a.statut AS statut_avant, a.date_validation AS date_validation_avant,
+               a.nom_passager, a.telephone_passager, a.numero_siege, a.qr_perime,
+               (m.billet_id IS NOT NULL) AS valide, m.date_validation,
+               c.user_id, o.date_depart,
+               COALESCE(os.ville_depart_libelle, src.ville_depart_libelle) AS ville_depart_libelle,
+               COALESCE(os.ville_arrivee_libelle, src.ville_arrivee_libelle) AS ville_arrivee_libelle
+        FROM scans s
+        LEFT JOIN avant a ON a.code_billet = s.code_billet
+        LEFT JOIN maj m ON m.billet_id = a.billet_id
+        LEFT JOIN commandes c ON c.commande_id = a.commande_id
+        LEFT JOIN offres o ON o.offre_id = c.offre_id
+        LEFT JOIN offre_search os ON os.offre_id = c.offre_id
+        LEFT JOIN LATERAL (
+            SELECT v.ville_depart_libelle, v.ville_arrivee_libelle
+            FROM v_offre_search_source v
+            WHERE v.offre_id = c.offre_id AND os.offre_id IS NULL
+        ) src ON TRUE
+        ORDER BY s.ordre
+        """;
+
+    /** Commandes dont tous les billets sont utilisés → UTILISEE (en lot). */
+    public static final String UPDATE_COMMANDES_UTILISEES = """
+        UPDATE commandes c SET statut = 'UTILISEE', updated_at = CURRENT_TIMESTAMP
+        WHERE c.commande_id = ANY(:commandeIds)
+          AND c.statut <> 'UTILISEE'
+          AND NOT EXISTS (
+              SELECT 1 FROM billets b
+              WHERE b.commande_id = c.commande_id AND b.statut <> 'UTILISE'
+          )
+        """;
 }
@@ -0,0 +1,89 @@
+package io.multi.billetterieservice.query;
+
+public final class BlocagePlacesQuery {
+
+    private BlocagePlacesQuery() {}
+
+    /** Même verrou que la création de commande : blocages et commandes d'une offre sont sérialisés. */
+    public static final String LOCK_OFFRE = """
+        SELECT offre_id, statut, nombre_places_disponibles
+        FROM offres
+        WHERE offre_uuid = :offreUuid
+        FOR UPDATE
+        """;
+
+    /**
+     * Places bloquées par les autres : le blocage consommé par la commande en
+     * cours n'est exclu que s'il appartient bien à l'acheteur.
+     */
+    public static final String SUM_PLACES_BLOQUEES = """
+        SELECT COALESCE(SUM(nombre_places), 0)
+        FROM blocages_places
+        WHERE offre_id = :offreId
+          AND statut = 'ACTIVE'
+          AND expire_at > now()
+          AND (CAST(:exclureUuid AS VARCHAR) IS NULL
+               OR blocage_uuid <> CAST(:exclureUuid AS VARCHAR)
+               OR user_id IS DISTINCT FROM CAST(:userId AS BIGINT))
+        """;
+
+    /**
+     * Places bloquées par offre pour l'affichage d'une page (index partiel idx_blocages_places_offre_actifs),
+     * hors blocages de l'utilisateur qui consulte.
+     */
+    public static final String SUM_PLACES_BLOQUEES_BY_OFFRES = """
+        SELECT offre_id, SUM(nombre_places)::INTEGER AS places_bloquees
+        FROM blocages_places
+        WHERE offre_id IN (:offreIds)
+          AND statut = 'ACTIVE'
+          AND expire_at > now()
+          AND user_id IS DISTINCT FROM CAST(:exclureUserId AS BIGINT)
+        GROUP BY offre_id
+        """;
+
+    public static final String INSERT = """
+        INSERT INTO blocages_places (offre_id, user_id, nombre_places, expire_at)
+        VALUES (:offreId, :userId, :nombrePlaces, now() + make_interval(secs => :ttlSecondes))
+        RETURNING blocage_id, blocage_uuid, statut, expire_at, created_at
+        """;
+
+    /** Un seul blocage actif par utilisateur et par offre : le précédent est libéré. */
+    public static final String LIBERER_BY_USER_AND_OFFRE = """
+        UPDATE blocages_places SET statut = 'LIBERE'
+        WHERE offre_id = :offreId AND user_id = :userId AND statut = 'ACTIVE'
+        RETURNING blocage_uuid
+        """;
+
+    public static final String LIBERER = """
+        UPDATE blocages_places SET statut = 'LIBERE'
+        WHERE blocage_uuid = :blocageUuid AND user_id = :userId AND statut = 'ACTIVE'
+        """;
+
+    public static final String CONSOMMER = """
+        UPDATE blocages_places SET statut = 'CONSOMME', commande_id = :commandeId
+        WHERE blocage_uuid = :blocageUuid
+          AND user_id = :userId
+          AND offre_id = :offreId
+          AND statut = 'ACTIVE'
+          AND expire_at > now()
+        RETURNING nombre_places
+        """;
+
+    public static final String EXPIRER = """
+        UPDATE blocages_places SET statut = 'EXPIRE'
+        WHERE blocage_uuid IN (:uuids) AND statut = 'ACTIVE'
+        """;
+
+    /** Rechargement de la roue au démarrage (index partiel sur les actifs). */
+    public static final String FIND_ACTIFS = """
+        SELECT b.blocage_uuid, b.offre_id, b.nombre_places, b.expire_at
+        FROM blocages_places b
+        WHERE b.statut = 'ACTIVE'
+        """;
+
+    /** Filet de sécurité : blocages d'une instance arrêtée avant leur échéance. */
+    public static final String EXPIRER_ORPHELINS = """
+        UPDATE blocages_places SET statut = 'EXPIRE'
+        WHERE statut = 'ACTIVE' AND expire_at < now() - INTERVAL '5 minutes'
+        """;
+}
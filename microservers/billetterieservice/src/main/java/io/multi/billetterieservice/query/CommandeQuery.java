@@ -11,20 +11,53 @@ public final class CommandeQuery {
         WHERE code = :code AND actif = true
         """;
 
+    /**
+     * Verrou de ligne sur l'offre pendant la création de commande.
+     * Les commandes concurrentes sur la même offre sont sérialisées jusqu'au
+     * commit : le contrôle des places et la décrémentation par le trigger
+     * update_offre_places se font sous le même verrou (plus de survente).
+     */
+    public static final String LOCK_OFFRE_PLACES = """
+        SELECT offre_id, statut, nombre_places_disponibles
+        FROM offres
+        WHERE offre_uuid = :offreUuid
+        FOR UPDATE
+        """;
+
     public static final String INSERT_COMMANDE = """
-        INSERT INTO commandes (offre_id, user_id, mode_reglement_id, nombre_places,
+        INSERT INTO commandes (numero_commande, offre_id, user_id, mode_reglement_id, nombre_places,
                                montant_unitaire, montant_total, montant_frais, montant_paye,
                                devise, statut, date_confirmation, date_paiement, reference_paiement)
-        VALUES (:offreId, :userId, :modeReglementId, :nombrePlaces,
+        VALUES (:numeroCommande, :offreId, :userId, :modeReglementId, :nombrePlaces,
                 :montantUnitaire, :montantTotal, :montantFrais, :montantPaye,
                 :devise, :statut, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, :referencePaiement)
         RETURNING commande_id, commande_uuid, numero_commande, created_at
         """;
 
-    public static final String INSERT_BILLET = """
+    /**
+     * Réserve un bloc de numéros sur le compteur du jour (V42, voir AllocateurNumeroCommande) :
+     * à exécuter en autocommit, le verrou de la ligne du jour ne dure que l'instruction.
+     * Le jour et sa fin sont ceux de la base (fuseau de session), pas de la JVM.
+     */
+    public static final String RESERVER_NUMEROS_COMMANDE = """
+        SELECT jour, CAST(jour + 1 AS TIMESTAMPTZ) AS fin_jour, dernier
+        FROM reserver_numeros_commande(:taille)
+        """;
+
+    /**
+     * Tous les billets d'une commande en un seul aller-retour : un tableau par
+     * colonne, déroulé par unnest dans l'ordre des passagers (billet_id croissant).
+     */
+    public static final String INSERT_BILLETS = """
         INSERT INTO billets (commande_id, nom_passager, telephone_passager, piece_identite)
-        VALUES (:commandeId, :nomPassager, :telephonePassager, :pieceIdentite)
-        RETURNING billet_id, billet_uuid, code_billet, statut, created_at
+        SELECT :commandeId, p.nom_passager, p.telephone_passager, p.piece_identite
+        FROM unnest(CAST(:nomsPassagers AS TEXT[]),
+                    CAST(:telephonesPassagers AS TEXT[]),
+                    CAST(:piecesIdentite AS TEXT[]))
+             WITH ORDINALITY AS p(nom_passager, telephone_passager, piece_identite, ordre)
+        ORDER BY p.ordre
+        RETURNING billet_id, billet_uuid, code_billet, statut, created_at,
+                  nom_passager, telephone_passager, piece_identite
         """;
 
     public static final String INSERT_PAIEMENT = """
@@ -103,7 +136,12 @@ public final class CommandeQuery {
         LEFT JOIN communes ca ON qa.commune_id = ca.commune_id
         LEFT JOIN villes va ON ca.ville_id = va.ville_id
         WHERE c.user_id = :userId
-        ORDER BY o.date_depart DESC, c.created_at DESC
+        ORDER BY o.date_depart DESC, c.created_at DESC, c.commande_id DESC
+        LIMIT CAST(:limit AS INTEGER) OFFSET :offset -- limit NULL : toutes les commandes
+        """;
+
+    public static final String COUNT_COMMANDES_BY_USER_ID = """
+        SELECT COUNT(*) FROM commandes WHERE user_id = :userId
         """;
 
     public static final String ANNULER_COMMANDE = """
@@ -127,6 +165,13 @@ public final class CommandeQuery {
           AND statut IN ('CONFIRMEE', 'PAYEE')
         """;
 
+    /** QR codes signés des billets d'une commande, en un seul UPDATE (tableaux alignés). */
+    public static final String UPDATE_QR_CODES = """
+        UPDATE billets b SET qr_code_data = q.qr_code_data, updated_at = CURRENT_TIMESTAMP
+        FROM unnest(CAST(:billetIds AS BIGINT[]), CAST(:qrCodes AS TEXT[])) AS q(billet_id, qr_code_data)
+        WHERE b.billet_id = q.billet_id
+        """;
+
     public static final String UPDATE_COMMANDE_STATUT_UTILISEE = """
         UPDATE commandes SET statut = 'UTILISEE', updated_at = CURRENT_TIMESTAMP
         WHERE commande_id = :commandeId
@@ -140,4 +185,14 @@ public final class CommandeQuery {
         WHERE commande_id = :commandeId
         ORDER BY billet_id ASC
         """;
+
+    /** Billets d'une page de commandes en une requête (regroupés par commande côté Java). */
+    public static final String FIND_BILLETS_BY_COMMANDE_IDS = """
+        SELECT billet_id, billet_uuid, commande_id, code_billet, numero_siege,
+               nom_passager, telephone_passager, piece_identite, statut,
+               date_validation, valide_par, qr_code_data, created_at, updated_at
+        FROM billets
+        WHERE commande_id = ANY(:commandeIds)
+        ORDER BY commande_id, billet_id ASC
+        """;
 }
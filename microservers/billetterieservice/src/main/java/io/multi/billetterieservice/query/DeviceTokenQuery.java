@@ -18,7 +18,17 @@ public final class DeviceTokenQuery {
         SELECT token FROM device_tokens WHERE user_id = :userId
         """;
 
+    /** Tokens de plusieurs utilisateurs en une requête (envoi multicast groupé). */
+    public static final String FIND_TOKENS_BY_USERS = """
+        SELECT user_id, token FROM device_tokens WHERE user_id = ANY(:userIds)
+        """;
+
     public static final String DELETE_BY_TOKEN = """
         DELETE FROM device_tokens WHERE token = :token
         """;
+
+    /** Purge groupée des tokens signalés morts par FCM. */
+    public static final String DELETE_BY_TOKENS = """
+        DELETE FROM device_tokens WHERE token = ANY(:tokens)
+        """;
 }
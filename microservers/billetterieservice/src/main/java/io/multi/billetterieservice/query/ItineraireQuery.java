@@ -0,0 +1,49 @@
+package io.multi.billetterieservice.query;
+
+/**
+ * Requêtes du moteur d'itinéraires : les offres datées sont les arcs du graphe
+ * des villes (lues sur le modèle de lecture offre_search, V40).
+ */
+public final class ItineraireQuery {
+
+    private ItineraireQuery() {
+        // Classe utilitaire - pas d'instanciation
+    }
+
+    private static final String SELECT_CONNEXIONS = """
+        SELECT
+            o.offre_id,
+            o.offre_uuid,
+            o.statut,
+            o.trajet_libelle,
+            o.ville_depart_uuid,
+            o.ville_depart_libelle,
+            o.site_depart,
+            o.ville_arrivee_uuid,
+            o.ville_arrivee_libelle,
+            o.site_arrivee,
+            o.date_depart,
+            o.heure_depart,
+            o.heure_arrivee_estimee,
+            o.trajet_duree_minutes,
+            o.nombre_places_disponibles,
+            o.montant,
+            o.montant_promotion,
+            o.devise,
+            o.updated_at
+        FROM offre_search o
+        """;
+
+    // Chargement complet : offres réservables sur l'horizon de recherche
+    public static final String FIND_CONNEXIONS = SELECT_CONNEXIONS + """
+        WHERE o.statut = 'OUVERT'
+          AND o.nombre_places_disponibles > 0
+          AND o.date_depart BETWEEN CURRENT_DATE AND CURRENT_DATE + :horizonJours
+        """;
+
+    // Rafraîchissement incrémental (idx_offre_search_updated_at, V47) : toutes les
+    // lignes modifiées, réservables ou non (une offre fermée sort du graphe)
+    public static final String FIND_MODIFIEES_DEPUIS = SELECT_CONNEXIONS + """
+        WHERE o.updated_at > :depuis
+        """;
+}
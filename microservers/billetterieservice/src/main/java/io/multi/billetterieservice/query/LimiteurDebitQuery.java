@@ -0,0 +1,28 @@
+package io.multi.billetterieservice.query;
+
+public class LimiteurDebitQuery {
+
+    /**
+     * Prélève un jeton dans le seau partagé :cle (créé plein au premier appel).
+     * Remplissage au prorata du temps écoulé, plafonné à :rafale. Une ligne
+     * retournée = jeton obtenu ; aucune = seau vide (la ligne n'est pas modifiée).
+     */
+    public static final String ACQUERIR = """
+        INSERT INTO limiteurs_debit AS l (cle, jetons, maj)
+        VALUES (:cle, CAST(:rafale AS DOUBLE PRECISION) - 1, now())
+        ON CONFLICT (cle) DO UPDATE
+            SET jetons = LEAST(CAST(:rafale AS DOUBLE PRECISION),
+                               l.jetons + EXTRACT(EPOCH FROM now() - l.maj)::DOUBLE PRECISION * :debit) - 1,
+                maj = now()
+            WHERE LEAST(CAST(:rafale AS DOUBLE PRECISION),
+                        l.jetons + EXTRACT(EPOCH FROM now() - l.maj)::DOUBLE PRECISION * :debit) >= 1
+        RETURNING l.jetons
+        """;
+
+    public static final String JETONS_DISPONIBLES = """
+        SELECT LEAST(CAST(:rafale AS DOUBLE PRECISION),
+                     jetons + EXTRACT(EPOCH FROM now() - maj)::DOUBLE PRECISION * :debit)
+        FROM limiteurs_debit
+        WHERE cle = :cle
+        """;
+}
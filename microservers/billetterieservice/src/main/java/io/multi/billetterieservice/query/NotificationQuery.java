@@ -1,5 +1,11 @@
 package io.multi.billetterieservice.query;
 
+// Table partitionnée par mois de created_at (V51) : la clé primaire et l'unicité
+// de notification_uuid incluent created_at. PostgreSQL ne garantit plus qu'un
+// UUID est unique sur toute la table, seulement par instant de création ;
+// uuid_generate_v4() rend la collision négligeable mais rien ne l'interdit.
+// Toute recherche par notification_id ou notification_uuid doit porter aussi une
+// borne sur created_at, sans quoi chaque partition est ouverte.
 public final class NotificationQuery {
 
     private NotificationQuery() {}
@@ -12,24 +18,105 @@ public final class NotificationQuery {
         RETURNING notification_id, notification_uuid, created_at
         """;
 
+    /** Insertion en lot (tableaux alignés, même type/catégorie/titre pour tout le lot). */
+    public static final String INSERT_LOT = """
+        INSERT INTO notifications (user_id, type_notification, categorie, titre, message,
+                                    envoyee, date_envoi, reference_id, reference_type)
+        SELECT n.user_id, :typeNotification, :categorie, :titre, n.message,
+               :envoyee, CURRENT_TIMESTAMP, n.reference_id, :referenceType
+        FROM unnest(CAST(:userIds AS BIGINT[]), CAST(:messages AS TEXT[]), CAST(:referenceIds AS BIGINT[]))
+             AS n(user_id, message, reference_id)
+        """;
+
+    // Fil d'un utilisateur, pagination keyset sur (created_at, notification_id) décroissants
+    // (index idx_notifications_user_fil). %s : AVANT_CURSEUR à partir de la deuxième page.
     public static final String FIND_BY_USER_ID = """
         SELECT notification_id, notification_uuid, user_id, type_notification, categorie,
                titre, message, lue, envoyee, date_envoi, date_lecture,
                reference_id, reference_type, metadata::text AS metadata, created_at
         FROM notifications
         WHERE user_id = :userId
-        ORDER BY created_at DESC
-        LIMIT :limit OFFSET :offset
+        %s
+        ORDER BY created_at DESC, notification_id DESC
+        LIMIT :limit
+        """;
+
+    public static final String AVANT_CURSEUR = """
+          AND (created_at, notification_id) < (:curseurDate, :curseurId)
+        """;
+
+    // Ancienne pagination par numéro de page (?page=&size=), gardée le temps que les
+    // applications passent au curseur : OFFSET relit toutes les pages précédentes.
+    public static final String FIND_BY_USER_ID_PAGE = FIND_BY_USER_ID.formatted("") + """
+        OFFSET :offset
+        """;
+
+    // Notifications arrivées depuis le dernier envoi d'un flux SSE. La borne sur
+    // created_at limite la lecture aux lignes récentes du fil.
+    public static final String FIND_NOUVELLES = """
+        SELECT notification_id, notification_uuid, user_id, type_notification, categorie,
+               titre, message, lue, envoyee, date_envoi, date_lecture,
+               reference_id, reference_type, metadata::text AS metadata, created_at
+        FROM notifications
+        WHERE user_id = :userId AND created_at >= :depuis AND notification_id > :apresId
+        ORDER BY notification_id
+        LIMIT :limit
         """;
 
+    public static final String FIND_DERNIER_ID = """
+        SELECT COALESCE(MAX(notification_id), 0) FROM notifications
+        WHERE user_id = :userId AND created_at >= :depuis
+        """;
+
+    // Relais des avis de notifications (journal V50) : vide un lot du journal et renvoie,
+    // par utilisateur touché, le compteur courant et le nombre de nouvelles notifications.
+    public static final String RELAYER_NOTIFICATIONS = """
+        WITH lot AS (
+            DELETE FROM notifications_journal
+            WHERE journal_id IN (SELECT journal_id FROM notifications_journal ORDER BY journal_id LIMIT :taille)
+            RETURNING user_id, nouvelles
+        ), cumul AS (
+            SELECT user_id, SUM(nouvelles)::INTEGER AS nouvelles, COUNT(*) AS lignes
+            FROM lot
+            GROUP BY user_id
+        )
+        SELECT c.lignes,
+               json_build_object(
+                   'userId', c.user_id,
+                   'nonLues', COALESCE(n.non_lues, 0),
+                   'nouvelles', c.nouvelles
+               )::text AS avis
+        FROM cumul c
+        LEFT JOIN notifications_non_lues n ON n.user_id = c.user_id
+        ORDER BY c.user_id
+        """;
+
+    public static final String VERROU_RELAIS_NOTIFICATIONS = """
+        SELECT pg_try_advisory_xact_lock(:verrou)
+        """;
+
+    public static final String NOTIFIER_NOTIFICATIONS = """
+        SELECT pg_notify('notifications_in_app', :charge)
+        """;
+
+    // Compteur tenu par les triggers de V50
     public static final String COUNT_UNREAD = """
-        SELECT COUNT(*) FROM notifications
-        WHERE user_id = :userId AND lue = false
+        SELECT COALESCE((SELECT non_lues FROM notifications_non_lues WHERE user_id = :userId), 0)
         """;
 
+    // %s : CREE_LE quand le client renvoie le created_at de la notification
+    // (seule la partition du mois est ouverte), vide sinon (toutes les partitions).
     public static final String MARK_AS_READ = """
         UPDATE notifications SET lue = true, date_lecture = CURRENT_TIMESTAMP
         WHERE notification_id = :notificationId AND user_id = :userId
+        %s
+        """;
+
+    // Fenêtre d'une seconde autour de l'instant transmis : tolère les clients qui
+    // tronquent les microsecondes à la milliseconde.
+    public static final String CREE_LE = """
+          AND created_at >= CAST(:creeLe AS TIMESTAMPTZ) - INTERVAL '1 second'
+          AND created_at < CAST(:creeLe AS TIMESTAMPTZ) + INTERVAL '1 second'
         """;
 
     public static final String MARK_ALL_AS_READ = """
@@ -37,8 +124,15 @@ public final class NotificationQuery {
         WHERE user_id = :userId AND lue = false
         """;
 
+    // Dédoublonnage des rappels sur les 30 derniers jours : seules les partitions
+    // mensuelles récentes sont lues (V51). Au-delà, un rappel de même référence et
+    // catégorie serait renvoyé. Les rappels concernés (RAPPEL_J1, RAPPEL_H2) ne
+    // partent que dans les deux jours précédant le départ de l'offre : deux envois
+    // pour la même offre ne peuvent pas être espacés de 30 jours. Un rappel à plus
+    // longue échéance devra élargir la fenêtre ou porter sa propre garde.
     public static final String CHECK_EXISTS_BY_REFERENCE = """
         SELECT COUNT(*) FROM notifications
         WHERE user_id = :userId AND reference_id = :referenceId AND reference_type = :referenceType AND categorie = :categorie
+          AND created_at >= CURRENT_TIMESTAMP - INTERVAL '30 days'
         """;
 }
@@ -104,17 +104,49 @@ public final class OffreQuery {
         INNER JOIN users u ON o.user_id = u.user_id
         """;
 
+    // Modèle de lecture offre_search (V40) : mêmes colonnes que BASE_SELECT,
+    // déjà résolues et tenues à jour par triggers → aucune jointure. Alias "o"
+    // conservé pour partager les prédicats de curseur.
+    private static final String SEARCH_SELECT = """
+        SELECT o.*
+        FROM offre_search o
+        """;
+
     // ========== REQUÊTES DE LECTURE ==========
 
-    public static final String FIND_ALL = BASE_SELECT + """
-        ORDER BY o.date_depart ASC, o.heure_depart ASC
+    // ========== PAGINATION PAR CURSEUR (KEYSET) ==========
+    // Les listes paginées trient sur (date_depart, heure_depart, offre_id) :
+    // ordre total et stable, servi par idx_offres_keyset. Le %s reçoit le
+    // prédicat de curseur (vide pour la première page) ; LIMIT est toujours borné.
+
+    public static final String APRES_CURSEUR = """
+          AND (o.date_depart, o.heure_depart, o.offre_id) > (:curseurDate, :curseurHeure, :curseurId)
+        """;
+
+    public static final String AVANT_CURSEUR = """
+          AND (o.date_depart, o.heure_depart, o.offre_id) < (:curseurDate, :curseurHeure, :curseurId)
         """;
 
+    private static final String ORDRE_KEYSET = """
+        ORDER BY o.date_depart ASC, o.heure_depart ASC, o.offre_id ASC
+        LIMIT :limit
+        """;
+
+    private static final String ORDRE_KEYSET_DESC = """
+        ORDER BY o.date_depart DESC, o.heure_depart DESC, o.offre_id DESC
+        LIMIT :limit
+        """;
+
+    public static final String FIND_ALL = BASE_SELECT + """
+        WHERE TRUE
+        %s
+        """ + ORDRE_KEYSET;
+
     public static final String FIND_ALL_OUVERTES = BASE_SELECT + """
         WHERE o.statut IN ('EN_ATTENTE', 'OUVERT')
           AND o.date_depart >= CURRENT_DATE
-        ORDER BY o.date_depart ASC, o.heure_depart ASC
-        """;
+        %s
+        """ + ORDRE_KEYSET;
 
     public static final String FIND_BY_UUID = BASE_SELECT + """
         WHERE o.offre_uuid = :uuid
@@ -145,8 +177,8 @@ public final class OffreQuery {
 
     public static final String FIND_BY_STATUT = BASE_SELECT + """
         WHERE o.statut = :statut
-        ORDER BY o.date_depart ASC, o.heure_depart ASC
-        """;
+        %s
+        """ + ORDRE_KEYSET;
 
     public static final String FIND_BY_DATE_DEPART = BASE_SELECT + """
         WHERE o.date_depart = :dateDepart
@@ -154,27 +186,27 @@ public final class OffreQuery {
         ORDER BY o.heure_depart ASC
         """;
 
-    public static final String FIND_BY_VILLES = BASE_SELECT + """
-        WHERE COALESCE(vsd.ville_uuid, vd.ville_uuid) = :villeDepartUuid
-          AND COALESCE(vsa.ville_uuid, va.ville_uuid) = :villeArriveeUuid
+    public static final String FIND_BY_VILLES = SEARCH_SELECT + """
+        WHERE o.ville_depart_uuid = :villeDepartUuid
+          AND o.ville_arrivee_uuid = :villeArriveeUuid
           AND o.statut IN ('EN_ATTENTE', 'OUVERT')
           AND o.date_depart >= CURRENT_DATE
         ORDER BY o.date_depart ASC, o.heure_depart ASC
         """;
 
-    public static final String FIND_BY_VILLES_AND_DATE = BASE_SELECT + """
-        WHERE COALESCE(vsd.ville_uuid, vd.ville_uuid) = :villeDepartUuid
-          AND COALESCE(vsa.ville_uuid, va.ville_uuid) = :villeArriveeUuid
+    public static final String FIND_BY_VILLES_AND_DATE = SEARCH_SELECT + """
+        WHERE o.ville_depart_uuid = :villeDepartUuid
+          AND o.ville_arrivee_uuid = :villeArriveeUuid
           AND o.date_depart = :dateDepart
           AND o.statut IN ('EN_ATTENTE', 'OUVERT')
         ORDER BY o.heure_depart ASC
         """;
 
-    public static final String FIND_AVEC_PLACES_DISPONIBLES = BASE_SELECT + """
+    public static final String FIND_AVEC_PLACES_DISPONIBLES = SEARCH_SELECT + """
         WHERE o.nombre_places_disponibles >= :nombrePlaces
           AND o.statut IN ('EN_ATTENTE', 'OUVERT')
           AND o.date_depart >= CURRENT_DATE
-        ORDER BY o.date_depart ASC, o.heure_depart ASC
+        ORDER BY o.date_depart ASC, o.heure_depart ASC, o.offre_id ASC
         """;
 
     public static final String FIND_BY_VILLE_DEPART = BASE_SELECT + """
@@ -200,14 +232,14 @@ public final class OffreQuery {
     public static final String FIND_A_VENIR = BASE_SELECT + """
         WHERE o.date_depart > CURRENT_DATE
           AND o.statut IN ('EN_ATTENTE', 'OUVERT')
-        ORDER BY o.date_depart ASC, o.heure_depart ASC
-        """;
+        %s
+        """ + ORDRE_KEYSET;
 
     public static final String FIND_PASSEES = BASE_SELECT + """
-        WHERE o.date_depart < CURRENT_DATE
-           OR o.statut IN ('TERMINE', 'ANNULE')
-        ORDER BY o.date_depart DESC, o.heure_depart DESC
-        """;
+        WHERE (o.date_depart < CURRENT_DATE
+           OR o.statut IN ('TERMINE', 'ANNULE'))
+        %s
+        """ + ORDRE_KEYSET_DESC;
 
     public static final String FIND_EN_PROMOTION = BASE_SELECT + """
         WHERE o.montant_promotion IS NOT NULL
@@ -218,20 +250,18 @@ public final class OffreQuery {
         ORDER BY o.date_depart ASC, o.heure_depart ASC
         """;
 
-    public static final String SEARCH = BASE_SELECT + """
-        WHERE (
-            LOWER(t.libelle_trajet) LIKE :searchTerm
-            OR LOWER(COALESCE(vsd.libelle, vd.libelle)) LIKE :searchTerm
-            OR LOWER(COALESCE(vsa.libelle, va.libelle)) LIKE :searchTerm
-            OR LOWER(sd.nom) LIKE :searchTerm
-            OR LOWER(sa.nom) LIKE :searchTerm
-            OR LOWER(v.immatriculation) LIKE :searchTerm
-            OR LOWER(v.marque) LIKE :searchTerm
-        )
+    /** texte_recherche = trajet, villes, sites, immatriculation et marque en minuscules. */
+    // Sous-chaîne ou mot proche (faute de frappe) : idx_offre_search_texte_trgm (V46).
+    // L'ordre reste chronologique pour conserver la pagination par curseur : le
+    // classement par similarité demandé pour la recherche n'est pas appliqué aux
+    // offres (seuls véhicules et partenaires sont classés par word_similarity).
+    public static final String SEARCH = SEARCH_SELECT + """
+        WHERE (f_texte_recherche(o.texte_recherche) LIKE '%%' || f_texte_recherche(:searchTerm) || '%%'
+               OR f_texte_recherche(:searchTerm) <%% f_texte_recherche(o.texte_recherche))
         AND o.statut IN ('EN_ATTENTE', 'OUVERT')
         AND o.date_depart >= CURRENT_DATE
-        ORDER BY o.date_depart ASC, o.heure_depart ASC
-        """;
+        %s
+        """ + ORDRE_KEYSET;
 
     // ========== RECHERCHE AVANCÉE ==========
 
@@ -272,6 +302,57 @@ public final class OffreQuery {
           AND r.statut IN ('CONFIRMEE', 'PAYEE')
         """;
 
+    /** État initial des places pour les abonnés SSE (DiffusionPlaces). */
+    public static final String FIND_PLACES_BY_UUIDS = """
+        SELECT offre_uuid, nombre_places_disponibles, nombre_places_reservees,
+               nombre_places_total, niveau_remplissage, statut
+        FROM offres
+        WHERE offre_uuid IN (:uuids)
+        """;
+
+    // Relais des changements de places (V49) : vide un lot du journal et renvoie l'état
+    // courant de chaque offre touchée, deltas cumulés, au format PlacesOffre.
+    public static final String RELAYER_PLACES = """
+        WITH lot AS (
+            DELETE FROM places_offres_journal
+            WHERE journal_id IN (SELECT journal_id FROM places_offres_journal ORDER BY journal_id LIMIT :taille)
+            RETURNING offre_id, delta
+        ), cumul AS (
+            SELECT offre_id, SUM(delta)::INTEGER AS delta, COUNT(*) AS lignes
+            FROM lot
+            GROUP BY offre_id
+        )
+        SELECT c.lignes,
+               json_build_object(
+                   'offreUuid', o.offre_uuid,
+                   'disponibles', o.nombre_places_disponibles,
+                   'reservees', o.nombre_places_reservees,
+                   'total', o.nombre_places_total,
+                   'niveauRemplissage', o.niveau_remplissage,
+                   'statut', o.statut,
+                   'delta', c.delta
+               )::text AS etat
+        FROM cumul c
+        INNER JOIN offres o ON o.offre_id = c.offre_id
+        ORDER BY c.offre_id
+        """;
+
+    public static final String VERROU_RELAIS_PLACES = """
+        SELECT pg_try_advisory_xact_lock(:verrou)
+        """;
+
+    public static final String NOTIFIER_PLACES = """
+        SELECT pg_notify('places_offres', :charge)
+        """;
+
+    /** Réconciliation de l'inventaire de places en mémoire (InventairePlaces). */
+    public static final String FIND_PLACES_BY_IDS = """
+        SELECT offre_id, nombre_places_disponibles,
+               (statut IN ('OUVERT', 'COMPLET') AND date_depart >= CURRENT_DATE) AS reservable
+        FROM offres
+        WHERE offre_id IN (:ids)
+        """;
+
     // ========== REQUÊTES D'ÉCRITURE ==========
 
     public static final String INSERT = """
@@ -323,6 +404,53 @@ public final class OffreQuery {
         WHERE offre_uuid = :uuid
         """;
 
+    /**
+     * Réservation atomique : décrément conditionnel en une seule instruction.
+     * Sous READ COMMITTED, PostgreSQL réévalue le WHERE sur la dernière version
+     * de la ligne après l'attente du verrou → aucune survente possible.
+     * Aucune ligne retournée = places insuffisantes.
+     */
+    public static final String RESERVER_PLACES = """
+        UPDATE offres SET
+            nombre_places_disponibles = nombre_places_disponibles - :nombrePlaces,
+            nombre_places_reservees = COALESCE(nombre_places_reservees, 0) + :nombrePlaces,
+            niveau_remplissage = ROUND(((COALESCE(nombre_places_reservees, 0) + :nombrePlaces)::NUMERIC
+                                        / NULLIF(nombre_places_total, 0)) * 100),
+            statut = CASE
+                         WHEN nombre_places_disponibles - :nombrePlaces <= 0 THEN 'COMPLET'
+                         ELSE statut
+                END
+        WHERE offre_uuid = :uuid
+          AND nombre_places_disponibles >= :nombrePlaces
+          AND nombre_places_disponibles - (
+                SELECT COALESCE(SUM(b.nombre_places), 0)
+                FROM blocages_places b
+                WHERE b.offre_id = offres.offre_id
+                  AND b.statut = 'ACTIVE'
+                  AND b.expire_at > now()
+              ) >= :nombrePlaces
+        RETURNING nombre_places_disponibles
+        """;
+
+    /**
+     * Libération atomique (symétrique de RESERVER_PLACES). Une offre COMPLET
+     * (ou FERME par l'ancien chemin Java) repasse OUVERT.
+     */
+    public static final String LIBERER_PLACES = """
+        UPDATE offres SET
+            nombre_places_disponibles = nombre_places_disponibles + :nombrePlaces,
+            nombre_places_reservees = nombre_places_reservees - :nombrePlaces,
+            niveau_remplissage = ROUND(((nombre_places_reservees - :nombrePlaces)::NUMERIC
+                                        / NULLIF(nombre_places_total, 0)) * 100),
+            statut = CASE
+                         WHEN statut IN ('COMPLET', 'FERME') THEN 'OUVERT'
+                         ELSE statut
+                END
+        WHERE offre_uuid = :uuid
+          AND nombre_places_reservees >= :nombrePlaces
+        RETURNING nombre_places_disponibles
+        """;
+
     public static final String UPDATE_PROMOTION = """
         UPDATE offres SET montant_promotion = :montantPromotion
         WHERE offre_uuid = :uuid
@@ -383,30 +511,4 @@ public final class OffreQuery {
         WHERE statut IN ('EN_ATTENTE', 'OUVERT')
           AND date_depart >= CURRENT_DATE
         """;
-
-    // ========== STATISTIQUES ==========
-
-    public static final String STATS_PAR_STATUT = """
-        SELECT statut, COUNT(*) as count
-        FROM offres
-        GROUP BY statut
-        ORDER BY count DESC
-        """;
-
-    public static final String STATS_PAR_JOUR = """
-        SELECT date_depart, COUNT(*) as count
-        FROM offres
-        WHERE date_depart >= CURRENT_DATE - INTERVAL '30 days'
-        GROUP BY date_depart
-        ORDER BY date_depart
-        """;
-
-    public static final String STATS_REVENUS_USER = """
-        SELECT 
-            COALESCE(SUM(o.montant * o.nombre_places_reservees), 0) as revenus_potentiels,
-            COALESCE(SUM(CASE WHEN o.statut = 'TERMINE' 
-                THEN o.montant * o.nombre_places_reservees ELSE 0 END), 0) as revenus_realises
-        FROM offres o
-        WHERE o.user_id = :userId
-        """;
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package io.multi.billetterieservice.query;
+
+public class OutboxQuery {
+
+    public static final String INSERT = """
+        INSERT INTO outbox_evenements (topic, cle, type_evenement, donnees)
+        VALUES (:topic, :cle, :typeEvenement, CAST(:donnees AS jsonb))
+        """;
+
+    /** Plusieurs événements de même type en une requête (tableaux alignés). */
+    public static final String INSERT_LOT = """
+        INSERT INTO outbox_evenements (topic, cle, type_evenement, donnees)
+        SELECT :topic, e.cle, :typeEvenement, CAST(e.donnees AS jsonb)
+        FROM unnest(CAST(:cles AS TEXT[]), CAST(:donnees AS TEXT[])) AS e(cle, donnees)
+        """;
+
+    /** Une seule réservation à la fois (verrou relâché en fin de transaction). */
+    public static final String VERROU_RELAIS = """
+        SELECT pg_try_advisory_xact_lock(:verrou)
+        """;
+
+    /**
+     * Réserve les prochains événements à publier, dans l'ordre d'écriture : au
+     * plus un par clé (la tête de file), qu'un prédécesseur de même clé attende
+     * un envoi ou un nouvel essai. La réservation repousse prochain_essai de la
+     * durée du bail : commitée avant les envois Kafka, elle retient les suivants
+     * de même clé, et un relais arrêté en cours d'envoi rend la main à l'échéance.
+     * L'ordre de RETURNING n'est pas garanti : trier par evenement_id.
+     */
+    public static final String RECLAMER = """
+        UPDATE outbox_evenements o
+        SET prochain_essai = now() + :bailMs * INTERVAL '1 millisecond'
+        FROM (
+            SELECT e.evenement_id
+            FROM outbox_evenements e
+            WHERE e.statut = 'EN_ATTENTE' AND e.prochain_essai <= now()
+              AND NOT EXISTS (
+                  SELECT 1 FROM outbox_evenements p
+                  WHERE p.statut = 'EN_ATTENTE' AND p.cle = e.cle
+                    AND p.evenement_id < e.evenement_id
+              )
+            ORDER BY e.evenement_id
+            LIMIT :limit
+        ) lot
+        WHERE o.evenement_id = lot.evenement_id
+        RETURNING o.evenement_id, o.evenement_uuid, o.topic, o.cle, o.type_evenement,
+                  o.donnees::text AS donnees, o.tentatives, o.created_at
+        """;
+
+    public static final String MARQUER_PUBLIES = """
+        UPDATE outbox_evenements SET statut = 'PUBLIE', publie_le = now()
+        WHERE evenement_id = ANY(:ids)
+        """;
+
+    /** Échec : nouvel essai avec attente exponentielle (plafonnée), ou ECHEC définitif. */
+    public static final String MARQUER_ECHEC = """
+        UPDATE outbox_evenements
+        SET tentatives = tentatives + 1,
+            derniere_erreur = :erreur,
+            prochain_essai = now() + LEAST(POWER(2, tentatives), 300) * INTERVAL '1 second',
+            statut = CASE WHEN tentatives + 1 >= :tentativesMax THEN 'ECHEC' ELSE 'EN_ATTENTE' END
+        WHERE evenement_id = :evenementId
+        """;
+
+    public static final String COUNT_PAR_STATUT = """
+        SELECT statut, COUNT(*) AS nombre
+        FROM outbox_evenements
+        WHERE statut IN ('EN_ATTENTE', 'ECHEC')
+        GROUP BY statut
+        """;
+
+    public static final String PURGER_PUBLIES = """
+        DELETE FROM outbox_evenements
+        WHERE statut = 'PUBLIE' AND publie_le < now() - CAST(:retention AS INTERVAL)
+        """;
+}
@@ -94,13 +94,38 @@ public final class PartenaireQuery {
         ORDER BY p.nom ASC
         """;
 
-    public static final String SEARCH = BASE_SELECT + """
-        WHERE LOWER(p.nom) LIKE :searchTerm
-           OR LOWER(p.raison_sociale) LIKE :searchTerm
-           OR LOWER(p.email) LIKE :searchTerm
-           OR LOWER(p.telephone) LIKE :searchTerm
-           OR LOWER(v.libelle) LIKE :searchTerm
-        ORDER BY p.nom ASC
+    // Recherche classée par similarité (pg_trgm, V46) : le document du partenaire
+    // et le libellé de sa ville sont cherchés séparément (index distincts), chaque
+    // partenaire garde son meilleur score. Expressions identiques à celles des index.
+    public static final String SEARCH = """
+        WITH correspondances AS (
+            SELECT p.partenaire_id,
+                   word_similarity(f_texte_recherche(:searchTerm),
+                                   f_texte_recherche(p.nom, p.raison_sociale, p.email, p.telephone)) AS score
+            FROM partenaires p
+            WHERE f_texte_recherche(p.nom, p.raison_sociale, p.email, p.telephone)
+                      LIKE '%' || f_texte_recherche(:searchTerm) || '%'
+               OR f_texte_recherche(:searchTerm)
+                      <% f_texte_recherche(p.nom, p.raison_sociale, p.email, p.telephone)
+            UNION ALL
+            SELECT p.partenaire_id,
+                   word_similarity(f_texte_recherche(:searchTerm), f_texte_recherche(v.libelle))
+            FROM villes v
+            INNER JOIN communes c ON c.ville_id = v.ville_id
+            INNER JOIN quartiers q ON q.commune_id = c.commune_id
+            INNER JOIN localisations l ON l.quartier_id = q.quartier_id
+            INNER JOIN partenaires p ON p.localisation_id = l.localisation_id
+            WHERE f_texte_recherche(v.libelle) LIKE '%' || f_texte_recherche(:searchTerm) || '%'
+               OR f_texte_recherche(:searchTerm) <% f_texte_recherche(v.libelle)
+        ), classement AS (
+            SELECT partenaire_id, MAX(score) AS score
+            FROM correspondances
+            GROUP BY partenaire_id
+        )
+        """ + BASE_SELECT + """
+        INNER JOIN classement cl ON cl.partenaire_id = p.partenaire_id
+        ORDER BY cl.score DESC, p.nom ASC, p.partenaire_id ASC
+        LIMIT :limit OFFSET :offset
         """;
 
     public static final String FIND_PARTENARIATS_EXPIRES = BASE_SELECT + """
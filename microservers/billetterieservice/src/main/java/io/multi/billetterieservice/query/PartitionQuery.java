@@ -0,0 +1,30 @@
+package io.multi.billetterieservice.query;
+
+/**
+ * Maintenance des tables partitionnées par mois (V51 : notifications, audit_logs).
+ */
+public final class PartitionQuery {
+
+    private PartitionQuery() {
+        // Classe utilitaire - pas d'instanciation
+    }
+
+    /** Crée les partitions manquantes du mois courant aux :moisAvance mois suivants ; retourne le nombre créé. */
+    public static final String CREER_PARTITIONS = """
+        SELECT creer_partitions_mensuelles(:table, CURRENT_DATE,
+                                           CAST(date_trunc('month', CURRENT_DATE)
+                                                + make_interval(months => :moisAvance + 1) AS DATE))
+        """;
+
+    /** Archive les partitions antérieures aux :conservationMois derniers mois (mois courant inclus). */
+    public static final String ARCHIVER_PARTITIONS = """
+        SELECT archiver_partitions_mensuelles(:table,
+                                              CAST(date_trunc('month', CURRENT_DATE)
+                                                   - make_interval(months => :conservationMois - 1) AS DATE))
+        """;
+
+    /** Lignes tombées dans la partition par défaut (mois non créé à temps). */
+    public static final String COMPTER_DEFAUT = """
+        SELECT COUNT(*) FROM %s_defaut
+        """;
+}
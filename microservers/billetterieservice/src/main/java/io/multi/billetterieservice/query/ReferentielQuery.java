@@ -0,0 +1,23 @@
+package io.multi.billetterieservice.query;
+
+public final class ReferentielQuery {
+
+    private ReferentielQuery() {}
+
+    /**
+     * Empreinte du référentiel géographique : identifiant + xmin de chaque ligne
+     * des six tables. Toute insertion, modification ou suppression la change,
+     * quelle que soit l'instance qui a écrit. Sert de version à l'instantané
+     * (et donc d'ETag, identique sur toutes les répliques).
+     */
+    public static final String EMPREINTE = """
+        SELECT md5(
+            (SELECT COALESCE(string_agg(region_id || ':' || CAST(xmin AS TEXT), ',' ORDER BY region_id), '') FROM regions)
+            || '|' || (SELECT COALESCE(string_agg(ville_id || ':' || CAST(xmin AS TEXT), ',' ORDER BY ville_id), '') FROM villes)
+            || '|' || (SELECT COALESCE(string_agg(commune_id || ':' || CAST(xmin AS TEXT), ',' ORDER BY commune_id), '') FROM communes)
+            || '|' || (SELECT COALESCE(string_agg(quartier_id || ':' || CAST(xmin AS TEXT), ',' ORDER BY quartier_id), '') FROM quartiers)
+            || '|' || (SELECT COALESCE(string_agg(localisation_id || ':' || CAST(xmin AS TEXT), ',' ORDER BY localisation_id), '') FROM localisations)
+            || '|' || (SELECT COALESCE(string_agg(site_id || ':' || CAST(xmin AS TEXT), ',' ORDER BY site_id), '') FROM sites)
+        )
+        """;
+}
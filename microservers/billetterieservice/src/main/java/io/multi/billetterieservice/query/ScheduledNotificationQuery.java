@@ -4,31 +4,64 @@ public final class ScheduledNotificationQuery {
 
     private ScheduledNotificationQuery() {}
 
-    // V35 : ville directe des sites (COALESCE) ; FERME inclus (une offre fermée
-    // manuellement avec des passagers part quand même — les alertes continuent).
-    public static final String FIND_OFFRES_AT_REMPLISSAGE = """
-        SELECT o.offre_id, o.offre_uuid, o.niveau_remplissage, o.date_depart, o.heure_depart,
-               COALESCE(vsd.libelle, vd.libelle) AS ville_depart_libelle,
-               COALESCE(vsa.libelle, va.libelle) AS ville_arrivee_libelle
-        FROM offres o
-        INNER JOIN trajets t ON o.trajet_id = t.trajet_id
-        INNER JOIN departs dep ON t.depart_id = dep.depart_id
-        INNER JOIN sites sd ON dep.site_id = sd.site_id
-        INNER JOIN localisations ld ON sd.localisation_id = ld.localisation_id
-        LEFT JOIN quartiers qd ON ld.quartier_id = qd.quartier_id
-        LEFT JOIN communes cd ON qd.commune_id = cd.commune_id
-        LEFT JOIN villes vd ON cd.ville_id = vd.ville_id
-        LEFT JOIN villes vsd ON sd.ville_id = vsd.ville_id
-        INNER JOIN arrivees arr ON t.arrivee_id = arr.arrivee_id
-        INNER JOIN sites sa ON arr.site_id = sa.site_id
-        INNER JOIN localisations la ON sa.localisation_id = la.localisation_id
-        LEFT JOIN quartiers qa ON la.quartier_id = qa.quartier_id
-        LEFT JOIN communes ca ON qa.commune_id = ca.commune_id
-        LEFT JOIN villes va ON ca.ville_id = va.ville_id
-        LEFT JOIN villes vsa ON sa.ville_id = vsa.ville_id
-        WHERE o.statut IN ('OUVERT', 'COMPLET', 'FERME')
-          AND o.niveau_remplissage >= :seuil
-          AND o.date_depart >= CURRENT_DATE
+    /**
+     * Passagers à alerter, en une requête : pour chaque offre au-dessus du plus
+     * bas palier, le palier courant (plus haut seuil atteint) et un passager par
+     * (utilisateur, offre) qui n'a reçu ni ce palier ni un palier supérieur
+     * (anti-jointure sur notifications, index V44 ; bornée à la création de
+     * l'offre pour n'ouvrir que les partitions mensuelles utiles, V51).
+     * V35 : ville directe des sites (COALESCE) ; FERME inclus (une offre fermée
+     * manuellement avec des passagers part quand même — les alertes continuent).
+     * Limitée à une tranche d'offres (offre_id % :tranches = :tranche).
+     */
+    public static final String FIND_PASSAGERS_A_ALERTER_REMPLISSAGE = """
+        WITH cibles AS (
+            SELECT o.offre_id, o.offre_uuid, o.niveau_remplissage, o.date_depart, o.heure_depart, o.created_at,
+                   COALESCE(vsd.libelle, vd.libelle) AS ville_depart_libelle,
+                   COALESCE(vsa.libelle, va.libelle) AS ville_arrivee_libelle,
+                   (SELECT MAX(s) FROM unnest(CAST(:seuils AS INTEGER[])) AS s
+                    WHERE s <= o.niveau_remplissage) AS palier
+            FROM offres o
+            INNER JOIN trajets t ON o.trajet_id = t.trajet_id
+            INNER JOIN departs dep ON t.depart_id = dep.depart_id
+            INNER JOIN sites sd ON dep.site_id = sd.site_id
+            INNER JOIN localisations ld ON sd.localisation_id = ld.localisation_id
+            LEFT JOIN quartiers qd ON ld.quartier_id = qd.quartier_id
+            LEFT JOIN communes cd ON qd.commune_id = cd.commune_id
+            LEFT JOIN villes vd ON cd.ville_id = vd.ville_id
+            LEFT JOIN villes vsd ON sd.ville_id = vsd.ville_id
+            INNER JOIN arrivees arr ON t.arrivee_id = arr.arrivee_id
+            INNER JOIN sites sa ON arr.site_id = sa.site_id
+            INNER JOIN localisations la ON sa.localisation_id = la.localisation_id
+            LEFT JOIN quartiers qa ON la.quartier_id = qa.quartier_id
+            LEFT JOIN communes ca ON qa.commune_id = ca.commune_id
+            LEFT JOIN villes va ON ca.ville_id = va.ville_id
+            LEFT JOIN villes vsa ON sa.ville_id = vsa.ville_id
+            WHERE o.statut IN ('OUVERT', 'COMPLET', 'FERME')
+              AND o.niveau_remplissage >= (SELECT MIN(s) FROM unnest(CAST(:seuils AS INTEGER[])) AS s)
+              AND o.date_depart >= CURRENT_DATE
+              AND o.offre_id % :tranches = :tranche
+        )
+        SELECT DISTINCT ON (o.offre_id, c.user_id)
+               o.offre_id, o.offre_uuid, o.niveau_remplissage, o.palier, o.date_depart, o.heure_depart,
+               o.ville_depart_libelle, o.ville_arrivee_libelle,
+               c.commande_id, c.user_id, p.passager_noms, p.passager_phone
+        FROM cibles o
+        INNER JOIN commandes c ON c.offre_id = o.offre_id AND c.statut IN ('CONFIRMEE', 'PAYEE')
+        CROSS JOIN LATERAL (
+            SELECT STRING_AGG(DISTINCT b.nom_passager, ', ') FILTER (WHERE b.statut = 'VALIDE') AS passager_noms,
+                   MIN(b.telephone_passager) FILTER (WHERE b.telephone_passager IS NOT NULL) AS passager_phone
+            FROM billets b
+            WHERE b.commande_id = c.commande_id
+        ) p
+        WHERE NOT EXISTS (
+            SELECT 1 FROM notifications n
+            WHERE n.reference_id = o.offre_id AND n.user_id = c.user_id
+              AND n.reference_type = 'OFFRE' AND n.categorie LIKE 'REMPLISSAGE\\_%'
+              AND CAST(SUBSTRING(n.categorie FROM 13) AS INTEGER) >= o.palier
+              AND n.created_at >= COALESCE(o.created_at, '-infinity')
+        )
+        ORDER BY o.offre_id, c.user_id, c.commande_id
         """;
 
     public static final String FIND_COMMANDES_BY_OFFRE_ID = """
@@ -73,7 +106,9 @@ public final class ScheduledNotificationQuery {
     /**
      * Commandes dont le voyage est terminé depuis au moins :delaiHeures heures
      * (date_depart + heure d'arrivée estimée + délai <= maintenant), non annulées,
-     * sans avis déjà donné et sans demande d'avis déjà envoyée.
+     * sans avis déjà donné et sans demande d'avis déjà envoyée (cherchée depuis la
+     * création de la commande : partitions mensuelles utiles seulement, V51).
+     * Limitée à une tranche de commandes (commande_id % :tranches = :tranche).
      */
     public static final String FIND_COMMANDES_FOR_AVIS_REQUEST = """
         SELECT c.commande_id, c.commande_uuid, c.user_id, c.numero_commande,
@@ -99,6 +134,7 @@ public final class ScheduledNotificationQuery {
         WHERE c.statut IN ('CONFIRMEE', 'PAYEE', 'UTILISEE', 'TERMINEE')
           AND (o.date_depart + COALESCE(o.heure_arrivee_estimee, o.heure_depart)
                + make_interval(hours => :delaiHeures)) <= LOCALTIMESTAMP
+          AND c.commande_id % :tranches = :tranche
           AND NOT EXISTS (
                 SELECT 1 FROM avis a WHERE a.commande_id = c.commande_id)
           AND NOT EXISTS (
@@ -106,7 +142,8 @@ public final class ScheduledNotificationQuery {
                 WHERE n.user_id = c.user_id
                   AND n.reference_id = c.commande_id
                   AND n.reference_type = 'COMMANDE'
-                  AND n.categorie = 'DEMANDE_AVIS')
+                  AND n.categorie = 'DEMANDE_AVIS'
+                  AND n.created_at >= COALESCE(c.created_at, '-infinity'))
         """;
 
     public static final String FIND_OFFRES_DEPART_PROCHE = """
@@ -0,0 +1,97 @@
+package io.multi.billetterieservice.query;
+
+/**
+ * Requêtes sur les agrégats journaliers de ventes (stats_ventes_jour, V48).
+ * Une période se lit en O(jours) lignes, sans parcourir commandes ; les
+ * mouvements pas encore intégrés (stats_ventes_mouvements) y sont ajoutés.
+ */
+public final class StatsVentesQuery {
+
+    private StatsVentesQuery() {
+        // Classe utilitaire - pas d'instanciation
+    }
+
+    // Le %s reçoit le filtre de dimension (vide = toutes les ventes)
+    public static final String PAR_JOUR = """
+        SELECT s.jour,
+               SUM(s.commandes) AS commandes,
+               SUM(s.places) AS places,
+               SUM(s.montant) AS montant,
+               SUM(s.annulations) AS annulations,
+               SUM(s.places_annulees) AS places_annulees,
+               SUM(s.montant_annule) AS montant_annule
+        FROM (
+            SELECT jour, transporteur_id, trajet_id, vehicule_id, commandes, places, montant,
+                   annulations, places_annulees, montant_annule
+            FROM stats_ventes_jour
+            UNION ALL
+            SELECT jour, transporteur_id, trajet_id, vehicule_id, commandes, places, montant,
+                   annulations, places_annulees, montant_annule
+            FROM stats_ventes_mouvements
+        ) s
+        WHERE s.jour BETWEEN :debut AND :fin
+        %s
+        GROUP BY s.jour
+        ORDER BY s.jour
+        """;
+
+    public static final String FILTRE_TRANSPORTEUR = """
+          AND s.transporteur_id = :userId
+        """;
+
+    public static final String FILTRE_TRAJET = """
+          AND s.trajet_id = (SELECT trajet_id FROM trajets WHERE trajet_uuid = :uuid)
+        """;
+
+    public static final String FILTRE_VEHICULE = """
+          AND s.vehicule_id = (SELECT vehicule_id FROM vehicules WHERE vehicule_uuid = :uuid)
+        """;
+
+    // :debut / :fin NULL = tout l'historique
+    public static final String RECALCULER = """
+        SELECT recalculer_stats_ventes(CAST(:debut AS DATE), CAST(:fin AS DATE))
+        """;
+
+    public static final String VERROU_INTEGRATION = """
+        SELECT pg_try_advisory_xact_lock(:verrou)
+        """;
+
+    /**
+     * Intègre un lot de mouvements dans stats_ventes_jour : cumul par clé puis
+     * upsert (une ligne écrite par clé, dans l'ordre des clés). Retourne le
+     * nombre de mouvements consommés.
+     */
+    public static final String INTEGRER_MOUVEMENTS = """
+        WITH lot AS (
+            DELETE FROM stats_ventes_mouvements
+            WHERE mouvement_id IN (SELECT mouvement_id FROM stats_ventes_mouvements ORDER BY mouvement_id LIMIT :taille)
+            RETURNING jour, transporteur_id, trajet_id, vehicule_id, commandes, places, montant,
+                      annulations, places_annulees, montant_annule
+        ), cumul AS (
+            SELECT jour, transporteur_id, trajet_id, vehicule_id, COUNT(*) AS mouvements,
+                   SUM(commandes) AS commandes, SUM(places) AS places, SUM(montant) AS montant,
+                   SUM(annulations) AS annulations, SUM(places_annulees) AS places_annulees,
+                   SUM(montant_annule) AS montant_annule
+            FROM lot
+            GROUP BY jour, transporteur_id, trajet_id, vehicule_id
+        ), ecrits AS (
+            INSERT INTO stats_ventes_jour AS s (jour, transporteur_id, trajet_id, vehicule_id,
+                                                commandes, places, montant,
+                                                annulations, places_annulees, montant_annule)
+            SELECT jour, transporteur_id, trajet_id, vehicule_id, commandes, places, montant,
+                   annulations, places_annulees, montant_annule
+            FROM cumul
+            ORDER BY jour, transporteur_id, trajet_id, vehicule_id
+            ON CONFLICT (jour, transporteur_id, trajet_id, vehicule_id) DO UPDATE SET
+                commandes       = s.commandes + EXCLUDED.commandes,
+                places          = s.places + EXCLUDED.places,
+                montant         = s.montant + EXCLUDED.montant,
+                annulations     = s.annulations + EXCLUDED.annulations,
+                places_annulees = s.places_annulees + EXCLUDED.places_annulees,
+                montant_annule  = s.montant_annule + EXCLUDED.montant_annule,
+                updated_at      = CURRENT_TIMESTAMP
+            RETURNING 1
+        )
+        SELECT COALESCE(SUM(mouvements), 0)::INTEGER FROM cumul
+        """;
+}
@@ -130,13 +130,35 @@ public final class VehiculeQuery {
                        COALESCE(v.date_expiration_visite, '9999-12-31')) ASC
         """;
 
-    public static final String SEARCH = BASE_SELECT + """
-        WHERE LOWER(v.immatriculation) LIKE :searchTerm
-           OR LOWER(v.marque) LIKE :searchTerm
-           OR LOWER(v.modele) LIKE :searchTerm
-           OR LOWER(v.nom_chauffeur) LIKE :searchTerm
-           OR LOWER(tv.libelle) LIKE :searchTerm
-        ORDER BY v.marque ASC, v.modele ASC
+    // Recherche classée par similarité (pg_trgm, V46) : le document du véhicule et
+    // le libellé de son type sont cherchés séparément (index distincts), chaque
+    // véhicule garde son meilleur score. Expressions identiques à celles des index.
+    public static final String SEARCH = """
+        WITH correspondances AS (
+            SELECT v.vehicule_id,
+                   word_similarity(f_texte_recherche(:searchTerm),
+                                   f_texte_recherche(v.immatriculation, v.marque, v.modele, v.nom_chauffeur)) AS score
+            FROM vehicules v
+            WHERE f_texte_recherche(v.immatriculation, v.marque, v.modele, v.nom_chauffeur)
+                      LIKE '%' || f_texte_recherche(:searchTerm) || '%'
+               OR f_texte_recherche(:searchTerm)
+                      <% f_texte_recherche(v.immatriculation, v.marque, v.modele, v.nom_chauffeur)
+            UNION ALL
+            SELECT v.vehicule_id,
+                   word_similarity(f_texte_recherche(:searchTerm), f_texte_recherche(tv.libelle))
+            FROM types_vehicules tv
+            INNER JOIN vehicules v ON v.type_vehicule_id = tv.type_vehicule_id
+            WHERE f_texte_recherche(tv.libelle) LIKE '%' || f_texte_recherche(:searchTerm) || '%'
+               OR f_texte_recherche(:searchTerm) <% f_texte_recherche(tv.libelle)
+        ), classement AS (
+            SELECT vehicule_id, MAX(score) AS score
+            FROM correspondances
+            GROUP BY vehicule_id
+        )
+        """ + BASE_SELECT + """
+        INNER JOIN classement cl ON cl.vehicule_id = v.vehicule_id
+        ORDER BY cl.score DESC, v.marque ASC, v.modele ASC, v.vehicule_id ASC
+        LIMIT :limit OFFSET :offset
         """;
 
     // ========== REQUÊTES DE VÉRIFICATION ==========
@@ -1,6 +1,7 @@
 package io.multi.billetterieservice.repository;
 
 import io.multi.billetterieservice.domain.Offre;
+import io.multi.billetterieservice.utils.CurseurOffre;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -15,9 +16,11 @@ public interface OffreRepository {
 
     // ========== LECTURE ==========
 
-    List<Offre> findAll();
+    // Listes paginées par curseur (curseur null = première page, au plus limit offres)
 
-    List<Offre> findAllOuvertes();
+    List<Offre> findAll(CurseurOffre curseur, int limit);
+
+    List<Offre> findAllOuvertes(CurseurOffre curseur, int limit);
 
     Optional<Offre> findByUuid(String uuid);
 
@@ -31,7 +34,7 @@ public interface OffreRepository {
 
     List<Offre> findByUser(Long userId);
 
-    List<Offre> findByStatut(String statut);
+    List<Offre> findByStatut(String statut, CurseurOffre curseur, int limit);
 
     List<Offre> findByDateDepart(LocalDate dateDepart);
 
@@ -47,13 +50,14 @@ public interface OffreRepository {
 
     List<Offre> findAujourdHui();
 
-    List<Offre> findAVenir();
+    List<Offre> findAVenir(CurseurOffre curseur, int limit);
 
-    List<Offre> findPassees();
+    /** Ordre décroissant : le curseur pointe vers les offres plus anciennes. */
+    List<Offre> findPassees(CurseurOffre curseur, int limit);
 
     List<Offre> findEnPromotion();
 
-    List<Offre> search(String searchTerm);
+    List<Offre> search(String searchTerm, CurseurOffre curseur, int limit);
 
     // ========== VÉRIFICATION ==========
 
@@ -77,6 +81,18 @@ public interface OffreRepository {
 
     int updatePlaces(String uuid, int nombrePlacesDisponibles, int nombrePlacesReservees, int niveauRemplissage);
 
+    /**
+     * Décrément atomique des places (UPDATE conditionnel).
+     * @return places disponibles restantes, vide si places insuffisantes
+     */
+    Optional<Integer> reserverPlaces(String uuid, int nombrePlaces);
+
+    /**
+     * Restitution atomique des places.
+     * @return places disponibles après libération, vide si plus de places que réservées
+     */
+    Optional<Integer> libererPlaces(String uuid, int nombrePlaces);
+
     int updatePromotion(String uuid, BigDecimal montantPromotion);
 
     int updateDatesEffectives(String uuid, OffsetDateTime dateDepartEffectif, OffsetDateTime dateArriveeEffective);
@@ -31,7 +31,8 @@ public interface PartenaireRepository {
 
     List<Partenaire> findByRegion(String regionUuid);
 
-    List<Partenaire> search(String searchTerm);
+    /** Résultats classés par similarité (pg_trgm), paginés par LIMIT/OFFSET. */
+    List<Partenaire> search(String searchTerm, int limit, int offset);
 
     List<Partenaire> findPartenariatsExpires();
 
@@ -36,7 +36,8 @@ public interface VehiculeRepository {
 
     List<Vehicule> findVisiteExpiree();
 
-    List<Vehicule> search(String searchTerm);
+    /** Résultats classés par similarité (pg_trgm), paginés par LIMIT/OFFSET. */
+    List<Vehicule> search(String searchTerm, int limit, int offset);
 
     // ========== VÉRIFICATION ==========
 
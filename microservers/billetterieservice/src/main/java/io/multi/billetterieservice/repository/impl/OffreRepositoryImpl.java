@@ -3,6 +3,7 @@ package io.multi.billetterieservice.repository.impl;
 import io.multi.billetterieservice.domain.Offre;
 import io.multi.billetterieservice.query.OffreQuery;
 import io.multi.billetterieservice.repository.OffreRepository;
+import io.multi.billetterieservice.utils.CurseurOffre;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.RowMapper;
@@ -13,7 +14,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -104,19 +107,15 @@ public class OffreRepositoryImpl implements OffreRepository {
     // ========== LECTURE ==========
 
     @Override
-    public List<Offre> findAll() {
-        log.debug("Exécution de findAll()");
-        return jdbcClient.sql(OffreQuery.FIND_ALL)
-                .query(rowMapper)
-                .list();
+    public List<Offre> findAll(CurseurOffre curseur, int limit) {
+        log.debug("Exécution de findAll(limit={})", limit);
+        return findPage(OffreQuery.FIND_ALL, new HashMap<>(), curseur, false, limit);
     }
 
     @Override
-    public List<Offre> findAllOuvertes() {
-        log.debug("Exécution de findAllOuvertes()");
-        return jdbcClient.sql(OffreQuery.FIND_ALL_OUVERTES)
-                .query(rowMapper)
-                .list();
+    public List<Offre> findAllOuvertes(CurseurOffre curseur, int limit) {
+        log.debug("Exécution de findAllOuvertes(limit={})", limit);
+        return findPage(OffreQuery.FIND_ALL_OUVERTES, new HashMap<>(), curseur, false, limit);
     }
 
     @Override
@@ -174,12 +173,11 @@ public class OffreRepositoryImpl implements OffreRepository {
     }
 
     @Override
-    public List<Offre> findByStatut(String statut) {
-        log.debug("Exécution de findByStatut({})", statut);
-        return jdbcClient.sql(OffreQuery.FIND_BY_STATUT)
-                .param("statut", statut)
-                .query(rowMapper)
-                .list();
+    public List<Offre> findByStatut(String statut, CurseurOffre curseur, int limit) {
+        log.debug("Exécution de findByStatut({}, limit={})", statut, limit);
+        Map<String, Object> params = new HashMap<>();
+        params.put("statut", statut);
+        return findPage(OffreQuery.FIND_BY_STATUT, params, curseur, false, limit);
     }
 
     @Override
@@ -248,19 +246,15 @@ public class OffreRepositoryImpl implements OffreRepository {
     }
 
     @Override
-    public List<Offre> findAVenir() {
-        log.debug("Exécution de findAVenir()");
-        return jdbcClient.sql(OffreQuery.FIND_A_VENIR)
-                .query(rowMapper)
-                .list();
+    public List<Offre> findAVenir(CurseurOffre curseur, int limit) {
+        log.debug("Exécution de findAVenir(limit={})", limit);
+        return findPage(OffreQuery.FIND_A_VENIR, new HashMap<>(), curseur, false, limit);
     }
 
     @Override
-    public List<Offre> findPassees() {
-        log.debug("Exécution de findPassees()");
-        return jdbcClient.sql(OffreQuery.FIND_PASSEES)
-                .query(rowMapper)
-                .list();
+    public List<Offre> findPassees(CurseurOffre curseur, int limit) {
+        log.debug("Exécution de findPassees(limit={})", limit);
+        return findPage(OffreQuery.FIND_PASSEES, new HashMap<>(), curseur, true, limit);
     }
 
     @Override
@@ -272,12 +266,11 @@ public class OffreRepositoryImpl implements OffreRepository {
     }
 
     @Override
-    public List<Offre> search(String searchTerm) {
-        log.debug("Exécution de search({})", searchTerm);
-        return jdbcClient.sql(OffreQuery.SEARCH)
-                .param("searchTerm", "%" + searchTerm.toLowerCase() + "%")
-                .query(rowMapper)
-                .list();
+    public List<Offre> search(String searchTerm, CurseurOffre curseur, int limit) {
+        log.debug("Exécution de search({}, limit={})", searchTerm, limit);
+        Map<String, Object> params = new HashMap<>();
+        params.put("searchTerm", searchTerm);
+        return findPage(OffreQuery.SEARCH, params, curseur, false, limit);
     }
 
     // ========== VÉRIFICATION ==========
@@ -425,6 +418,26 @@ public class OffreRepositoryImpl implements OffreRepository {
                 .update();
     }
 
+    @Override
+    public Optional<Integer> reserverPlaces(String uuid, int nombrePlaces) {
+        log.debug("Exécution de reserverPlaces({}, {})", uuid, nombrePlaces);
+        return jdbcClient.sql(OffreQuery.RESERVER_PLACES)
+                .param("nombrePlaces", nombrePlaces)
+                .param("uuid", uuid)
+                .query((rs, rowNum) -> rs.getInt("nombre_places_disponibles"))
+                .optional();
+    }
+
+    @Override
+    public Optional<Integer> libererPlaces(String uuid, int nombrePlaces) {
+        log.debug("Exécution de libererPlaces({}, {})", uuid, nombrePlaces);
+        return jdbcClient.sql(OffreQuery.LIBERER_PLACES)
+                .param("nombrePlaces", nombrePlaces)
+                .param("uuid", uuid)
+                .query((rs, rowNum) -> rs.getInt("nombre_places_disponibles"))
+                .optional();
+    }
+
     @Override
     public int updatePromotion(String uuid, BigDecimal montantPromotion) {
         log.debug("Exécution de updatePromotion({}, {})", uuid, montantPromotion);
@@ -528,4 +541,25 @@ public class OffreRepositoryImpl implements OffreRepository {
                 .single();
         return count != null ? count : 0L;
     }
-}
\ No newline at end of file
+
+    /**
+     * Exécute une requête paginée keyset : le prédicat de curseur n'est ajouté
+     * qu'à partir de la deuxième page, pour que la première reste un simple
+     * parcours d'index borné par LIMIT.
+     */
+    private List<Offre> findPage(String sql, Map<String, Object> params, CurseurOffre curseur,
+                                 boolean descendant, int limit) {
+        String predicat = "";
+        if (curseur != null) {
+            predicat = descendant ? OffreQuery.AVANT_CURSEUR : OffreQuery.APRES_CURSEUR;
+            params.put("curseurDate", curseur.getDateDepart());
+            params.put("curseurHeure", curseur.getHeureDepart());
+            params.put("curseurId", curseur.getOffreId());
+        }
+        params.put("limit", limit);
+        return jdbcClient.sql(sql.formatted(predicat))
+                .params(params)
+                .query(rowMapper)
+                .list();
+    }
+}
@@ -148,10 +148,12 @@ public class PartenaireRepositoryImpl implements PartenaireRepository {
     }
 
     @Override
-    public List<Partenaire> search(String searchTerm) {
-        log.debug("Exécution de search({})", searchTerm);
+    public List<Partenaire> search(String searchTerm, int limit, int offset) {
+        log.debug("Exécution de search({}, limit={}, offset={})", searchTerm, limit, offset);
         return jdbcClient.sql(PartenaireQuery.SEARCH)
-                .param("searchTerm", "%" + searchTerm.toLowerCase() + "%")
+                .param("searchTerm", searchTerm)
+                .param("limit", limit)
+                .param("offset", offset)
                 .query(rowMapper)
                 .list();
     }
@@ -181,10 +181,12 @@ public class VehiculeRepositoryImpl implements VehiculeRepository {
     }
 
     @Override
-    public List<Vehicule> search(String searchTerm) {
-        log.debug("Exécution de search({})", searchTerm);
+    public List<Vehicule> search(String searchTerm, int limit, int offset) {
+        log.debug("Exécution de search({}, limit={}, offset={})", searchTerm, limit, offset);
         return jdbcClient.sql(VehiculeQuery.SEARCH)
-                .param("searchTerm", "%" + searchTerm.toLowerCase() + "%")
+                .param("searchTerm", searchTerm)
+                .param("limit", limit)
+                .param("offset", offset)
                 .query(rowMapper)
                 .list();
     }
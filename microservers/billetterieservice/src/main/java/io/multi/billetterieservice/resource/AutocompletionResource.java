@@ -0,0 +1,86 @@
+package io.multi.billetterieservice.resource;
+
+import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.domain.Suggestion;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.service.IndexAutocompletion;
+import io.multi.billetterieservice.utils.JwtUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Autocomplétion unifiée (villes, communes, quartiers, sites, trajets).
+ * Base path: /billetterie/autocomplete
+ */
+@RestController
+@RequestMapping("/billetterie/autocomplete")
+@RequiredArgsConstructor
+@Slf4j
+public class AutocompletionResource {
+
+    private final IndexAutocompletion indexAutocompletion;
+    private final JwtUtils jwtUtils;
+
+    /**
+     * GET /billetterie/autocomplete?q=lab&types=VILLE,SITE&limite=10
+     * Préfixe insensible aux accents et à la casse, à partir de n'importe quel mot du libellé.
+     */
+    @GetMapping
+    public ResponseEntity<Response> autocompleter(
+            @RequestParam("q") String saisie,
+            @RequestParam(name = "types", required = false) List<String> types,
+            @RequestParam(name = "limite", defaultValue = "10") int limite,
+            HttpServletRequest request) {
+        // Appelé à chaque frappe : pas de log INFO
+        log.debug("GET /billetterie/autocomplete?q={}", saisie);
+        List<Suggestion> suggestions = indexAutocompletion.rechercher(saisie, parseTypes(types), limite);
+        return ResponseEntity.ok(
+                getResponse(request, Map.of("suggestions", suggestions, "total", suggestions.size()),
+                        "Suggestions récupérées avec succès", OK)
+        );
+    }
+
+    /**
+     * GET /billetterie/autocomplete/stats - Taille des segments, reconstructions et durée des recherches
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Response> getStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques de l'autocomplétion");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, indexAutocompletion.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+
+    private Set<Suggestion.Type> parseTypes(List<String> types) {
+        Set<Suggestion.Type> resultat = EnumSet.noneOf(Suggestion.Type.class);
+        if (types == null) return resultat;
+        for (String type : types) {
+            if (type == null || type.isBlank()) continue;
+            try {
+                resultat.add(Suggestion.Type.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException("Type de suggestion inconnu: " + type);
+            }
+        }
+        return resultat;
+    }
+}
@@ -2,16 +2,24 @@ package io.multi.billetterieservice.resource;
 
 import io.multi.billetterieservice.domain.Billet;
 import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.domain.ResultatScan;
+import io.multi.billetterieservice.dto.ScansHorsLigneRequest;
+import io.multi.billetterieservice.dto.ValidationLotRequest;
+import io.multi.billetterieservice.securite.SignatureBillets;
 import io.multi.billetterieservice.utils.JwtUtils;
 import io.multi.billetterieservice.service.BilletService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
@@ -23,7 +31,11 @@ import static org.springframework.http.HttpStatus.OK;
 @Slf4j
 public class BilletResource {
 
+    /** Autorités donnant accès au manifeste et à la validation de toutes les offres (rôle CONTROLEUR, V12). */
+    private static final String[] AUTORITES_CONTROLE = {"billet:validate", "CONTROLEUR", "ADMIN", "SUPER_ADMIN"};
+
     private final BilletService billetService;
+    private final SignatureBillets signatureBillets;
     private final JwtUtils jwtUtils;
 
     @PostMapping("/validate")
@@ -32,7 +44,7 @@ public class BilletResource {
             @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest httpRequest) {
         Long userId = jwtUtils.extractUserId(jwt);
-        String codeBillet = request.get("codeBillet");
+        String codeBillet = request.getOrDefault("qrCode", request.get("codeBillet"));
         log.info("POST /billetterie/billets/validate - codeBillet: {}, userId: {}", codeBillet, userId);
         Billet billet = billetService.validateBillet(codeBillet, userId);
         return ResponseEntity.ok(
@@ -40,4 +52,78 @@ public class BilletResource {
                         "Billet validé avec succès", OK)
         );
     }
+
+    /**
+     * POST /billetterie/billets/validate-lot - Valide les billets d'un embarquement en une fois.
+     * Contrôleurs et admins : tous les billets ; sinon ceux des offres du transporteur seulement.
+     */
+    @PostMapping("/validate-lot")
+    public ResponseEntity<Response> validerLot(
+            @Valid @RequestBody ValidationLotRequest request,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest httpRequest) {
+        Long userId = jwtUtils.extractUserId(jwt);
+        Long operateurId = jwtUtils.hasAnyAuthority(jwt, AUTORITES_CONTROLE) ? null : userId;
+        log.info("POST /billetterie/billets/validate-lot - {} code(s), userId: {}", request.getCodes().size(), userId);
+        List<ResultatScan> resultats = billetService.validerLot(request.getCodes(), userId, operateurId);
+        long valides = resultats.stream().filter(r -> "VALIDE".equals(r.getResultat())).count();
+        return ResponseEntity.ok(
+                getResponse(httpRequest, Map.of("resultats", resultats, "total", resultats.size(), "valides", valides),
+                        valides + " billet(s) validé(s)", OK)
+        );
+    }
+
+    // ========== CONTRÔLE HORS LIGNE ==========
+
+    /**
+     * GET /billetterie/billets/manifeste?offreUuid=... | ?siteUuid=...&date=...  [&depuis=version]
+     * Manifeste signé à charger sur l'appareil du contrôleur ; "version" sert de curseur delta.
+     * Réservé aux contrôleurs et admins, ou au transporteur pour ses propres offres.
+     */
+    @GetMapping("/manifeste")
+    public ResponseEntity<Response> getManifeste(
+            @RequestParam(required = false) String offreUuid,
+            @RequestParam(required = false) String siteUuid,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "0") long depuis,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest httpRequest) {
+        Long userId = jwtUtils.extractUserId(jwt);
+        // Contrôleurs et admins : toutes les offres ; sinon le transporteur ne voit que les siennes
+        Long operateurId = jwtUtils.hasAnyAuthority(jwt, AUTORITES_CONTROLE) ? null : userId;
+        log.info("GET /billetterie/billets/manifeste - offre: {}, site: {}, date: {}, depuis: {}, userId: {}",
+                offreUuid, siteUuid, date, depuis, userId);
+        return ResponseEntity.ok(
+                getResponse(httpRequest, billetService.getManifeste(offreUuid, siteUuid, date, depuis, operateurId),
+                        "Manifeste généré", OK)
+        );
+    }
+
+    /**
+     * POST /billetterie/billets/scans-hors-ligne - Rejoue les scans effectués sans réseau.
+     * Contrôleurs et admins : tous les billets ; sinon ceux des offres du transporteur seulement.
+     */
+    @PostMapping("/scans-hors-ligne")
+    public ResponseEntity<Response> synchroniserScans(
+            @Valid @RequestBody ScansHorsLigneRequest request,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest httpRequest) {
+        Long userId = jwtUtils.extractUserId(jwt);
+        Long operateurId = jwtUtils.hasAnyAuthority(jwt, AUTORITES_CONTROLE) ? null : userId;
+        log.info("POST /billetterie/billets/scans-hors-ligne - {} scan(s), userId: {}", request.getScans().size(), userId);
+        List<ResultatScan> resultats = billetService.synchroniserScans(request.getScans(), userId, operateurId);
+        return ResponseEntity.ok(
+                getResponse(httpRequest, Map.of("resultats", resultats, "total", resultats.size()),
+                        "Scans synchronisés", OK)
+        );
+    }
+
+    /** GET /billetterie/billets/cles-publiques - Clés de vérification des manifestes (par kid) */
+    @GetMapping("/cles-publiques")
+    public ResponseEntity<Response> getClesPubliques(HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(
+                getResponse(httpRequest, Map.of("cles", signatureBillets.getClesPubliques(), "algorithme", "Ed25519"),
+                        "Clés publiques", OK)
+        );
+    }
 }
@@ -0,0 +1,59 @@
+package io.multi.billetterieservice.resource;
+
+import io.multi.billetterieservice.domain.BlocagePlaces;
+import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.dto.BlocagePlacesRequest;
+import io.multi.billetterieservice.service.BlocagePlacesService;
+import io.multi.billetterieservice.utils.JwtUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.OK;
+
+@RestController
+@RequestMapping("/billetterie/blocages")
+@RequiredArgsConstructor
+@Slf4j
+public class BlocagePlacesResource {
+
+    private final BlocagePlacesService blocagePlacesService;
+    private final JwtUtils jwtUtils;
+
+    /** Bloque des places le temps de saisir les passagers (remplace le blocage précédent sur la même offre). */
+    @PostMapping
+    public ResponseEntity<Response> bloquer(
+            @Valid @RequestBody BlocagePlacesRequest blocageRequest,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        Long userId = jwtUtils.extractUserId(jwt);
+        BlocagePlaces blocage = blocagePlacesService.bloquer(
+                blocageRequest.getOffreUuid(), blocageRequest.getNombrePlaces(), userId);
+        return ResponseEntity.status(CREATED).body(
+                getResponse(request, Map.of("blocage", blocage),
+                        "Places bloquées jusqu'à " + blocage.getExpireAt(), CREATED)
+        );
+    }
+
+    /** Libère le blocage avant échéance (abandon du formulaire). */
+    @DeleteMapping("/{uuid}")
+    public ResponseEntity<Response> liberer(
+            @PathVariable String uuid,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        Long userId = jwtUtils.extractUserId(jwt);
+        blocagePlacesService.liberer(uuid, userId);
+        return ResponseEntity.ok(
+                getResponse(request, Map.of(), "Blocage libéré", OK)
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package io.multi.billetterieservice.resource;
 
 import io.multi.billetterieservice.domain.Commande;
+import io.multi.billetterieservice.domain.PageCommandes;
 import io.multi.billetterieservice.domain.Offre;
 import io.multi.billetterieservice.domain.Response;
 import io.multi.billetterieservice.dto.CommandeRequest;
@@ -16,6 +17,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -49,18 +51,27 @@ public class CommandeResource {
     }
 
     /**
-     * GET /billetterie/commandes/mes-commandes - Liste des commandes de l'utilisateur connecté
+     * GET /billetterie/commandes/mes-commandes?page=&size= - Commandes de l'utilisateur connecté.
+     * Sans page : toutes les commandes ; avec page : une page (total, hasMore, pageSuivante).
      */
     @GetMapping("/mes-commandes")
     public ResponseEntity<Response> getMesCommandes(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         Long userId = jwtUtils.extractUserId(jwt);
-        log.info("GET /billetterie/commandes/mes-commandes - userId: {}", userId);
-        List<Commande> commandes = commandeService.getCommandesByUserId(userId);
+        log.info("GET /billetterie/commandes/mes-commandes - userId: {}, page: {}", userId, page);
+        PageCommandes resultat = commandeService.getCommandesByUserId(userId, page, size);
+        Map<String, Object> data = new HashMap<>();
+        data.put("commandes", resultat.getCommandes());
+        data.put("total", resultat.getTotal());
+        data.put("hasMore", resultat.isHasMore());
+        data.put("page", resultat.getPage());
+        data.put("size", resultat.getSize());
+        data.put("pageSuivante", resultat.isHasMore() ? resultat.getPage() + 1 : null);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("commandes", commandes),
-                        "Commandes récupérées avec succès", OK)
+                getResponse(request, data, "Commandes récupérées avec succès", OK)
         );
     }
 
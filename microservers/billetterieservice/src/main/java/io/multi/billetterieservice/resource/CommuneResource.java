@@ -6,6 +6,7 @@ import io.multi.billetterieservice.dto.CommuneUpdateRequest;
 import io.multi.billetterieservice.dto.RegionStatusRequest;
 import io.multi.billetterieservice.response.CommuneResponse;
 import io.multi.billetterieservice.service.CommuneService;
+import io.multi.billetterieservice.service.ReferentielGeographique;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 
+import static io.multi.billetterieservice.utils.RequestUtils.getConditionalResponse;
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
@@ -31,6 +33,7 @@ import static org.springframework.http.HttpStatus.OK;
 public class CommuneResource {
 
     private final CommuneService communeService;
+    private final ReferentielGeographique referentielGeographique;
 
     /**
      * Crée une nouvelle commune.
@@ -92,11 +95,10 @@ public class CommuneResource {
     public ResponseEntity<Response> getAllCommunes(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/communes - Récupération de toutes les communes");
 
-        List<CommuneResponse> communes = communeService.getAllCommunes();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("communes", communes, "total", communes.size()),
-                        "Liste des communes récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<CommuneResponse> communes = communeService.getAllCommunes();
+            return Map.of("communes", communes, "total", communes.size());
+        }, "Liste des communes récupérée avec succès");
     }
 
     /**
@@ -107,11 +109,10 @@ public class CommuneResource {
     public ResponseEntity<Response> getActiveCommunes(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/communes/active - Récupération des communes actives");
 
-        List<CommuneResponse> communes = communeService.getActiveCommunes();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("communes", communes, "total", communes.size()),
-                        "Liste des communes actives récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<CommuneResponse> communes = communeService.getActiveCommunes();
+            return Map.of("communes", communes, "total", communes.size());
+        }, "Liste des communes actives récupérée avec succès");
     }
 
     /**
@@ -124,11 +125,10 @@ public class CommuneResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/communes/ville/{} - Récupération des communes", villeUuid);
 
-        List<CommuneResponse> communes = communeService.getCommunesByVille(villeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("communes", communes, "total", communes.size(), "villeUuid", villeUuid),
-                        "Liste des communes de la ville récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<CommuneResponse> communes = communeService.getCommunesByVille(villeUuid);
+            return Map.of("communes", communes, "total", communes.size(), "villeUuid", villeUuid);
+        }, "Liste des communes de la ville récupérée avec succès");
     }
 
     /**
@@ -141,11 +141,10 @@ public class CommuneResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/communes/ville/{}/active - Récupération des communes actives", villeUuid);
 
-        List<CommuneResponse> communes = communeService.getActiveCommunesByVille(villeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("communes", communes, "total", communes.size(), "villeUuid", villeUuid),
-                        "Liste des communes actives de la ville récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<CommuneResponse> communes = communeService.getActiveCommunesByVille(villeUuid);
+            return Map.of("communes", communes, "total", communes.size(), "villeUuid", villeUuid);
+        }, "Liste des communes actives de la ville récupérée avec succès");
     }
 
     /**
@@ -158,11 +157,10 @@ public class CommuneResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/communes/region/{} - Récupération des communes", regionUuid);
 
-        List<CommuneResponse> communes = communeService.getCommunesByRegion(regionUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("communes", communes, "total", communes.size(), "regionUuid", regionUuid),
-                        "Liste des communes de la région récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<CommuneResponse> communes = communeService.getCommunesByRegion(regionUuid);
+            return Map.of("communes", communes, "total", communes.size(), "regionUuid", regionUuid);
+        }, "Liste des communes de la région récupérée avec succès");
     }
 
     /**
@@ -175,9 +173,9 @@ public class CommuneResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/communes/{} - Récupération de la commune", communeUuid);
 
-        CommuneResponse response = communeService.getCommuneByUuid(communeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("commune", response), "Commune récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            CommuneResponse response = communeService.getCommuneByUuid(communeUuid);
+            return Map.of("commune", response);
+        }, "Commune récupérée avec succès");
     }
 }
\ No newline at end of file
@@ -1,17 +1,28 @@
 package io.multi.billetterieservice.resource;
 
+import io.multi.billetterieservice.domain.Localisation;
 import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.service.ProxyGeocodage;
+import io.multi.billetterieservice.service.ProxyGeocodage.Amont;
+import io.multi.billetterieservice.utils.JwtUtils;
+import io.multi.billetterieservice.utils.PrefixTrie;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
@@ -20,6 +31,9 @@ import static org.springframework.http.HttpStatus.OK;
 /**
  * Proxy pour les appels à Google Places API.
  * Résout les problèmes CORS en faisant les appels côté serveur.
+ *
+ * Les appels passent par ProxyGeocodage (cache, regroupement, débit borné :
+ * Google facture chaque appel) ; au-delà, les réponses viennent des localisations connues.
  */
 @RestController
 @RequestMapping("/billetterie/google-places")
@@ -31,6 +45,8 @@ public class GooglePlacesResource {
     private String googleApiKey;
 
     private final RestTemplate restTemplate;
+    private final ProxyGeocodage proxyGeocodage;
+    private final JwtUtils jwtUtils;
 
     private static final String AUTOCOMPLETE_URL = "https://maps.googleapis.com/maps/api/place/queryautocomplete/json";
     private static final String PLACE_DETAILS_URL = "https://maps.googleapis.com/maps/api/place/details/json";
@@ -44,6 +60,13 @@ public class GooglePlacesResource {
     public ResponseEntity<Response> testApiKey(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/google-places/test - Test de la clé API");
 
+        if (!proxyGeocodage.autoriser(Amont.GOOGLE)) {
+            return ResponseEntity.ok(
+                    getResponse(httpRequest, Map.of("status", "THROTTLED"),
+                            "Limite de débit Google atteinte, réessayer plus tard", OK)
+            );
+        }
+
         try {
             // Test simple avec une requête basique (Paris, France - résultats garantis)
             String url = String.format("%s?key=%s&input=Paris&components=country:fr",
@@ -95,82 +118,13 @@ public class GooglePlacesResource {
 
         log.info("GET /billetterie/google-places/autocomplete - Query: '{}', Country: '{}'", query, country);
 
-        try {
-            String url = String.format("%s?key=%s&input=%s&components=country:%s",
-                    AUTOCOMPLETE_URL, googleApiKey, query, country);
-
-            log.info("URL appelée: {}", url.replace(googleApiKey, "***"));
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> googleResponse = restTemplate.getForObject(url, Map.class);
-
-            // LOG DÉTAILLÉ DE LA RÉPONSE GOOGLE
-            log.info("Réponse Google COMPLÈTE: {}", googleResponse);
-
-            List<Map<String, String>> predictions = new ArrayList<>();
-            String googleStatus = "NO_RESPONSE";
-            String errorMessage = null;
-
-            if (googleResponse != null) {
-                googleStatus = (String) googleResponse.get("status");
-                log.info("Google API Status: {}", googleStatus);
-
-                // Vérifier les messages d'erreur
-                if (googleResponse.containsKey("error_message")) {
-                    errorMessage = (String) googleResponse.get("error_message");
-                    log.error("Google API Error Message: {}", errorMessage);
-                }
-
-                if ("OK".equals(googleStatus)) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> googlePredictions =
-                            (List<Map<String, Object>>) googleResponse.get("predictions");
-
-                    if (googlePredictions != null) {
-                        log.info("Nombre de prédictions trouvées: {}", googlePredictions.size());
-                        for (Map<String, Object> prediction : googlePredictions) {
-                            Map<String, String> item = new HashMap<>();
-                            item.put("description", (String) prediction.get("description"));
-                            item.put("placeId", (String) prediction.get("place_id"));
-                            predictions.add(item);
-                            log.debug("Prédiction: {}", prediction.get("description"));
-                        }
-                    }
-                } else if ("ZERO_RESULTS".equals(googleStatus)) {
-                    log.warn("Google n'a trouvé aucun résultat pour '{}' dans le pays '{}'", query, country);
-                } else if ("REQUEST_DENIED".equals(googleStatus)) {
-                    log.error("REQUEST_DENIED - Clé API invalide ou API non activée. Message: {}", errorMessage);
-                } else if ("OVER_QUERY_LIMIT".equals(googleStatus)) {
-                    log.error("OVER_QUERY_LIMIT - Quota Google dépassé");
-                } else if ("INVALID_REQUEST".equals(googleStatus)) {
-                    log.error("INVALID_REQUEST - Paramètres invalides");
-                }
-            }
-
-            Map<String, Object> responseData = new HashMap<>();
-            responseData.put("predictions", predictions);
-            responseData.put("total", predictions.size());
-            responseData.put("googleStatus", googleStatus);
-            if (errorMessage != null) {
-                responseData.put("googleError", errorMessage);
-            }
-
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, responseData, "Suggestions récupérées avec succès", OK)
-            );
-
-        } catch (Exception e) {
-            log.error("Exception lors de l'appel Google: {} - {}", e.getClass().getSimpleName(), e.getMessage(), e);
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of(
-                                    "predictions", List.of(),
-                                    "total", 0,
-                                    "error", e.getMessage(),
-                                    "errorType", e.getClass().getSimpleName()
-                            ),
-                            "Erreur lors de la récupération des suggestions", OK)
-            );
-        }
+        String cle = "autocomplete|" + country + "|" + PrefixTrie.normaliser(query);
+        Map<String, Object> donnees = proxyGeocodage.resoudre(Amont.GOOGLE, cle,
+                () -> autocompleterGoogle(query, country),
+                () -> proxyGeocodage.rechercherLocal(query, 10));
+        return ResponseEntity.ok(
+                getResponse(httpRequest, donnees, "Suggestions récupérées avec succès", OK)
+        );
     }
 
     /**
@@ -184,49 +138,25 @@ public class GooglePlacesResource {
 
         log.info("GET /billetterie/google-places/details - PlaceId: {}", placeId);
 
-        try {
-            String url = String.format("%s?key=%s&placeid=%s&fields=formatted_address,geometry",
-                    PLACE_DETAILS_URL, googleApiKey, placeId);
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> googleResponse = restTemplate.getForObject(url, Map.class);
-
-            log.info("Place Details - Réponse Google: {}", googleResponse);
-
+        // Suggestion issue d'un repli local : résolue sans appel à Google
+        Localisation locale = proxyGeocodage.getLocalisation(placeId);
+        if (locale != null) {
             Map<String, Object> placeDetails = new HashMap<>();
-
-            if (googleResponse != null && "OK".equals(googleResponse.get("status"))) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> result = (Map<String, Object>) googleResponse.get("result");
-
-                if (result != null) {
-                    placeDetails.put("address", result.get("formatted_address"));
-
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> geometry = (Map<String, Object>) result.get("geometry");
-                    if (geometry != null) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> location = (Map<String, Object>) geometry.get("location");
-                        if (location != null) {
-                            placeDetails.put("latitude", location.get("lat"));
-                            placeDetails.put("longitude", location.get("lng"));
-                        }
-                    }
-                }
-            }
-
+            placeDetails.put("address", locale.getAdresseComplete());
+            placeDetails.put("latitude", locale.getLatitude() != null ? locale.getLatitude().doubleValue() : null);
+            placeDetails.put("longitude", locale.getLongitude() != null ? locale.getLongitude().doubleValue() : null);
             return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of("place", placeDetails),
+                    getResponse(httpRequest, Map.of("place", placeDetails, "origine", "local"),
                             "Détails du lieu récupérés avec succès", OK)
             );
-
-        } catch (Exception e) {
-            log.error("Erreur Google Place Details: {}", e.getMessage());
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of("place", Map.of()),
-                            "Erreur lors de la récupération des détails", OK)
-            );
         }
+
+        Map<String, Object> donnees = proxyGeocodage.resoudre(Amont.GOOGLE, "details|" + placeId,
+                () -> detaillerLieuGoogle(placeId),
+                () -> Map.of("place", Map.of()));
+        return ResponseEntity.ok(
+                getResponse(httpRequest, donnees, "Détails du lieu récupérés avec succès", OK)
+        );
     }
 
     /**
@@ -241,38 +171,153 @@ public class GooglePlacesResource {
 
         log.info("GET /billetterie/google-places/geocode - Lat: {}, Lng: {}", latitude, longitude);
 
-        try {
-            String url = String.format("%s?key=%s&latlng=%s,%s",
-                    GEOCODE_URL, googleApiKey, latitude, longitude);
+        // ~11 m de précision : les positions voisines partagent l'entrée du cache
+        String cle = String.format(Locale.ROOT, "geocode|%.4f|%.4f", latitude, longitude);
+        Map<String, Object> donnees = proxyGeocodage.resoudre(Amont.GOOGLE, cle,
+                () -> geocoderInverseGoogle(latitude, longitude),
+                () -> {
+                    Localisation proche = proxyGeocodage.localisationLaPlusProche(latitude, longitude);
+                    return Map.of("address", proche != null ? proche.getAdresseComplete() : "");
+                });
+        return ResponseEntity.ok(
+                getResponse(httpRequest, donnees, "Adresse récupérée avec succès", OK)
+        );
+    }
+
+    /**
+     * GET /billetterie/google-places/stats - Taux de hit du cache, requêtes regroupées, limitées et replis locaux
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Response> getStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest httpRequest) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques du géocodage");
+        }
+        return ResponseEntity.ok(
+                getResponse(httpRequest, proxyGeocodage.getStatistiques(Amont.GOOGLE),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+
+    private Map<String, Object> autocompleterGoogle(String query, String country) {
+        URI url = UriComponentsBuilder.fromUriString(AUTOCOMPLETE_URL)
+                .queryParam("key", googleApiKey)
+                .queryParam("input", query)
+                .queryParam("components", "country:" + country)
+                .encode()
+                .build()
+                .toUri();
 
+        Map<String, Object> googleResponse = appelerGoogle(url);
+
+        List<Map<String, String>> predictions = new ArrayList<>();
+        String googleStatus = (String) googleResponse.get("status");
+
+        if ("OK".equals(googleStatus)) {
             @SuppressWarnings("unchecked")
-            Map<String, Object> googleResponse = restTemplate.getForObject(url, Map.class);
+            List<Map<String, Object>> googlePredictions =
+                    (List<Map<String, Object>>) googleResponse.get("predictions");
+
+            if (googlePredictions != null) {
+                log.info("Nombre de prédictions trouvées: {}", googlePredictions.size());
+                for (Map<String, Object> prediction : googlePredictions) {
+                    Map<String, String> item = new HashMap<>();
+                    item.put("description", (String) prediction.get("description"));
+                    item.put("placeId", (String) prediction.get("place_id"));
+                    predictions.add(item);
+                    log.debug("Prédiction: {}", prediction.get("description"));
+                }
+            }
+        } else {
+            log.warn("Google n'a trouvé aucun résultat pour '{}' dans le pays '{}'", query, country);
+        }
 
-            log.info("Geocode - Réponse Google: {}", googleResponse);
+        return Map.of(
+                "predictions", predictions,
+                "total", predictions.size(),
+                "googleStatus", googleStatus
+        );
+    }
 
-            String address = null;
+    private Map<String, Object> detaillerLieuGoogle(String placeId) {
+        URI url = UriComponentsBuilder.fromUriString(PLACE_DETAILS_URL)
+                .queryParam("key", googleApiKey)
+                .queryParam("placeid", placeId)
+                .queryParam("fields", "formatted_address,geometry")
+                .encode()
+                .build()
+                .toUri();
 
-            if (googleResponse != null && "OK".equals(googleResponse.get("status"))) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> results =
-                        (List<Map<String, Object>>) googleResponse.get("results");
+        Map<String, Object> googleResponse = appelerGoogle(url);
+
+        Map<String, Object> placeDetails = new HashMap<>();
+
+        if ("OK".equals(googleResponse.get("status"))) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> result = (Map<String, Object>) googleResponse.get("result");
+
+            if (result != null) {
+                placeDetails.put("address", result.get("formatted_address"));
 
-                if (results != null && !results.isEmpty()) {
-                    address = (String) results.get(0).get("formatted_address");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> geometry = (Map<String, Object>) result.get("geometry");
+                if (geometry != null) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> location = (Map<String, Object>) geometry.get("location");
+                    if (location != null) {
+                        placeDetails.put("latitude", location.get("lat"));
+                        placeDetails.put("longitude", location.get("lng"));
+                    }
                 }
             }
+        }
 
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of("address", address != null ? address : ""),
-                            "Adresse récupérée avec succès", OK)
-            );
+        return Map.of("place", placeDetails);
+    }
 
-        } catch (Exception e) {
-            log.error("Erreur Google Geocoding: {}", e.getMessage());
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of("address", ""),
-                            "Erreur lors de la récupération de l'adresse", OK)
-            );
+    private Map<String, Object> geocoderInverseGoogle(Double latitude, Double longitude) {
+        URI url = UriComponentsBuilder.fromUriString(GEOCODE_URL)
+                .queryParam("key", googleApiKey)
+                .queryParam("latlng", latitude + "," + longitude)
+                .encode()
+                .build()
+                .toUri();
+
+        Map<String, Object> googleResponse = appelerGoogle(url);
+
+        String address = null;
+
+        if ("OK".equals(googleResponse.get("status"))) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> results =
+                    (List<Map<String, Object>>) googleResponse.get("results");
+
+            if (results != null && !results.isEmpty()) {
+                address = (String) results.get(0).get("formatted_address");
+            }
+        }
+
+        return Map.of("address", address != null ? address : "");
+    }
+
+    /**
+     * Appel Google ; OK et ZERO_RESULTS sont des réponses (mises en cache), les
+     * autres statuts (REQUEST_DENIED, OVER_QUERY_LIMIT, INVALID_REQUEST…) des
+     * échecs qui déclenchent le repli local.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> appelerGoogle(URI url) {
+        Map<String, Object> googleResponse = restTemplate.getForObject(url, Map.class);
+        if (googleResponse == null) {
+            throw new ApiException("Google Places : réponse vide");
+        }
+        String googleStatus = (String) googleResponse.get("status");
+        log.debug("Google API Status: {}", googleStatus);
+        if (!"OK".equals(googleStatus) && !"ZERO_RESULTS".equals(googleStatus)) {
+            throw new ApiException("Google Places : " + googleStatus
+                    + (googleResponse.containsKey("error_message") ? " - " + googleResponse.get("error_message") : ""));
         }
+        return googleResponse;
     }
-}
\ No newline at end of file
+}
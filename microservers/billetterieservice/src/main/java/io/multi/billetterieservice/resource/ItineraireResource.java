@@ -0,0 +1,83 @@
+package io.multi.billetterieservice.resource;
+
+import io.multi.billetterieservice.domain.Itineraire;
+import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.service.MoteurItineraires;
+import io.multi.billetterieservice.utils.JwtUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Itinéraires entre villes, directs ou avec correspondances.
+ * Base path: /billetterie/itineraires
+ */
+@RestController
+@RequestMapping("/billetterie/itineraires")
+@RequiredArgsConstructor
+@Slf4j
+public class ItineraireResource {
+
+    private final MoteurItineraires moteurItineraires;
+    private final JwtUtils jwtUtils;
+
+    /**
+     * GET /billetterie/itineraires?villeDepartUuid=&villeArriveeUuid=&date=&heure=&places=1&correspondancesMax=2
+     * Sans date : à partir de maintenant ; avec une date sans heure : à partir du début de la journée.
+     */
+    @GetMapping
+    public ResponseEntity<Response> rechercher(
+            @RequestParam String villeDepartUuid,
+            @RequestParam String villeArriveeUuid,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime heure,
+            @RequestParam(defaultValue = "1") int places,
+            @RequestParam(defaultValue = "2") int correspondancesMax,
+            HttpServletRequest request) {
+        log.info("GET /billetterie/itineraires - {} -> {} le {}", villeDepartUuid, villeArriveeUuid, date);
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime depuis = date == null
+                ? (heure == null ? maintenant : LocalDate.now().atTime(heure))
+                : date.atTime(heure != null ? heure : LocalTime.MIDNIGHT);
+        if (depuis.isBefore(maintenant)) {
+            depuis = maintenant;
+        }
+        List<Itineraire> itineraires = moteurItineraires.rechercher(villeDepartUuid, villeArriveeUuid, depuis,
+                places, correspondancesMax);
+        return ResponseEntity.ok(
+                getResponse(request, Map.of("itineraires", itineraires, "total", itineraires.size()),
+                        "Itinéraires récupérés avec succès", OK)
+        );
+    }
+
+    /**
+     * GET /billetterie/itineraires/stats - Taille du graphe, rafraîchissements et durée des recherches
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Response> getStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques du moteur d'itinéraires");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, moteurItineraires.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+}
@@ -5,6 +5,7 @@ import io.multi.billetterieservice.dto.LocalisationCreateRequest;
 import io.multi.billetterieservice.dto.LocalisationUpdateRequest;
 import io.multi.billetterieservice.response.LocalisationResponse;
 import io.multi.billetterieservice.service.LocalisationService;
+import io.multi.billetterieservice.service.ReferentielGeographique;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 
+import static io.multi.billetterieservice.utils.RequestUtils.getConditionalResponse;
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
 import static org.springframework.http.HttpStatus.*;
 
@@ -29,6 +31,7 @@ import static org.springframework.http.HttpStatus.*;
 public class LocalisationResource {
 
     private final LocalisationService localisationService;
+    private final ReferentielGeographique referentielGeographique;
 
     /**
      * Crée une nouvelle localisation.
@@ -87,11 +90,10 @@ public class LocalisationResource {
     public ResponseEntity<Response> getAllLocalisations(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations - Récupération de toutes les localisations");
 
-        List<LocalisationResponse> localisations = localisationService.getAllLocalisations();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisations", localisations, "total", localisations.size()),
-                        "Liste des localisations récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<LocalisationResponse> localisations = localisationService.getAllLocalisations();
+            return Map.of("localisations", localisations, "total", localisations.size());
+        }, "Liste des localisations récupérée avec succès");
     }
 
     /**
@@ -102,11 +104,10 @@ public class LocalisationResource {
     public ResponseEntity<Response> getLocalisationsWithQuartier(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations/with-quartier - Récupération des localisations avec quartier");
 
-        List<LocalisationResponse> localisations = localisationService.getLocalisationsWithQuartier();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisations", localisations, "total", localisations.size()),
-                        "Liste des localisations avec quartier récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<LocalisationResponse> localisations = localisationService.getLocalisationsWithQuartier();
+            return Map.of("localisations", localisations, "total", localisations.size());
+        }, "Liste des localisations avec quartier récupérée avec succès");
     }
 
     /**
@@ -117,11 +118,10 @@ public class LocalisationResource {
     public ResponseEntity<Response> getLocalisationsWithoutQuartier(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations/without-quartier - Récupération des localisations sans quartier");
 
-        List<LocalisationResponse> localisations = localisationService.getLocalisationsWithoutQuartier();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisations", localisations, "total", localisations.size()),
-                        "Liste des localisations sans quartier récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<LocalisationResponse> localisations = localisationService.getLocalisationsWithoutQuartier();
+            return Map.of("localisations", localisations, "total", localisations.size());
+        }, "Liste des localisations sans quartier récupérée avec succès");
     }
 
     /**
@@ -134,11 +134,10 @@ public class LocalisationResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations/quartier/{} - Récupération des localisations", quartierUuid);
 
-        List<LocalisationResponse> localisations = localisationService.getLocalisationsByQuartier(quartierUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisations", localisations, "total", localisations.size(), "quartierUuid", quartierUuid),
-                        "Liste des localisations du quartier récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<LocalisationResponse> localisations = localisationService.getLocalisationsByQuartier(quartierUuid);
+            return Map.of("localisations", localisations, "total", localisations.size(), "quartierUuid", quartierUuid);
+        }, "Liste des localisations du quartier récupérée avec succès");
     }
 
     /**
@@ -151,11 +150,10 @@ public class LocalisationResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations/commune/{} - Récupération des localisations", communeUuid);
 
-        List<LocalisationResponse> localisations = localisationService.getLocalisationsByCommune(communeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisations", localisations, "total", localisations.size(), "communeUuid", communeUuid),
-                        "Liste des localisations de la commune récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<LocalisationResponse> localisations = localisationService.getLocalisationsByCommune(communeUuid);
+            return Map.of("localisations", localisations, "total", localisations.size(), "communeUuid", communeUuid);
+        }, "Liste des localisations de la commune récupérée avec succès");
     }
 
     /**
@@ -168,11 +166,10 @@ public class LocalisationResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations/ville/{} - Récupération des localisations", villeUuid);
 
-        List<LocalisationResponse> localisations = localisationService.getLocalisationsByVille(villeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisations", localisations, "total", localisations.size(), "villeUuid", villeUuid),
-                        "Liste des localisations de la ville récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<LocalisationResponse> localisations = localisationService.getLocalisationsByVille(villeUuid);
+            return Map.of("localisations", localisations, "total", localisations.size(), "villeUuid", villeUuid);
+        }, "Liste des localisations de la ville récupérée avec succès");
     }
 
     /**
@@ -185,11 +182,10 @@ public class LocalisationResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations/region/{} - Récupération des localisations", regionUuid);
 
-        List<LocalisationResponse> localisations = localisationService.getLocalisationsByRegion(regionUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisations", localisations, "total", localisations.size(), "regionUuid", regionUuid),
-                        "Liste des localisations de la région récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<LocalisationResponse> localisations = localisationService.getLocalisationsByRegion(regionUuid);
+            return Map.of("localisations", localisations, "total", localisations.size(), "regionUuid", regionUuid);
+        }, "Liste des localisations de la région récupérée avec succès");
     }
 
     /**
@@ -202,10 +198,10 @@ public class LocalisationResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/localisations/{} - Récupération de la localisation", localisationUuid);
 
-        LocalisationResponse response = localisationService.getLocalisationByUuid(localisationUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("localisation", response), "Localisation récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            LocalisationResponse response = localisationService.getLocalisationByUuid(localisationUuid);
+            return Map.of("localisation", response);
+        }, "Localisation récupérée avec succès");
     }
 
     /**
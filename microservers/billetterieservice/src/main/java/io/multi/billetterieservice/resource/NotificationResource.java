@@ -1,18 +1,27 @@
 package io.multi.billetterieservice.resource;
 
-import io.multi.billetterieservice.domain.InAppNotification;
+import io.multi.billetterieservice.domain.PageNotifications;
 import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.clients.jobs.CoordinateurJobs;
+import io.multi.billetterieservice.scheduled.RelaisOutbox;
 import io.multi.billetterieservice.utils.JwtUtils;
+import io.multi.billetterieservice.service.DiffusionNotifications;
+import io.multi.billetterieservice.service.FcmSender;
 import io.multi.billetterieservice.service.InAppNotificationService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
@@ -25,22 +34,48 @@ import static org.springframework.http.HttpStatus.OK;
 public class NotificationResource {
 
     private final InAppNotificationService notificationService;
+    private final DiffusionNotifications diffusionNotifications;
+    private final RelaisOutbox relaisOutbox;
+    private final FcmSender fcmSender;
+    private final CoordinateurJobs coordinateurJobs;
     private final JwtUtils jwtUtils;
 
+    /**
+     * GET /billetterie/notifications?curseur=&taille= - Fil de l'utilisateur, du plus récent au plus ancien (paginé)
+     * page / size : ancienne pagination, acceptée pendant la transition des applications
+     * (size vaut taille ; page > 0 sans curseur lit par OFFSET)
+     */
     @GetMapping
     public ResponseEntity<Response> getNotifications(
             @AuthenticationPrincipal Jwt jwt,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
             HttpServletRequest request) {
         Long userId = jwtUtils.extractUserId(jwt);
-        List<InAppNotification> notifications = notificationService.getByUserId(userId, page, size);
+        Integer parPage = taille != null ? taille : size;
+        PageNotifications fil = curseur == null && page != null && page > 0
+                ? notificationService.getByUserIdParPage(userId, page, parPage)
+                : notificationService.getByUserId(userId, curseur, parPage);
+        Map<String, Object> data = new HashMap<>();
+        data.put("notifications", fil.getNotifications());
+        data.put("hasMore", fil.isHasMore());
+        data.put("curseurSuivant", fil.getCurseurSuivant());
         return ResponseEntity.ok(
-                getResponse(request, Map.of("notifications", notifications),
+                getResponse(request, data,
                         "Notifications récupérées avec succès", OK)
         );
     }
 
+    /**
+     * GET /billetterie/notifications/flux - Nouvelles notifications et compteur de non lues en direct (text/event-stream)
+     */
+    @GetMapping(value = "/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getFlux(@AuthenticationPrincipal Jwt jwt) {
+        return diffusionNotifications.abonner(jwtUtils.extractUserId(jwt));
+    }
+
     @GetMapping("/unread-count")
     public ResponseEntity<Response> getUnreadCount(
             @AuthenticationPrincipal Jwt jwt,
@@ -53,13 +88,18 @@ public class NotificationResource {
         );
     }
 
+    /**
+     * PUT /billetterie/notifications/{id}/read?createdAt= - createdAt (facultatif, ISO 8601) : celui
+     * de la notification, évite de parcourir toutes les partitions mensuelles
+     */
     @PutMapping("/{id}/read")
     public ResponseEntity<Response> markAsRead(
             @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdAt,
             @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         Long userId = jwtUtils.extractUserId(jwt);
-        notificationService.markAsRead(id, userId);
+        notificationService.markAsRead(id, createdAt, userId);
         return ResponseEntity.ok(
                 getResponse(request, Map.of(),
                         "Notification marquée comme lue", OK)
@@ -77,4 +117,68 @@ public class NotificationResource {
                         "Toutes les notifications marquées comme lues", OK)
         );
     }
+
+    /**
+     * GET /billetterie/notifications/flux/stats - Connexions SSE, publications PostgreSQL reçues et événements envoyés
+     */
+    @GetMapping("/flux/stats")
+    public ResponseEntity<Response> getFluxStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques du flux des notifications");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, diffusionNotifications.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+
+    /**
+     * GET /billetterie/notifications/outbox/stats - File d'attente, latence de publication et nouveaux essais du relais Kafka
+     */
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<Response> getOutboxStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques du relais outbox");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, relaisOutbox.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+
+    /**
+     * GET /billetterie/notifications/push/stats - Push FCM envoyées, échecs, tokens purgés et lots en attente
+     */
+    @GetMapping("/push/stats")
+    public ResponseEntity<Response> getPushStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques des notifications push");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, fcmSender.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+
+    /**
+     * GET /billetterie/notifications/jobs/stats - Dernière exécution de chaque job planifié (statut, durée, éléments)
+     */
+    @GetMapping("/jobs/stats")
+    public ResponseEntity<Response> getJobsStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques des jobs planifiés");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, coordinateurJobs.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
 }
@@ -2,23 +2,32 @@ package io.multi.billetterieservice.resource;
 
 import io.multi.billetterieservice.domain.Avis;
 import io.multi.billetterieservice.domain.Offre;
+import io.multi.billetterieservice.domain.PageOffres;
 import io.multi.billetterieservice.domain.Response;
 import io.multi.billetterieservice.dto.OffreRequest;
+import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.AvisRepository;
+import io.multi.billetterieservice.service.BlocagePlacesService;
+import io.multi.billetterieservice.service.DiffusionPlaces;
+import io.multi.billetterieservice.service.InventairePlaces;
 import io.multi.billetterieservice.service.OffreService;
+import io.multi.billetterieservice.service.StatsVentesService;
 import io.multi.billetterieservice.utils.JwtUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,32 +46,44 @@ public class OffreResource {
 
     private final OffreService offreService;
     private final AvisRepository avisRepository;
+    private final InventairePlaces inventairePlaces;
+    private final BlocagePlacesService blocagePlacesService;
+    private final DiffusionPlaces diffusionPlaces;
+    private final StatsVentesService statsVentesService;
     private final JwtUtils jwtUtils;
 
     // ========== ENDPOINTS DE LECTURE ==========
 
     /**
-     * GET /billetterie/offres - Liste toutes les offres
+     * GET /billetterie/offres?curseur=&taille= - Liste toutes les offres (paginée)
      */
     @GetMapping
-    public ResponseEntity<Response> getAll(HttpServletRequest request) {
+    public ResponseEntity<Response> getAll(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
         log.info("GET /billetterie/offres - Récupération de toutes les offres");
-        List<Offre> offres = offreService.getAll();
+        PageOffres page = offreService.getAll(curseur, taille);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("offres", offres, "total", offres.size()),
+                getResponse(request, pageData(page, jwt),
                         "Offres récupérées avec succès", OK)
         );
     }
 
     /**
-     * GET /billetterie/offres/ouvertes - Liste offres ouvertes
+     * GET /billetterie/offres/ouvertes?curseur=&taille= - Liste offres ouvertes (paginée)
      */
     @GetMapping("/ouvertes")
-    public ResponseEntity<Response> getAllOuvertes(HttpServletRequest request) {
+    public ResponseEntity<Response> getAllOuvertes(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
         log.info("GET /billetterie/offres/ouvertes - Récupération des offres ouvertes");
-        List<Offre> offres = offreService.getAllOuvertes();
+        PageOffres page = offreService.getAllOuvertes(curseur, taille);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("offres", offres, "total", offres.size()),
+                getResponse(request, pageData(page, jwt),
                         "Offres ouvertes récupérées avec succès", OK)
         );
     }
@@ -73,9 +94,10 @@ public class OffreResource {
     @GetMapping("/{uuid}")
     public ResponseEntity<Response> getByUuid(
             @PathVariable String uuid,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/{} - Récupération de l'offre", uuid);
-        Offre offre = offreService.getByUuid(uuid);
+        Offre offre = avecBlocages(offreService.getByUuid(uuid), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offre", offre),
                         "Offre récupérée avec succès", OK)
@@ -88,9 +110,10 @@ public class OffreResource {
     @GetMapping("/token/{token}")
     public ResponseEntity<Response> getByToken(
             @PathVariable String token,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/token/{}", token);
-        Offre offre = offreService.getByToken(token);
+        Offre offre = avecBlocages(offreService.getByToken(token), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offre", offre),
                         "Offre récupérée avec succès", OK)
@@ -106,7 +129,7 @@ public class OffreResource {
             HttpServletRequest request) {
         Long userId = extractUserId(jwt);
         log.info("GET /billetterie/offres/mes-offres - userId: {}", userId);
-        List<Offre> offres = offreService.getMesOffres(userId);
+        List<Offre> offres = avecBlocages(offreService.getMesOffres(userId), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Mes offres récupérées avec succès", OK)
@@ -119,9 +142,10 @@ public class OffreResource {
     @GetMapping("/trajet/{trajetUuid}")
     public ResponseEntity<Response> getByTrajet(
             @PathVariable String trajetUuid,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/trajet/{}", trajetUuid);
-        List<Offre> offres = offreService.getByTrajet(trajetUuid);
+        List<Offre> offres = avecBlocages(offreService.getByTrajet(trajetUuid), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres récupérées avec succès", OK)
@@ -134,9 +158,10 @@ public class OffreResource {
     @GetMapping("/vehicule/{vehiculeUuid}")
     public ResponseEntity<Response> getByVehicule(
             @PathVariable String vehiculeUuid,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/vehicule/{}", vehiculeUuid);
-        List<Offre> offres = offreService.getByVehicule(vehiculeUuid);
+        List<Offre> offres = avecBlocages(offreService.getByVehicule(vehiculeUuid), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres récupérées avec succès", OK)
@@ -149,11 +174,14 @@ public class OffreResource {
     @GetMapping("/statut/{statut}")
     public ResponseEntity<Response> getByStatut(
             @PathVariable String statut,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/statut/{}", statut);
-        List<Offre> offres = offreService.getByStatut(statut);
+        PageOffres page = offreService.getByStatut(statut, curseur, taille);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("offres", offres, "total", offres.size()),
+                getResponse(request, pageData(page, jwt),
                         "Offres récupérées avec succès", OK)
         );
     }
@@ -164,9 +192,10 @@ public class OffreResource {
     @GetMapping("/date/{dateDepart}")
     public ResponseEntity<Response> getByDateDepart(
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDepart,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/date/{}", dateDepart);
-        List<Offre> offres = offreService.getByDateDepart(dateDepart);
+        List<Offre> offres = avecBlocages(offreService.getByDateDepart(dateDepart), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres récupérées avec succès", OK)
@@ -181,14 +210,15 @@ public class OffreResource {
             @RequestParam String villeDepartUuid,
             @RequestParam String villeArriveeUuid,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDepart,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/recherche - {} -> {} le {}", villeDepartUuid, villeArriveeUuid, dateDepart);
 
         List<Offre> offres;
         if (dateDepart != null) {
-            offres = offreService.getByVillesAndDate(villeDepartUuid, villeArriveeUuid, dateDepart);
+            offres = avecBlocages(offreService.getByVillesAndDate(villeDepartUuid, villeArriveeUuid, dateDepart), jwt);
         } else {
-            offres = offreService.getByVilles(villeDepartUuid, villeArriveeUuid);
+            offres = avecBlocages(offreService.getByVilles(villeDepartUuid, villeArriveeUuid), jwt);
         }
 
         return ResponseEntity.ok(
@@ -203,9 +233,10 @@ public class OffreResource {
     @GetMapping("/ville-depart/{villeUuid}")
     public ResponseEntity<Response> getByVilleDepart(
             @PathVariable String villeUuid,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/ville-depart/{}", villeUuid);
-        List<Offre> offres = offreService.getByVilleDepart(villeUuid);
+        List<Offre> offres = avecBlocages(offreService.getByVilleDepart(villeUuid), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres récupérées avec succès", OK)
@@ -218,9 +249,10 @@ public class OffreResource {
     @GetMapping("/ville-arrivee/{villeUuid}")
     public ResponseEntity<Response> getByVilleArrivee(
             @PathVariable String villeUuid,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/ville-arrivee/{}", villeUuid);
-        List<Offre> offres = offreService.getByVilleArrivee(villeUuid);
+        List<Offre> offres = avecBlocages(offreService.getByVilleArrivee(villeUuid), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres récupérées avec succès", OK)
@@ -233,9 +265,10 @@ public class OffreResource {
     @GetMapping("/places-disponibles/{nombrePlaces}")
     public ResponseEntity<Response> getAvecPlacesDisponibles(
             @PathVariable int nombrePlaces,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/places-disponibles/{}", nombrePlaces);
-        List<Offre> offres = offreService.getAvecPlacesDisponibles(nombrePlaces);
+        List<Offre> offres = avecBlocages(offreService.getAvecPlacesDisponibles(nombrePlaces), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres récupérées avec succès", OK)
@@ -246,9 +279,11 @@ public class OffreResource {
      * GET /billetterie/offres/aujourd-hui - Offres du jour
      */
     @GetMapping("/aujourd-hui")
-    public ResponseEntity<Response> getAujourdHui(HttpServletRequest request) {
+    public ResponseEntity<Response> getAujourdHui(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
         log.info("GET /billetterie/offres/aujourd-hui");
-        List<Offre> offres = offreService.getAujourdHui();
+        List<Offre> offres = avecBlocages(offreService.getAujourdHui(), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres d'aujourd'hui récupérées avec succès", OK)
@@ -259,11 +294,15 @@ public class OffreResource {
      * GET /billetterie/offres/a-venir - Offres à venir
      */
     @GetMapping("/a-venir")
-    public ResponseEntity<Response> getAVenir(HttpServletRequest request) {
+    public ResponseEntity<Response> getAVenir(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
         log.info("GET /billetterie/offres/a-venir");
-        List<Offre> offres = offreService.getAVenir();
+        PageOffres page = offreService.getAVenir(curseur, taille);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("offres", offres, "total", offres.size()),
+                getResponse(request, pageData(page, jwt),
                         "Offres à venir récupérées avec succès", OK)
         );
     }
@@ -272,11 +311,15 @@ public class OffreResource {
      * GET /billetterie/offres/passees - Offres passées
      */
     @GetMapping("/passees")
-    public ResponseEntity<Response> getPassees(HttpServletRequest request) {
+    public ResponseEntity<Response> getPassees(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
         log.info("GET /billetterie/offres/passees");
-        List<Offre> offres = offreService.getPassees();
+        PageOffres page = offreService.getPassees(curseur, taille);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("offres", offres, "total", offres.size()),
+                getResponse(request, pageData(page, jwt),
                         "Offres passées récupérées avec succès", OK)
         );
     }
@@ -285,9 +328,11 @@ public class OffreResource {
      * GET /billetterie/offres/promotions - Offres en promotion
      */
     @GetMapping("/promotions")
-    public ResponseEntity<Response> getEnPromotion(HttpServletRequest request) {
+    public ResponseEntity<Response> getEnPromotion(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
         log.info("GET /billetterie/offres/promotions");
-        List<Offre> offres = offreService.getEnPromotion();
+        List<Offre> offres = avecBlocages(offreService.getEnPromotion(), jwt);
         return ResponseEntity.ok(
                 getResponse(request, Map.of("offres", offres, "total", offres.size()),
                         "Offres en promotion récupérées avec succès", OK)
@@ -300,11 +345,14 @@ public class OffreResource {
     @GetMapping("/search")
     public ResponseEntity<Response> search(
             @RequestParam(name = "q") String searchTerm,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/search?q={}", searchTerm);
-        List<Offre> offres = offreService.search(searchTerm);
+        PageOffres page = offreService.search(searchTerm, curseur, taille);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("offres", offres, "total", offres.size()),
+                getResponse(request, pageData(page, jwt),
                         "Recherche effectuée avec succès", OK)
         );
     }
@@ -546,6 +594,26 @@ public class OffreResource {
         );
     }
 
+    /**
+     * GET /billetterie/offres/stats/ventes?debut=&fin= - Ventes par jour, tous transporteurs.
+     * Réservé aux administrateurs ; un transporteur consulte les siennes via /vehicules/mes-stats/ventes.
+     */
+    @GetMapping("/stats/ventes")
+    public ResponseEntity<Response> getStatsVentes(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        log.info("GET /billetterie/offres/stats/ventes - du {} au {}", debut, fin);
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les ventes de tous les transporteurs");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, statsVentesService.getVentes(debut, fin),
+                        "Statistiques de ventes récupérées avec succès", OK)
+        );
+    }
+
     /**
      * GET /billetterie/offres/mes-stats - Statistiques de l'utilisateur
      */
@@ -562,6 +630,52 @@ public class OffreResource {
         );
     }
 
+    /**
+     * GET /billetterie/offres/inventaire-places/stats - Compteurs de l'inventaire de places en mémoire
+     */
+    @GetMapping("/inventaire-places/stats")
+    public ResponseEntity<Response> getInventairePlacesStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        log.info("GET /billetterie/offres/inventaire-places/stats");
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques de l'inventaire des places");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, inventairePlaces.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+
+    // ========== FLUX DES PLACES (SSE) ==========
+
+    /**
+     * GET /billetterie/offres/places/flux?offres=uuid1,uuid2 - Places disponibles en direct (text/event-stream)
+     * Un événement "places" par offre à l'ouverture, puis à chaque réservation, annulation ou changement de statut.
+     */
+    @GetMapping(value = "/places/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter fluxPlaces(@RequestParam List<String> offres) {
+        log.info("GET /billetterie/offres/places/flux - {} offre(s)", offres.size());
+        return diffusionPlaces.abonner(offres);
+    }
+
+    /**
+     * GET /billetterie/offres/places/flux/stats - Connexions et événements du flux des places
+     */
+    @GetMapping("/places/flux/stats")
+    public ResponseEntity<Response> getFluxPlacesStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        log.info("GET /billetterie/offres/places/flux/stats");
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques du flux des places");
+        }
+        return ResponseEntity.ok(
+                getResponse(request, diffusionPlaces.getStatistiques(),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
+
     // ========== ENDPOINT AVIS ==========
 
     /**
@@ -570,6 +684,7 @@ public class OffreResource {
     @GetMapping("/{uuid}/avis")
     public ResponseEntity<Response> getAvisByOffre(
             @PathVariable String uuid,
+            @AuthenticationPrincipal Jwt jwt,
             HttpServletRequest request) {
         log.info("GET /billetterie/offres/{}/avis", uuid);
         List<Avis> avis = avisRepository.findByOffreUuid(uuid);
@@ -581,7 +696,47 @@ public class OffreResource {
 
     // ========== MÉTHODES PRIVÉES ==========
 
+    /**
+     * Corps d'une réponse paginée : taille = offres de cette page, curseurSuivant
+     * null sur la dernière page (pas de total : le compter coûterait une lecture de
+     * toute la liste à chaque page ; voir /stats).
+     */
+    private Map<String, Object> pageData(PageOffres page, Jwt jwt) {
+        List<Offre> offres = avecBlocages(page.getOffres(), jwt);
+        Map<String, Object> data = new HashMap<>();
+        data.put("offres", offres);
+        data.put("taille", offres.size());
+        data.put("hasMore", page.isHasMore());
+        data.put("curseurSuivant", page.getCurseurSuivant());
+        return data;
+    }
+
     private Long extractUserId(Jwt jwt) {
         return jwtUtils.extractUserId(jwt);
     }
-}
\ No newline at end of file
+
+    /**
+     * Retire des places affichées celles bloquées temporairement par d'autres
+     * acheteurs (sommes lues en base pour toute la liste, en une requête). Le
+     * blocage de l'appelant n'est pas retiré : ces places lui restent acquises.
+     */
+    private List<Offre> avecBlocages(List<Offre> offres, Jwt jwt) {
+        if (offres.isEmpty()) return offres;
+        Map<Long, Integer> bloquees = blocagePlacesService.getPlacesBloquees(
+                offres.stream().map(Offre::getOffreId).toList(), jwt != null ? extractUserId(jwt) : null);
+        offres.forEach(offre -> deduireBlocages(offre, bloquees.getOrDefault(offre.getOffreId(), 0)));
+        return offres;
+    }
+
+    private Offre avecBlocages(Offre offre, Jwt jwt) {
+        avecBlocages(List.of(offre), jwt);
+        return offre;
+    }
+
+    private void deduireBlocages(Offre offre, int bloquees) {
+        if (bloquees > 0 && offre.getNombrePlacesDisponibles() != null) {
+            offre.setNombrePlacesBloquees(bloquees);
+            offre.setNombrePlacesDisponibles(Math.max(offre.getNombrePlacesDisponibles() - bloquees, 0));
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package io.multi.billetterieservice.resource;
 
+import io.multi.billetterieservice.domain.Localisation;
 import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.service.ProxyGeocodage;
+import io.multi.billetterieservice.service.ProxyGeocodage.Amont;
+import io.multi.billetterieservice.utils.JwtUtils;
+import io.multi.billetterieservice.utils.PrefixTrie;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
@@ -24,6 +36,9 @@ import static org.springframework.http.HttpStatus.OK;
  * 100% gratuit, pas de clé API requise.
  *
  * Documentation: https://nominatim.org/release-docs/develop/api/Overview/
+ *
+ * Les appels passent par ProxyGeocodage (cache, regroupement, 1 requête/s) ;
+ * au-delà, les réponses viennent des localisations connues.
  */
 @RestController
 @RequestMapping("/billetterie/osm")
@@ -32,10 +47,12 @@ import static org.springframework.http.HttpStatus.OK;
 public class OpenStreetMapResource {
 
     private final RestTemplate restTemplate;
+    private final ProxyGeocodage proxyGeocodage;
+    private final JwtUtils jwtUtils;
 
-    // URLs Nominatim (API gratuite d'OpenStreetMap)
-    private static final String NOMINATIM_SEARCH_URL = "https://nominatim.openstreetmap.org/search";
-    private static final String NOMINATIM_REVERSE_URL = "https://nominatim.openstreetmap.org/reverse";
+    // URL Nominatim (API gratuite d'OpenStreetMap), surchargeable (instance auto-hébergée, tests)
+    @Value("${billetterie.geocodage.nominatim.url:https://nominatim.openstreetmap.org}")
+    private String nominatimUrl;
 
     // User-Agent obligatoire pour Nominatim
     private static final String USER_AGENT = "BilletterieGuinee/1.0 (contact@billetterie.gn)";
@@ -53,73 +70,13 @@ public class OpenStreetMapResource {
 
         log.info("GET /billetterie/osm/search - Query: '{}', Country: '{}'", query, countryCode);
 
-        try {
-            // Construction de l'URL Nominatim
-            String url = String.format(
-                    "%s?q=%s&countrycodes=%s&format=json&addressdetails=1&limit=%d",
-                    NOMINATIM_SEARCH_URL,
-                    query,
-                    countryCode,
-                    limit
-            );
-
-            log.debug("Appel Nominatim: {}", url);
-
-            // Headers obligatoires pour Nominatim
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", USER_AGENT);
-            headers.set("Accept-Language", "fr");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<List> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, List.class
-            );
-
-            List<Map<String, Object>> results = response.getBody();
-            log.info("Nominatim a retourné {} résultats", results != null ? results.size() : 0);
-
-            List<Map<String, Object>> predictions = new ArrayList<>();
-
-            if (results != null && !results.isEmpty()) {
-                for (Map<String, Object> result : results) {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("placeId", String.valueOf(result.get("place_id")));
-                    item.put("osmId", String.valueOf(result.get("osm_id")));
-                    item.put("osmType", result.get("osm_type"));
-                    item.put("description", result.get("display_name"));
-                    item.put("latitude", parseDouble(result.get("lat")));
-                    item.put("longitude", parseDouble(result.get("lon")));
-                    item.put("type", result.get("type"));
-                    item.put("category", result.get("class"));
-
-                    // Détails de l'adresse
-                    if (result.containsKey("address")) {
-                        item.put("address", result.get("address"));
-                    }
-
-                    predictions.add(item);
-                    log.debug("Résultat: {}", result.get("display_name"));
-                }
-            }
-
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of(
-                            "predictions", predictions,
-                            "total", predictions.size(),
-                            "source", "OpenStreetMap/Nominatim"
-                    ), "Recherche effectuée avec succès", OK)
-            );
-
-        } catch (Exception e) {
-            log.error("Erreur Nominatim Search: {}", e.getMessage(), e);
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of(
-                            "predictions", List.of(),
-                            "total", 0,
-                            "error", e.getMessage()
-                    ), "Erreur lors de la recherche", OK)
-            );
-        }
+        String cle = "search|" + countryCode + "|" + limit + "|" + PrefixTrie.normaliser(query);
+        Map<String, Object> donnees = proxyGeocodage.resoudre(Amont.NOMINATIM, cle,
+                () -> rechercherNominatim(query, countryCode, limit),
+                () -> proxyGeocodage.rechercherLocal(query, limit));
+        return ResponseEntity.ok(
+                getResponse(httpRequest, donnees, "Recherche effectuée avec succès", OK)
+        );
     }
 
     /**
@@ -134,53 +91,14 @@ public class OpenStreetMapResource {
 
         log.info("GET /billetterie/osm/reverse - Lat: {}, Lng: {}", latitude, longitude);
 
-        try {
-            String url = String.format(
-                    "%s?lat=%s&lon=%s&format=json&addressdetails=1",
-                    NOMINATIM_REVERSE_URL,
-                    latitude,
-                    longitude
-            );
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", USER_AGENT);
-            headers.set("Accept-Language", "fr");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, Map.class
-            );
-
-            Map<String, Object> result = response.getBody();
-            log.info("Nominatim Reverse: {}", result);
-
-            Map<String, Object> place = new HashMap<>();
-
-            if (result != null && result.containsKey("display_name")) {
-                place.put("address", result.get("display_name"));
-                place.put("placeId", String.valueOf(result.get("place_id")));
-                place.put("osmId", String.valueOf(result.get("osm_id")));
-                place.put("osmType", result.get("osm_type"));
-                place.put("latitude", parseDouble(result.get("lat")));
-                place.put("longitude", parseDouble(result.get("lon")));
-
-                if (result.containsKey("address")) {
-                    place.put("addressDetails", result.get("address"));
-                }
-            }
-
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of("place", place),
-                            "Géocodage inverse effectué avec succès", OK)
-            );
-
-        } catch (Exception e) {
-            log.error("Erreur Nominatim Reverse: {}", e.getMessage(), e);
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of("place", Map.of()),
-                            "Erreur lors du géocodage inverse", OK)
-            );
-        }
+        // ~11 m de précision : les positions voisines partagent l'entrée du cache
+        String cle = String.format(Locale.ROOT, "reverse|%.4f|%.4f", latitude, longitude);
+        Map<String, Object> donnees = proxyGeocodage.resoudre(Amont.NOMINATIM, cle,
+                () -> geocoderInverseNominatim(latitude, longitude),
+                () -> Map.of("place", lieuLocal(latitude, longitude)));
+        return ResponseEntity.ok(
+                getResponse(httpRequest, donnees, "Géocodage inverse effectué avec succès", OK)
+        );
     }
 
     /**
@@ -191,23 +109,25 @@ public class OpenStreetMapResource {
     public ResponseEntity<Response> test(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/osm/test - Test de l'API Nominatim");
 
-        try {
-            // Test avec Conakry
-            String url = String.format(
-                    "%s?q=Conakry&countrycodes=gn&format=json&limit=3",
-                    NOMINATIM_SEARCH_URL
+        if (!proxyGeocodage.autoriser(Amont.NOMINATIM)) {
+            return ResponseEntity.ok(
+                    getResponse(httpRequest, Map.of("status", "THROTTLED"),
+                            "Limite de débit Nominatim atteinte, réessayer dans une seconde", OK)
             );
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", USER_AGENT);
-            headers.set("Accept-Language", "fr");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<List> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, List.class
-            );
+        try {
+            // Test avec Conakry
+            URI url = UriComponentsBuilder.fromUriString(nominatimUrl + "/search")
+                    .queryParam("q", "Conakry")
+                    .queryParam("countrycodes", "gn")
+                    .queryParam("format", "json")
+                    .queryParam("limit", 3)
+                    .encode()
+                    .build()
+                    .toUri();
 
-            List<Map<String, Object>> results = response.getBody();
+            List<Map<String, Object>> results = appelerNominatim(url, List.class);
 
             Map<String, Object> testResult = new HashMap<>();
             testResult.put("status", "OK");
@@ -243,69 +163,173 @@ public class OpenStreetMapResource {
 
         log.info("GET /billetterie/osm/guinea - Query: '{}'", query);
 
-        try {
-            // Recherche avec "Guinea" ajouté pour de meilleurs résultats
-            String enhancedQuery = query + ", Guinea";
-
-            String url = String.format(
-                    "%s?q=%s&countrycodes=gn&format=json&addressdetails=1&limit=%d",
-                    NOMINATIM_SEARCH_URL,
-                    enhancedQuery,
-                    limit
-            );
+        String cle = "guinea|" + limit + "|" + PrefixTrie.normaliser(query);
+        Map<String, Object> donnees = proxyGeocodage.resoudre(Amont.NOMINATIM, cle,
+                () -> rechercherNominatimGuinee(query, limit),
+                () -> proxyGeocodage.rechercherLocal(query, limit));
+        return ResponseEntity.ok(
+                getResponse(httpRequest, donnees, "Recherche Guinée effectuée", OK)
+        );
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", USER_AGENT);
-            headers.set("Accept-Language", "fr");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+    /**
+     * GET /billetterie/osm/stats - Taux de hit du cache, requêtes regroupées, limitées et replis locaux
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Response> getStats(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest httpRequest) {
+        if (!jwtUtils.isAdmin(jwt)) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les statistiques du géocodage");
+        }
+        return ResponseEntity.ok(
+                getResponse(httpRequest, proxyGeocodage.getStatistiques(Amont.NOMINATIM),
+                        "Statistiques récupérées avec succès", OK)
+        );
+    }
 
-            ResponseEntity<List> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, List.class
-            );
+    private Map<String, Object> rechercherNominatim(String query, String countryCode, int limit) {
+        URI url = UriComponentsBuilder.fromUriString(nominatimUrl + "/search")
+                .queryParam("q", query)
+                .queryParam("countrycodes", countryCode)
+                .queryParam("format", "json")
+                .queryParam("addressdetails", 1)
+                .queryParam("limit", limit)
+                .encode()
+                .build()
+                .toUri();
+
+        log.debug("Appel Nominatim: {}", url);
+
+        List<Map<String, Object>> results = appelerNominatim(url, List.class);
+        log.info("Nominatim a retourné {} résultats", results != null ? results.size() : 0);
+
+        List<Map<String, Object>> predictions = new ArrayList<>();
+
+        if (results != null && !results.isEmpty()) {
+            for (Map<String, Object> result : results) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("placeId", String.valueOf(result.get("place_id")));
+                item.put("osmId", String.valueOf(result.get("osm_id")));
+                item.put("osmType", result.get("osm_type"));
+                item.put("description", result.get("display_name"));
+                item.put("latitude", parseDouble(result.get("lat")));
+                item.put("longitude", parseDouble(result.get("lon")));
+                item.put("type", result.get("type"));
+                item.put("category", result.get("class"));
+
+                // Détails de l'adresse
+                if (result.containsKey("address")) {
+                    item.put("address", result.get("address"));
+                }
+
+                predictions.add(item);
+                log.debug("Résultat: {}", result.get("display_name"));
+            }
+        }
+
+        return Map.of(
+                "predictions", predictions,
+                "total", predictions.size(),
+                "source", "OpenStreetMap/Nominatim"
+        );
+    }
+
+    private Map<String, Object> geocoderInverseNominatim(Double latitude, Double longitude) {
+        URI url = UriComponentsBuilder.fromUriString(nominatimUrl + "/reverse")
+                .queryParam("lat", latitude)
+                .queryParam("lon", longitude)
+                .queryParam("format", "json")
+                .queryParam("addressdetails", 1)
+                .encode()
+                .build()
+                .toUri();
+
+        Map<String, Object> result = appelerNominatim(url, Map.class);
+        log.info("Nominatim Reverse: {}", result);
+
+        Map<String, Object> place = new HashMap<>();
+
+        if (result != null && result.containsKey("display_name")) {
+            place.put("address", result.get("display_name"));
+            place.put("placeId", String.valueOf(result.get("place_id")));
+            place.put("osmId", String.valueOf(result.get("osm_id")));
+            place.put("osmType", result.get("osm_type"));
+            place.put("latitude", parseDouble(result.get("lat")));
+            place.put("longitude", parseDouble(result.get("lon")));
+
+            if (result.containsKey("address")) {
+                place.put("addressDetails", result.get("address"));
+            }
+        }
+
+        return Map.of("place", place);
+    }
 
-            List<Map<String, Object>> results = response.getBody();
-
-            List<Map<String, Object>> predictions = new ArrayList<>();
-
-            if (results != null) {
-                for (Map<String, Object> result : results) {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("placeId", String.valueOf(result.get("place_id")));
-                    item.put("description", result.get("display_name"));
-                    item.put("latitude", parseDouble(result.get("lat")));
-                    item.put("longitude", parseDouble(result.get("lon")));
-                    item.put("type", result.get("type"));
-
-                    if (result.containsKey("address")) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> address = (Map<String, Object>) result.get("address");
-                        item.put("quartier", address.get("suburb"));
-                        item.put("commune", address.get("city_district"));
-                        item.put("ville", address.get("city"));
-                        item.put("region", address.get("state"));
-                    }
-
-                    predictions.add(item);
+    private Map<String, Object> rechercherNominatimGuinee(String query, int limit) {
+        // Recherche avec "Guinea" ajouté pour de meilleurs résultats
+        URI url = UriComponentsBuilder.fromUriString(nominatimUrl + "/search")
+                .queryParam("q", query + ", Guinea")
+                .queryParam("countrycodes", "gn")
+                .queryParam("format", "json")
+                .queryParam("addressdetails", 1)
+                .queryParam("limit", limit)
+                .encode()
+                .build()
+                .toUri();
+
+        List<Map<String, Object>> results = appelerNominatim(url, List.class);
+
+        List<Map<String, Object>> predictions = new ArrayList<>();
+
+        if (results != null) {
+            for (Map<String, Object> result : results) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("placeId", String.valueOf(result.get("place_id")));
+                item.put("description", result.get("display_name"));
+                item.put("latitude", parseDouble(result.get("lat")));
+                item.put("longitude", parseDouble(result.get("lon")));
+                item.put("type", result.get("type"));
+
+                if (result.containsKey("address")) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> address = (Map<String, Object>) result.get("address");
+                    item.put("quartier", address.get("suburb"));
+                    item.put("commune", address.get("city_district"));
+                    item.put("ville", address.get("city"));
+                    item.put("region", address.get("state"));
                 }
+
+                predictions.add(item);
             }
+        }
 
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of(
-                            "predictions", predictions,
-                            "total", predictions.size()
-                    ), "Recherche Guinée effectuée", OK)
-            );
+        return Map.of(
+                "predictions", predictions,
+                "total", predictions.size()
+        );
+    }
 
-        } catch (Exception e) {
-            log.error("Erreur recherche Guinée: {}", e.getMessage(), e);
-            return ResponseEntity.ok(
-                    getResponse(httpRequest, Map.of(
-                            "predictions", List.of(),
-                            "total", 0,
-                            "error", e.getMessage()
-                    ), "Erreur lors de la recherche", OK)
-            );
+    @SuppressWarnings("unchecked")
+    private <T> T appelerNominatim(URI url, Class<?> type) {
+        // Headers obligatoires pour Nominatim
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("User-Agent", USER_AGENT);
+        headers.set("Accept-Language", "fr");
+        return (T) restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type).getBody();
+    }
+
+    /** Repli : localisation connue la plus proche, au format de la réponse Nominatim. */
+    private Map<String, Object> lieuLocal(Double latitude, Double longitude) {
+        Localisation localisation = proxyGeocodage.localisationLaPlusProche(latitude, longitude);
+        Map<String, Object> place = new HashMap<>();
+        if (localisation != null) {
+            place.put("address", localisation.getAdresseComplete());
+            place.put("placeId", ProxyGeocodage.PREFIXE_LOCAL + localisation.getLocalisationUuid());
+            place.put("latitude", localisation.getLatitude().doubleValue());
+            place.put("longitude", localisation.getLongitude().doubleValue());
         }
+        return place;
     }
 
     private Double parseDouble(Object value) {
@@ -149,16 +149,22 @@ public class PartenaireResource {
     }
 
     /**
-     * GET /billetterie/partenaires/search?q=terme - Recherche
+     * GET /billetterie/partenaires/search?q=terme&page=&size= - Recherche tolérante aux accents
+     * et aux fautes de frappe, résultats classés par pertinence.
+     * Paginée : 20 résultats par défaut (size, 100 au plus), page à partir de 0.
+     * Une page pleine (total == size) signifie qu'il peut en rester : demander page + 1.
      */
     @GetMapping("/search")
     public ResponseEntity<Response> search(
             @RequestParam(name = "q") String searchTerm,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
             HttpServletRequest request) {
-        log.info("GET /billetterie/partenaires/search?q={}", searchTerm);
-        List<Partenaire> partenaires = partenaireService.search(searchTerm);
+        log.info("GET /billetterie/partenaires/search?q={}&page={}", searchTerm, page);
+        List<Partenaire> partenaires = partenaireService.search(searchTerm, page, size);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("partenaires", partenaires, "total", partenaires.size()),
+                getResponse(request, Map.of("partenaires", partenaires, "total", partenaires.size(),
+                                "page", page, "size", size),
                         "Recherche effectuée avec succès", OK)
         );
     }
@@ -6,6 +6,7 @@ import io.multi.billetterieservice.dto.QuartierUpdateRequest;
 import io.multi.billetterieservice.dto.RegionStatusRequest;
 import io.multi.billetterieservice.response.QuartierResponse;
 import io.multi.billetterieservice.service.QuartierService;
+import io.multi.billetterieservice.service.ReferentielGeographique;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 
+import static io.multi.billetterieservice.utils.RequestUtils.getConditionalResponse;
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
@@ -31,6 +33,7 @@ import static org.springframework.http.HttpStatus.OK;
 public class QuartierResource {
 
     private final QuartierService quartierService;
+    private final ReferentielGeographique referentielGeographique;
 
     /**
      * Crée un nouveau quartier.
@@ -92,11 +95,10 @@ public class QuartierResource {
     public ResponseEntity<Response> getAllQuartiers(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/quartiers - Récupération de tous les quartiers");
 
-        List<QuartierResponse> quartiers = quartierService.getAllQuartiers();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("quartiers", quartiers, "total", quartiers.size()),
-                        "Liste des quartiers récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<QuartierResponse> quartiers = quartierService.getAllQuartiers();
+            return Map.of("quartiers", quartiers, "total", quartiers.size());
+        }, "Liste des quartiers récupérée avec succès");
     }
 
     /**
@@ -107,11 +109,10 @@ public class QuartierResource {
     public ResponseEntity<Response> getActiveQuartiers(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/quartiers/active - Récupération des quartiers actifs");
 
-        List<QuartierResponse> quartiers = quartierService.getActiveQuartiers();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("quartiers", quartiers, "total", quartiers.size()),
-                        "Liste des quartiers actifs récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<QuartierResponse> quartiers = quartierService.getActiveQuartiers();
+            return Map.of("quartiers", quartiers, "total", quartiers.size());
+        }, "Liste des quartiers actifs récupérée avec succès");
     }
 
     /**
@@ -124,11 +125,10 @@ public class QuartierResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/quartiers/commune/{} - Récupération des quartiers", communeUuid);
 
-        List<QuartierResponse> quartiers = quartierService.getQuartiersByCommune(communeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("quartiers", quartiers, "total", quartiers.size(), "communeUuid", communeUuid),
-                        "Liste des quartiers de la commune récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<QuartierResponse> quartiers = quartierService.getQuartiersByCommune(communeUuid);
+            return Map.of("quartiers", quartiers, "total", quartiers.size(), "communeUuid", communeUuid);
+        }, "Liste des quartiers de la commune récupérée avec succès");
     }
 
     /**
@@ -141,11 +141,10 @@ public class QuartierResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/quartiers/commune/{}/active - Récupération des quartiers actifs", communeUuid);
 
-        List<QuartierResponse> quartiers = quartierService.getActiveQuartiersByCommune(communeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("quartiers", quartiers, "total", quartiers.size(), "communeUuid", communeUuid),
-                        "Liste des quartiers actifs de la commune récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<QuartierResponse> quartiers = quartierService.getActiveQuartiersByCommune(communeUuid);
+            return Map.of("quartiers", quartiers, "total", quartiers.size(), "communeUuid", communeUuid);
+        }, "Liste des quartiers actifs de la commune récupérée avec succès");
     }
 
     /**
@@ -158,11 +157,10 @@ public class QuartierResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/quartiers/ville/{} - Récupération des quartiers", villeUuid);
 
-        List<QuartierResponse> quartiers = quartierService.getQuartiersByVille(villeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("quartiers", quartiers, "total", quartiers.size(), "villeUuid", villeUuid),
-                        "Liste des quartiers de la ville récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<QuartierResponse> quartiers = quartierService.getQuartiersByVille(villeUuid);
+            return Map.of("quartiers", quartiers, "total", quartiers.size(), "villeUuid", villeUuid);
+        }, "Liste des quartiers de la ville récupérée avec succès");
     }
 
     /**
@@ -175,11 +173,10 @@ public class QuartierResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/quartiers/region/{} - Récupération des quartiers", regionUuid);
 
-        List<QuartierResponse> quartiers = quartierService.getQuartiersByRegion(regionUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("quartiers", quartiers, "total", quartiers.size(), "regionUuid", regionUuid),
-                        "Liste des quartiers de la région récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<QuartierResponse> quartiers = quartierService.getQuartiersByRegion(regionUuid);
+            return Map.of("quartiers", quartiers, "total", quartiers.size(), "regionUuid", regionUuid);
+        }, "Liste des quartiers de la région récupérée avec succès");
     }
 
     /**
@@ -192,9 +189,9 @@ public class QuartierResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/quartiers/{} - Récupération du quartier", quartierUuid);
 
-        QuartierResponse response = quartierService.getQuartierByUuid(quartierUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("quartier", response), "Quartier récupéré avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            QuartierResponse response = quartierService.getQuartierByUuid(quartierUuid);
+            return Map.of("quartier", response);
+        }, "Quartier récupéré avec succès");
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import io.multi.billetterieservice.dto.RegionCreateRequest;
 import io.multi.billetterieservice.dto.RegionStatusRequest;
 import io.multi.billetterieservice.dto.RegionUpdateRequest;
 import io.multi.billetterieservice.response.RegionResponse;
+import io.multi.billetterieservice.service.ReferentielGeographique;
 import io.multi.billetterieservice.service.RegionService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 
+import static io.multi.billetterieservice.utils.RequestUtils.getConditionalResponse;
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
@@ -31,6 +33,7 @@ import static org.springframework.http.HttpStatus.OK;
 public class RegionResource {
 
     private final RegionService regionService;
+    private final ReferentielGeographique referentielGeographique;
 
     /**
      * Crée une nouvelle région.
@@ -108,10 +111,10 @@ public class RegionResource {
     public ResponseEntity<Response> getAllRegions(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/regions - Récupération de toutes les régions");
 
-        List<RegionResponse> regions = regionService.getAllRegions();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("regions", regions, "total", regions.size()), "Liste des régions récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<RegionResponse> regions = regionService.getAllRegions();
+            return Map.of("regions", regions, "total", regions.size());
+        }, "Liste des régions récupérée avec succès");
     }
 
     /**
@@ -125,10 +128,10 @@ public class RegionResource {
     public ResponseEntity<Response> getActiveRegions(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/regions/active - Récupération des régions actives");
 
-        List<RegionResponse> regions = regionService.getActiveRegions();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("regions", regions, "total", regions.size()), "Liste des régions actives récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<RegionResponse> regions = regionService.getActiveRegions();
+            return Map.of("regions", regions, "total", regions.size());
+        }, "Liste des régions actives récupérée avec succès");
     }
 
     /**
@@ -145,9 +148,9 @@ public class RegionResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/regions/{} - Récupération de la région", regionUuid);
 
-        RegionResponse response = regionService.getRegionByUuid(regionUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("region", response), "Région récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            RegionResponse response = regionService.getRegionByUuid(regionUuid);
+            return Map.of("region", response);
+        }, "Région récupérée avec succès");
     }
 }
\ No newline at end of file
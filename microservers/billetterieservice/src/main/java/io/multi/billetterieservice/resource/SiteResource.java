@@ -4,6 +4,7 @@ package io.multi.billetterieservice.resource;
 import io.multi.billetterieservice.domain.Response;
 import io.multi.billetterieservice.domain.Site;
 import io.multi.billetterieservice.dto.SiteRequest;
+import io.multi.billetterieservice.service.ReferentielGeographique;
 import io.multi.billetterieservice.service.SiteService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 
+import static io.multi.billetterieservice.utils.RequestUtils.getConditionalResponse;
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
 import static org.springframework.http.HttpStatus.*;
 
@@ -26,6 +28,7 @@ import static org.springframework.http.HttpStatus.*;
 public class SiteResource {
 
     private final SiteService siteService;
+    private final ReferentielGeographique referentielGeographique;
 
     /**
      * GET /billetterie/sites - Récupérer tous les sites
@@ -33,10 +36,10 @@ public class SiteResource {
     @GetMapping
     public ResponseEntity<Response> getAllSites(HttpServletRequest request) {
         log.info("GET /billetterie/sites - Récupération de tous les sites");
-        List<Site> sites = siteService.getAllSites();
-        return ResponseEntity.ok(
-                getResponse(request, Map.of("sites", sites), "Sites récupérés avec succès", OK)
-        );
+        return getConditionalResponse(request, referentielGeographique.getEtag(), () -> {
+            List<Site> sites = siteService.getAllSites();
+            return Map.of("sites", sites);
+        }, "Sites récupérés avec succès");
     }
 
     /**
@@ -45,10 +48,10 @@ public class SiteResource {
     @GetMapping("/actifs")
     public ResponseEntity<Response> getAllSitesActifs(HttpServletRequest request) {
         log.info("GET /billetterie/sites/actifs - Récupération des sites actifs");
-        List<Site> sites = siteService.getAllSitesActifs();
-        return ResponseEntity.ok(
-                getResponse(request, Map.of("sites", sites), "Sites actifs récupérés avec succès", OK)
-        );
+        return getConditionalResponse(request, referentielGeographique.getEtag(), () -> {
+            List<Site> sites = siteService.getAllSitesActifs();
+            return Map.of("sites", sites);
+        }, "Sites actifs récupérés avec succès");
     }
 
     /**
@@ -60,10 +63,10 @@ public class SiteResource {
             HttpServletRequest request)
     {
         log.info("GET /billetterie/sites/{} - Récupération du site", uuid);
-        Site site = siteService.getSiteByUuid(uuid);
-        return ResponseEntity.ok(
-                getResponse(request, Map.of("site", site), "Site récupéré avec succès", OK)
-        );
+        return getConditionalResponse(request, referentielGeographique.getEtag(), () -> {
+            Site site = siteService.getSiteByUuid(uuid);
+            return Map.of("site", site);
+        }, "Site récupéré avec succès");
     }
 
     /**
@@ -74,10 +77,10 @@ public class SiteResource {
             @PathVariable(name = "typeSite") String typeSite,
             HttpServletRequest request) {
         log.info("GET /billetterie/sites/type/{} - Récupération par type", typeSite);
-        List<Site> sites = siteService.getSitesByTypeSite(typeSite);
-        return ResponseEntity.ok(
-                getResponse(request, Map.of("sites", sites), "Sites récupérés avec succès", OK)
-        );
+        return getConditionalResponse(request, referentielGeographique.getEtag(), () -> {
+            List<Site> sites = siteService.getSitesByTypeSite(typeSite);
+            return Map.of("sites", sites);
+        }, "Sites récupérés avec succès");
     }
 
     /**
@@ -89,10 +92,10 @@ public class SiteResource {
             HttpServletRequest request)
     {
         log.info("GET /billetterie/sites/localisation/{} - Récupération par localisation", localisationUuid);
-        List<Site> sites = siteService.getSitesByLocalisation(localisationUuid);
-        return ResponseEntity.ok(
-                getResponse(request, Map.of("sites", sites), "Sites récupérés avec succès", OK)
-        );
+        return getConditionalResponse(request, referentielGeographique.getEtag(), () -> {
+            List<Site> sites = siteService.getSitesByLocalisation(localisationUuid);
+            return Map.of("sites", sites);
+        }, "Sites récupérés avec succès");
     }
 
     /**
@@ -103,10 +106,10 @@ public class SiteResource {
             @PathVariable(name = "villeUuid") String villeUuid,
             HttpServletRequest request) {
         log.info("GET /billetterie/sites/ville/{} - Récupération par ville", villeUuid);
-        List<Site> sites = siteService.getSitesByVille(villeUuid);
-        return ResponseEntity.ok(
-                getResponse(request, Map.of("sites", sites), "Sites récupérés avec succès", OK)
-        );
+        return getConditionalResponse(request, referentielGeographique.getEtag(), () -> {
+            List<Site> sites = siteService.getSitesByVille(villeUuid);
+            return Map.of("sites", sites);
+        }, "Sites récupérés avec succès");
     }
 
     /**
@@ -118,10 +121,10 @@ public class SiteResource {
             HttpServletRequest request)
     {
         log.info("GET /billetterie/sites/commune/{} - Récupération par commune", communeUuid);
-        List<Site> sites = siteService.getSitesByCommune(communeUuid);
-        return ResponseEntity.ok(
-                getResponse(request, Map.of("sites", sites), "Sites récupérés avec succès", OK)
-        );
+        return getConditionalResponse(request, referentielGeographique.getEtag(), () -> {
+            List<Site> sites = siteService.getSitesByCommune(communeUuid);
+            return Map.of("sites", sites);
+        }, "Sites récupérés avec succès");
     }
 
     /**
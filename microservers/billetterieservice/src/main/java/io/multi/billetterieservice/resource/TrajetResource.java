@@ -3,6 +3,7 @@ package io.multi.billetterieservice.resource;
 import io.multi.billetterieservice.domain.Response;
 import io.multi.billetterieservice.domain.Trajet;
 import io.multi.billetterieservice.dto.TrajetRequest;
+import io.multi.billetterieservice.service.StatsVentesService;
 import io.multi.billetterieservice.service.TrajetService;
 import io.multi.billetterieservice.utils.JwtUtils;
 import io.multi.clients.UserClient;
@@ -11,12 +12,14 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +37,7 @@ import static org.springframework.http.HttpStatus.*;
 public class TrajetResource {
 
     private final TrajetService trajetService;
+    private final StatsVentesService statsVentesService;
     private final JwtUtils jwtUtils;
 
     // ========== ENDPOINTS DE LECTURE ==========
@@ -314,5 +318,24 @@ public class TrajetResource {
         );
     }
 
+    /**
+     * GET /billetterie/trajets/{uuid}/stats/ventes?debut=&fin= - Ventes par jour (30 derniers jours par défaut)
+     * Réservé au propriétaire et aux administrateurs.
+     */
+    @GetMapping("/{uuid}/stats/ventes")
+    public ResponseEntity<Response> getStatsVentes(
+            @PathVariable String uuid,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        log.info("GET /billetterie/trajets/{}/stats/ventes", uuid);
+        return ResponseEntity.ok(
+                getResponse(request, statsVentesService.getVentesTrajet(uuid, debut, fin,
+                                jwtUtils.isAdmin(jwt) ? null : jwtUtils.extractUserId(jwt)),
+                        "Statistiques de ventes récupérées avec succès", OK)
+        );
+    }
+
 
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package io.multi.billetterieservice.resource;
 import io.multi.billetterieservice.domain.Response;
 import io.multi.billetterieservice.domain.Vehicule;
 import io.multi.billetterieservice.dto.VehiculeRequest;
+import io.multi.billetterieservice.service.StatsVentesService;
 import io.multi.billetterieservice.service.VehiculeService;
 import io.multi.billetterieservice.utils.JwtUtils;
 import io.multi.clients.UserClient;
@@ -10,11 +11,13 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +35,7 @@ import static org.springframework.http.HttpStatus.*;
 public class VehiculeResource {
 
     private final VehiculeService vehiculeService;
+    private final StatsVentesService statsVentesService;
     private final JwtUtils jwtUtils;
 
     // ========== ENDPOINTS DE LECTURE ==========
@@ -194,16 +198,22 @@ public class VehiculeResource {
     }
 
     /**
-     * GET /billetterie/vehicules/search?q=terme - Recherche
+     * GET /billetterie/vehicules/search?q=terme&page=&size= - Recherche tolérante aux accents
+     * et aux fautes de frappe, résultats classés par pertinence.
+     * Paginée : 20 résultats par défaut (size, 100 au plus), page à partir de 0.
+     * Une page pleine (total == size) signifie qu'il peut en rester : demander page + 1.
      */
     @GetMapping("/search")
     public ResponseEntity<Response> search(
             @RequestParam(name = "q") String searchTerm,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
             HttpServletRequest request) {
-        log.info("GET /billetterie/vehicules/search?q={}", searchTerm);
-        List<Vehicule> vehicules = vehiculeService.search(searchTerm);
+        log.info("GET /billetterie/vehicules/search?q={}&page={}", searchTerm, page);
+        List<Vehicule> vehicules = vehiculeService.search(searchTerm, page, size);
         return ResponseEntity.ok(
-                getResponse(request, Map.of("vehicules", vehicules, "total", vehicules.size()),
+                getResponse(request, Map.of("vehicules", vehicules, "total", vehicules.size(),
+                                "page", page, "size", size),
                         "Recherche effectuée avec succès", OK)
         );
     }
@@ -378,5 +388,41 @@ public class VehiculeResource {
         );
     }
 
+    /**
+     * GET /billetterie/vehicules/mes-stats/ventes?debut=&fin= - Ventes par jour de l'utilisateur (transporteur)
+     */
+    @GetMapping("/mes-stats/ventes")
+    public ResponseEntity<Response> getMesStatsVentes(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        Long userId = jwtUtils.extractUserId(jwt);
+        log.info("GET /billetterie/vehicules/mes-stats/ventes - userId: {}", userId);
+        return ResponseEntity.ok(
+                getResponse(request, statsVentesService.getVentesTransporteur(userId, debut, fin),
+                        "Statistiques de ventes récupérées avec succès", OK)
+        );
+    }
+
+    /**
+     * GET /billetterie/vehicules/{uuid}/stats/ventes?debut=&fin= - Ventes par jour du véhicule
+     * Réservé au propriétaire et aux administrateurs.
+     */
+    @GetMapping("/{uuid}/stats/ventes")
+    public ResponseEntity<Response> getStatsVentes(
+            @PathVariable String uuid,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) {
+        log.info("GET /billetterie/vehicules/{}/stats/ventes", uuid);
+        return ResponseEntity.ok(
+                getResponse(request, statsVentesService.getVentesVehicule(uuid, debut, fin,
+                                jwtUtils.isAdmin(jwt) ? null : jwtUtils.extractUserId(jwt)),
+                        "Statistiques de ventes récupérées avec succès", OK)
+        );
+    }
+
 
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import io.multi.billetterieservice.dto.RegionStatusRequest;
 import io.multi.billetterieservice.dto.VilleCreateRequest;
 import io.multi.billetterieservice.dto.VilleUpdateRequest;
 import io.multi.billetterieservice.response.VilleResponse;
+import io.multi.billetterieservice.service.ReferentielGeographique;
 import io.multi.billetterieservice.service.VilleService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 
+import static io.multi.billetterieservice.utils.RequestUtils.getConditionalResponse;
 import static io.multi.billetterieservice.utils.RequestUtils.getResponse;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
@@ -31,6 +33,7 @@ import static org.springframework.http.HttpStatus.OK;
 public class VilleResource {
 
     private final VilleService villeService;
+    private final ReferentielGeographique referentielGeographique;
 
     /**
      * Crée une nouvelle ville.
@@ -109,11 +112,10 @@ public class VilleResource {
     public ResponseEntity<Response> getAllVilles(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/villes - Récupération de toutes les villes");
 
-        List<VilleResponse> villes = villeService.getAllVilles();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("villes", villes, "total", villes.size()),
-                        "Liste des villes récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<VilleResponse> villes = villeService.getAllVilles();
+            return Map.of("villes", villes, "total", villes.size());
+        }, "Liste des villes récupérée avec succès");
     }
 
     /**
@@ -127,11 +129,10 @@ public class VilleResource {
     public ResponseEntity<Response> getActiveVilles(HttpServletRequest httpRequest) {
         log.info("GET /billetterie/villes/active - Récupération des villes actives");
 
-        List<VilleResponse> villes = villeService.getActiveVilles();
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("villes", villes, "total", villes.size()),
-                        "Liste des villes actives récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<VilleResponse> villes = villeService.getActiveVilles();
+            return Map.of("villes", villes, "total", villes.size());
+        }, "Liste des villes actives récupérée avec succès");
     }
 
     /**
@@ -148,11 +149,10 @@ public class VilleResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/villes/region/{} - Récupération des villes de la région", regionUuid);
 
-        List<VilleResponse> villes = villeService.getVillesByRegion(regionUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("villes", villes, "total", villes.size(), "regionUuid", regionUuid),
-                        "Liste des villes de la région récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<VilleResponse> villes = villeService.getVillesByRegion(regionUuid);
+            return Map.of("villes", villes, "total", villes.size(), "regionUuid", regionUuid);
+        }, "Liste des villes de la région récupérée avec succès");
     }
 
     /**
@@ -169,11 +169,10 @@ public class VilleResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/villes/region/{}/active - Récupération des villes actives de la région", regionUuid);
 
-        List<VilleResponse> villes = villeService.getActiveVillesByRegion(regionUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("villes", villes, "total", villes.size(), "regionUuid", regionUuid),
-                        "Liste des villes actives de la région récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            List<VilleResponse> villes = villeService.getActiveVillesByRegion(regionUuid);
+            return Map.of("villes", villes, "total", villes.size(), "regionUuid", regionUuid);
+        }, "Liste des villes actives de la région récupérée avec succès");
     }
 
     /**
@@ -190,9 +189,9 @@ public class VilleResource {
             HttpServletRequest httpRequest) {
         log.info("GET /billetterie/villes/{} - Récupération de la ville", villeUuid);
 
-        VilleResponse response = villeService.getVilleByUuid(villeUuid);
-        return ResponseEntity.ok(
-                getResponse(httpRequest, Map.of("ville", response), "Ville récupérée avec succès", OK)
-        );
+        return getConditionalResponse(httpRequest, referentielGeographique.getEtag(), () -> {
+            VilleResponse response = villeService.getVilleByUuid(villeUuid);
+            return Map.of("ville", response);
+        }, "Ville récupérée avec succès");
     }
 }
\ No newline at end of file
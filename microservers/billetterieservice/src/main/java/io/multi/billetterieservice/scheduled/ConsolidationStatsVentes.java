@@ -0,0 +1,53 @@
+package io.multi.billetterieservice.scheduled;
+
+import io.multi.billetterieservice.service.StatsVentesService;
+import io.multi.clients.jobs.CoordinateurJobs;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Tenue de stats_ventes_jour (V48).
+ *
+ * Les triggers sur commandes et offres n'écrivent que des mouvements ; ils
+ * sont intégrés ici par lots, hors des transactions de vente, sous verrou
+ * consultatif (un seul intégrateur pour le parc). Les lectures ajoutent les
+ * mouvements en attente : l'intervalle ne retarde pas les statistiques.
+ *
+ * La consolidation nocturne compare tout l'historique à commandes pour
+ * absorber ce que les triggers ne voient pas (correction manuelle avec
+ * triggers désactivés, suppression d'offre). Exécutée sur une seule réplique.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConsolidationStatsVentes {
+
+    private final StatsVentesService statsVentesService;
+    private final CoordinateurJobs coordinateurJobs;
+
+    @Value("${billetterie.stats-ventes.taille-lot:5000}")
+    private int tailleLot;
+
+    @Scheduled(fixedDelayString = "${billetterie.stats-ventes.integration-ms:60000}")
+    public void integrer() {
+        try {
+            int mouvements;
+            do {
+                mouvements = statsVentesService.integrerMouvements(tailleLot);
+            } while (mouvements >= tailleLot);
+        } catch (RuntimeException e) {
+            log.error("Intégration des mouvements de ventes interrompue : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "0 15 4 * * *")
+    public void consolider() {
+        coordinateurJobs.executer("consoliderStatsVentes", Duration.ofHours(12),
+                () -> statsVentesService.recalculer(null, null));
+    }
+}
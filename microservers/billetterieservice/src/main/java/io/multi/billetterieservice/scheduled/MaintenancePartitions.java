@@ -0,0 +1,79 @@
+package io.multi.billetterieservice.scheduled;
+
+import io.multi.billetterieservice.query.PartitionQuery;
+import io.multi.clients.jobs.CoordinateurJobs;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Partitions mensuelles de notifications et audit_logs (V51).
+ *
+ * Chaque nuit, sur une seule réplique : crée les mois à venir (la partition
+ * par défaut doit rester vide), puis archive les mois sortis de la période de
+ * conservation (détachés et déplacés dans le schéma archives). Chaque table est
+ * traitée dans sa propre transaction : un détachement bloqué par le trafic
+ * (lock_timeout) est retenté la nuit suivante sans empêcher le reste.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MaintenancePartitions {
+
+    private final JdbcClient jdbcClient;
+    private final CoordinateurJobs coordinateurJobs;
+
+    @Value("${billetterie.partitions.mois-avance:3}")
+    private int moisAvance;
+
+    @Value("${billetterie.partitions.conservation-mois.notifications:12}")
+    private int conservationNotifications;
+
+    @Value("${billetterie.partitions.conservation-mois.audit-logs:24}")
+    private int conservationAuditLogs;
+
+    @Scheduled(cron = "0 45 3 * * *")
+    public void maintenir() {
+        coordinateurJobs.executer("maintenancePartitions", Duration.ofHours(12), () ->
+                maintenir("notifications", conservationNotifications)
+                        + maintenir("audit_logs", conservationAuditLogs));
+    }
+
+    /** @return partitions créées + archivées */
+    private int maintenir(String table, int conservationMois) {
+        int creees = 0;
+        int archivees = 0;
+        try {
+            creees = jdbcClient.sql(PartitionQuery.CREER_PARTITIONS)
+                    .param("table", table)
+                    .param("moisAvance", moisAvance)
+                    .query(Integer.class)
+                    .single();
+            Long horsPlage = jdbcClient.sql(PartitionQuery.COMPTER_DEFAUT.formatted(table))
+                    .query(Long.class)
+                    .single();
+            if (horsPlage > 0) {
+                log.warn("{} ligne(s) de {} dans la partition par défaut", horsPlage, table);
+            }
+            if (conservationMois > 0) {
+                archivees = jdbcClient.sql(PartitionQuery.ARCHIVER_PARTITIONS)
+                        .param("table", table)
+                        .param("conservationMois", conservationMois)
+                        .query(Integer.class)
+                        .single();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Maintenance des partitions de {} incomplète : {}", table, e.getMessage());
+        }
+        if (creees > 0 || archivees > 0) {
+            log.info("Partitions de {} : {} créée(s), {} archivée(s)", table, creees, archivees);
+        }
+        return creees + archivees;
+    }
+}
@@ -0,0 +1,44 @@
+package io.multi.billetterieservice.scheduled;
+
+import io.multi.billetterieservice.query.BilletQuery;
+import io.multi.clients.jobs.CoordinateurJobs;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Purge nocturne de billets_retraits (V52).
+ *
+ * Un retrait ne sert qu'au delta du manifeste de l'offre quittée ; passé le
+ * départ de cette offre et un délai de synchronisation des appareils hors
+ * ligne, plus aucun contrôleur ne le demande. Exécuté sur une seule réplique.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PurgeRetraitsBillets {
+
+    private final JdbcClient jdbcClient;
+    private final CoordinateurJobs coordinateurJobs;
+
+    @Value("${billetterie.manifeste.retraits-conservation-jours:3}")
+    private int joursConservation;
+
+    @Scheduled(cron = "0 50 3 * * *")
+    public void purger() {
+        coordinateurJobs.executer("purgeRetraitsBillets", Duration.ofHours(12), () -> {
+            int supprimes = jdbcClient.sql(BilletQuery.PURGER_RETRAITS)
+                    .param("joursConservation", joursConservation)
+                    .update();
+            if (supprimes > 0) {
+                log.info("Manifestes : {} retrait(s) d'offres parties purgé(s)", supprimes);
+            }
+            return supprimes;
+        });
+    }
+}
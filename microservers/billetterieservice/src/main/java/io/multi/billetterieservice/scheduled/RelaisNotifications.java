@@ -0,0 +1,86 @@
+package io.multi.billetterieservice.scheduled;
+
+import io.multi.billetterieservice.query.NotificationQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relais des avis de notifications in-app vers le canal notifications_in_app (V50).
+ *
+ * Créations et lectures de notifications n'appellent pas pg_notify (verrou
+ * global au commit) : les triggers journalisent, et ce relais vide le journal
+ * par lots dans sa propre transaction, sous verrou consultatif (un seul relais
+ * actif pour le parc). Chaque notification porte un tableau JSON d'avis, un par
+ * utilisateur, avec le compteur de non lues courant.
+ *
+ * Latence ajoutée : au plus un intervalle (billetterie.flux-notifications.relais-ms).
+ */
+@Service
+@Slf4j
+public class RelaisNotifications {
+
+    private static final long VERROU_RELAIS = 0x4E4F54494653L; // "NOTIFS"
+
+    private final JdbcClient jdbcClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${billetterie.flux-notifications.taille-lot:1000}")
+    private int tailleLot;
+
+    public RelaisNotifications(JdbcClient jdbcClient, PlatformTransactionManager transactionManager) {
+        this.jdbcClient = jdbcClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${billetterie.flux-notifications.relais-ms:250}")
+    public void relayer() {
+        try {
+            Integer lignes;
+            do {
+                lignes = transactionTemplate.execute(statut -> relayerLot());
+            } while (lignes != null && lignes >= tailleLot);
+        } catch (RuntimeException e) {
+            log.error("Relais des notifications interrompu : {}", e.getMessage());
+        }
+    }
+
+    /** @return nombre de lignes du journal consommées (0 si vide ou si un autre relais est actif) */
+    private int relayerLot() {
+        Boolean verrou = jdbcClient.sql(NotificationQuery.VERROU_RELAIS_NOTIFICATIONS)
+                .param("verrou", VERROU_RELAIS)
+                .query(Boolean.class)
+                .single();
+        if (!verrou) return 0;
+
+        List<String> avis = new ArrayList<>();
+        int lignes = jdbcClient.sql(NotificationQuery.RELAYER_NOTIFICATIONS)
+                .param("taille", tailleLot)
+                .query((rs, rowNum) -> {
+                    avis.add(rs.getString("avis"));
+                    return rs.getInt("lignes");
+                })
+                .list()
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        if (avis.isEmpty()) return lignes;
+
+        // Notifications émises au commit de cette transaction, dans l'ordre
+        for (String charge : RelaisPlaces.charges(avis)) {
+            jdbcClient.sql(NotificationQuery.NOTIFIER_NOTIFICATIONS)
+                    .param("charge", charge)
+                    .query()
+                    .listOfRows();
+        }
+        log.debug("Notifications : {} avis relayé(s) pour {} utilisateur(s)", lignes, avis.size());
+        return lignes;
+    }
+}
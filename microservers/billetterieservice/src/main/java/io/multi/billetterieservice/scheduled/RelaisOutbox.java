@@ -0,0 +1,242 @@
+package io.multi.billetterieservice.scheduled;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.event.Event;
+import io.multi.billetterieservice.event.EventType;
+import io.multi.billetterieservice.event.Notification;
+import io.multi.billetterieservice.query.OutboxQuery;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.kafka.support.KafkaHeaders.TIMESTAMP;
+import static org.springframework.messaging.MessageHeaders.ID;
+
+/**
+ * Relais de l'outbox : publie sur Kafka les événements commités, par lots, dans
+ * l'ordre d'écriture.
+ *
+ * Exécuteur dédié borné (1 thread, 1 réveil en file, réveils en excès ignorés) :
+ * un commit réveille le relais, le @Scheduled rattrape les réveils perdus et les
+ * nouveaux essais.
+ *
+ * Un lot se traite en trois temps, sans transaction ouverte pendant les envois :
+ * réservation (transaction courte sous verrou consultatif, au plus un événement
+ * par clé, bail de deux délais d'envoi), envois Kafka, puis enregistrement des
+ * acquittements. Un seul événement en vol par clé : un échec ne peut pas laisser
+ * passer un suivant de même clé. Un échec repousse l'événement (attente
+ * exponentielle) et retient les suivants ; au-delà de tentatives-max il passe
+ * en ECHEC.
+ *
+ * Livraison « au moins une fois » : un envoi acquitté par Kafka mais non
+ * enregistré (arrêt, base indisponible, délai dépassé) est renvoyé à l'échéance
+ * du bail, avec le même identifiant — les consommateurs dédoublonnent sur l'en-tête id.
+ */
+@Service
+@Slf4j
+public class RelaisOutbox {
+
+    private static final long VERROU_RELAIS = 0x4F5554424F58L; // "OUTBOX"
+
+    private final JdbcClient jdbcClient;
+    private final KafkaTemplate<String, Notification> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executeur = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), r -> new Thread(r, "relais-outbox"), new ThreadPoolExecutor.DiscardPolicy());
+
+    @Value("${billetterie.outbox.taille-lot:100}")
+    private int tailleLot;
+
+    @Value("${billetterie.outbox.tentatives-max:10}")
+    private int tentativesMax;
+
+    @Value("${billetterie.outbox.delai-envoi-ms:10000}")
+    private long delaiEnvoiMs;
+
+    private final AtomicLong publies = new AtomicLong();
+    private final AtomicLong nouveauxEssais = new AtomicLong();
+    private final AtomicLong echecsDefinitifs = new AtomicLong();
+    private final AtomicLong latenceCumuleeMs = new AtomicLong();
+    private final AtomicLong latenceMaxMs = new AtomicLong();
+
+    public RelaisOutbox(JdbcClient jdbcClient, KafkaTemplate<String, Notification> kafkaTemplate,
+                        ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.jdbcClient = jdbcClient;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Demande une vidange (non bloquant ; fusionnée avec une vidange déjà demandée). */
+    public void reveiller() {
+        executeur.execute(this::vider);
+    }
+
+    @Scheduled(fixedDelayString = "${billetterie.outbox.intervalle-ms:5000}")
+    public void rattraper() {
+        reveiller();
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purger() {
+        int supprimes = jdbcClient.sql(OutboxQuery.PURGER_PUBLIES)
+                .param("retention", "7 days")
+                .update();
+        if (supprimes > 0) {
+            log.info("Outbox : {} événement(s) publié(s) purgé(s)", supprimes);
+        }
+    }
+
+    @PreDestroy
+    void arreter() {
+        executeur.shutdown();
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enAttente", 0L);
+        stats.put("echec", 0L);
+        jdbcClient.sql(OutboxQuery.COUNT_PAR_STATUT)
+                .query((rs, rowNum) -> stats.put("EN_ATTENTE".equals(rs.getString("statut")) ? "enAttente" : "echec",
+                        rs.getLong("nombre")))
+                .list();
+        long total = publies.get();
+        stats.put("publies", total);
+        stats.put("nouveauxEssais", nouveauxEssais.get());
+        stats.put("echecsDefinitifs", echecsDefinitifs.get());
+        stats.put("latenceMoyenneMs", total > 0 ? latenceCumuleeMs.get() / total : 0);
+        stats.put("latenceMaxMs", latenceMaxMs.get());
+        return stats;
+    }
+
+    private void vider() {
+        try {
+            Integer traites;
+            do {
+                traites = publierLot();
+            } while (traites > 0);
+        } catch (Exception e) {
+            log.error("Relais outbox interrompu: {}", e.getMessage());
+        }
+    }
+
+    /** @return nombre d'événements réservés (0 si rien à publier ou si un autre relais réserve) */
+    private int publierLot() {
+        List<Object[]> lot = transactionTemplate.execute(statut -> reserver());
+        if (lot == null || lot.isEmpty()) return 0;
+
+        // Envois en pipeline hors transaction (clés toutes distinctes), puis acquittements
+        List<CompletableFuture<?>> envois = new ArrayList<>(lot.size());
+        for (Object[] e : lot) {
+            envois.add(envoyer(e));
+        }
+
+        long echeance = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delaiEnvoiMs);
+        List<Long> publiesLot = new ArrayList<>();
+        Map<Object[], String> echecs = new LinkedHashMap<>();
+        for (int i = 0; i < lot.size(); i++) {
+            Object[] e = lot.get(i);
+            try {
+                envois.get(i).get(Math.max(0, echeance - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publiesLot.add((Long) e[0]);
+            } catch (Exception ex) {
+                echecs.put(e, ex.getCause() != null ? ex.getCause().getMessage() : String.valueOf(ex.getMessage()));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(statut -> enregistrer(publiesLot, echecs));
+
+        for (Object[] e : lot) {
+            if (echecs.containsKey(e)) continue;
+            long latence = ChronoUnit.MILLIS.between((OffsetDateTime) e[7], OffsetDateTime.now());
+            latenceCumuleeMs.addAndGet(latence);
+            latenceMaxMs.accumulateAndGet(latence, Math::max);
+        }
+        publies.addAndGet(publiesLot.size());
+        echecs.forEach((e, erreur) -> {
+            if ((Integer) e[6] + 1 >= tentativesMax) {
+                echecsDefinitifs.incrementAndGet();
+                log.error("Outbox : événement {} ({}) abandonné après {} tentatives: {}",
+                        e[0], e[4], tentativesMax, erreur);
+            } else {
+                nouveauxEssais.incrementAndGet();
+                log.warn("Outbox : événement {} ({}) non publié, nouvel essai: {}", e[0], e[4], erreur);
+            }
+        });
+        log.debug("Outbox : {} publié(s) sur {}", publiesLot.size(), lot.size());
+        return lot.size();
+    }
+
+    private List<Object[]> reserver() {
+        Boolean verrou = jdbcClient.sql(OutboxQuery.VERROU_RELAIS)
+                .param("verrou", VERROU_RELAIS)
+                .query(Boolean.class)
+                .single();
+        if (!verrou) return List.of();
+
+        List<Object[]> lot = new ArrayList<>(jdbcClient.sql(OutboxQuery.RECLAMER)
+                .param("bailMs", 2 * delaiEnvoiMs)
+                .param("limit", tailleLot)
+                .query((rs, rowNum) -> new Object[]{
+                        rs.getLong("evenement_id"), rs.getString("evenement_uuid"), rs.getString("topic"),
+                        rs.getString("cle"), rs.getString("type_evenement"), rs.getString("donnees"),
+                        rs.getInt("tentatives"), rs.getObject("created_at", OffsetDateTime.class)
+                })
+                .list());
+        lot.sort(Comparator.comparingLong(e -> (Long) e[0]));
+        return lot;
+    }
+
+    private void enregistrer(List<Long> publiesLot, Map<Object[], String> echecs) {
+        if (!publiesLot.isEmpty()) {
+            jdbcClient.sql(OutboxQuery.MARQUER_PUBLIES)
+                    .param("ids", publiesLot.toArray(Long[]::new))
+                    .update();
+        }
+        echecs.forEach((e, erreur) -> jdbcClient.sql(OutboxQuery.MARQUER_ECHEC)
+                .param("evenementId", e[0])
+                .param("erreur", erreur)
+                .param("tentativesMax", tentativesMax)
+                .update());
+    }
+
+    private CompletableFuture<?> envoyer(Object[] e) {
+        try {
+            Map<String, Object> donnees = objectMapper.readValue((String) e[5], new TypeReference<>() {});
+            var event = new Event(EventType.valueOf((String) e[4]), donnees);
+            // L'uuid de l'outbox sert d'identifiant : un renvoi garde le même id (dédoublonnage)
+            var notification = new Notification(event, Map.of(ID, (String) e[1], TIMESTAMP, ((OffsetDateTime) e[7]).toString()));
+            var message = MessageBuilder.withPayload(notification)
+                    .setHeader(KafkaHeaders.TOPIC, e[2])
+                    .setHeader(KafkaHeaders.KEY, e[3])
+                    .build();
+            return kafkaTemplate.send(message);
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.multi.billetterieservice.scheduled;
+
+import io.multi.billetterieservice.query.OffreQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relais des changements de places vers le canal places_offres (V49).
+ *
+ * Les réservations n'appellent plus pg_notify (verrou global au commit) : le
+ * trigger journalise, et ce relais vide le journal par lots dans sa propre
+ * transaction, sous verrou consultatif (un seul relais actif pour le parc).
+ * Chaque notification porte un tableau JSON d'états, un par offre, deltas
+ * cumulés, sous la limite de 8000 octets d'une charge utile NOTIFY.
+ *
+ * Latence ajoutée : au plus un intervalle (billetterie.flux-places.relais-ms).
+ */
+@Service
+@Slf4j
+public class RelaisPlaces {
+
+    private static final long VERROU_RELAIS = 0x504C41434553L; // "PLACES"
+    private static final int CHARGE_MAX_OCTETS = 7_500;
+
+    private final JdbcClient jdbcClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${billetterie.flux-places.taille-lot:1000}")
+    private int tailleLot;
+
+    public RelaisPlaces(JdbcClient jdbcClient, PlatformTransactionManager transactionManager) {
+        this.jdbcClient = jdbcClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${billetterie.flux-places.relais-ms:250}")
+    public void relayer() {
+        try {
+            Integer lignes;
+            do {
+                lignes = transactionTemplate.execute(statut -> relayerLot());
+            } while (lignes != null && lignes >= tailleLot);
+        } catch (RuntimeException e) {
+            log.error("Relais des places interrompu : {}", e.getMessage());
+        }
+    }
+
+    /** @return nombre de lignes du journal consommées (0 si vide ou si un autre relais est actif) */
+    private int relayerLot() {
+        Boolean verrou = jdbcClient.sql(OffreQuery.VERROU_RELAIS_PLACES)
+                .param("verrou", VERROU_RELAIS)
+                .query(Boolean.class)
+                .single();
+        if (!verrou) return 0;
+
+        List<String> etats = new ArrayList<>();
+        int lignes = jdbcClient.sql(OffreQuery.RELAYER_PLACES)
+                .param("taille", tailleLot)
+                .query((rs, rowNum) -> {
+                    etats.add(rs.getString("etat"));
+                    return rs.getInt("lignes");
+                })
+                .list()
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        if (etats.isEmpty()) return lignes;
+
+        // Notifications émises au commit de cette transaction, dans l'ordre
+        for (String charge : charges(etats)) {
+            jdbcClient.sql(OffreQuery.NOTIFIER_PLACES)
+                    .param("charge", charge)
+                    .query()
+                    .listOfRows();
+        }
+        log.debug("Places : {} changement(s) relayé(s) pour {} offre(s)", lignes, etats.size());
+        return lignes;
+    }
+
+    /** Regroupe les états JSON en tableaux sous la taille maximale d'une charge utile. */
+    static List<String> charges(List<String> etats) {
+        List<String> charges = new ArrayList<>();
+        StringBuilder courante = new StringBuilder("[");
+        int octets = 1;
+        for (String etat : etats) {
+            int taille = etat.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (octets > 1 && octets + taille + 1 > CHARGE_MAX_OCTETS) {
+                charges.add(courante.append(']').toString());
+                courante = new StringBuilder("[");
+                octets = 1;
+            }
+            if (octets > 1) courante.append(',');
+            courante.append(etat);
+            octets += taille;
+        }
+        charges.add(courante.append(']').toString());
+        return charges;
+    }
+}
@@ -1,49 +1,57 @@
 package io.multi.billetterieservice.scheduled;
 
-import io.multi.billetterieservice.event.Event;
+import io.multi.billetterieservice.domain.InAppNotification;
 import io.multi.billetterieservice.event.EventType;
-import io.multi.billetterieservice.event.Notification;
 import io.multi.billetterieservice.query.ScheduledNotificationQuery;
 import io.multi.billetterieservice.service.DeviceTokenService;
 import io.multi.billetterieservice.service.FcmSender;
 import io.multi.billetterieservice.service.InAppNotificationService;
-import io.multi.clients.UserClient;
+import io.multi.billetterieservice.service.OutboxService;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
+import io.multi.clients.jobs.CoordinateurJobs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.simple.JdbcClient;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-
-import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ScheduledNotificationService {
 
-    private static final String NOTIFICATION_TOPIC = "NOTIFICATION_TOPIC";
-
     private final JdbcClient jdbcClient;
     private final InAppNotificationService inAppNotificationService;
-    private final KafkaTemplate<String, Notification> kafkaTemplate;
-    private final UserClient userClient;
+    private final OutboxService outboxService;
+    private final UserCache userCache;
     private final DeviceTokenService deviceTokenService;
     private final FcmSender fcmSender;
+    private final CoordinateurJobs coordinateurJobs;
+    private final TransactionTemplate transactionTemplate;
 
     /** Délai (heures) après l'arrivée estimée avant d'envoyer la demande d'avis. Défaut 24h. */
     @Value("${billetterie.avis.delai-heures:24}")
     private int avisDelaiHeures;
 
+    /** Tranches (clé % tranches) des jobs lourds, réparties entre les répliques. */
+    @Value("${billetterie.jobs.tranches:1}")
+    private int tranches;
+
     /** Paliers de remplissage notifiés aux passagers, en ordre décroissant. */
     private static final int[] SEUILS_REMPLISSAGE = {100, 80, 50, 20};
 
@@ -53,96 +61,107 @@ public class ScheduledNotificationService {
      * email/SMS) par franchissement — celle du palier le plus élevé atteint et
      * non encore notifié. Un passager qui réserve tard (ex. offre déjà à 85 %)
      * reçoit uniquement le palier 80, pas 20+50+80. L'idempotence s'appuie sur
-     * les notifications in-app (existsByReference) : un palier — ou un palier
-     * supérieur — déjà notifié n'est jamais renvoyé, même si le taux redescend
-     * (annulation) puis remonte.
+     * les notifications in-app : un palier — ou un palier supérieur — déjà
+     * notifié n'est jamais renvoyé, même si le taux redescend (annulation) puis
+     * remonte.
+     *
+     * « Qui doit encore être alerté de quel palier » est calculé en une seule
+     * requête (anti-jointure) ; les envois partent ensuite par lots : une
+     * insertion in-app et une insertion outbox par palier, un multicast push par
+     * offre, un appel user-service.
      */
     @Scheduled(fixedRate = 300000) // 5 minutes (à 100 %, le départ est imminent)
     public void checkRemplissage() {
-        var offres = jdbcClient.sql(ScheduledNotificationQuery.FIND_OFFRES_AT_REMPLISSAGE)
-                .param("seuil", SEUILS_REMPLISSAGE[SEUILS_REMPLISSAGE.length - 1])
+        coordinateurJobs.executerParTranches("checkRemplissage", tranches, Duration.ofMinutes(4),
+                this::alerterRemplissage);
+    }
+
+    private int alerterRemplissage(int tranche, int tranches) {
+        long debut = System.currentTimeMillis();
+        var alertes = jdbcClient.sql(ScheduledNotificationQuery.FIND_PASSAGERS_A_ALERTER_REMPLISSAGE)
+                .param("seuils", Arrays.stream(SEUILS_REMPLISSAGE).boxed().toArray(Integer[]::new))
+                .param("tranche", tranche)
+                .param("tranches", tranches)
                 .query((rs, rowNum) -> new Object[]{
                         rs.getLong("offre_id"),
                         rs.getString("offre_uuid"),
                         rs.getInt("niveau_remplissage"),
+                        rs.getInt("palier"),
                         rs.getObject("date_depart", LocalDate.class),
                         rs.getObject("heure_depart", LocalTime.class),
-                        rs.getString("ville_depart_libelle"),
-                        rs.getString("ville_arrivee_libelle")
+                        rs.getString("ville_depart_libelle") + " → " + rs.getString("ville_arrivee_libelle"),
+                        rs.getLong("user_id"),
+                        rs.getString("passager_noms"),
+                        rs.getString("passager_phone")
                 })
                 .list();
+        if (alertes.isEmpty()) return 0;
 
-        for (var offre : offres) {
-            Long offreId = (Long) offre[0];
-            String offreUuid = (String) offre[1];
-            int remplissage = (int) offre[2];
-            String trajet = offre[5] + " → " + offre[6];
-
-            // Palier courant = plus haut seuil atteint par l'offre
-            int palier = 0;
-            for (int seuil : SEUILS_REMPLISSAGE) {
-                if (remplissage >= seuil) {
-                    palier = seuil;
-                    break;
-                }
-            }
-            if (palier == 0) continue;
-
-            var commandes = jdbcClient.sql(ScheduledNotificationQuery.FIND_COMMANDES_BY_OFFRE_ID)
-                    .param("offreId", offreId)
-                    .query((rs, rowNum) -> new Object[]{
-                            rs.getLong("commande_id"),
-                            rs.getLong("user_id"),
-                            rs.getString("numero_commande"),
-                            rs.getString("billet_codes"),
-                            rs.getString("passager_noms"),
-                            rs.getString("passager_phone")
-                    })
-                    .list();
-
-            for (var cmd : commandes) {
-                Long userId = (Long) cmd[1];
-                String passagerNoms = cmd[4] != null ? (String) cmd[4] : "";
-                String passagerPhone = cmd[5] != null ? (String) cmd[5] : "";
-
-                // Déjà notifié de ce palier OU d'un palier supérieur → rien à faire
-                boolean dejaNotifie = false;
-                for (int seuil : SEUILS_REMPLISSAGE) {
-                    if (seuil < palier) break;
-                    if (inAppNotificationService.existsByReference(userId, offreId, "OFFRE", "REMPLISSAGE_" + seuil)) {
-                        dejaNotifie = true;
-                        break;
-                    }
-                }
-                if (dejaNotifie) continue;
+        prechargerUtilisateurs(alertes.stream().map(a -> (Long) a[7]).toList());
 
-                String categorie = "REMPLISSAGE_" + palier;
-                String titre = titreRemplissage(palier, remplissage);
-                String message = messageRemplissage(palier, remplissage, trajet);
+        // Un lot par palier et titre (même catégorie, même type d'événement)
+        Map<String, List<Object[]>> parLot = alertes.stream().collect(Collectors.groupingBy(
+                a -> a[3] + "|" + titreRemplissage((int) a[3], (int) a[2]), LinkedHashMap::new, Collectors.toList()));
+        for (List<Object[]> lot : parLot.values()) {
+            int palier = (int) lot.get(0)[3];
+            String categorie = "REMPLISSAGE_" + palier;
+            String titre = titreRemplissage(palier, (int) lot.get(0)[2]);
 
-                inAppNotificationService.createNotification(userId, "IN_APP", categorie,
-                        titre, message, false, offreId, "OFFRE");
-
-                // Push système (FCM/APNs), même garde d'idempotence que l'in-app
-                fcmSender.sendToTokens(
-                        deviceTokenService.getTokensByUser(userId),
-                        titre, message,
-                        Map.of("categorie", categorie, "offreUuid", offreUuid));
+            List<Map<String, String>> donnees = new ArrayList<>(lot.size());
+            for (Object[] a : lot) {
+                Long userId = (Long) a[7];
+                String trajet = (String) a[6];
 
                 // Kafka → email + SMS
                 String userEmail = getUserEmail(userId);
                 var data = new HashMap<String, String>();
-                data.put("name", passagerNoms);
+                data.put("name", a[8] != null ? (String) a[8] : "");
                 data.put("email", userEmail);
                 data.put("userEmail", userEmail);
-                data.put("phone", passagerPhone);
+                data.put("phone", a[9] != null ? (String) a[9] : "");
                 data.put("trajet", trajet);
-                data.put("dateDepart", offre[3].toString());
-                data.put("heureDepart", offre[4].toString());
-                data.put("niveauRemplissage", String.valueOf(remplissage));
-                sendKafkaNotification(eventTypeRemplissage(palier), data);
+                data.put("dateDepart", a[4].toString());
+                data.put("heureDepart", a[5].toString());
+                data.put("niveauRemplissage", String.valueOf(a[2]));
+                donnees.add(data);
             }
+
+            // In-app (marqueur d'idempotence) et outbox commités ensemble : un échec de
+            // l'un annule l'autre, le lot est repris au passage suivant
+            transactionTemplate.executeWithoutResult(statut -> {
+                inAppNotificationService.createNotifications(lot.stream()
+                        .map(a -> InAppNotification.builder()
+                                .userId((Long) a[7])
+                                .typeNotification("IN_APP")
+                                .categorie(categorie)
+                                .titre(titre)
+                                .message(messageRemplissage(palier, (int) a[2], (String) a[6]))
+                                .envoyee(false)
+                                .referenceId((Long) a[0])
+                                .referenceType("OFFRE")
+                                .build())
+                        .toList());
+                outboxService.publierTous(eventTypeRemplissage(palier), donnees,
+                        Collections.nCopies(donnees.size(), null));
+            });
+
+            // Push système (FCM/APNs) après commit : un multicast par offre (même message pour tous ses passagers)
+            lot.stream()
+                    .collect(Collectors.groupingBy(a -> (Long) a[0], LinkedHashMap::new, Collectors.toList()))
+                    .values()
+                    .forEach(passagers -> {
+                        Object[] a = passagers.get(0);
+                        fcmSender.sendToUsers(
+                                passagers.stream().map(p -> (Long) p[7]).toList(),
+                                titre, messageRemplissage(palier, (int) a[2], (String) a[6]),
+                                Map.of("categorie", categorie, "offreUuid", (String) a[1]));
+                    });
         }
+
+        log.info("Alertes remplissage [{}/{}] : {} passager(s) sur {} offre(s) notifié(s) en {} ms",
+                tranche, tranches, alertes.size(), alertes.stream().map(a -> a[0]).distinct().count(),
+                System.currentTimeMillis() - debut);
+        return alertes.size();
     }
 
     private String titreRemplissage(int palier, int remplissage) {
@@ -171,6 +190,10 @@ public class ScheduledNotificationService {
 
     @Scheduled(cron = "0 0 18 * * *") // Every day at 18:00
     public void checkDepartDemain() {
+        coordinateurJobs.executer("checkDepartDemain", Duration.ofHours(1), this::rappelerDepartDemain);
+    }
+
+    private int rappelerDepartDemain() {
         log.info("Vérification des départs de demain (rappel J-1)");
 
         var offres = jdbcClient.sql(ScheduledNotificationQuery.FIND_OFFRES_DEPART_DEMAIN)
@@ -205,6 +228,8 @@ public class ScheduledNotificationService {
                     })
                     .list();
 
+            prechargerUtilisateurs(commandes.stream().map(cmd -> (Long) cmd[1]).toList());
+
             for (var cmd : commandes) {
                 Long userId = (Long) cmd[1];
                 String numeroCommande = (String) cmd[2];
@@ -220,9 +245,6 @@ public class ScheduledNotificationService {
                 String message = "Votre voyage " + trajet + " part demain à " + heureDepart
                         + ". RDV: " + pointRendezVous + ". Arrivez 30 min avant.";
 
-                inAppNotificationService.createNotification(userId, "IN_APP", "RAPPEL_J1",
-                        titre, message, false, offreId, "OFFRE");
-
                 String userEmail = getUserEmail(userId);
                 var data = new HashMap<String, String>();
                 data.put("numeroCommande", numeroCommande);
@@ -234,13 +256,23 @@ public class ScheduledNotificationService {
                 data.put("heureDepart", heureDepart);
                 data.put("pointRendezVous", pointRendezVous);
                 data.put("billetCodes", billetCodes);
-                sendKafkaNotification(EventType.RAPPEL_J1, data);
+                // Marqueur in-app et événement outbox commités ensemble (rappel repris sinon)
+                transactionTemplate.executeWithoutResult(statut -> {
+                    inAppNotificationService.createNotification(userId, "IN_APP", "RAPPEL_J1",
+                            titre, message, false, offreId, "OFFRE");
+                    outboxService.publier(EventType.RAPPEL_J1, data, null);
+                });
             }
         }
+        return offres.size();
     }
 
     @Scheduled(fixedRate = 1800000) // 30 minutes
     public void checkDepartProche() {
+        coordinateurJobs.executer("checkDepartProche", Duration.ofMinutes(25), this::rappelerDepartProche);
+    }
+
+    private int rappelerDepartProche() {
         var offres = jdbcClient.sql(ScheduledNotificationQuery.FIND_OFFRES_DEPART_PROCHE)
                 .query((rs, rowNum) -> new Object[]{
                         rs.getLong("offre_id"),
@@ -271,6 +303,8 @@ public class ScheduledNotificationService {
                     })
                     .list();
 
+            prechargerUtilisateurs(commandes.stream().map(cmd -> (Long) cmd[1]).toList());
+
             for (var cmd : commandes) {
                 Long userId = (Long) cmd[1];
                 String numeroCommande = (String) cmd[2];
@@ -286,9 +320,6 @@ public class ScheduledNotificationService {
                 String message = "Votre voyage " + trajet + " part à " + heureDepart
                         + ". Rendez-vous maintenant à " + pointRendezVous + ".";
 
-                inAppNotificationService.createNotification(userId, "IN_APP", "RAPPEL_H2",
-                        titre, message, false, offreId, "OFFRE");
-
                 String userEmail = getUserEmail(userId);
                 var data = new HashMap<String, String>();
                 data.put("numeroCommande", numeroCommande);
@@ -300,9 +331,15 @@ public class ScheduledNotificationService {
                 data.put("heureDepart", heureDepart);
                 data.put("pointRendezVous", pointRendezVous);
                 data.put("billetCodes", billetCodes);
-                sendKafkaNotification(EventType.RAPPEL_H2, data);
+                // Marqueur in-app et événement outbox commités ensemble (rappel repris sinon)
+                transactionTemplate.executeWithoutResult(statut -> {
+                    inAppNotificationService.createNotification(userId, "IN_APP", "RAPPEL_H2",
+                            titre, message, false, offreId, "OFFRE");
+                    outboxService.publier(EventType.RAPPEL_H2, data, null);
+                });
             }
         }
+        return offres.size();
     }
 
     /**
@@ -311,12 +348,20 @@ public class ScheduledNotificationService {
      * voyage est terminé depuis >= delaiHeures, non annulée, sans avis ni
      * demande déjà envoyée. Le commandeUuid est stocké en metadata pour que le
      * mobile ouvre directement l'écran de notation au tap.
-     * S'exécute toutes les 30 min (et au démarrage du service).
+     * S'exécute toutes les 30 min (et au démarrage du service), sur une seule
+     * instance par tranche de commandes (CoordinateurJobs).
      */
     @Scheduled(fixedRate = 1800000) // 30 minutes
     public void checkDemandeAvis() {
+        coordinateurJobs.executerParTranches("checkDemandeAvis", tranches, Duration.ofMinutes(25),
+                this::demanderAvis);
+    }
+
+    private int demanderAvis(int tranche, int tranches) {
         var commandes = jdbcClient.sql(ScheduledNotificationQuery.FIND_COMMANDES_FOR_AVIS_REQUEST)
                 .param("delaiHeures", avisDelaiHeures)
+                .param("tranche", tranche)
+                .param("tranches", tranches)
                 .query((rs, rowNum) -> new Object[]{
                         rs.getLong("commande_id"),
                         rs.getString("commande_uuid"),
@@ -326,6 +371,8 @@ public class ScheduledNotificationService {
                 })
                 .list();
 
+        Map<Long, List<String>> tokens = deviceTokenService.getTokensByUsers(
+                commandes.stream().map(c -> (Long) c[2]).toList());
         for (var cmd : commandes) {
             Long commandeId = (Long) cmd[0];
             String commandeUuid = (String) cmd[1];
@@ -342,7 +389,7 @@ public class ScheduledNotificationService {
 
             // Push système (FCM/APNs) en plus de l'in-app, si l'user a des devices.
             fcmSender.sendToTokens(
-                    deviceTokenService.getTokensByUser(userId),
+                    tokens.getOrDefault(userId, List.of()),
                     titre, message,
                     Map.of("categorie", "DEMANDE_AVIS", "commandeUuid", commandeUuid));
         }
@@ -350,29 +397,25 @@ public class ScheduledNotificationService {
         if (!commandes.isEmpty()) {
             log.info("Demandes d'avis créées: {} (délai={}h)", commandes.size(), avisDelaiHeures);
         }
+        return commandes.size();
+    }
+
+    /** Un seul appel user-service pour les passagers absents du cache (getUserEmail lit ensuite le cache). */
+    private void prechargerUtilisateurs(List<Long> userIds) {
+        try {
+            userCache.getUsersByIds(userIds);
+        } catch (Exception e) {
+            log.warn("Préchargement de {} utilisateur(s) impossible: {}", userIds.size(), e.getMessage());
+        }
     }
 
     private String getUserEmail(Long userId) {
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             return user != null && user.getEmail() != null ? user.getEmail() : "";
         } catch (Exception e) {
             log.warn("Impossible de récupérer l'email utilisateur {}: {}", userId, e.getMessage());
             return "";
         }
     }
-
-    private void sendKafkaNotification(EventType eventType, Map<String, String> data) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                var event = new Event(eventType, data);
-                var message = MessageBuilder.withPayload(new Notification(event))
-                        .setHeader(TOPIC, NOTIFICATION_TOPIC)
-                        .build();
-                kafkaTemplate.send(message);
-            } catch (Exception ex) {
-                log.warn("Kafka notification non envoyée pour {}: {}", eventType, ex.getMessage());
-            }
-        });
-    }
 }
@@ -0,0 +1,72 @@
+package io.multi.billetterieservice.securite;
+
+import io.multi.billetterieservice.exception.ApiException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * QR codes signés des billets : BLT1.&lt;kid&gt;.&lt;contenu&gt;.&lt;signature&gt;
+ * contenu = base64url("billetId|offreId|dateDepart|nombrePlaces|codeBillet").
+ *
+ * La signature couvre préfixe, kid et contenu : un QR falsifié, tronqué ou
+ * signé par une clé retirée est rejeté en mémoire, sans requête SQL.
+ */
+@Component
+@RequiredArgsConstructor
+public class QrCodeBillets {
+
+    private static final String PREFIXE = "BLT1.";
+
+    /** Fuseau des dates de départ : « le jour du départ » s'apprécie en heure de Conakry, pas du serveur. */
+    public static final ZoneId FUSEAU = ZoneId.of("Africa/Conakry");
+
+    private final SignatureBillets signatureBillets;
+
+    @Getter
+    @AllArgsConstructor
+    public static class ContenuQr {
+        private final Long billetId;
+        private final Long offreId;
+        private final LocalDate dateDepart;
+        private final int nombrePlaces;
+        private final String codeBillet;
+    }
+
+    public boolean estSigne(String valeur) {
+        return valeur != null && valeur.startsWith(PREFIXE);
+    }
+
+    public String emettre(Long billetId, Long offreId, LocalDate dateDepart, int nombrePlaces, String codeBillet) {
+        String contenu = billetId + "|" + offreId + "|" + dateDepart + "|" + nombrePlaces + "|" + codeBillet;
+        String signe = PREFIXE + signatureBillets.getKid() + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(contenu.getBytes(StandardCharsets.UTF_8));
+        return signe + "." + signatureBillets.signer(signe);
+    }
+
+    /** @throws ApiException si le QR est mal formé ou la signature invalide */
+    public ContenuQr verifier(String qr) {
+        int point = qr.lastIndexOf('.');
+        String[] entete = qr.split("\\.", 4);
+        if (point <= PREFIXE.length() || entete.length != 4) {
+            throw new ApiException("QR code invalide");
+        }
+        String signe = qr.substring(0, point);
+        if (!signatureBillets.verifier(entete[1], signe, qr.substring(point + 1))) {
+            throw new ApiException("QR code invalide : signature non reconnue");
+        }
+        try {
+            String[] champs = new String(Base64.getUrlDecoder().decode(entete[2]), StandardCharsets.UTF_8).split("\\|");
+            return new ContenuQr(Long.parseLong(champs[0]), Long.parseLong(champs[1]),
+                    LocalDate.parse(champs[2]), Integer.parseInt(champs[3]), champs[4]);
+        } catch (RuntimeException e) {
+            throw new ApiException("QR code invalide");
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.multi.billetterieservice.securite;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Signature Ed25519 des données remises aux contrôleurs (manifestes hors ligne,
+ * QR codes des billets).
+ *
+ * La paire est fournie en base64 via BILLETTERIE_SIGNATURE_CLE_PRIVEE (PKCS#8,
+ * secret serveur, jamais commité) et BILLETTERIE_SIGNATURE_CLE_PUBLIQUE (X.509,
+ * exposée aux applications contrôleur pour vérification locale) ; toutes les
+ * réplicas doivent recevoir la même paire. Sans elle, le démarrage échoue, sauf
+ * en développement (cle-ephemere-autorisee) où une paire éphémère est générée :
+ * ses signatures ne valent que jusqu'au redémarrage et pour cette instance.
+ * Une clé privée et une clé publique issues de paires différentes sont
+ * détectées au démarrage (signature puis vérification d'une sonde).
+ *
+ * Rotation : le kid est dérivé de la clé publique (empreinte SHA-256), deux
+ * paires distinctes ne partagent donc jamais un kid. Après changement de clé,
+ * les anciennes clés publiques restent déclarées dans
+ * BILLETTERIE_SIGNATURE_CLES_PRECEDENTES ("base64,..." ou "kid:base64" pour
+ * conserver un kid historique) tant que des billets signés avec elles peuvent
+ * encore être présentés.
+ */
+@Component
+@Slf4j
+public class SignatureBillets {
+
+    private static final String ALGORITHME = "Ed25519";
+    private static final String SONDE = "billetterie-signature-sonde";
+
+    @Value("${billetterie.signature.cle-ephemere-autorisee:false}")
+    private boolean cleEphemereAutorisee;
+
+    @Value("${billetterie.signature.cle-privee-b64:}")
+    private String clePriveeB64;
+
+    @Value("${billetterie.signature.cle-publique-b64:}")
+    private String clePubliqueB64;
+
+    @Value("${billetterie.signature.cles-precedentes:}")
+    private String clesPrecedentes;
+
+    private String kid;
+    private PrivateKey clePrivee;
+    private final Map<String, PublicKey> clesVerification = new LinkedHashMap<>();
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        if (clePriveeB64 == null || clePriveeB64.isBlank() || clePubliqueB64 == null || clePubliqueB64.isBlank()) {
+            if (!cleEphemereAutorisee) {
+                throw new IllegalStateException("Signature billets : BILLETTERIE_SIGNATURE_CLE_PRIVEE et "
+                        + "BILLETTERIE_SIGNATURE_CLE_PUBLIQUE sont obligatoires (paire partagée par toutes les réplicas)");
+            }
+            log.warn("Signature billets : clés BILLETTERIE_SIGNATURE_* absentes, paire éphémère générée (dev uniquement).");
+            KeyPair paire = KeyPairGenerator.getInstance(ALGORITHME).generateKeyPair();
+            clePrivee = paire.getPrivate();
+            kid = kidDe(paire.getPublic());
+            clesVerification.put(kid, paire.getPublic());
+            return;
+        }
+        KeyFactory factory = KeyFactory.getInstance(ALGORITHME);
+        clePrivee = factory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(clePriveeB64.trim())));
+        PublicKey publique = clePublique(factory, clePubliqueB64);
+        kid = kidDe(publique);
+        clesVerification.put(kid, publique);
+        // Clés de deux paires différentes : tous les QR et manifestes seraient refusés par les appareils
+        if (!verifier(kid, SONDE, signer(SONDE))) {
+            throw new IllegalStateException("Signature billets : BILLETTERIE_SIGNATURE_CLE_PRIVEE ne correspond pas "
+                    + "à BILLETTERIE_SIGNATURE_CLE_PUBLIQUE (kid " + kid + ")");
+        }
+        if (clesPrecedentes != null && !clesPrecedentes.isBlank()) {
+            for (String entree : clesPrecedentes.split(",")) {
+                String[] parties = entree.trim().split(":", 2);
+                PublicKey precedente = clePublique(factory, parties[parties.length - 1]);
+                clesVerification.putIfAbsent(parties.length == 2 ? parties[0] : kidDe(precedente), precedente);
+            }
+        }
+        log.info("Signature billets active (kid {}, {} clé(s) de vérification).", kid, clesVerification.size());
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    /** Signature base64url (sans padding) du contenu UTF-8. */
+    public String signer(String contenu) {
+        try {
+            Signature signature = Signature.getInstance(ALGORITHME);
+            signature.initSign(clePrivee);
+            signature.update(contenu.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Échec de signature", e);
+        }
+    }
+
+    /** Vérifie une signature base64url avec la clé du kid indiqué (false si kid inconnu ou signature invalide). */
+    public boolean verifier(String kidSignature, String contenu, String signatureB64) {
+        PublicKey cle = clesVerification.get(kidSignature);
+        if (cle == null) return false;
+        try {
+            Signature signature = Signature.getInstance(ALGORITHME);
+            signature.initVerify(cle);
+            signature.update(contenu.getBytes(StandardCharsets.UTF_8));
+            return signature.verify(Base64.getUrlDecoder().decode(signatureB64));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /** Clés publiques (X.509, base64) par kid, à embarquer dans les applications contrôleur. */
+    public Map<String, String> getClesPubliques() {
+        Map<String, String> cles = new LinkedHashMap<>();
+        clesVerification.forEach((k, cle) -> cles.put(k, Base64.getEncoder().encodeToString(cle.getEncoded())));
+        return cles;
+    }
+
+    /** kid = 8 premiers octets du SHA-256 de la clé publique X.509, en base64url. */
+    static String kidDe(PublicKey cle) throws GeneralSecurityException {
+        byte[] empreinte = MessageDigest.getInstance("SHA-256").digest(cle.getEncoded());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(empreinte, 8));
+    }
+
+    private PublicKey clePublique(KeyFactory factory, String b64) throws GeneralSecurityException {
+        return factory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(b64.trim())));
+    }
+}
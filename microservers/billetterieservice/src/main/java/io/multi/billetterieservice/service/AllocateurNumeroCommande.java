@@ -0,0 +1,83 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.query.CommandeQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Numéros de commande CMD-YYYYMMDD-NNNN alloués par blocs (hi-lo).
+ *
+ * Un bloc de numéros est réservé sur le compteur du jour
+ * (compteurs_numero_commande, V42) en une seule instruction, puis distribué en
+ * mémoire ; un bloc non épuisé au redémarrage ou au changement de jour est
+ * abandonné (trous possibles, jamais de doublon). NNNN repart de 1 chaque jour
+ * et compte au plus 7 chiffres (VARCHAR(20), contrainte du compteur).
+ *
+ * La réservation passe par une connexion hors du pool Hikari (mêmes
+ * paramètres spring.datasource, SimpleDriverDataSource), en autocommit :
+ * elle ne rejoint jamais la transaction de l'appelant. Le verrou de la ligne
+ * du jour ne dure que l'instruction, un bloc distribué n'est jamais annulé par
+ * le rollback d'une commande, et l'appelant qui tient déjà une connexion du
+ * pool n'en attend pas une seconde.
+ *
+ * La date du préfixe et l'instant de changement de jour viennent de la base
+ * (CURRENT_DATE du fuseau de session) : le fuseau de la JVM n'intervient pas,
+ * comme pour le repli generate_numero_commande.
+ *
+ * À appeler avant de verrouiller l'offre : le moniteur n'est jamais attendu
+ * par un thread qui tient déjà un verrou en base.
+ */
+@Service
+@Slf4j
+public class AllocateurNumeroCommande {
+
+    private static final DateTimeFormatter FORMAT_JOUR = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcClient jdbcClient;
+
+    @Value("${billetterie.numero-commande.taille-bloc:50}")
+    private int tailleBloc;
+
+    private LocalDate jour;          // CURRENT_DATE de la base à la réservation du bloc
+    private OffsetDateTime finJour;  // minuit suivant selon la base : bloc abandonné au-delà, sans requête
+    private int prochain;
+    private int dernier;
+
+    @Autowired
+    public AllocateurNumeroCommande(DataSourceProperties proprietes) {
+        this(JdbcClient.create(proprietes.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build()));
+    }
+
+    /** @param connexionsDediees client hors de toute transaction gérée : chaque instruction est validée seule */
+    public AllocateurNumeroCommande(JdbcClient connexionsDediees) {
+        this.jdbcClient = connexionsDediees;
+    }
+
+    public synchronized String suivant() {
+        if (jour == null || prochain > dernier || !OffsetDateTime.now().isBefore(finJour)) {
+            reserverBloc();
+        }
+        return "CMD-" + jour.format(FORMAT_JOUR) + "-" + String.format("%04d", prochain++);
+    }
+
+    private void reserverBloc() {
+        jdbcClient.sql(CommandeQuery.RESERVER_NUMEROS_COMMANDE)
+                .param("taille", tailleBloc)
+                .query(rs -> {
+                    jour = rs.getObject("jour", LocalDate.class);
+                    finJour = rs.getObject("fin_jour", OffsetDateTime.class);
+                    dernier = rs.getInt("dernier");
+                });
+        prochain = dernier - tailleBloc + 1;
+        log.debug("Bloc de numéros de commande réservé : {} [{}-{}]", jour, prochain, dernier);
+    }
+}
@@ -1,7 +1,45 @@
 package io.multi.billetterieservice.service;
 
 import io.multi.billetterieservice.domain.Billet;
+import io.multi.billetterieservice.domain.ResultatScan;
+import io.multi.billetterieservice.dto.ScansHorsLigneRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 public interface BilletService {
-    Billet validateBillet(String codeBillet, Long validePar);
+    /** @param codeOuQr code billet saisi, ou QR signé (BLT1...) vérifié sans accès base avant recherche */
+    Billet validateBillet(String codeOuQr, Long validePar);
+
+    /**
+     * Validation en lot à l'embarquement (codes ou QR signés) : une transaction,
+     * SQL ensembliste, un résultat par code distinct dans l'ordre de passage.
+     *
+     * @param operateurId null pour un contrôleur ou un admin (tous les billets),
+     *                    sinon seuls les billets des offres de ce transporteur sont validés
+     */
+    List<ResultatScan> validerLot(List<String> codesOuQr, Long validePar, Long operateurId);
+
+    /**
+     * Manifeste signé des billets d'une offre, ou des départs d'un site pour un jour,
+     * modifiés depuis le curseur "depuis" (0 = manifeste complet), avec les billets
+     * retirés (annulés ou déplacés) à effacer de l'appareil.
+     *
+     * @param operateurId null pour un contrôleur ou un admin (toutes les offres),
+     *                    sinon seules les offres de ce transporteur sont incluses
+     */
+    Map<String, Object> getManifeste(String offreUuid, String siteUuid, LocalDate dateDepart, long depuis,
+                                     Long operateurId);
+
+    /**
+     * Rejoue en un lot les scans effectués hors ligne (premier scan retenu par code).
+     * Les QR signés (BLT1…) sont vérifiés en mémoire ; l'heure de scan déclarée est
+     * ramenée dans [réception - ancienneté max, réception].
+     *
+     * @param operateurId null pour un contrôleur ou un admin (tous les billets),
+     *                    sinon seuls les billets des offres de ce transporteur sont rejoués
+     */
+    List<ResultatScan> synchroniserScans(List<ScansHorsLigneRequest.ScanDto> scans, Long validePar,
+                                         Long operateurId);
 }
@@ -0,0 +1,31 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.BlocagePlaces;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface BlocagePlacesService {
+
+    /** Bloque des places sur une offre pour la durée du TTL (remplace le blocage actif du même utilisateur). */
+    BlocagePlaces bloquer(String offreUuid, int nombrePlaces, Long userId);
+
+    /** Libère un blocage avant échéance (abandon du formulaire). */
+    void liberer(String blocageUuid, Long userId);
+
+    /**
+     * Places bloquées par les autres sur l'offre, à soustraire des places disponibles.
+     * Le blocage exclureBlocageUuid n'est exclu que s'il appartient à userId.
+     * Doit être appelé sous le verrou de ligne de l'offre.
+     */
+    int getPlacesBloqueesEnBase(Long offreId, String exclureBlocageUuid, Long userId);
+
+    /** Consomme le blocage de l'utilisateur lors de la création de sa commande. */
+    void consommer(String blocageUuid, Long offreId, Long userId, Long commandeId);
+
+    /**
+     * Places actuellement bloquées par offre, toutes instances confondues (affichage, une requête).
+     * Les blocages de exclureUserId (l'utilisateur qui consulte, null : aucun) ne sont pas comptés.
+     */
+    Map<Long, Integer> getPlacesBloquees(Collection<Long> offreIds, Long exclureUserId);
+}
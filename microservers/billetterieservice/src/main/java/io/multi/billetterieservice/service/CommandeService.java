@@ -1,6 +1,7 @@
 package io.multi.billetterieservice.service;
 
 import io.multi.billetterieservice.domain.Commande;
+import io.multi.billetterieservice.domain.PageCommandes;
 import io.multi.billetterieservice.domain.Offre;
 import io.multi.billetterieservice.dto.CommandeRequest;
 
@@ -12,7 +13,11 @@ public interface CommandeService {
 
     Commande getByUuid(String commandeUuid);
 
-    List<Commande> getCommandesByUserId(Long userId);
+    /**
+     * Commandes de l'utilisateur, billets chargés en une requête par page.
+     * page null = toutes les commandes (comportement historique des clients).
+     */
+    PageCommandes getCommandesByUserId(Long userId, Integer page, int size);
 
     Commande annulerCommande(String commandeUuid, Long userId);
 
@@ -1,6 +1,8 @@
 package io.multi.billetterieservice.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface DeviceTokenService {
     /** Enregistre (ou met à jour) le token FCM/APNs d'un device pour un utilisateur. */
@@ -9,6 +11,12 @@ public interface DeviceTokenService {
     /** Tokens de device actifs d'un utilisateur (pour l'envoi push). */
     List<String> getTokensByUser(Long userId);
 
+    /** Tokens de device de plusieurs utilisateurs, groupés par utilisateur (une seule requête). */
+    Map<Long, List<String>> getTokensByUsers(Collection<Long> userIds);
+
     /** Supprime un token (token invalide signalé par FCM, ou logout). */
     void delete(String token);
+
+    /** Supprime en une requête les tokens invalides remontés par un envoi multicast. */
+    int deleteAll(Collection<String> tokens);
 }
@@ -0,0 +1,328 @@
+package io.multi.billetterieservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.domain.InAppNotification;
+import io.multi.billetterieservice.exception.ApiException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Flux SSE des notifications in-app, à la place du polling de /billetterie/notifications.
+ *
+ * Source : le canal PostgreSQL notifications_in_app (journal V50, relayé par
+ * lots par RelaisNotifications : un tableau d'avis par notification), qui
+ * publie le compteur de non lues d'un utilisateur après chaque création ou
+ * lecture, sur n'importe quelle instance. Le compteur met à jour le cache du
+ * service ; si l'utilisateur a un flux ouvert ici, ses nouvelles notifications
+ * sont relues (id > dernier envoyé) puis poussées.
+ *
+ * Événements : "notification" (InAppNotification), "compteur" ({nonLues}).
+ * Les lectures se font par utilisateur, sérialisées sur un thread virtuel ;
+ * l'envoi passe par la file de chaque connexion. Une connexion trop lente
+ * (file pleine) est fermée : le client recharge le fil à la reconnexion.
+ */
+@Service
+@Slf4j
+public class DiffusionNotifications {
+
+    public static final String CANAL = "notifications_in_app";
+    public static final int CONNEXIONS_PAR_UTILISATEUR_MAX = 5;
+
+    private static final int FILE_MAX = 100;
+    private static final int LOT_NOUVELLES = 50;
+    /** Marge sur created_at (heure de début de transaction) pour relire les nouvelles notifications. */
+    private static final Duration MARGE_CREATION = Duration.ofMinutes(10);
+    private static final long RELIRE_COMPTEUR = -1;
+
+    private final EcoutePostgres ecoutePostgres;
+    private final InAppNotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService envois = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<Long, Sujet> sujets = new ConcurrentHashMap<>();
+    private final AtomicInteger connexions = new AtomicInteger();
+
+    @Value("${billetterie.flux-notifications.connexions-max:10000}")
+    private int connexionsMax;
+
+    @Value("${billetterie.flux-notifications.expiration-ms:1800000}")
+    private long expirationMs;
+
+    private final AtomicLong notificationsRecues = new AtomicLong();
+    private final AtomicLong evenementsEnvoyes = new AtomicLong();
+    private final AtomicLong deconnexions = new AtomicLong();
+    private final AtomicLong fermeturesLentes = new AtomicLong();
+
+    public DiffusionNotifications(EcoutePostgres ecoutePostgres, InAppNotificationService notificationService,
+                                  ObjectMapper objectMapper) {
+        this.ecoutePostgres = ecoutePostgres;
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void declarerCanal() {
+        ecoutePostgres.ecouter(CANAL, this::traiter, this::resynchroniser);
+    }
+
+    /**
+     * Ouvre le flux de l'utilisateur : un événement "compteur" immédiat, puis
+     * chaque nouvelle notification et chaque changement du compteur.
+     */
+    public SseEmitter abonner(Long userId) {
+        if (connexions.get() >= connexionsMax) {
+            throw new ApiException("Trop de connexions ouvertes, réessayez plus tard");
+        }
+        SseEmitter emitter = new SseEmitter(expirationMs);
+        Abonne abonne = new Abonne(userId, emitter);
+        emitter.onCompletion(() -> retirer(abonne));
+        emitter.onTimeout(() -> retirer(abonne));
+        emitter.onError(e -> retirer(abonne));
+
+        Sujet sujet = sujets.compute(userId, (id, existant) -> {
+            Sujet s = existant != null ? existant : new Sujet(id);
+            if (s.abonnes.size() >= CONNEXIONS_PAR_UTILISATEUR_MAX) {
+                throw new ApiException("Au plus " + CONNEXIONS_PAR_UTILISATEUR_MAX + " flux de notifications par utilisateur");
+            }
+            s.abonnes.add(abonne);
+            return s;
+        });
+        connexions.incrementAndGet();
+        sujet.initialiser();
+        abonne.envoyer(evenementCompteur(notificationService.countUnread(userId)));
+        return emitter;
+    }
+
+    /** Garde les connexions ouvertes derrière les proxys et détecte les clients partis. */
+    @Scheduled(fixedDelayString = "${billetterie.flux-notifications.battement-ms:25000}")
+    public void battement() {
+        for (Sujet sujet : sujets.values()) {
+            for (Abonne abonne : sujet.abonnes) {
+                abonne.envoyer(SseEmitter.event().comment("battement"));
+            }
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connexions", connexions.get());
+        stats.put("connexionsMax", connexionsMax);
+        stats.put("utilisateursConnectes", sujets.size());
+        stats.put("ecouteConnectee", ecoutePostgres.isConnectee());
+        stats.put("notificationsRecues", notificationsRecues.get());
+        stats.put("evenementsEnvoyes", evenementsEnvoyes.get());
+        stats.put("deconnexions", deconnexions.get());
+        stats.put("fermeturesLentes", fermeturesLentes.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void arreter() {
+        for (Sujet sujet : sujets.values()) {
+            sujet.abonnes.forEach(abonne -> abonne.emitter.complete());
+        }
+        envois.shutdownNow();
+    }
+
+    // ========== CANAL notifications_in_app ==========
+
+    private void traiter(String charge) {
+        notificationsRecues.incrementAndGet();
+        JsonNode lot;
+        try {
+            lot = objectMapper.readTree(charge);
+        } catch (JsonProcessingException e) {
+            log.warn("Notification {} illisible : {}", CANAL, charge);
+            return;
+        }
+        for (JsonNode avis : lot) {
+            traiterAvis(avis);
+        }
+    }
+
+    private void traiterAvis(JsonNode avis) {
+        Long userId = avis.path("userId").asLong();
+        long nonLues = avis.path("nonLues").asLong();
+        notificationService.majCompteurNonLues(userId, nonLues);
+        Sujet sujet = sujets.get(userId);
+        if (sujet != null) {
+            sujet.signaler(avis.path("nouvelles").asInt() > 0, nonLues);
+        }
+    }
+
+    /** Publications manquées pendant une coupure : compteurs relus, nouvelles notifications recherchées. */
+    private void resynchroniser() {
+        notificationService.oublierCompteursNonLues();
+        for (Sujet sujet : sujets.values()) {
+            sujet.signaler(true, null);
+        }
+    }
+
+    private SseEmitter.SseEventBuilder evenementCompteur(long nonLues) {
+        return SseEmitter.event().name("compteur").data(Map.of("nonLues", nonLues), MediaType.APPLICATION_JSON);
+    }
+
+    // ========== ABONNÉS ==========
+
+    private void retirer(Abonne abonne) {
+        if (!abonne.ferme.compareAndSet(false, true)) return;
+        connexions.decrementAndGet();
+        deconnexions.incrementAndGet();
+        sujets.computeIfPresent(abonne.userId, (id, sujet) -> {
+            sujet.abonnes.remove(abonne);
+            return sujet.abonnes.isEmpty() ? null : sujet;
+        });
+    }
+
+    /** Connexions ouvertes d'un utilisateur et position de lecture partagée. */
+    private final class Sujet {
+        private final Long userId;
+        private final Set<Abonne> abonnes = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean aRelire = new AtomicBoolean();
+        /** Dernier compteur publié ; RELIRE_COMPTEUR : à relire en base. */
+        private final AtomicReference<Long> compteur = new AtomicReference<>();
+        private final AtomicBoolean enCours = new AtomicBoolean();
+        private volatile long dernierId = -1;
+
+        private Sujet(Long userId) {
+            this.userId = userId;
+        }
+
+        /** Position de départ : la notification la plus récente au moment du premier abonnement. */
+        private synchronized void initialiser() {
+            if (dernierId < 0) {
+                dernierId = notificationService.getDernierId(userId, OffsetDateTime.now().minus(MARGE_CREATION));
+            }
+        }
+
+        private void signaler(boolean nouvelles, Long nonLues) {
+            if (nouvelles) aRelire.set(true);
+            compteur.set(nonLues != null ? nonLues : RELIRE_COMPTEUR);
+            planifier();
+        }
+
+        private void planifier() {
+            if (enCours.compareAndSet(false, true)) {
+                envois.execute(this::traiter);
+            }
+        }
+
+        private void traiter() {
+            try {
+                if (aRelire.getAndSet(false)) {
+                    relireNouvelles();
+                }
+                Long nonLues = compteur.getAndSet(null);
+                if (nonLues != null) {
+                    long valeur = nonLues == RELIRE_COMPTEUR ? notificationService.countUnread(userId) : nonLues;
+                    abonnes.forEach(abonne -> abonne.envoyer(evenementCompteur(valeur)));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Flux de notifications de l'utilisateur {} : {}", userId, e.getMessage());
+            } finally {
+                enCours.set(false);
+            }
+            if (aRelire.get() || compteur.get() != null) {
+                planifier();
+            }
+        }
+
+        private void relireNouvelles() {
+            if (dernierId < 0) initialiser();
+            List<InAppNotification> lot;
+            do {
+                lot = notificationService.getNouvelles(userId, dernierId,
+                        OffsetDateTime.now().minus(MARGE_CREATION), LOT_NOUVELLES);
+                for (InAppNotification notification : lot) {
+                    abonnes.forEach(abonne -> abonne.envoyer(SseEmitter.event()
+                            .name("notification")
+                            .id(String.valueOf(notification.getNotificationId()))
+                            .data(notification, MediaType.APPLICATION_JSON)));
+                    dernierId = notification.getNotificationId();
+                }
+            } while (lot.size() == LOT_NOUVELLES);
+        }
+    }
+
+    /** Une connexion SSE et sa file d'envoi, vidée par un seul thread virtuel à la fois. */
+    private final class Abonne {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> file = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger tailleFile = new AtomicInteger();
+        private final AtomicBoolean planifie = new AtomicBoolean();
+        private final AtomicBoolean ferme = new AtomicBoolean();
+
+        private Abonne(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void envoyer(SseEmitter.SseEventBuilder evenement) {
+            if (ferme.get()) return;
+            if (tailleFile.incrementAndGet() > FILE_MAX) {
+                fermeturesLentes.incrementAndGet();
+                fermer();
+                return;
+            }
+            file.add(evenement);
+            if (planifie.compareAndSet(false, true)) {
+                envois.execute(this::vider);
+            }
+        }
+
+        private void vider() {
+            try {
+                SseEmitter.SseEventBuilder evenement;
+                while ((evenement = file.poll()) != null) {
+                    tailleFile.decrementAndGet();
+                    emitter.send(evenement);
+                    evenementsEnvoyes.incrementAndGet();
+                }
+            } catch (IOException | IllegalStateException e) {
+                fermer();
+                return;
+            } finally {
+                planifie.set(false);
+            }
+            if (!file.isEmpty() && planifie.compareAndSet(false, true)) {
+                envois.execute(this::vider);
+            }
+        }
+
+        private void fermer() {
+            retirer(this);
+            file.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // déjà terminé
+            }
+        }
+    }
+}
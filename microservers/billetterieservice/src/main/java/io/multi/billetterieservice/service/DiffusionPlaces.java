@@ -0,0 +1,305 @@
+package io.multi.billetterieservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.domain.PlacesOffre;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.query.OffreQuery;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diffusion en direct des places des offres (SSE), à la place du polling.
+ *
+ * Source : le canal PostgreSQL places_offres (journal V49, relayé par lots par
+ * RelaisPlaces : un tableau d'états par notification), écouté par la
+ * connexion dédiée de chaque instance (EcoutePostgres) ; une réservation ou une annulation
+ * faite sur n'importe quelle instance atteint donc tous les abonnés. Après une
+ * reconnexion de l'écoute, l'état courant des offres suivies est renvoyé. Les
+ * mêmes états recalent l'inventaire mémoire de l'instance (InventairePlaces).
+ *
+ * Distribution : table offre → abonnés en mémoire. Chaque abonné a sa file
+ * d'envoi fusionnée par offre (seul le dernier état compte, les deltas se
+ * cumulent) : un client lent n'accumule jamais plus d'un état par offre suivie
+ * et ne retarde pas les autres, ses envois passant par un thread virtuel
+ * dédié le temps du vidage. Une connexion inactive ne tient aucun thread
+ * (SseEmitter asynchrone).
+ */
+@Service
+@Slf4j
+public class DiffusionPlaces {
+
+    public static final String CANAL = "places_offres";
+    public static final int OFFRES_PAR_ABONNEMENT_MAX = 50;
+
+    private final EcoutePostgres ecoutePostgres;
+    private final InventairePlaces inventairePlaces;
+    private final JdbcClient jdbcClient;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService envois = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, Set<Abonne>> abonnesParOffre = new ConcurrentHashMap<>();
+    private final Set<Abonne> abonnes = ConcurrentHashMap.newKeySet();
+
+    @Value("${billetterie.flux-places.connexions-max:10000}")
+    private int connexionsMax;
+
+    @Value("${billetterie.flux-places.expiration-ms:1800000}")
+    private long expirationMs;
+
+    private final AtomicLong notificationsRecues = new AtomicLong();
+    private final AtomicLong evenementsEnvoyes = new AtomicLong();
+    private final AtomicLong etatsFusionnes = new AtomicLong();
+    private final AtomicLong deconnexions = new AtomicLong();
+
+    public DiffusionPlaces(EcoutePostgres ecoutePostgres, InventairePlaces inventairePlaces,
+                           JdbcClient jdbcClient, ObjectMapper objectMapper) {
+        this.ecoutePostgres = ecoutePostgres;
+        this.inventairePlaces = inventairePlaces;
+        this.jdbcClient = jdbcClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void declarerCanal() {
+        ecoutePostgres.ecouter(CANAL, this::traiter, this::resynchroniser);
+    }
+
+    /**
+     * Ouvre un flux SSE sur les offres demandées : un événement "places" par
+     * offre avec l'état courant, puis à chaque changement.
+     */
+    public SseEmitter abonner(Collection<String> offreUuids) {
+        Set<String> demandees = new LinkedHashSet<>();
+        if (offreUuids != null) {
+            offreUuids.stream().filter(uuid -> uuid != null && !uuid.isBlank()).map(String::trim).forEach(demandees::add);
+        }
+        if (demandees.isEmpty()) {
+            throw new ApiException("Au moins une offre doit être indiquée");
+        }
+        if (demandees.size() > OFFRES_PAR_ABONNEMENT_MAX) {
+            throw new ApiException("Au plus " + OFFRES_PAR_ABONNEMENT_MAX + " offres par abonnement");
+        }
+        if (abonnes.size() >= connexionsMax) {
+            throw new ApiException("Trop de connexions ouvertes, réessayez plus tard");
+        }
+
+        SseEmitter emitter = new SseEmitter(expirationMs);
+        Abonne abonne = new Abonne(emitter, demandees);
+        emitter.onCompletion(() -> retirer(abonne));
+        emitter.onTimeout(() -> retirer(abonne));
+        emitter.onError(e -> retirer(abonne));
+
+        // Inscription avant la lecture de l'état : aucun changement commité entre les deux n'est perdu
+        abonnes.add(abonne);
+        demandees.forEach(uuid -> abonnesParOffre.computeIfAbsent(uuid, k -> ConcurrentHashMap.newKeySet()).add(abonne));
+
+        List<PlacesOffre> etats = lireEtats(demandees);
+        if (etats.isEmpty()) {
+            retirer(abonne);
+            throw new ApiException("Aucune offre trouvée");
+        }
+        Set<String> trouvees = new LinkedHashSet<>();
+        for (PlacesOffre etat : etats) {
+            trouvees.add(etat.getOffreUuid());
+            abonne.proposerInitial(etat);
+        }
+        for (String uuid : demandees) {
+            if (!trouvees.contains(uuid)) desinscrire(uuid, abonne);
+        }
+        return emitter;
+    }
+
+    /** Garde les connexions ouvertes derrière les proxys et détecte les clients partis. */
+    @Scheduled(fixedDelayString = "${billetterie.flux-places.battement-ms:25000}")
+    public void battement() {
+        for (Abonne abonne : abonnes) {
+            envois.execute(abonne::battre);
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connexions", abonnes.size());
+        stats.put("connexionsMax", connexionsMax);
+        stats.put("offresSuivies", abonnesParOffre.size());
+        stats.put("ecouteConnectee", ecoutePostgres.isConnectee());
+        stats.put("notificationsRecues", notificationsRecues.get());
+        stats.put("evenementsEnvoyes", evenementsEnvoyes.get());
+        stats.put("etatsFusionnes", etatsFusionnes.get());
+        stats.put("deconnexions", deconnexions.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void arreter() {
+        for (Abonne abonne : abonnes) {
+            abonne.emitter.complete();
+        }
+        envois.shutdownNow();
+    }
+
+    // ========== CANAL places_offres ==========
+
+    private void traiter(String charge) {
+        notificationsRecues.incrementAndGet();
+        PlacesOffre[] etats;
+        try {
+            etats = objectMapper.readValue(charge, PlacesOffre[].class);
+        } catch (JsonProcessingException e) {
+            log.warn("Notification {} illisible : {}", CANAL, charge);
+            return;
+        }
+        for (PlacesOffre etat : etats) {
+            if (etat.getDisponibles() != null) {
+                inventairePlaces.recaler(etat.getOffreUuid(), etat.getDisponibles());
+            }
+            Set<Abonne> destinataires = abonnesParOffre.get(etat.getOffreUuid());
+            if (destinataires == null) continue;
+            for (Abonne abonne : destinataires) {
+                abonne.proposer(etat);
+            }
+        }
+    }
+
+    /** Notifications manquées pendant une coupure : renvoie l'état courant des offres suivies. */
+    private void resynchroniser() {
+        if (abonnesParOffre.isEmpty()) return;
+        for (PlacesOffre etat : lireEtats(abonnesParOffre.keySet())) {
+            Set<Abonne> destinataires = abonnesParOffre.get(etat.getOffreUuid());
+            if (destinataires == null) continue;
+            for (Abonne abonne : destinataires) {
+                abonne.proposer(etat);
+            }
+        }
+    }
+
+    private List<PlacesOffre> lireEtats(Collection<String> offreUuids) {
+        return jdbcClient.sql(OffreQuery.FIND_PLACES_BY_UUIDS)
+                .param("uuids", List.copyOf(offreUuids))
+                .query((rs, rowNum) -> PlacesOffre.builder()
+                        .offreUuid(rs.getString("offre_uuid"))
+                        .disponibles(rs.getInt("nombre_places_disponibles"))
+                        .reservees(rs.getInt("nombre_places_reservees"))
+                        .total(rs.getInt("nombre_places_total"))
+                        .niveauRemplissage(rs.getInt("niveau_remplissage"))
+                        .statut(rs.getString("statut"))
+                        .delta(0)
+                        .build())
+                .list();
+    }
+
+    // ========== ABONNÉS ==========
+
+    private void retirer(Abonne abonne) {
+        if (!abonnes.remove(abonne)) return;
+        deconnexions.incrementAndGet();
+        for (String uuid : abonne.offres) {
+            desinscrire(uuid, abonne);
+        }
+    }
+
+    private void desinscrire(String offreUuid, Abonne abonne) {
+        abonnesParOffre.computeIfPresent(offreUuid, (uuid, destinataires) -> {
+            destinataires.remove(abonne);
+            return destinataires.isEmpty() ? null : destinataires;
+        });
+    }
+
+    private final class Abonne {
+        private final SseEmitter emitter;
+        private final Set<String> offres;
+        /** Dernier état non envoyé par offre : la file ne dépasse jamais le nombre d'offres suivies. */
+        private final Map<String, PlacesOffre> enAttente = new ConcurrentHashMap<>();
+        private final AtomicBoolean planifie = new AtomicBoolean();
+
+        private Abonne(SseEmitter emitter, Set<String> offres) {
+            this.emitter = emitter;
+            this.offres = offres;
+        }
+
+        private void proposer(PlacesOffre etat) {
+            enAttente.merge(etat.getOffreUuid(), etat, (ancien, nouveau) -> {
+                etatsFusionnes.incrementAndGet();
+                return PlacesOffre.builder()
+                        .offreUuid(nouveau.getOffreUuid())
+                        .disponibles(nouveau.getDisponibles())
+                        .reservees(nouveau.getReservees())
+                        .total(nouveau.getTotal())
+                        .niveauRemplissage(nouveau.getNiveauRemplissage())
+                        .statut(nouveau.getStatut())
+                        .delta(ancien.getDelta() + nouveau.getDelta())
+                        .build();
+            });
+            planifier();
+        }
+
+        /** État lu à l'abonnement : ne remplace pas une notification plus récente déjà en file. */
+        private void proposerInitial(PlacesOffre etat) {
+            enAttente.putIfAbsent(etat.getOffreUuid(), etat);
+            planifier();
+        }
+
+        private void planifier() {
+            if (planifie.compareAndSet(false, true)) {
+                envois.execute(this::vider);
+            }
+        }
+
+        private void vider() {
+            try {
+                for (String uuid : enAttente.keySet()) {
+                    PlacesOffre etat = enAttente.remove(uuid);
+                    if (etat == null) continue;
+                    emitter.send(SseEmitter.event().name("places").data(etat, MediaType.APPLICATION_JSON));
+                    evenementsEnvoyes.incrementAndGet();
+                }
+            } catch (IOException | IllegalStateException e) {
+                fermer();
+                return;
+            } finally {
+                planifie.set(false);
+            }
+            if (!enAttente.isEmpty()) {
+                planifier();
+            }
+        }
+
+        private void battre() {
+            try {
+                emitter.send(SseEmitter.event().comment("battement"));
+            } catch (IOException | IllegalStateException e) {
+                fermer();
+            }
+        }
+
+        private void fermer() {
+            retirer(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // déjà terminé
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package io.multi.billetterieservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Écoute des canaux PostgreSQL (LISTEN/NOTIFY) sur une connexion dédiée de
+ * l'instance, partagée par tous les flux temps réel (places des offres,
+ * notifications in-app).
+ *
+ * La connexion est ouverte hors du pool Hikari (mêmes paramètres
+ * spring.datasource, SimpleDriverDataSource) : tenue pendant toute la vie de
+ * l'instance, elle amputerait sinon le pool des requêtes d'une connexion, et
+ * le max-lifetime du pool ne la recyclerait jamais.
+ *
+ * Les canaux sont déclarés au démarrage des beans (@PostConstruct) ; l'écoute
+ * commence une fois l'application prête. Après chaque (re)connexion, la
+ * resynchronisation de chaque canal est appelée : les notifications émises
+ * pendant une coupure sont perdues, l'abonné relit l'état courant.
+ *
+ * Le pilote PostgreSQL reste une dépendance d'exécution : son API de
+ * notifications (PGConnection.getNotifications) est résolue par réflexion.
+ */
+@Service
+@Slf4j
+public class EcoutePostgres {
+
+    private static final Pattern NOM_CANAL = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int ATTENTE_NOTIFICATIONS_MS = 10_000;
+    private static final long PAUSE_RECONNEXION_MS = 5_000;
+
+    private final DataSource dataSource;
+    private final Map<String, Canal> canaux = new ConcurrentHashMap<>();
+
+    private volatile boolean actif = true;
+    private volatile boolean connectee;
+    private Thread ecoute;
+
+    private final AtomicLong reconnexions = new AtomicLong();
+
+    @Autowired
+    public EcoutePostgres(DataSourceProperties proprietes) {
+        this(proprietes.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build());
+    }
+
+    EcoutePostgres(DataSource connexionsDediees) {
+        this.dataSource = connexionsDediees;
+    }
+
+    /**
+     * Déclare un canal.
+     *
+     * @param traitement       appelé sur le thread d'écoute avec la charge utile : doit rester court
+     * @param resynchronisation appelée après chaque (re)connexion
+     */
+    public void ecouter(String canal, Consumer<String> traitement, Runnable resynchronisation) {
+        if (!NOM_CANAL.matcher(canal).matches()) {
+            throw new IllegalArgumentException("Nom de canal invalide : " + canal);
+        }
+        if (ecoute != null) {
+            throw new IllegalStateException("Canal " + canal + " déclaré après le démarrage de l'écoute");
+        }
+        canaux.put(canal, new Canal(traitement, resynchronisation));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (canaux.isEmpty()) return;
+        ecoute = Thread.ofPlatform().daemon().name("ecoute-postgres").start(this::ecouter);
+    }
+
+    public boolean isConnectee() {
+        return connectee;
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connectee", connectee);
+        stats.put("reconnexions", reconnexions.get());
+        Map<String, Long> recues = new HashMap<>();
+        canaux.forEach((nom, canal) -> recues.put(nom, canal.recues.get()));
+        stats.put("notificationsRecues", recues);
+        return stats;
+    }
+
+    @PreDestroy
+    void arreter() {
+        actif = false;
+        if (ecoute != null) ecoute.interrupt();
+    }
+
+    private void ecouter() {
+        while (actif) {
+            try (Connection connexion = dataSource.getConnection()) {
+                connexion.setAutoCommit(true);
+                try (Statement statement = connexion.createStatement()) {
+                    for (String canal : canaux.keySet()) {
+                        statement.execute("LISTEN " + canal);
+                    }
+                }
+                PiloteNotifications pg = PiloteNotifications.de(connexion);
+                connectee = true;
+                log.info("Écoute PostgreSQL démarrée sur {}", canaux.keySet());
+                canaux.values().forEach(Canal::resynchroniser);
+                while (actif) {
+                    Object[] notifications = pg.attendre(ATTENTE_NOTIFICATIONS_MS);
+                    if (notifications == null) continue;
+                    for (Object notification : notifications) {
+                        Canal canal = canaux.get(pg.canal(notification));
+                        if (canal != null) canal.traiter(pg.charge(notification));
+                    }
+                }
+            } catch (SQLException e) {
+                if (!actif) return;
+                log.warn("Écoute PostgreSQL interrompue ({}), reconnexion dans {} ms",
+                        e.getMessage(), PAUSE_RECONNEXION_MS);
+            } finally {
+                connectee = false;
+            }
+            try {
+                Thread.sleep(PAUSE_RECONNEXION_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            reconnexions.incrementAndGet();
+        }
+    }
+
+    /** PGConnection / PGNotification du pilote, appelés par réflexion (pilote en scope runtime). */
+    private static final class PiloteNotifications {
+        private static volatile Method getNotifications;
+        private static volatile Method getName;
+        private static volatile Method getParameter;
+
+        private final Object connexionPg;
+
+        private PiloteNotifications(Object connexionPg) {
+            this.connexionPg = connexionPg;
+        }
+
+        static PiloteNotifications de(Connection connexion) throws SQLException {
+            try {
+                Class<?> pgConnection = Class.forName("org.postgresql.PGConnection");
+                if (getNotifications == null) {
+                    Class<?> pgNotification = Class.forName("org.postgresql.PGNotification");
+                    getName = pgNotification.getMethod("getName");
+                    getParameter = pgNotification.getMethod("getParameter");
+                    getNotifications = pgConnection.getMethod("getNotifications", int.class);
+                }
+                return new PiloteNotifications(connexion.unwrap(pgConnection));
+            } catch (ReflectiveOperationException e) {
+                throw new SQLException("Pilote PostgreSQL sans API de notifications", e);
+            }
+        }
+
+        Object[] attendre(int delaiMs) throws SQLException {
+            return (Object[]) invoquer(getNotifications, connexionPg, delaiMs);
+        }
+
+        String canal(Object notification) throws SQLException {
+            return (String) invoquer(getName, notification);
+        }
+
+        String charge(Object notification) throws SQLException {
+            return (String) invoquer(getParameter, notification);
+        }
+
+        private static Object invoquer(Method methode, Object cible, Object... arguments) throws SQLException {
+            try {
+                return methode.invoke(cible, arguments);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException sql) throw sql;
+                throw new SQLException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+
+    private static final class Canal {
+        private final Consumer<String> traitement;
+        private final Runnable resynchronisation;
+        private final AtomicLong recues = new AtomicLong();
+
+        private Canal(Consumer<String> traitement, Runnable resynchronisation) {
+            this.traitement = traitement;
+            this.resynchronisation = resynchronisation;
+        }
+
+        private void traiter(String charge) {
+            recues.incrementAndGet();
+            try {
+                traitement.accept(charge);
+            } catch (RuntimeException e) {
+                log.warn("Notification non traitée ({}) : {}", e.getMessage(), charge);
+            }
+        }
+
+        private void resynchroniser() {
+            try {
+                resynchronisation.run();
+            } catch (RuntimeException e) {
+                log.warn("Resynchronisation impossible : {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,72 +1,197 @@
 package io.multi.billetterieservice.service;
 
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.FirebaseMessagingException;
-import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.MessagingErrorCode;
-import com.google.firebase.messaging.Notification;
+import io.multi.billetterieservice.domain.BilanPush;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Envoie des notifications push via Firebase (FCM/APNs).
  * Tolère l'absence de configuration Firebase (bean null) → no-op silencieux.
- * Nettoie les tokens devenus invalides (device désinstallé / token périmé).
+ *
+ * Les tokens partent en multicast via PasserellePush (sendEachForMulticast,
+ * 500 tokens max par lot) ; les lots d'un même envoi sont expédiés en parallèle sur un exécuteur
+ * borné (file pleine → le thread appelant expédie lui-même, pas de débordement).
+ * Les tokens devenus invalides (device désinstallé / token périmé) sont purgés
+ * en une seule requête en fin d'envoi.
  */
 @Service
 @Slf4j
 public class FcmSender {
 
-    private final ObjectProvider<FirebaseMessaging> messagingProvider;
+    /** Limite FCM du nombre de tokens par MulticastMessage. */
+    private static final int TAILLE_LOT_MAX = 500;
+
+    private final ObjectProvider<PasserellePush> passerelleProvider;
     private final DeviceTokenService deviceTokenService;
+    private final ThreadPoolExecutor executeur;
+
+    @Value("${fcm.taille-lot:500}")
+    private int tailleLot;
+
+    @Value("${fcm.delai-max-secondes:30}")
+    private long delaiMaxSecondes;
 
-    public FcmSender(ObjectProvider<FirebaseMessaging> messagingProvider,
-                     DeviceTokenService deviceTokenService) {
-        this.messagingProvider = messagingProvider;
+    private final AtomicLong envoisTotal = new AtomicLong();
+    private final AtomicLong envoyesTotal = new AtomicLong();
+    private final AtomicLong echecsTotal = new AtomicLong();
+    private final AtomicLong purgesTotal = new AtomicLong();
+
+    public FcmSender(ObjectProvider<PasserellePush> passerelleProvider,
+                     DeviceTokenService deviceTokenService,
+                     @Value("${fcm.parallelisme:4}") int parallelisme) {
+        this.passerelleProvider = passerelleProvider;
         this.deviceTokenService = deviceTokenService;
+        AtomicInteger numero = new AtomicInteger();
+        this.executeur = new ThreadPoolExecutor(parallelisme, parallelisme, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelisme * 4),
+                r -> new Thread(r, "fcm-envoi-" + numero.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     /**
      * Envoie la même push à tous les tokens fournis (1 par device de l'user).
      * data : payload exploité par le mobile au tap (ex categorie, commandeUuid).
      */
-    public void sendToTokens(List<String> tokens, String title, String body,
-                             Map<String, String> data) {
-        FirebaseMessaging messaging = messagingProvider.getIfAvailable();
-        if (messaging == null || tokens == null || tokens.isEmpty()) {
-            return; // FCM non configuré ou aucun device
+    public BilanPush sendToTokens(List<String> tokens, String title, String body,
+                                  Map<String, String> data) {
+        PasserellePush passerelle = passerelleProvider.getIfAvailable();
+        if (passerelle == null || tokens == null || tokens.isEmpty()) {
+            return BilanPush.builder().build(); // FCM non configuré ou aucun device
+        }
+        long debut = System.currentTimeMillis();
+        List<String> distincts = tokens.stream().distinct().toList();
+        int taille = Math.max(1, Math.min(tailleLot, TAILLE_LOT_MAX));
+
+        AtomicInteger envoyes = new AtomicInteger();
+        AtomicInteger echecs = new AtomicInteger();
+        ConcurrentLinkedQueue<String> morts = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> lots = new ArrayList<>();
+        for (int i = 0; i < distincts.size(); i += taille) {
+            List<String> lot = distincts.subList(i, Math.min(i + taille, distincts.size()));
+            lots.add(CompletableFuture.runAsync(
+                    () -> envoyerLot(passerelle, lot, title, body, data, envoyes, echecs, morts), executeur));
         }
-        int sent = 0;
-        for (String token : tokens) {
-            try {
-                Message message = Message.builder()
-                        .setToken(token)
-                        .setNotification(Notification.builder()
-                                .setTitle(title)
-                                .setBody(body)
-                                .build())
-                        .putAllData(data)
-                        .build();
-                messaging.send(message);
-                sent++;
-            } catch (FirebaseMessagingException e) {
-                MessagingErrorCode code = e.getMessagingErrorCode();
-                if (code == MessagingErrorCode.UNREGISTERED
-                        || code == MessagingErrorCode.INVALID_ARGUMENT) {
-                    // Token mort → on le purge pour ne plus jamais l'utiliser.
-                    deviceTokenService.delete(token);
-                    log.info("Token FCM invalide purgé ({})", code);
-                } else {
-                    log.warn("Échec envoi push FCM : {}", e.getMessage());
+        try {
+            CompletableFuture.allOf(lots.toArray(CompletableFuture[]::new))
+                    .get(delaiMaxSecondes, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Envoi push FCM incomplet après {} s", delaiMaxSecondes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Envoi push FCM interrompu");
+        } catch (ExecutionException e) {
+            log.warn("Envoi push FCM en erreur : {}", e.getCause().toString());
+        }
+
+        int purges = 0;
+        if (!morts.isEmpty()) {
+            // Tokens morts → purgés pour ne plus jamais les utiliser.
+            purges = deviceTokenService.deleteAll(morts);
+            log.info("Tokens FCM invalides purgés : {}", purges);
+        }
+
+        BilanPush bilan = BilanPush.builder()
+                .tokens(distincts.size())
+                .lots(lots.size())
+                .envoyes(envoyes.get())
+                .echecs(echecs.get())
+                .tokensPurges(purges)
+                .dureeMs(System.currentTimeMillis() - debut)
+                .build();
+        envoisTotal.incrementAndGet();
+        envoyesTotal.addAndGet(bilan.getEnvoyes());
+        echecsTotal.addAndGet(bilan.getEchecs());
+        purgesTotal.addAndGet(purges);
+        if (bilan.getEnvoyes() > 0) {
+            log.info("Push FCM envoyées : {}/{} en {} lot(s), {} ms",
+                    bilan.getEnvoyes(), bilan.getTokens(), bilan.getLots(), bilan.getDureeMs());
+        }
+        return bilan;
+    }
+
+    /**
+     * Envoie la même push à tous les devices d'un groupe d'utilisateurs
+     * (ex. tous les passagers d'un départ) : une requête pour les tokens, puis
+     * un envoi multicast.
+     */
+    public BilanPush sendToUsers(Collection<Long> userIds, String title, String body,
+                                 Map<String, String> data) {
+        if (passerelleProvider.getIfAvailable() == null || userIds == null || userIds.isEmpty()) {
+            return BilanPush.builder().build();
+        }
+        List<String> tokens = deviceTokenService.getTokensByUsers(userIds).values().stream()
+                .flatMap(List::stream)
+                .toList();
+        return sendToTokens(tokens, title, body, data);
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("actif", passerelleProvider.getIfAvailable() != null);
+        stats.put("envois", envoisTotal.get());
+        stats.put("envoyes", envoyesTotal.get());
+        stats.put("echecs", echecsTotal.get());
+        stats.put("tokensPurges", purgesTotal.get());
+        stats.put("lotsEnFile", executeur.getQueue().size());
+        stats.put("lotsEnCours", executeur.getActiveCount());
+        return stats;
+    }
+
+    @PreDestroy
+    void arreter() {
+        executeur.shutdown();
+    }
+
+    private void envoyerLot(PasserellePush passerelle, List<String> lot, String title, String body,
+                            Map<String, String> data, AtomicInteger envoyes, AtomicInteger echecs,
+                            ConcurrentLinkedQueue<String> morts) {
+        int envoyesLot = 0;
+        int echecsLot = 0;
+        List<String> mortsLot = new ArrayList<>();
+        try {
+            List<PasserellePush.Issue> issues = passerelle.envoyer(lot, title, body, data);
+            for (int i = 0; i < issues.size(); i++) {
+                switch (issues.get(i)) {
+                    case ENVOYE -> envoyesLot++;
+                    case TOKEN_MORT -> {
+                        echecsLot++;
+                        mortsLot.add(lot.get(i));
+                    }
+                    case ECHEC -> echecsLot++;
                 }
             }
+        } catch (PasserellePush.EchecLot e) {
+            // Échec du lot entier (auth, quota, réseau)
+            echecs.addAndGet(lot.size());
+            log.warn("Échec envoi push FCM ({} token(s)) : {}", lot.size(), e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            // Erreur inattendue de la passerelle : le lot entier compte en échec, les autres lots continuent
+            echecs.addAndGet(lot.size());
+            log.error("Erreur envoi push FCM ({} token(s))", lot.size(), e);
+            return;
         }
-        if (sent > 0) {
-            log.info("Push FCM envoyées : {}/{}", sent, tokens.size());
-        }
+        // Comptés une fois le lot entièrement dépouillé : jamais à la fois envoyé et en échec
+        envoyes.addAndGet(envoyesLot);
+        echecs.addAndGet(echecsLot);
+        morts.addAll(mortsLot);
     }
 }
@@ -1,13 +1,25 @@
 package io.multi.billetterieservice.service;
 
 import io.multi.billetterieservice.domain.InAppNotification;
+import io.multi.billetterieservice.domain.PageNotifications;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface InAppNotificationService {
-    List<InAppNotification> getByUserId(Long userId, int page, int size);
+    PageNotifications getByUserId(Long userId, String curseur, Integer taille);
+
+    /** Ancienne pagination par numéro de page (page >= 0), en transition vers le curseur. */
+    PageNotifications getByUserIdParPage(Long userId, int page, Integer taille);
+    /** Notifications d'id > apresId créées depuis `depuis`, en ordre croissant (flux SSE). */
+    List<InAppNotification> getNouvelles(Long userId, long apresId, OffsetDateTime depuis, int limite);
+    long getDernierId(Long userId, OffsetDateTime depuis);
     Long countUnread(Long userId);
-    void markAsRead(Long notificationId, Long userId);
+    /** Compteur publié par PostgreSQL (canal notifications_in_app) : remplace la valeur en cache. */
+    void majCompteurNonLues(Long userId, long nonLues);
+    void oublierCompteursNonLues();
+    /** creeLe : created_at de la notification, s'il est connu (borne la recherche à sa partition). */
+    void markAsRead(Long notificationId, OffsetDateTime creeLe, Long userId);
     void markAllAsRead(Long userId);
     void createNotification(Long userId, String typeNotification, String categorie,
                             String titre, String message, boolean envoyee,
@@ -15,5 +27,7 @@ public interface InAppNotificationService {
     void createNotification(Long userId, String typeNotification, String categorie,
                             String titre, String message, boolean envoyee,
                             Long referenceId, String referenceType, String metadata);
+    /** Insère en une requête des notifications de même type, catégorie et titre. */
+    void createNotifications(List<InAppNotification> notifications);
     boolean existsByReference(Long userId, Long referenceId, String referenceType, String categorie);
 }
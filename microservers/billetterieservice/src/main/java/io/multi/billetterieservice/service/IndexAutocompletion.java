@@ -0,0 +1,326 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.Commune;
+import io.multi.billetterieservice.domain.Quartier;
+import io.multi.billetterieservice.domain.Site;
+import io.multi.billetterieservice.domain.Suggestion;
+import io.multi.billetterieservice.domain.Trajet;
+import io.multi.billetterieservice.domain.Ville;
+import io.multi.billetterieservice.query.AutocompletionQuery;
+import io.multi.billetterieservice.repository.TrajetRepository;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
+import io.multi.billetterieservice.utils.PrefixTrie;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.multi.billetterieservice.utils.TransactionUtils.apresCommit;
+
+/**
+ * Index d'autocomplétion en mémoire : villes, communes, quartiers, sites et trajets actifs.
+ *
+ * Un trie de préfixes insensible aux accents par type (segment) : "labe" trouve
+ * Labé, "nzere" trouve N'Zérékoré. Chaque nœud garde ses meilleurs résultats,
+ * classés par popularité (réservations récentes des trajets, répercutées sur
+ * les sites, villes, communes et quartiers desservis) : une recherche ne coûte
+ * que la longueur du préfixe, sans requête SQL.
+ *
+ * Reconstruction incrémentale, hors du chemin des requêtes (thread dédié) :
+ * - nouvel instantané du référentiel → seuls les segments dont la source a changé ;
+ * - écriture sur un trajet → segment TRAJET ;
+ * - rafraîchissement périodique → popularités et trajets des autres instances.
+ */
+@Service
+@Slf4j
+public class IndexAutocompletion {
+
+    public static final int LIMITE_MAX = 20;
+
+    /** Nombre de dernières recherches conservées pour les centiles de latence. */
+    private static final int FENETRE_LATENCES = 1024;
+
+    /** Classement : popularité, puis type (villes d'abord), puis libellé le plus court. */
+    private static final Comparator<Suggestion> ORDRE = Comparator
+            .comparingLong(Suggestion::getPopularite).reversed()
+            .thenComparing(Suggestion::getType)
+            .thenComparingInt(suggestion -> suggestion.getLibelle().length())
+            .thenComparing(Suggestion::getLibelle);
+
+    private final ReferentielGeographique referentielGeographique;
+    private final TrajetRepository trajetRepository;
+    private final JdbcClient jdbcClient;
+    private final ExecutorService executeur =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "autocompletion-index"));
+
+    @Value("${billetterie.autocompletion.fenetre-popularite:90 days}")
+    private String fenetrePopularite;
+
+    private final Map<Suggestion.Type, PrefixTrie<Suggestion>> segments = new ConcurrentHashMap<>();
+
+    // État de construction : modifié uniquement sous le verrou de l'instance
+    private final Map<Suggestion.Type, List<?>> sources = new EnumMap<>(Suggestion.Type.class);
+    private Map<Suggestion.Type, Map<String, Long>> popularites = new EnumMap<>(Suggestion.Type.class);
+
+    private final AtomicLong recherches = new AtomicLong();
+    private final AtomicLong dureeTotaleNanos = new AtomicLong();
+    private final AtomicLong dureeMaxNanos = new AtomicLong();
+    private final AtomicLongArray dernieresDurees = new AtomicLongArray(FENETRE_LATENCES);
+    private final AtomicLong reconstructions = new AtomicLong();
+
+    public IndexAutocompletion(ReferentielGeographique referentielGeographique,
+                               TrajetRepository trajetRepository, JdbcClient jdbcClient) {
+        this.referentielGeographique = referentielGeographique;
+        this.trajetRepository = trajetRepository;
+        this.jdbcClient = jdbcClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        referentielGeographique.abonner(instantane -> executeur.execute(() -> indexerReferentiel(instantane)));
+        executeur.execute(this::reconstruireSansErreur);
+    }
+
+    /**
+     * Meilleures suggestions pour le préfixe saisi.
+     * types vide ou null = tous les types.
+     */
+    public List<Suggestion> rechercher(String saisie, Set<Suggestion.Type> types, int limite) {
+        long debut = System.nanoTime();
+        if (segments.isEmpty()) {
+            chargerSiAbsent();
+        }
+        int nombre = Math.max(1, Math.min(limite, LIMITE_MAX));
+        Collection<Suggestion.Type> cibles = types == null || types.isEmpty()
+                ? List.of(Suggestion.Type.values()) : types;
+
+        List<Suggestion> candidats = new ArrayList<>();
+        for (Suggestion.Type type : cibles) {
+            PrefixTrie<Suggestion> segment = segments.get(type);
+            if (segment != null) {
+                candidats.addAll(segment.rechercher(saisie, nombre));
+            }
+        }
+        candidats.sort(ORDRE);
+        List<Suggestion> resultats = candidats.size() > nombre ? List.copyOf(candidats.subList(0, nombre)) : candidats;
+
+        long duree = System.nanoTime() - debut;
+        long rang = recherches.getAndIncrement();
+        dernieresDurees.set((int) (rang % FENETRE_LATENCES), duree);
+        dureeTotaleNanos.addAndGet(duree);
+        dureeMaxNanos.accumulateAndGet(duree, Math::max);
+        return resultats;
+    }
+
+    /** À appeler après une écriture sur les trajets : segment reconstruit au commit. */
+    public void invaliderTrajets() {
+        apresCommit(() -> executeur.execute(this::reindexerTrajets));
+    }
+
+    @Scheduled(fixedDelayString = "${billetterie.autocompletion.rafraichissement-ms:600000}",
+            initialDelayString = "${billetterie.autocompletion.rafraichissement-ms:600000}")
+    public void rafraichir() {
+        executeur.execute(this::reconstruireSansErreur);
+    }
+
+    public Map<String, Object> getStatistiques() {
+        long total = recherches.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("recherches", total);
+        stats.put("dureeMoyenneMicros", total == 0 ? 0 : dureeTotaleNanos.get() / total / 1_000);
+        stats.put("dureeMaxMicros", dureeMaxNanos.get() / 1_000);
+        long[] durees = new long[(int) Math.min(total, FENETRE_LATENCES)];
+        for (int i = 0; i < durees.length; i++) {
+            durees[i] = dernieresDurees.get(i);
+        }
+        Arrays.sort(durees);
+        stats.put("dureeP50Micros", centile(durees, 50) / 1_000);
+        stats.put("dureeP99Micros", centile(durees, 99) / 1_000);
+        stats.put("fenetreCentiles", durees.length);
+        stats.put("reconstructions", reconstructions.get());
+        Map<String, Object> parType = new HashMap<>();
+        segments.forEach((type, segment) -> parType.put(type.name(),
+                Map.of("elements", segment.getElements(), "noeuds", segment.getNoeuds())));
+        stats.put("segments", parType);
+        return stats;
+    }
+
+    @PreDestroy
+    void arreter() {
+        executeur.shutdownNow();
+    }
+
+    private synchronized void chargerSiAbsent() {
+        if (segments.isEmpty()) {
+            reconstruire();
+        }
+    }
+
+    private void reconstruireSansErreur() {
+        try {
+            reconstruire();
+        } catch (RuntimeException e) {
+            log.error("Reconstruction de l'index d'autocomplétion impossible : {}", e.getMessage());
+        }
+    }
+
+    /** Recalcule les popularités puis reconstruit tous les segments. */
+    private synchronized void reconstruire() {
+        long debut = System.currentTimeMillis();
+        Instantane instantane = referentielGeographique.instantane();
+        List<Trajet> trajets = trajetRepository.findAllActifs();
+        popularites = calculerPopularites(trajets, instantane);
+        sources.clear();
+        indexerReferentiel(instantane);
+        indexerTrajets(trajets);
+        log.info("Index d'autocomplétion reconstruit en {} ms : {} élément(s)", System.currentTimeMillis() - debut,
+                segments.values().stream().mapToInt(PrefixTrie::getElements).sum());
+    }
+
+    private synchronized void reindexerTrajets() {
+        try {
+            indexerTrajets(trajetRepository.findAllActifs());
+        } catch (RuntimeException e) {
+            log.error("Réindexation des trajets impossible : {}", e.getMessage());
+        }
+    }
+
+    /** Ne reconstruit que les segments dont la liste source a changé depuis la dernière indexation. */
+    private synchronized void indexerReferentiel(Instantane instantane) {
+        indexerSiChange(Suggestion.Type.VILLE, instantane.getVillesActives(), ville -> suggestion(
+                Suggestion.Type.VILLE, ville.getVilleUuid(), ville.getLibelle(), ville.getRegionLibelle()),
+                Ville::getLibelle);
+        indexerSiChange(Suggestion.Type.COMMUNE, instantane.getCommunesActives(), commune -> suggestion(
+                Suggestion.Type.COMMUNE, commune.getCommuneUuid(), commune.getLibelle(), commune.getVilleLibelle()),
+                Commune::getLibelle);
+        indexerSiChange(Suggestion.Type.QUARTIER, instantane.getQuartiersActifs(), quartier -> suggestion(
+                Suggestion.Type.QUARTIER, quartier.getQuartierUuid(), quartier.getLibelle(),
+                contexte(quartier.getCommuneLibelle(), quartier.getVilleLibelle())),
+                Quartier::getLibelle);
+        // Le nom du site et sa ville sont indexés ensemble : "gare lab" comme "labe"
+        indexerSiChange(Suggestion.Type.SITE, instantane.getSitesActifs(), site -> suggestion(
+                Suggestion.Type.SITE, site.getSiteUuid(), site.getNom(),
+                contexte(site.getQuartierLibelle(), site.getCommuneLibelle(), site.getVilleLibelle())),
+                site -> contexte(site.getNom(), site.getVilleLibelle()));
+    }
+
+    private void indexerTrajets(List<Trajet> trajets) {
+        indexerSiChange(Suggestion.Type.TRAJET, trajets, trajet -> suggestion(
+                Suggestion.Type.TRAJET, trajet.getTrajetUuid(), trajet.getLibelleTrajet(),
+                contexte(trajet.getDepartSiteNom(), trajet.getArriveeSiteNom())),
+                Trajet::getLibelleTrajet,
+                trajet -> contexte(trajet.getDepartVilleLibelle(), trajet.getArriveeVilleLibelle()));
+    }
+
+    @SafeVarargs
+    private <T> void indexerSiChange(Suggestion.Type type, List<T> elements,
+                                     Function<T, Suggestion> versSuggestion,
+                                     Function<T, String>... libelles) {
+        if (segments.containsKey(type) && elements.equals(sources.get(type))) return;
+        PrefixTrie.Constructeur<Suggestion> constructeur = PrefixTrie.constructeur(LIMITE_MAX, ORDRE);
+        for (T element : elements) {
+            String[] cles = Stream.of(libelles).map(libelle -> libelle.apply(element))
+                    .filter(Objects::nonNull)
+                    .toArray(String[]::new);
+            constructeur.ajouter(versSuggestion.apply(element), cles);
+        }
+        segments.put(type, constructeur.construire());
+        sources.put(type, elements);
+        reconstructions.incrementAndGet();
+        log.debug("Segment d'autocomplétion {} reconstruit : {} élément(s)", type, elements.size());
+    }
+
+    private Suggestion suggestion(Suggestion.Type type, String uuid, String libelle, String contexte) {
+        return Suggestion.builder()
+                .type(type)
+                .uuid(uuid)
+                .libelle(libelle != null ? libelle : "")
+                .contexte(contexte)
+                .popularite(popularites.getOrDefault(type, Map.of()).getOrDefault(uuid, 0L))
+                .build();
+    }
+
+    /**
+     * Popularité des trajets (réservations sur la fenêtre), cumulée sur leurs
+     * sites de départ et d'arrivée, puis sur la ville, la commune et le quartier
+     * de ces sites.
+     */
+    private Map<Suggestion.Type, Map<String, Long>> calculerPopularites(List<Trajet> trajets, Instantane instantane) {
+        Map<String, Long> parTrajet = jdbcClient.sql(AutocompletionQuery.POPULARITE_TRAJETS)
+                .param("fenetre", fenetrePopularite)
+                .query((rs, rowNum) -> Map.entry(rs.getString("trajet_uuid"), rs.getLong("reservations")))
+                .list()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        Map<String, Long> parSite = new HashMap<>();
+        for (Trajet trajet : trajets) {
+            long reservations = parTrajet.getOrDefault(trajet.getTrajetUuid(), 0L);
+            if (reservations == 0) continue;
+            cumuler(parSite, trajet.getDepartSiteUuid(), reservations);
+            cumuler(parSite, trajet.getArriveeSiteUuid(), reservations);
+        }
+        Map<String, Long> parVille = new HashMap<>();
+        Map<String, Long> parCommune = new HashMap<>();
+        Map<String, Long> parQuartier = new HashMap<>();
+        parSite.forEach((siteUuid, reservations) -> {
+            Site site = instantane.getSiteParUuid().get(siteUuid);
+            if (site == null) return;
+            cumuler(parVille, site.getVilleUuid(), reservations);
+            cumuler(parCommune, site.getCommuneUuid(), reservations);
+            cumuler(parQuartier, site.getQuartierUuid(), reservations);
+        });
+
+        Map<Suggestion.Type, Map<String, Long>> resultat = new EnumMap<>(Suggestion.Type.class);
+        resultat.put(Suggestion.Type.TRAJET, parTrajet);
+        resultat.put(Suggestion.Type.SITE, parSite);
+        resultat.put(Suggestion.Type.VILLE, parVille);
+        resultat.put(Suggestion.Type.COMMUNE, parCommune);
+        resultat.put(Suggestion.Type.QUARTIER, parQuartier);
+        return resultat;
+    }
+
+    private static void cumuler(Map<String, Long> totaux, String uuid, long valeur) {
+        if (uuid != null) {
+            totaux.merge(uuid, valeur, Long::sum);
+        }
+    }
+
+    /** Centile (rang supérieur) d'un tableau trié ; 0 si vide. */
+    private static long centile(long[] tries, int centile) {
+        if (tries.length == 0) return 0;
+        int rang = (int) Math.ceil(centile / 100.0 * tries.length) - 1;
+        return tries[Math.max(0, Math.min(rang, tries.length - 1))];
+    }
+
+    private static String contexte(String... parties) {
+        String contexte = Stream.of(parties)
+                .filter(partie -> partie != null && !partie.isBlank())
+                .distinct()
+                .collect(Collectors.joining(", "));
+        return contexte.isEmpty() ? null : contexte;
+    }
+}
@@ -0,0 +1,197 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.query.OffreQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.multi.billetterieservice.utils.TransactionUtils.apresCommit;
+import static io.multi.billetterieservice.utils.TransactionUtils.siAnnulee;
+
+/**
+ * Inventaire de places en mémoire pour les départs très demandés.
+ *
+ * Un compteur atomique par offre (clé offre_id), propre à l'instance. Compteur
+ * suffisant → la réservation continue vers le verrou SQL, qui peut encore la
+ * refuser. Compteur insuffisant → rejet immédiat, sans aller-retour en base :
+ * pendant une ruée sur un départ complet, aucune requête refusée n'atteint
+ * PostgreSQL.
+ *
+ * Un compteur périmé peut donc refuser une place libérée ailleurs (annulation
+ * sur une autre instance). Il est recalé sur l'état publié sur le canal
+ * places_offres (DiffusionPlaces, quelques centaines de millisecondes après le
+ * commit) et, en dernier recours, par la réconciliation périodique avec
+ * nombre_places_disponibles.
+ *
+ * Désactivé par défaut (billetterie.inventaire-places.enabled) → toutes les
+ * méthodes sont des no-op et la base décide seule.
+ */
+@Service
+@Slf4j
+public class InventairePlaces {
+
+    public enum Resultat { RESERVE, REJETE, INCONNU }
+
+    private final JdbcClient jdbcClient;
+
+    @Value("${billetterie.inventaire-places.enabled:false}")
+    private boolean enabled;
+
+    private final Map<Long, AtomicInteger> disponibles = new ConcurrentHashMap<>();
+    private final Map<String, Long> offreIdParUuid = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong rejets = new AtomicLong();
+    private final AtomicLong recalages = new AtomicLong();
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong derive = new AtomicLong();
+
+    public InventairePlaces(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Tente de prélever des places en mémoire.
+     * RESERVE : places prélevées (restituées automatiquement si la transaction
+     * échoue) ; la base doit encore confirmer sous verrou.
+     * REJETE : pas assez de places selon le compteur (aucune lecture en base).
+     * INCONNU : offre pas (ou plus) suivie, la base décide.
+     */
+    public Resultat reserver(String offreUuid, int nombrePlaces) {
+        if (!enabled) return Resultat.INCONNU;
+        Long offreId = offreIdParUuid.get(offreUuid);
+        AtomicInteger compteur = offreId != null ? disponibles.get(offreId) : null;
+        if (compteur == null) return Resultat.INCONNU;
+
+        while (true) {
+            int courant = compteur.get();
+            if (courant < nombrePlaces) {
+                rejets.incrementAndGet();
+                return Resultat.REJETE;
+            }
+            if (compteur.compareAndSet(courant, courant - nombrePlaces)) {
+                hits.incrementAndGet();
+                siAnnulee(() -> ajouter(offreId, nombrePlaces));
+                return Resultat.RESERVE;
+            }
+        }
+    }
+
+    /** Rend des places à l'inventaire une fois la transaction commitée (annulation, changement de date). */
+    public void liberer(String offreUuid, int nombrePlaces) {
+        if (!enabled) return;
+        Long offreId = offreIdParUuid.get(offreUuid);
+        if (offreId == null) return;
+        apresCommit(() -> ajouter(offreId, nombrePlaces));
+    }
+
+    /**
+     * Commence à suivre une offre si elle ne l'est pas déjà, avec les places
+     * disponibles lues en base (prise en compte au commit de la transaction).
+     */
+    public void suivre(Long offreId, String offreUuid, int placesDisponibles) {
+        if (!enabled || offreId == null || offreUuid == null) return;
+        apresCommit(() -> {
+            disponibles.putIfAbsent(offreId, new AtomicInteger(placesDisponibles));
+            offreIdParUuid.putIfAbsent(offreUuid, offreId);
+        });
+    }
+
+    /**
+     * Recale une offre suivie sur l'état commité publié par PostgreSQL
+     * (canal places_offres). Les offres non suivies sont ignorées.
+     */
+    public void recaler(String offreUuid, int placesDisponibles) {
+        if (!enabled) return;
+        Long offreId = offreIdParUuid.get(offreUuid);
+        AtomicInteger compteur = offreId != null ? disponibles.get(offreId) : null;
+        if (compteur == null) return;
+        int ancien = compteur.getAndSet(placesDisponibles);
+        if (ancien != placesDisponibles) {
+            derive.addAndGet(Math.abs(ancien - placesDisponibles));
+            recalages.incrementAndGet();
+        }
+    }
+
+    /** Places disponibles vues par l'inventaire (-1 si l'offre n'est pas suivie). */
+    public int getDisponibles(String offreUuid) {
+        Long offreId = offreIdParUuid.get(offreUuid);
+        AtomicInteger compteur = offreId != null ? disponibles.get(offreId) : null;
+        return compteur != null ? compteur.get() : -1;
+    }
+
+    /**
+     * Réconciliation avec nombre_places_disponibles : corrige la dérive
+     * (rollback non vu, écriture hors service, autre instance) et oublie les
+     * offres qui ne sont plus réservables.
+     */
+    @Scheduled(fixedDelayString = "${billetterie.inventaire-places.reconciliation-ms:30000}")
+    public void reconcilier() {
+        if (!enabled || disponibles.isEmpty()) return;
+        Set<Long> suivies = new HashSet<>(disponibles.keySet());
+        var lignes = jdbcClient.sql(OffreQuery.FIND_PLACES_BY_IDS)
+                .param("ids", suivies)
+                .query((rs, rowNum) -> new Object[]{
+                        rs.getLong("offre_id"),
+                        rs.getInt("nombre_places_disponibles"),
+                        rs.getBoolean("reservable")
+                })
+                .list();
+
+        long deriveTour = 0;
+        List<Long> aOublier = new ArrayList<>();
+        for (var ligne : lignes) {
+            Long offreId = (Long) ligne[0];
+            int enBase = (Integer) ligne[1];
+            suivies.remove(offreId);
+            if (!(Boolean) ligne[2]) {
+                aOublier.add(offreId);
+                continue;
+            }
+            AtomicInteger compteur = disponibles.get(offreId);
+            if (compteur != null) {
+                deriveTour += Math.abs(compteur.getAndSet(enBase) - enBase);
+            }
+        }
+        aOublier.addAll(suivies); // offres supprimées
+        aOublier.forEach(disponibles::remove);
+        offreIdParUuid.values().removeIf(aOublier::contains);
+
+        derive.addAndGet(deriveTour);
+        reconciliations.incrementAndGet();
+        if (deriveTour > 0) {
+            log.info("Inventaire places réconcilié : dérive {} place(s) sur {} offre(s) suivie(s)",
+                    deriveTour, disponibles.size());
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        return Map.of(
+                "enabled", enabled,
+                "offresSuivies", disponibles.size(),
+                "hits", hits.get(),
+                "rejets", rejets.get(),
+                "recalages", recalages.get(),
+                "reconciliations", reconciliations.get(),
+                "deriveCumulee", derive.get()
+        );
+    }
+
+    private void ajouter(Long offreId, int nombrePlaces) {
+        AtomicInteger compteur = disponibles.get(offreId);
+        if (compteur != null) {
+            compteur.addAndGet(nombrePlaces);
+        }
+    }
+}
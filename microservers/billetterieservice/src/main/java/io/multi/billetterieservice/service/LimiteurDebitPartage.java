@@ -0,0 +1,55 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.query.LimiteurDebitQuery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+
+/**
+ * Seau à jetons partagé par toutes les répliques (table limiteurs_debit, V53).
+ *
+ * Un prélèvement est un seul UPSERT en autocommit : pas de transaction, verrou
+ * de ligne limité à l'instruction. À n'appeler qu'après le seau local (un
+ * aller-retour en base par appel amont, jamais par requête servie du cache).
+ * Base indisponible : refus, l'appelant bascule sur son repli plutôt que de
+ * dépasser la limite de l'amont.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LimiteurDebitPartage {
+
+    private final JdbcClient jdbcClient;
+
+    public boolean tenterAcquerir(String cle, double debitParSeconde, double rafale) {
+        try {
+            return jdbcClient.sql(LimiteurDebitQuery.ACQUERIR)
+                    .param("cle", cle)
+                    .param("debit", debitParSeconde)
+                    .param("rafale", rafale)
+                    .query(Double.class)
+                    .optional()
+                    .isPresent();
+        } catch (DataAccessException e) {
+            log.warn("Limiteur partagé {} indisponible, appel refusé : {}", cle, e.getMessage());
+            return false;
+        }
+    }
+
+    /** Jetons disponibles dans le seau partagé (la rafale si jamais utilisé, -1 si base indisponible). */
+    public double getJetonsDisponibles(String cle, double debitParSeconde, double rafale) {
+        try {
+            return jdbcClient.sql(LimiteurDebitQuery.JETONS_DISPONIBLES)
+                    .param("cle", cle)
+                    .param("debit", debitParSeconde)
+                    .param("rafale", rafale)
+                    .query(Double.class)
+                    .optional()
+                    .orElse(rafale);
+        } catch (DataAccessException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.Itineraire;
+import io.multi.billetterieservice.domain.TronconItineraire;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.query.ItineraireQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moteur d'itinéraires avec correspondances (ex. Conakry → Kankan via Mamou).
+ *
+ * Graphe en mémoire : les villes sont les sommets, chaque offre ouverte datée
+ * de l'horizon est un arc (départ, arrivée estimée, places). La recherche est
+ * un balayage par tours à la RAPTOR : le tour k calcule, pour chaque ville,
+ * l'arrivée au plus tôt en au plus k tronçons, en ne retenant que les offres
+ * qui partent au moins `correspondance-minutes` après l'arrivée précédente et
+ * qui ont assez de places. Chaque tour qui améliore l'arrivée à destination
+ * donne un itinéraire : moins de correspondances ou arrivée plus tôt.
+ *
+ * Rafraîchissement incrémental : les lignes de offre_search modifiées depuis
+ * le dernier passage (idx_offre_search_updated_at, V47) entrent dans le graphe
+ * ou en sortent ; le graphe figé est republié d'un bloc. Un rechargement
+ * complet périodique fait glisser l'horizon et retire les offres supprimées.
+ */
+@Service
+@Slf4j
+public class MoteurItineraires {
+
+    public static final int CORRESPONDANCES_MAX = 3;
+
+    private static final long INFINI = Long.MAX_VALUE;
+    private static final String STATUT_OUVERT = "OUVERT";
+
+    /** Relecture en arrière du dernier updated_at vu : couvre les transactions longues commitées en retard. */
+    private static final Duration MARGE_RELECTURE = Duration.ofMinutes(2);
+
+    private final JdbcClient jdbcClient;
+    private final ReferentielGeographique referentielGeographique;
+
+    @Value("${billetterie.itineraires.horizon-jours:7}")
+    private int horizonJours;
+
+    @Value("${billetterie.itineraires.correspondance-minutes:30}")
+    private int correspondanceMinutes;
+
+    // État de construction : modifié uniquement sous le verrou de l'instance
+    private final Map<Long, Connexion> connexions = new HashMap<>();
+    private OffsetDateTime dernierVu;
+    private LocalDate chargeLe;
+
+    private volatile Graphe graphe;
+
+    private final AtomicLong recherches = new AtomicLong();
+    private final AtomicLong dureeTotaleNanos = new AtomicLong();
+    private final AtomicLong dureeMaxNanos = new AtomicLong();
+    private final AtomicLong rechargements = new AtomicLong();
+    private final AtomicLong modificationsAppliquees = new AtomicLong();
+
+    public MoteurItineraires(JdbcClient jdbcClient, ReferentielGeographique referentielGeographique) {
+        this.jdbcClient = jdbcClient;
+        this.referentielGeographique = referentielGeographique;
+    }
+
+    /**
+     * Itinéraires de villeDepart à villeArrivee partant à partir de `depuis`,
+     * chacun réservable pour `places` places sur tous ses tronçons.
+     * Triés par nombre de correspondances croissant (et donc arrivée décroissante).
+     */
+    public List<Itineraire> rechercher(String villeDepartUuid, String villeArriveeUuid, LocalDateTime depuis,
+                                       int places, int correspondancesMax) {
+        if (referentielGeographique.instantane().getVilleParUuid().get(villeDepartUuid) == null) {
+            throw new ApiException("Ville de départ non trouvée: " + villeDepartUuid);
+        }
+        if (referentielGeographique.instantane().getVilleParUuid().get(villeArriveeUuid) == null) {
+            throw new ApiException("Ville d'arrivée non trouvée: " + villeArriveeUuid);
+        }
+        if (villeDepartUuid.equals(villeArriveeUuid)) {
+            throw new ApiException("Les villes de départ et d'arrivée doivent être différentes");
+        }
+        if (places < 1) {
+            throw new ApiException("Le nombre de places doit être au moins 1");
+        }
+
+        long debut = System.nanoTime();
+        Graphe courant = graphe != null ? graphe : chargerSiAbsent();
+        int troncons = Math.max(0, Math.min(correspondancesMax, CORRESPONDANCES_MAX)) + 1;
+        List<Itineraire> resultats = courant.rechercher(villeDepartUuid, villeArriveeUuid, depuis, places,
+                troncons, correspondanceMinutes);
+
+        long duree = System.nanoTime() - debut;
+        recherches.incrementAndGet();
+        dureeTotaleNanos.addAndGet(duree);
+        dureeMaxNanos.accumulateAndGet(duree, Math::max);
+        return resultats;
+    }
+
+    /** Applique les offres modifiées depuis le dernier passage (rechargement complet au changement de jour). */
+    @Scheduled(fixedDelayString = "${billetterie.itineraires.rafraichissement-ms:5000}")
+    public void rafraichir() {
+        try {
+            mettreAJour();
+        } catch (RuntimeException e) {
+            log.error("Rafraîchissement du graphe d'itinéraires impossible : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billetterie.itineraires.rechargement-ms:900000}",
+            initialDelayString = "${billetterie.itineraires.rechargement-ms:900000}")
+    public void rechargementPeriodique() {
+        try {
+            recharger();
+        } catch (RuntimeException e) {
+            log.error("Rechargement du graphe d'itinéraires impossible : {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Graphe courant = graphe;
+        long total = recherches.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("recherches", total);
+        stats.put("dureeMoyenneMicros", total == 0 ? 0 : dureeTotaleNanos.get() / total / 1_000);
+        stats.put("dureeMaxMicros", dureeMaxNanos.get() / 1_000);
+        stats.put("rechargements", rechargements.get());
+        stats.put("modificationsAppliquees", modificationsAppliquees.get());
+        stats.put("connexions", courant != null ? courant.connexions.length : 0);
+        stats.put("villes", courant != null ? courant.villes.size() : 0);
+        stats.put("horizonJours", horizonJours);
+        stats.put("correspondanceMinutes", correspondanceMinutes);
+        stats.put("dernierVu", dernierVu != null ? dernierVu.toString() : null);
+        return stats;
+    }
+
+    private synchronized Graphe chargerSiAbsent() {
+        if (graphe == null) {
+            recharger();
+        }
+        return graphe;
+    }
+
+    private synchronized void mettreAJour() {
+        if (dernierVu == null || !LocalDate.now().equals(chargeLe)) {
+            recharger();
+        } else {
+            appliquerModifications();
+        }
+    }
+
+    private synchronized void recharger() {
+        long debut = System.currentTimeMillis();
+        List<Connexion> lignes = jdbcClient.sql(ItineraireQuery.FIND_CONNEXIONS)
+                .param("horizonJours", horizonJours)
+                .query(this::mapConnexion)
+                .list();
+        connexions.clear();
+        dernierVu = OffsetDateTime.MIN;
+        for (Connexion connexion : lignes) {
+            avancer(connexion);
+            if (estUtilisable(connexion)) {
+                connexions.put(connexion.offreId, connexion);
+            }
+        }
+        if (dernierVu.equals(OffsetDateTime.MIN)) {
+            dernierVu = OffsetDateTime.now().minus(MARGE_RELECTURE); // aucune offre ouverte
+        }
+        chargeLe = LocalDate.now();
+        publier();
+        rechargements.incrementAndGet();
+        log.info("Graphe d'itinéraires rechargé en {} ms : {} connexion(s), {} ville(s)",
+                System.currentTimeMillis() - debut, graphe.connexions.length, graphe.villes.size());
+    }
+
+    private synchronized void appliquerModifications() {
+        List<Connexion> lignes = jdbcClient.sql(ItineraireQuery.FIND_MODIFIEES_DEPUIS)
+                .param("depuis", dernierVu.minus(MARGE_RELECTURE))
+                .query(this::mapConnexion)
+                .list();
+        int appliquees = 0;
+        for (Connexion connexion : lignes) {
+            avancer(connexion);
+            Connexion precedente = connexions.get(connexion.offreId);
+            if (estUtilisable(connexion)) {
+                // Les lignes de la marge reviennent à chaque passage : ignorées si inchangées
+                if (precedente == null || !precedente.majLe.isEqual(connexion.majLe)) {
+                    connexions.put(connexion.offreId, connexion);
+                    appliquees++;
+                }
+            } else if (precedente != null) {
+                connexions.remove(connexion.offreId);
+                appliquees++;
+            }
+        }
+        if (appliquees > 0) {
+            publier();
+            modificationsAppliquees.addAndGet(appliquees);
+            log.debug("Graphe d'itinéraires : {} offre(s) modifiée(s)", appliquees);
+        }
+    }
+
+    private void publier() {
+        graphe = new Graphe(connexions.values());
+    }
+
+    private void avancer(Connexion connexion) {
+        if (connexion.majLe.isAfter(dernierVu)) {
+            dernierVu = connexion.majLe;
+        }
+    }
+
+    /** Arc du graphe : offre ouverte, avec places, horaires connus, dans l'horizon. */
+    private boolean estUtilisable(Connexion connexion) {
+        return STATUT_OUVERT.equals(connexion.statut)
+                && connexion.places > 0
+                && connexion.arrivee != null
+                && connexion.villeDepartUuid != null
+                && connexion.villeArriveeUuid != null
+                && !connexion.villeDepartUuid.equals(connexion.villeArriveeUuid)
+                && !connexion.depart.toLocalDate().isAfter(LocalDate.now().plusDays(horizonJours));
+    }
+
+    private Connexion mapConnexion(ResultSet rs, int rowNum) throws SQLException {
+        LocalDate date = rs.getObject("date_depart", LocalDate.class);
+        LocalTime heureDepart = rs.getObject("heure_depart", LocalTime.class);
+        LocalTime heureArrivee = rs.getObject("heure_arrivee_estimee", LocalTime.class);
+        Integer dureeMinutes = rs.getObject("trajet_duree_minutes", Integer.class);
+        // updated_at est un timestamptz : le pilote refuse de le lire en LocalDateTime
+        OffsetDateTime majLe = rs.getObject("updated_at", OffsetDateTime.class);
+
+        LocalDateTime depart = date.atTime(heureDepart != null ? heureDepart : LocalTime.MIDNIGHT);
+        LocalDateTime arrivee = null;
+        if (heureDepart != null && heureArrivee != null) {
+            arrivee = date.atTime(heureArrivee);
+            if (!arrivee.isAfter(depart)) {
+                arrivee = arrivee.plusDays(1); // arrivée le lendemain
+            }
+        } else if (heureDepart != null && dureeMinutes != null && dureeMinutes > 0) {
+            arrivee = depart.plusMinutes(dureeMinutes);
+        }
+
+        BigDecimal montant = rs.getBigDecimal("montant");
+        BigDecimal promotion = rs.getBigDecimal("montant_promotion");
+        return new Connexion(
+                rs.getLong("offre_id"),
+                rs.getString("offre_uuid"),
+                rs.getString("statut"),
+                rs.getString("trajet_libelle"),
+                rs.getString("ville_depart_uuid"),
+                rs.getString("ville_depart_libelle"),
+                rs.getString("site_depart"),
+                rs.getString("ville_arrivee_uuid"),
+                rs.getString("ville_arrivee_libelle"),
+                rs.getString("site_arrivee"),
+                depart,
+                arrivee,
+                rs.getInt("nombre_places_disponibles"),
+                promotion != null && promotion.compareTo(BigDecimal.ZERO) > 0 ? promotion : montant,
+                rs.getString("devise"),
+                majLe != null ? majLe : OffsetDateTime.MIN
+        );
+    }
+
+    private static long minutes(LocalDateTime instant) {
+        return instant.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /** Offre vue comme un arc du graphe (ligne de offre_search). */
+    private static final class Connexion {
+        private final long offreId;
+        private final String offreUuid;
+        private final String statut;
+        private final String trajetLibelle;
+        private final String villeDepartUuid;
+        private final String villeDepartLibelle;
+        private final String siteDepart;
+        private final String villeArriveeUuid;
+        private final String villeArriveeLibelle;
+        private final String siteArrivee;
+        private final LocalDateTime depart;
+        private final LocalDateTime arrivee;
+        private final int places;
+        private final BigDecimal montant;
+        private final String devise;
+        private final OffsetDateTime majLe;
+
+        private Connexion(long offreId, String offreUuid, String statut, String trajetLibelle,
+                          String villeDepartUuid, String villeDepartLibelle, String siteDepart,
+                          String villeArriveeUuid, String villeArriveeLibelle, String siteArrivee,
+                          LocalDateTime depart, LocalDateTime arrivee, int places, BigDecimal montant,
+                          String devise, OffsetDateTime majLe) {
+            this.offreId = offreId;
+            this.offreUuid = offreUuid;
+            this.statut = statut;
+            this.trajetLibelle = trajetLibelle;
+            this.villeDepartUuid = villeDepartUuid;
+            this.villeDepartLibelle = villeDepartLibelle;
+            this.siteDepart = siteDepart;
+            this.villeArriveeUuid = villeArriveeUuid;
+            this.villeArriveeLibelle = villeArriveeLibelle;
+            this.siteArrivee = siteArrivee;
+            this.depart = depart;
+            this.arrivee = arrivee;
+            this.places = places;
+            this.montant = montant;
+            this.devise = devise;
+            this.majLe = majLe;
+        }
+
+        private TronconItineraire versTroncon() {
+            return TronconItineraire.builder()
+                    .offreUuid(offreUuid)
+                    .trajetLibelle(trajetLibelle)
+                    .villeDepartUuid(villeDepartUuid)
+                    .villeDepartLibelle(villeDepartLibelle)
+                    .siteDepart(siteDepart)
+                    .villeArriveeUuid(villeArriveeUuid)
+                    .villeArriveeLibelle(villeArriveeLibelle)
+                    .siteArrivee(siteArrivee)
+                    .depart(depart)
+                    .arrivee(arrivee)
+                    .placesDisponibles(places)
+                    .montant(montant)
+                    .devise(devise)
+                    .build();
+        }
+    }
+
+    /**
+     * Graphe figé, partagé sans verrou : connexions triées par départ, en
+     * tableaux parallèles (villes numérotées) pour le balayage.
+     */
+    private static final class Graphe {
+        private final Map<String, Integer> villes = new HashMap<>();
+        private final Connexion[] connexions;
+        private final int[] origines;
+        private final int[] destinations;
+        private final long[] departs;
+        private final long[] arrivees;
+        private final int[] places;
+
+        private Graphe(Collection<Connexion> source) {
+            connexions = source.toArray(new Connexion[0]);
+            Arrays.sort(connexions, Comparator.comparing((Connexion c) -> c.depart)
+                    .thenComparingLong(c -> c.offreId));
+            int n = connexions.length;
+            origines = new int[n];
+            destinations = new int[n];
+            departs = new long[n];
+            arrivees = new long[n];
+            places = new int[n];
+            for (int i = 0; i < n; i++) {
+                Connexion c = connexions[i];
+                origines[i] = villes.computeIfAbsent(c.villeDepartUuid, uuid -> villes.size());
+                destinations[i] = villes.computeIfAbsent(c.villeArriveeUuid, uuid -> villes.size());
+                departs[i] = minutes(c.depart);
+                arrivees[i] = minutes(c.arrivee);
+                places[i] = c.places;
+            }
+        }
+
+        private List<Itineraire> rechercher(String origineUuid, String destinationUuid, LocalDateTime depuis,
+                                            int placesDemandees, int tronconsMax, int correspondance) {
+            Integer origine = villes.get(origineUuid);
+            Integer destination = villes.get(destinationUuid);
+            if (origine == null || destination == null) return List.of();
+
+            long t0 = minutes(depuis);
+            int premiere = premiereConnexionApres(t0);
+            int n = villes.size();
+
+            // arrivee[k][v] : arrivée au plus tôt en v en au plus k tronçons ;
+            // via[k][v] : connexion qui l'a améliorée au tour k (-1 si héritée du tour k-1)
+            long[][] arrivee = new long[tronconsMax + 1][];
+            int[][] via = new int[tronconsMax + 1][];
+            arrivee[0] = new long[n];
+            Arrays.fill(arrivee[0], INFINI);
+            arrivee[0][origine] = t0;
+
+            int tours = 0;
+            for (int k = 1; k <= tronconsMax; k++) {
+                long[] precedent = arrivee[k - 1];
+                long[] courant = precedent.clone();
+                int[] parents = new int[n];
+                Arrays.fill(parents, -1);
+                boolean ameliore = false;
+                for (int i = premiere; i < connexions.length; i++) {
+                    if (places[i] < placesDemandees) continue;
+                    int u = origines[i];
+                    long pret = precedent[u];
+                    if (pret == INFINI) continue;
+                    // Au départ : n'importe quelle offre après `depuis` ; en correspondance : délai minimal
+                    long seuil = u == origine ? t0 : pret + correspondance;
+                    if (departs[i] < seuil) continue;
+                    int v = destinations[i];
+                    if (arrivees[i] < courant[v]) {
+                        courant[v] = arrivees[i];
+                        parents[v] = i;
+                        ameliore = true;
+                    }
+                }
+                arrivee[k] = courant;
+                via[k] = parents;
+                tours = k;
+                if (!ameliore) break;
+            }
+
+            List<Itineraire> resultats = new ArrayList<>();
+            long meilleure = INFINI;
+            for (int k = 1; k <= tours; k++) {
+                if (arrivee[k][destination] < meilleure) {
+                    meilleure = arrivee[k][destination];
+                    resultats.add(itineraire(chemin(via, k, origine, destination)));
+                }
+            }
+            return resultats;
+        }
+
+        /** Remonte les connexions depuis la destination, du tour k vers le tour 1. */
+        private List<Connexion> chemin(int[][] via, int k, int origine, int destination) {
+            List<Connexion> chemin = new ArrayList<>();
+            int ville = destination;
+            int tour = k;
+            while (ville != origine) {
+                while (via[tour][ville] < 0) tour--;
+                int i = via[tour][ville];
+                chemin.add(0, connexions[i]);
+                ville = origines[i];
+                tour--;
+            }
+            return chemin;
+        }
+
+        private static Itineraire itineraire(List<Connexion> chemin) {
+            Connexion premier = chemin.get(0);
+            Connexion dernier = chemin.get(chemin.size() - 1);
+            long attente = 0;
+            int placesMin = Integer.MAX_VALUE;
+            BigDecimal total = BigDecimal.ZERO;
+            List<TronconItineraire> troncons = new ArrayList<>(chemin.size());
+            for (int i = 0; i < chemin.size(); i++) {
+                Connexion c = chemin.get(i);
+                if (i > 0) {
+                    attente += Duration.between(chemin.get(i - 1).arrivee, c.depart).toMinutes();
+                }
+                placesMin = Math.min(placesMin, c.places);
+                if (c.montant != null) total = total.add(c.montant);
+                troncons.add(c.versTroncon());
+            }
+            return Itineraire.builder()
+                    .troncons(troncons)
+                    .correspondances(chemin.size() - 1)
+                    .depart(premier.depart)
+                    .arrivee(dernier.arrivee)
+                    .dureeMinutes(Duration.between(premier.depart, dernier.arrivee).toMinutes())
+                    .attenteMinutes(attente)
+                    .placesDisponibles(placesMin)
+                    .montantTotal(total)
+                    .devise(premier.devise)
+                    .build();
+        }
+
+        /** Indice de la première connexion partant à t ou après (recherche dichotomique). */
+        private int premiereConnexionApres(long t) {
+            int bas = 0;
+            int haut = departs.length;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (departs[milieu] < t) bas = milieu + 1;
+                else haut = milieu;
+            }
+            return bas;
+        }
+    }
+}
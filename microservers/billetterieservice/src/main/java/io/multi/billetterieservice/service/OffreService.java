@@ -1,6 +1,7 @@
 package io.multi.billetterieservice.service;
 
 import io.multi.billetterieservice.domain.Offre;
+import io.multi.billetterieservice.domain.PageOffres;
 import io.multi.billetterieservice.dto.OffreRequest;
 
 import java.math.BigDecimal;
@@ -15,9 +16,11 @@ public interface OffreService {
 
     // ========== LECTURE ==========
 
-    List<Offre> getAll();
+    // Listes paginées : curseur opaque (null = première page), taille bornée côté service
 
-    List<Offre> getAllOuvertes();
+    PageOffres getAll(String curseur, Integer taille);
+
+    PageOffres getAllOuvertes(String curseur, Integer taille);
 
     Offre getByUuid(String uuid);
 
@@ -29,7 +32,7 @@ public interface OffreService {
 
     List<Offre> getMesOffres(Long userId);
 
-    List<Offre> getByStatut(String statut);
+    PageOffres getByStatut(String statut, String curseur, Integer taille);
 
     List<Offre> getByDateDepart(LocalDate dateDepart);
 
@@ -45,13 +48,13 @@ public interface OffreService {
 
     List<Offre> getAujourdHui();
 
-    List<Offre> getAVenir();
+    PageOffres getAVenir(String curseur, Integer taille);
 
-    List<Offre> getPassees();
+    PageOffres getPassees(String curseur, Integer taille);
 
     List<Offre> getEnPromotion();
 
-    List<Offre> search(String searchTerm);
+    PageOffres search(String searchTerm, String curseur, Integer taille);
 
     // ========== ÉCRITURE ==========
 
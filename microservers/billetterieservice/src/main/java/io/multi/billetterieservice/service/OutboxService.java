@@ -0,0 +1,65 @@
+package io.multi.billetterieservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.event.EventType;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.query.OutboxQuery;
+import io.multi.billetterieservice.scheduled.RelaisOutbox;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.multi.billetterieservice.utils.TransactionUtils.apresCommit;
+
+/**
+ * Écriture des événements Kafka dans l'outbox (V43), dans la transaction de
+ * l'appelant : rien n'est publié si elle est annulée. Le relais est réveillé au
+ * commit ; Kafka n'est jamais appelé sur le chemin de la requête.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    public static final String NOTIFICATION_TOPIC = "NOTIFICATION_TOPIC";
+
+    private final JdbcClient jdbcClient;
+    private final ObjectMapper objectMapper;
+    private final RelaisOutbox relaisOutbox;
+
+    /** @param cle clé d'ordre et de partition (numéro de commande, code billet), peut être null */
+    public void publier(EventType type, Map<String, ?> donnees, String cle) {
+        jdbcClient.sql(OutboxQuery.INSERT)
+                .param("topic", NOTIFICATION_TOPIC)
+                .param("cle", cle)
+                .param("typeEvenement", type.name())
+                .param("donnees", json(donnees))
+                .update();
+        apresCommit(relaisOutbox::reveiller);
+    }
+
+    /** Événements de même type en une requête ; donnees et cles sont alignées. */
+    public void publierTous(EventType type, List<? extends Map<String, ?>> donnees, List<String> cles) {
+        if (donnees.isEmpty()) return;
+        jdbcClient.sql(OutboxQuery.INSERT_LOT)
+                .param("topic", NOTIFICATION_TOPIC)
+                .param("typeEvenement", type.name())
+                .param("cles", cles.toArray(String[]::new))
+                .param("donnees", donnees.stream().map(this::json).toArray(String[]::new))
+                .update();
+        apresCommit(relaisOutbox::reveiller);
+    }
+
+    private String json(Map<String, ?> donnees) {
+        try {
+            return objectMapper.writeValueAsString(donnees);
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Événement non sérialisable : " + e.getMessage());
+        }
+    }
+}
@@ -29,7 +29,8 @@ public interface PartenaireService {
 
     List<Partenaire> getByRegion(String regionUuid);
 
-    List<Partenaire> search(String searchTerm);
+    /** Recherche classée par pertinence ; size borné à 100 (20 par défaut côté API). */
+    List<Partenaire> search(String searchTerm, int page, int size);
 
     List<Partenaire> getPartenariatsExpires();
 
@@ -0,0 +1,28 @@
+package io.multi.billetterieservice.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envoi multicast des push, derrière une interface : FirebaseMessaging est une
+ * classe finale du SDK (ni sous-classable ni simulable), FcmSender ne dépend
+ * que de ce contrat. Implémentation : PasserellePushFirebase (FirebaseConfig).
+ */
+public interface PasserellePush {
+
+    enum Issue { ENVOYE, TOKEN_MORT, ECHEC }
+
+    /**
+     * Envoie la même push à un lot de tokens (500 max).
+     *
+     * @return une issue par token, dans l'ordre des tokens
+     * @throws EchecLot si le lot entier échoue (authentification, quota, réseau)
+     */
+    List<Issue> envoyer(List<String> tokens, String titre, String corps, Map<String, String> data) throws EchecLot;
+
+    class EchecLot extends Exception {
+        public EchecLot(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.Localisation;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
+import io.multi.billetterieservice.utils.CacheLruTtl;
+import io.multi.billetterieservice.utils.PrefixTrie;
+import io.multi.billetterieservice.utils.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Couche de géocodage devant Nominatim (OSM) et Google Places.
+ *
+ * Chaque appel passe par, dans l'ordre :
+ * - un cache LRU/TTL indexé par la requête normalisée (sans accents ni casse) ;
+ * - le regroupement des requêtes identiques en vol : une seule part vers
+ *   l'amont, les autres attendent son résultat ;
+ * - un seau à jetons par amont (Nominatim : 1 requête/s selon sa politique
+ *   d'usage, Google : facturé à l'appel), local puis partagé entre répliques
+ *   (LimiteurDebitPartage) : le débit configuré vaut pour tout le parc. Sans
+ *   jeton, ou si l'amont échoue, la réponse vient de l'index local des
+ *   localisations (non mise en cache).
+ *
+ * Les données renvoyées portent leur "origine" : amont, cache ou local.
+ */
+@Service
+@Slf4j
+public class ProxyGeocodage {
+
+    public enum Amont { NOMINATIM, GOOGLE }
+
+    public static final String PREFIXE_LOCAL = "local:";
+
+    private static final int LIMITE_LOCALE_MAX = 20;
+
+    private final ReferentielGeographique referentielGeographique;
+    private final LimiteurDebitPartage limiteurPartage;
+    private final boolean limitePartagee;
+    private final CacheLruTtl<String, Map<String, Object>> cache;
+    private final Map<Amont, TokenBucket> limiteurs = new EnumMap<>(Amont.class);
+    private final Map<Amont, double[]> debits = new EnumMap<>(Amont.class); // {débit/s, rafale}
+    private final Map<Amont, Compteurs> compteurs = new EnumMap<>(Amont.class);
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> enCours = new ConcurrentHashMap<>();
+
+    /** Index local des localisations, reconstruit quand l'instantané du référentiel change. */
+    private volatile IndexLocal indexLocal;
+
+    public ProxyGeocodage(ReferentielGeographique referentielGeographique,
+                          LimiteurDebitPartage limiteurPartage,
+                          @Value("${billetterie.geocodage.limite-partagee:true}") boolean limitePartagee,
+                          @Value("${billetterie.geocodage.taille-cache:5000}") int tailleCache,
+                          @Value("${billetterie.geocodage.ttl-minutes:1440}") long ttlMinutes,
+                          @Value("${billetterie.geocodage.nominatim.debit:1}") double debitNominatim,
+                          @Value("${billetterie.geocodage.nominatim.rafale:1}") double rafaleNominatim,
+                          @Value("${billetterie.geocodage.google.debit:5}") double debitGoogle,
+                          @Value("${billetterie.geocodage.google.rafale:10}") double rafaleGoogle) {
+        this.referentielGeographique = referentielGeographique;
+        this.limiteurPartage = limiteurPartage;
+        this.limitePartagee = limitePartagee;
+        this.cache = new CacheLruTtl<>(tailleCache, ttlMinutes * 60_000);
+        limiteurs.put(Amont.NOMINATIM, new TokenBucket(debitNominatim, rafaleNominatim));
+        limiteurs.put(Amont.GOOGLE, new TokenBucket(debitGoogle, rafaleGoogle));
+        debits.put(Amont.NOMINATIM, new double[]{debitNominatim, rafaleNominatim});
+        debits.put(Amont.GOOGLE, new double[]{debitGoogle, rafaleGoogle});
+        for (Amont amont : Amont.values()) {
+            compteurs.put(amont, new Compteurs());
+        }
+    }
+
+    /**
+     * Résout une requête de géocodage.
+     *
+     * @param cle   requête normalisée (opération + paramètres), clé du cache et du regroupement
+     * @param appel appel à l'amont ; une exception (réseau, quota, statut d'erreur) déclenche le repli
+     * @param repli réponse construite depuis l'index local
+     */
+    public Map<String, Object> resoudre(Amont amont, String cle, Supplier<Map<String, Object>> appel,
+                                        Supplier<Map<String, Object>> repli) {
+        Compteurs compteur = compteurs.get(amont);
+        compteur.requetes.incrementAndGet();
+        String cleCache = amont + "|" + cle;
+
+        Map<String, Object> enCache = cache.get(cleCache);
+        if (enCache != null) {
+            compteur.hitsCache.incrementAndGet();
+            return avecOrigine(enCache, "cache");
+        }
+
+        CompletableFuture<Map<String, Object>> nouveau = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existant = enCours.putIfAbsent(cleCache, nouveau);
+        if (existant != null) {
+            compteur.regroupees.incrementAndGet();
+            try {
+                return existant.join();
+            } catch (RuntimeException e) {
+                return avecOrigine(repli.get(), "local");
+            }
+        }
+        try {
+            Map<String, Object> resultat = appelerAmont(amont, cleCache, appel, repli, compteur);
+            nouveau.complete(resultat);
+            return resultat;
+        } catch (RuntimeException e) {
+            nouveau.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCours.remove(cleCache, nouveau);
+        }
+    }
+
+    /** Consomme un jeton (local puis partagé) sans passer par le cache (appels de diagnostic). */
+    public boolean autoriser(Amont amont) {
+        if (!limiteurs.get(amont).tenterAcquerir()) return false;
+        if (!limitePartagee) return true;
+        double[] debit = debits.get(amont);
+        return limiteurPartage.tenterAcquerir(cleLimiteur(amont), debit[0], debit[1]);
+    }
+
+    /** Recherche dans les localisations connues, au format des prédictions des amonts. */
+    public Map<String, Object> rechercherLocal(String saisie, int limite) {
+        List<Map<String, Object>> predictions = indexLocal().trie
+                .rechercher(saisie, Math.max(1, Math.min(limite, LIMITE_LOCALE_MAX)))
+                .stream()
+                .map(this::versPrediction)
+                .toList();
+        Map<String, Object> donnees = new HashMap<>();
+        donnees.put("predictions", predictions);
+        donnees.put("total", predictions.size());
+        donnees.put("source", "Localisations");
+        return donnees;
+    }
+
+    /** Localisation connue la plus proche des coordonnées (null si aucune n'est géolocalisée). */
+    public Localisation localisationLaPlusProche(double latitude, double longitude) {
+        Localisation plusProche = null;
+        double meilleureDistance = Double.MAX_VALUE;
+        for (Localisation localisation : referentielGeographique.instantane().getLocalisations()) {
+            if (localisation.getLatitude() == null || localisation.getLongitude() == null) continue;
+            double dLat = localisation.getLatitude().doubleValue() - latitude;
+            double dLng = (localisation.getLongitude().doubleValue() - longitude) * Math.cos(Math.toRadians(latitude));
+            double distance = dLat * dLat + dLng * dLng;
+            if (distance < meilleureDistance) {
+                meilleureDistance = distance;
+                plusProche = localisation;
+            }
+        }
+        return plusProche;
+    }
+
+    /** Localisation désignée par un placeId "local:<uuid>" issu d'une réponse de repli. */
+    public Localisation getLocalisation(String placeId) {
+        if (placeId == null || !placeId.startsWith(PREFIXE_LOCAL)) return null;
+        return referentielGeographique.instantane().getLocalisationParUuid().get(placeId.substring(PREFIXE_LOCAL.length()));
+    }
+
+    public Map<String, Object> getStatistiques(Amont amont) {
+        Compteurs compteur = compteurs.get(amont);
+        long requetes = compteur.requetes.get();
+        long servies = compteur.hitsCache.get() + compteur.regroupees.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("amont", amont.name());
+        stats.put("requetes", requetes);
+        stats.put("hitsCache", compteur.hitsCache.get());
+        stats.put("regroupees", compteur.regroupees.get());
+        stats.put("appelsAmont", compteur.appelsAmont.get());
+        stats.put("limitees", compteur.limitees.get());
+        stats.put("erreurs", compteur.erreurs.get());
+        stats.put("replisLocaux", compteur.replis.get());
+        stats.put("tauxHit", requetes == 0 ? 0d : (double) servies / requetes);
+        stats.put("jetonsDisponibles", limiteurs.get(amont).getJetonsDisponibles());
+        if (limitePartagee) {
+            double[] debit = debits.get(amont);
+            stats.put("jetonsPartages", limiteurPartage.getJetonsDisponibles(cleLimiteur(amont), debit[0], debit[1]));
+        }
+        stats.put("tailleCache", cache.size());
+        stats.put("enCours", enCours.size());
+        return stats;
+    }
+
+    private Map<String, Object> appelerAmont(Amont amont, String cleCache, Supplier<Map<String, Object>> appel,
+                                             Supplier<Map<String, Object>> repli, Compteurs compteur) {
+        if (!autoriser(amont)) {
+            compteur.limitees.incrementAndGet();
+            compteur.replis.incrementAndGet();
+            log.debug("{} : limite de débit atteinte, repli sur les localisations", amont);
+            return avecOrigine(repli.get(), "local");
+        }
+        compteur.appelsAmont.incrementAndGet();
+        Map<String, Object> resultat;
+        try {
+            resultat = appel.get();
+        } catch (RuntimeException e) {
+            compteur.erreurs.incrementAndGet();
+            compteur.replis.incrementAndGet();
+            log.warn("{} indisponible ({}), repli sur les localisations", amont, e.getMessage());
+            return avecOrigine(repli.get(), "local");
+        }
+        cache.put(cleCache, resultat);
+        return avecOrigine(resultat, "amont");
+    }
+
+    private static String cleLimiteur(Amont amont) {
+        return "geocodage:" + amont.name();
+    }
+
+    private Map<String, Object> avecOrigine(Map<String, Object> donnees, String origine) {
+        Map<String, Object> copie = new HashMap<>(donnees);
+        copie.put("origine", origine);
+        return copie;
+    }
+
+    private Map<String, Object> versPrediction(Localisation localisation) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("placeId", PREFIXE_LOCAL + localisation.getLocalisationUuid());
+        item.put("description", localisation.getAdresseComplete());
+        item.put("latitude", localisation.getLatitude() != null ? localisation.getLatitude().doubleValue() : null);
+        item.put("longitude", localisation.getLongitude() != null ? localisation.getLongitude().doubleValue() : null);
+        item.put("type", "localisation");
+        item.put("quartier", localisation.getQuartierLibelle());
+        item.put("commune", localisation.getCommuneLibelle());
+        item.put("ville", localisation.getVilleLibelle());
+        item.put("region", localisation.getRegionLibelle());
+        return item;
+    }
+
+    private IndexLocal indexLocal() {
+        Instantane instantane = referentielGeographique.instantane();
+        IndexLocal index = indexLocal;
+        if (index != null && index.version.equals(instantane.getVersion())) {
+            return index;
+        }
+        synchronized (this) {
+            if (indexLocal == null || !indexLocal.version.equals(instantane.getVersion())) {
+                PrefixTrie.Constructeur<Localisation> constructeur = PrefixTrie.constructeur(LIMITE_LOCALE_MAX,
+                        Comparator.comparingInt((Localisation l) -> l.getAdresseComplete().length())
+                                .thenComparing(Localisation::getAdresseComplete));
+                for (Localisation localisation : instantane.getLocalisations()) {
+                    if (localisation.getAdresseComplete() == null) continue;
+                    constructeur.ajouter(localisation, String.join(" ", nonNuls(localisation.getAdresseComplete(),
+                            localisation.getQuartierLibelle(), localisation.getCommuneLibelle(),
+                            localisation.getVilleLibelle())));
+                }
+                indexLocal = new IndexLocal(instantane.getVersion(), constructeur.construire());
+            }
+            return indexLocal;
+        }
+    }
+
+    private static List<String> nonNuls(String... valeurs) {
+        List<String> resultat = new ArrayList<>();
+        for (String valeur : valeurs) {
+            if (valeur != null) resultat.add(valeur);
+        }
+        return resultat;
+    }
+
+    private static final class IndexLocal {
+        private final String version;
+        private final PrefixTrie<Localisation> trie;
+
+        private IndexLocal(String version, PrefixTrie<Localisation> trie) {
+            this.version = version;
+            this.trie = trie;
+        }
+    }
+
+    private static final class Compteurs {
+        private final AtomicLong requetes = new AtomicLong();
+        private final AtomicLong hitsCache = new AtomicLong();
+        private final AtomicLong regroupees = new AtomicLong();
+        private final AtomicLong appelsAmont = new AtomicLong();
+        private final AtomicLong limitees = new AtomicLong();
+        private final AtomicLong erreurs = new AtomicLong();
+        private final AtomicLong replis = new AtomicLong();
+    }
+}
@@ -0,0 +1,288 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.Commune;
+import io.multi.billetterieservice.domain.Localisation;
+import io.multi.billetterieservice.domain.Quartier;
+import io.multi.billetterieservice.domain.Region;
+import io.multi.billetterieservice.domain.Site;
+import io.multi.billetterieservice.domain.Ville;
+import io.multi.billetterieservice.query.ReferentielQuery;
+import io.multi.billetterieservice.repository.CommuneRepository;
+import io.multi.billetterieservice.repository.LocalisationRepository;
+import io.multi.billetterieservice.repository.QuartierRepository;
+import io.multi.billetterieservice.repository.RegionRepository;
+import io.multi.billetterieservice.repository.SiteRepository;
+import io.multi.billetterieservice.repository.VilleRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static io.multi.billetterieservice.utils.TransactionUtils.apresCommit;
+
+/**
+ * Instantané en mémoire du référentiel géographique (régions, villes, communes,
+ * quartiers, localisations, sites).
+ *
+ * Lu sur presque tous les écrans, modifié quelques fois par mois : les lectures
+ * des services référentiel sont servies par un instantané immuable, avec ses
+ * index parent → enfants, remplacé d'un bloc (référence atomique) après chaque
+ * écriture commitée. Les listes gardent l'ordre des requêtes SQL d'origine
+ * (filtrer une liste triée par hiérarchie conserve l'ordre des sous-listes).
+ *
+ * La version de l'instantané est l'empreinte des six tables (identifiant + xmin
+ * de chaque ligne) : identique sur toutes les répliques, elle sert d'ETag fort.
+ * Une vérification périodique recharge l'instantané quand une autre instance
+ * (ou un script SQL) a modifié le référentiel.
+ */
+@Service
+@Slf4j
+public class ReferentielGeographique {
+
+    private final JdbcClient jdbcClient;
+    private final RegionRepository regionRepository;
+    private final VilleRepository villeRepository;
+    private final CommuneRepository communeRepository;
+    private final QuartierRepository quartierRepository;
+    private final LocalisationRepository localisationRepository;
+    private final SiteRepository siteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicReference<Instantane> courant = new AtomicReference<>();
+    private final List<Consumer<Instantane>> abonnes = new CopyOnWriteArrayList<>();
+
+    public ReferentielGeographique(JdbcClient jdbcClient, RegionRepository regionRepository,
+                                   VilleRepository villeRepository, CommuneRepository communeRepository,
+                                   QuartierRepository quartierRepository,
+                                   LocalisationRepository localisationRepository,
+                                   SiteRepository siteRepository, PlatformTransactionManager transactionManager) {
+        this.jdbcClient = jdbcClient;
+        this.regionRepository = regionRepository;
+        this.villeRepository = villeRepository;
+        this.communeRepository = communeRepository;
+        this.quartierRepository = quartierRepository;
+        this.localisationRepository = localisationRepository;
+        this.siteRepository = siteRepository;
+        // Toutes les tables lues dans la même image de la base que l'empreinte
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Instantané courant (chargé au premier appel). */
+    public Instantane instantane() {
+        Instantane instantane = courant.get();
+        return instantane != null ? instantane : chargerSiAbsent();
+    }
+
+    /** ETag fort de la version courante. */
+    public String getEtag() {
+        return "\"" + instantane().getVersion() + "\"";
+    }
+
+    /** Prévenu à chaque nouvel instantané (index dérivés) ; doit rendre la main vite. */
+    public void abonner(Consumer<Instantane> abonne) {
+        abonnes.add(abonne);
+    }
+
+    /**
+     * À appeler après une écriture du référentiel : l'instantané est reconstruit
+     * au commit (rien si la transaction est annulée).
+     */
+    public void invalider() {
+        apresCommit(this::rechargerSansErreur);
+    }
+
+    /** Rattrape les écritures faites par une autre instance (comparaison d'empreinte). */
+    @Scheduled(fixedDelayString = "${billetterie.referentiel.verification-ms:30000}")
+    public void verifier() {
+        Instantane instantane = courant.get();
+        if (instantane == null) return; // jamais lu : chargement au premier appel
+        String empreinte = jdbcClient.sql(ReferentielQuery.EMPREINTE).query(String.class).single();
+        if (!empreinte.equals(instantane.getVersion())) {
+            rechargerSansErreur();
+        }
+    }
+
+    private synchronized Instantane chargerSiAbsent() {
+        Instantane instantane = courant.get();
+        return instantane != null ? instantane : recharger();
+    }
+
+    /** L'écriture est déjà commitée : un échec garde l'ancien instantané, la vérification périodique réessaiera. */
+    private void rechargerSansErreur() {
+        try {
+            recharger();
+        } catch (RuntimeException e) {
+            log.error("Rechargement du référentiel géographique impossible : {}", e.getMessage());
+        }
+    }
+
+    private synchronized Instantane recharger() {
+        long debut = System.currentTimeMillis();
+        Instantane instantane = transactionTemplate.execute(status -> new Instantane(
+                jdbcClient.sql(ReferentielQuery.EMPREINTE).query(String.class).single(),
+                regionRepository.findAll(),
+                villeRepository.findAll(),
+                communeRepository.findAll(),
+                quartierRepository.findAll(),
+                localisationRepository.findAll(),
+                localisationRepository.findAllWithQuartier(),
+                siteRepository.findAll()));
+        courant.set(instantane);
+        for (Consumer<Instantane> abonne : abonnes) {
+            try {
+                abonne.accept(instantane);
+            } catch (RuntimeException e) {
+                log.warn("Abonné du référentiel géographique en échec : {}", e.getMessage());
+            }
+        }
+        log.info("Référentiel géographique chargé (version {}) en {} ms : {} villes, {} quartiers, {} localisations, {} sites",
+                instantane.getVersion(), System.currentTimeMillis() - debut, instantane.getVilles().size(),
+                instantane.getQuartiers().size(), instantane.getLocalisations().size(), instantane.getSites().size());
+        return instantane;
+    }
+
+    /**
+     * Version figée du référentiel : listes et index non modifiables.
+     * Les objets du domaine sont partagés entre requêtes — ne jamais les modifier.
+     */
+    @Getter
+    public static final class Instantane {
+
+        private final String version;
+        private final long chargeLe = System.currentTimeMillis();
+
+        private final List<Region> regions;
+        private final List<Region> regionsActives;
+        private final Map<String, Region> regionParUuid;
+
+        private final List<Ville> villes;
+        private final List<Ville> villesActives;
+        private final Map<String, Ville> villeParUuid;
+        private final Map<String, List<Ville>> villesParRegion;
+
+        private final List<Commune> communes;
+        private final List<Commune> communesActives;
+        private final Map<String, Commune> communeParUuid;
+        private final Map<String, List<Commune>> communesParVille;
+        private final Map<String, List<Commune>> communesParRegion;
+
+        private final List<Quartier> quartiers;
+        private final List<Quartier> quartiersActifs;
+        private final Map<String, Quartier> quartierParUuid;
+        private final Map<String, List<Quartier>> quartiersParCommune;
+        private final Map<String, List<Quartier>> quartiersParVille;
+        private final Map<String, List<Quartier>> quartiersParRegion;
+
+        private final List<Localisation> localisations;
+        private final List<Localisation> localisationsAvecQuartier;
+        private final List<Localisation> localisationsSansQuartier;
+        private final Map<String, Localisation> localisationParUuid;
+        private final Map<String, List<Localisation>> localisationsParQuartier;
+        private final Map<String, List<Localisation>> localisationsParCommune;
+        private final Map<String, List<Localisation>> localisationsParVille;
+        private final Map<String, List<Localisation>> localisationsParRegion;
+
+        private final List<Site> sites;
+        private final List<Site> sitesActifs;
+        private final Map<String, Site> siteParUuid;
+        private final Map<String, List<Site>> sitesParLocalisation;
+        private final Map<String, List<Site>> sitesActifsParVille;
+        private final Map<String, List<Site>> sitesActifsParCommune;
+        private final Map<String, List<Site>> sitesActifsParType;
+
+        Instantane(String version, List<Region> regions, List<Ville> villes, List<Commune> communes,
+                   List<Quartier> quartiers, List<Localisation> localisations,
+                   List<Localisation> localisationsAvecQuartier, List<Site> sites) {
+            this.version = version;
+
+            this.regions = List.copyOf(regions);
+            this.regionsActives = filtrer(regions, r -> Boolean.TRUE.equals(r.getActif()));
+            this.regionParUuid = indexer(regions, Region::getRegionUuid);
+
+            this.villes = List.copyOf(villes);
+            this.villesActives = filtrer(villes, v -> Boolean.TRUE.equals(v.getActif()));
+            this.villeParUuid = indexer(villes, Ville::getVilleUuid);
+            this.villesParRegion = grouper(villes, Ville::getRegionUuid);
+
+            this.communes = List.copyOf(communes);
+            this.communesActives = filtrer(communes, c -> Boolean.TRUE.equals(c.getActif()));
+            this.communeParUuid = indexer(communes, Commune::getCommuneUuid);
+            this.communesParVille = grouper(communes, Commune::getVilleUuid);
+            this.communesParRegion = grouper(communes, Commune::getRegionUuid);
+
+            this.quartiers = List.copyOf(quartiers);
+            this.quartiersActifs = filtrer(quartiers, q -> Boolean.TRUE.equals(q.getActif()));
+            this.quartierParUuid = indexer(quartiers, Quartier::getQuartierUuid);
+            this.quartiersParCommune = grouper(quartiers, Quartier::getCommuneUuid);
+            this.quartiersParVille = grouper(quartiers, Quartier::getVilleUuid);
+            this.quartiersParRegion = grouper(quartiers, Quartier::getRegionUuid);
+
+            this.localisations = List.copyOf(localisations);
+            this.localisationsAvecQuartier = List.copyOf(localisationsAvecQuartier);
+            this.localisationsSansQuartier = filtrer(localisations, l -> l.getQuartierId() == null);
+            this.localisationParUuid = indexer(localisations, Localisation::getLocalisationUuid);
+            // Index construits sur la liste triée par hiérarchie (ordre des requêtes par parent)
+            this.localisationsParQuartier = grouper(localisationsAvecQuartier, Localisation::getQuartierUuid);
+            this.localisationsParCommune = grouper(localisationsAvecQuartier, Localisation::getCommuneUuid);
+            this.localisationsParVille = grouper(localisationsAvecQuartier, Localisation::getVilleUuid);
+            this.localisationsParRegion = grouper(localisationsAvecQuartier, Localisation::getRegionUuid);
+
+            this.sites = List.copyOf(sites);
+            List<Site> actifs = filtrer(sites, s -> Boolean.TRUE.equals(s.getActif()));
+            this.sitesActifs = actifs;
+            this.siteParUuid = indexer(sites, Site::getSiteUuid);
+            this.sitesParLocalisation = grouper(sites, Site::getLocalisationUuid);
+            this.sitesActifsParVille = grouper(actifs, Site::getVilleUuid);
+            this.sitesActifsParCommune = grouper(actifs, Site::getCommuneUuid);
+            this.sitesActifsParType = grouper(actifs, Site::getTypeSite);
+        }
+
+        /** Enfants d'un parent dans un index (liste vide si inconnu). */
+        public static <T> List<T> enfants(Map<String, List<T>> index, String parentUuid) {
+            return parentUuid == null ? List.of() : index.getOrDefault(parentUuid, List.of());
+        }
+
+        private static <T> List<T> filtrer(List<T> elements, Predicate<T> critere) {
+            return elements.stream().filter(critere).toList();
+        }
+
+        private static <T> Map<String, T> indexer(List<T> elements, Function<T, String> cle) {
+            Map<String, T> index = new HashMap<>();
+            for (T element : elements) {
+                index.put(cle.apply(element), element);
+            }
+            return Collections.unmodifiableMap(index);
+        }
+
+        private static <T> Map<String, List<T>> grouper(List<T> elements, Function<T, String> cle) {
+            Map<String, List<T>> groupes = new LinkedHashMap<>();
+            for (T element : elements) {
+                String parent = cle.apply(element);
+                if (parent != null) {
+                    groupes.computeIfAbsent(parent, k -> new ArrayList<>()).add(element);
+                }
+            }
+            groupes.replaceAll((k, v) -> List.copyOf(v));
+            return Collections.unmodifiableMap(groupes);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.multi.billetterieservice.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Statistiques de ventes par période, lues sur les agrégats journaliers.
+ * debut / fin null : 30 derniers jours. Réponse : debut, fin, totaux, parJour.
+ * proprietaireId : null pour un administrateur, sinon le trajet / véhicule doit
+ * appartenir à cet utilisateur.
+ */
+public interface StatsVentesService {
+
+    Map<String, Object> getVentes(LocalDate debut, LocalDate fin);
+
+    Map<String, Object> getVentesTransporteur(Long userId, LocalDate debut, LocalDate fin);
+
+    Map<String, Object> getVentesTrajet(String trajetUuid, LocalDate debut, LocalDate fin, Long proprietaireId);
+
+    Map<String, Object> getVentesVehicule(String vehiculeUuid, LocalDate debut, LocalDate fin, Long proprietaireId);
+
+    /**
+     * Consolide la période depuis commandes (null = tout l'historique) : l'écart
+     * est écrit en mouvements ; retourne le nombre de clés corrigées.
+     */
+    int recalculer(LocalDate debut, LocalDate fin);
+
+    /** Intègre un lot de mouvements dans les agrégats ; retourne le nombre consommé (0 si un autre relais est actif). */
+    int integrerMouvements(int taille);
+}
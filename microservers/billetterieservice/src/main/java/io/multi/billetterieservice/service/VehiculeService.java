@@ -36,7 +36,8 @@ public interface VehiculeService {
 
     List<Vehicule> getVisiteExpiree();
 
-    List<Vehicule> search(String searchTerm);
+    /** Recherche classée par pertinence ; size borné à 100 (20 par défaut côté API). */
+    List<Vehicule> search(String searchTerm, int page, int size);
 
     // ========== ÉCRITURE ==========
 
@@ -1,33 +1,42 @@
 package io.multi.billetterieservice.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.multi.billetterieservice.domain.Billet;
-import io.multi.billetterieservice.event.Event;
+import io.multi.billetterieservice.domain.InAppNotification;
+import io.multi.billetterieservice.domain.ResultatScan;
+import io.multi.billetterieservice.dto.ScansHorsLigneRequest;
 import io.multi.billetterieservice.event.EventType;
-import io.multi.billetterieservice.event.Notification;
 import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.exception.BilletAlreadyUsedException;
+import io.multi.billetterieservice.mapper.BilletRowMapper;
 import io.multi.billetterieservice.query.BilletQuery;
 import io.multi.billetterieservice.query.CommandeQuery;
+import io.multi.billetterieservice.securite.QrCodeBillets;
+import io.multi.billetterieservice.securite.SignatureBillets;
 import io.multi.billetterieservice.service.BilletService;
 import io.multi.billetterieservice.service.InAppNotificationService;
-import io.multi.clients.UserClient;
+import io.multi.billetterieservice.service.OutboxService;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.simple.JdbcClient;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-
-import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -35,36 +44,30 @@ import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
 @Transactional
 public class BilletServiceImpl implements BilletService {
 
-    private static final String NOTIFICATION_TOPIC = "NOTIFICATION_TOPIC";
-
     private final JdbcClient jdbcClient;
     private final InAppNotificationService inAppNotificationService;
-    private final KafkaTemplate<String, Notification> kafkaTemplate;
-    private final UserClient userClient;
+    private final OutboxService outboxService;
+    private final UserCache userCache;
+    private final BilletRowMapper billetRowMapper;
+    private final SignatureBillets signatureBillets;
+    private final QrCodeBillets qrCodeBillets;
+    private final ObjectMapper objectMapper;
+
+    /** Ancienneté maximale admise pour l'heure de scan déclarée par un appareil hors ligne. */
+    @Value("${billetterie.hors-ligne.anciennete-max-scan:72h}")
+    private Duration ancienneteMaxScan;
 
     @Override
-    public Billet validateBillet(String codeBillet, Long validePar) {
+    public Billet validateBillet(String codeOuQr, Long validePar) {
+        // 0. QR signé : signature et jour de départ vérifiés en mémoire, avant toute requête
+        String codeBillet = qrCodeBillets.estSigne(codeOuQr) ? verifierQrCode(codeOuQr) : codeOuQr;
         log.info("Validation du billet: {} par userId: {}", codeBillet, validePar);
 
         // 1. Chercher le billet avec infos trajet
         var result = jdbcClient.sql(BilletQuery.FIND_BY_CODE_BILLET)
                 .param("codeBillet", codeBillet)
                 .query((rs, rowNum) -> new Object[]{
-                        Billet.builder()
-                                .billetId(rs.getLong("billet_id"))
-                                .billetUuid(rs.getString("billet_uuid"))
-                                .commandeId(rs.getLong("commande_id"))
-                                .codeBillet(rs.getString("code_billet"))
-                                .numeroSiege(rs.getString("numero_siege"))
-                                .nomPassager(rs.getString("nom_passager"))
-                                .telephonePassager(rs.getString("telephone_passager"))
-                                .pieceIdentite(rs.getString("piece_identite"))
-                                .statut(rs.getString("statut"))
-                                .dateValidation(rs.getObject("date_validation", OffsetDateTime.class))
-                                .qrCodeData(rs.getString("qr_code_data"))
-                                .createdAt(rs.getObject("created_at", OffsetDateTime.class))
-                                .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
-                                .build(),
+                        billetRowMapper.mapRow(rs, rowNum),
                         rs.getLong("user_id"),
                         rs.getString("ville_depart_libelle"),
                         rs.getString("ville_arrivee_libelle"),
@@ -97,6 +100,10 @@ public class BilletServiceImpl implements BilletService {
         if (!"VALIDE".equals(billet.getStatut())) {
             throw new ApiException("Billet non valide (statut: " + billet.getStatut() + ")");
         }
+        // QR authentique mais remplacé (changement de date) : seul le dernier émis fait foi
+        if (qrCodeBillets.estSigne(codeOuQr) && !codeOuQr.equals(billet.getQrCodeData())) {
+            throw new ApiException("QR code périmé : présentez le billet mis à jour");
+        }
 
         // 3. Valider le billet
         int updated = jdbcClient.sql(BilletQuery.VALIDATE_BILLET)
@@ -130,43 +137,371 @@ public class BilletServiceImpl implements BilletService {
                 "Billet validé", "Votre billet " + codeBillet + " pour " + trajet + " a été validé. Bon voyage!",
                 false, billet.getBilletId(), "BILLET");
 
-        // 6. Notification Kafka (email + SMS)
-        try {
-            String userEmail = "";
+        // 6. Notification Kafka (email + SMS) via l'outbox, dans la transaction de validation
+        outboxService.publier(EventType.BILLET_VALIDE, donneesBilletValide(billet.getNomPassager(),
+                emailUtilisateur(userId), billet.getTelephonePassager(), codeBillet, trajet, dateDepart), codeBillet);
+
+        return billet;
+    }
+
+    @Override
+    public List<ResultatScan> validerLot(List<String> codesOuQr, Long validePar, Long operateurId) {
+        log.info("Validation en lot de {} code(s) par userId: {}", codesOuQr.size(), validePar);
+
+        // 1. QR signés vérifiés en mémoire ; les rejets n'atteignent pas la base
+        Map<String, ResultatScan> rejets = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        List<String> qrCodes = new ArrayList<>();
+        for (String valeur : codesOuQr) {
+            if (!qrCodeBillets.estSigne(valeur)) {
+                codes.add(valeur);
+                qrCodes.add(null);
+                continue;
+            }
             try {
-                User user = userClient.getUserById(userId);
-                if (user != null && user.getEmail() != null) {
-                    userEmail = user.getEmail();
+                QrCodeBillets.ContenuQr contenu = qrCodeBillets.verifier(valeur);
+                if (!LocalDate.now(QrCodeBillets.FUSEAU).equals(contenu.getDateDepart())) {
+                    rejets.put(valeur, ResultatScan.builder().codeBillet(contenu.getCodeBillet())
+                            .resultat("AUTRE_JOUR").nombreScans(1).build());
+                    continue;
                 }
-            } catch (Exception e) {
-                log.warn("Impossible de récupérer l'email utilisateur {}: {}", userId, e.getMessage());
+                codes.add(contenu.getCodeBillet());
+                qrCodes.add(valeur);
+            } catch (ApiException e) {
+                rejets.put(valeur, ResultatScan.builder().resultat("QR_INVALIDE").nombreScans(1).build());
             }
+        }
 
-            var data = new HashMap<String, String>();
-            data.put("name", billet.getNomPassager());
-            data.put("userEmail", userEmail);
-            data.put("phone", billet.getTelephonePassager() != null ? billet.getTelephonePassager() : "");
-            data.put("codeBillet", codeBillet);
-            data.put("trajet", trajet);
-            data.put("dateDepart", dateDepart != null ? dateDepart.toString() : "");
+        // 2. Validation ensembliste : une requête pour tout le lot
+        Map<String, ResultatScan> parCode = new LinkedHashMap<>();
+        List<Long> commandesTouchees = new ArrayList<>();
+        List<Object[]> valides = new ArrayList<>();
+        if (!codes.isEmpty()) {
+            jdbcClient.sql(BilletQuery.VALIDER_LOT)
+                    .param("codes", codes.toArray(String[]::new))
+                    .param("qrCodes", qrCodes.toArray(String[]::new))
+                    .param("validePar", validePar)
+                    .param("operateurId", operateurId)
+                    .query((rs, rowNum) -> {
+                        String trajet = rs.getString("ville_depart_libelle") + " \u2192 " + rs.getString("ville_arrivee_libelle");
+                        ResultatScan.ResultatScanBuilder resultat = ResultatScan.builder()
+                                .codeBillet(rs.getString("code_billet"))
+                                .nomPassager(rs.getString("nom_passager"))
+                                .numeroSiege(rs.getString("numero_siege"))
+                                .nombreScans(rs.getInt("nombre_scans"));
+                        String statutAvant = rs.getString("statut_avant");
+                        if (rs.getObject("billet_id") == null) {
+                            return resultat.resultat("INCONNU").build();
+                        }
+                        resultat.trajet(trajet);
+                        if (rs.getBoolean("valide")) {
+                            commandesTouchees.add(rs.getLong("commande_id"));
+                            valides.add(new Object[]{
+                                    rs.getLong("user_id"), rs.getLong("billet_id"), rs.getString("code_billet"),
+                                    rs.getString("nom_passager"), rs.getString("telephone_passager"),
+                                    trajet, rs.getObject("date_depart", LocalDate.class)
+                            });
+                            return resultat.resultat("VALIDE")
+                                    .dateValidation(rs.getObject("date_validation", OffsetDateTime.class))
+                                    .build();
+                        }
+                        if (rs.getBoolean("qr_perime")) {
+                            return resultat.resultat("QR_PERIME").build();
+                        }
+                        if ("UTILISE".equals(statutAvant) || "VALIDE".equals(statutAvant)) {
+                            return resultat.resultat("DEJA_UTILISE")
+                                    .dateValidation(rs.getObject("date_validation_avant", OffsetDateTime.class))
+                                    .build();
+                        }
+                        return resultat.resultat("ANNULE".equals(statutAvant) ? "ANNULE" : "NON_VALIDE").build();
+                    })
+                    .list()
+                    .forEach(resultat -> parCode.put(resultat.getCodeBillet(), resultat));
+        }
+
+        // 3. Commandes entièrement utilisées → UTILISEE, en lot
+        if (!commandesTouchees.isEmpty()) {
+            int commandes = jdbcClient.sql(BilletQuery.UPDATE_COMMANDES_UTILISEES)
+                    .param("commandeIds", commandesTouchees.stream().distinct().toArray(Long[]::new))
+                    .update();
+            log.info("{} commande(s) passée(s) UTILISEE", commandes);
+        }
 
-            var event = new Event(EventType.BILLET_VALIDE, data);
-            var message = MessageBuilder.withPayload(new Notification(event))
-                    .setHeader(TOPIC, NOTIFICATION_TOPIC)
-                    .build();
+        // 4. Notifications du lot
+        notifierBilletsValides(valides);
+
+        // Résultats dans l'ordre de passage, un par code distinct
+        List<ResultatScan> resultats = new ArrayList<>();
+        for (int i = 0, j = 0; i < codesOuQr.size(); i++) {
+            ResultatScan rejet = rejets.get(codesOuQr.get(i));
+            if (rejet != null) {
+                resultats.add(rejet);
+                continue;
+            }
+            ResultatScan resultat = parCode.remove(codes.get(j++));
+            if (resultat != null) resultats.add(resultat);
+        }
+        log.info("Validation en lot : {} validé(s) sur {} code(s)", valides.size(), codesOuQr.size());
+        return resultats;
+    }
 
-            CompletableFuture.runAsync(() -> {
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getManifeste(String offreUuid, String siteUuid, LocalDate dateDepart, long depuis,
+                                            Long operateurId) {
+        boolean parOffre = offreUuid != null && !offreUuid.isBlank();
+        if (!parOffre && (siteUuid == null || siteUuid.isBlank() || dateDepart == null)) {
+            throw new ApiException("Préciser une offre, ou un site et une date de départ");
+        }
+        if (parOffre && operateurId != null && !Boolean.TRUE.equals(jdbcClient.sql(BilletQuery.EXISTS_OFFRE_OPERATEUR)
+                .param("offreUuid", offreUuid)
+                .param("operateurId", operateurId)
+                .query(Boolean.class)
+                .single())) {
+            throw new ApiException("Vous n'êtes pas autorisé à accéder au manifeste de cette offre");
+        }
+
+        // Borne haute lue AVANT les billets : toute écriture de version inférieure est commitée
+        Long jusqua = jdbcClient.sql(BilletQuery.SNAPSHOT_XMIN).query(Long.class).single();
+
+        Map<String, Object> filtre = new HashMap<>();
+        filtre.put("operateurId", operateurId);
+        filtre.put("depuis", Math.max(depuis, 0));
+        filtre.put("jusqua", jusqua);
+        if (parOffre) {
+            filtre.put("offreUuid", offreUuid);
+        } else {
+            filtre.put("siteUuid", siteUuid);
+            filtre.put("dateDepart", dateDepart);
+        }
+
+        // Billets annulés ou sortis de l'offre : à effacer de l'appareil (le billet, s'il y
+        // est revenu depuis, figure dans "billets" avec son état courant et prime)
+        Map<String, String> retires = new LinkedHashMap<>();
+        List<Map<String, Object>> billets = new ArrayList<>();
+        jdbcClient.sql(parOffre ? BilletQuery.FIND_MANIFESTE_BY_OFFRE : BilletQuery.FIND_MANIFESTE_BY_SITE_DATE)
+                .params(filtre)
+                .query((rs, rowNum) -> {
+                    Map<String, Object> billet = new LinkedHashMap<>();
+                    billet.put("code", rs.getString("code_billet"));
+                    billet.put("nom", rs.getString("nom_passager"));
+                    billet.put("siege", rs.getString("numero_siege"));
+                    billet.put("statut", rs.getString("statut"));
+                    OffsetDateTime valideLe = rs.getObject("date_validation", OffsetDateTime.class);
+                    billet.put("valideLe", valideLe != null ? valideLe.toString() : null);
+                    billet.put("offre", rs.getString("offre_uuid"));
+                    billet.put("heure", rs.getObject("heure_depart", LocalTime.class).toString());
+                    return billet;
+                })
+                .list()
+                .forEach(billet -> {
+                    if ("ANNULE".equals(billet.get("statut"))) {
+                        retires.put((String) billet.get("code"), "ANNULE");
+                    } else {
+                        billets.add(billet);
+                    }
+                });
+        Set<Object> presents = billets.stream().map(b -> b.get("code")).collect(Collectors.toSet());
+        jdbcClient.sql(parOffre ? BilletQuery.FIND_RETRAITS_BY_OFFRE : BilletQuery.FIND_RETRAITS_BY_SITE_DATE)
+                .params(filtre)
+                .query((rs, rowNum) -> Map.entry(rs.getString("code_billet"), rs.getString("motif")))
+                .list()
+                .forEach(retrait -> {
+                    if (!presents.contains(retrait.getKey())) retires.putIfAbsent(retrait.getKey(), retrait.getValue());
+                });
+
+        Map<String, Object> contenu = new LinkedHashMap<>();
+        if (parOffre) {
+            contenu.put("offreUuid", offreUuid);
+        } else {
+            contenu.put("siteUuid", siteUuid);
+            contenu.put("dateDepart", dateDepart.toString());
+        }
+        contenu.put("depuis", Math.max(depuis, 0));
+        contenu.put("version", jusqua);
+        contenu.put("genereLe", OffsetDateTime.now().toString());
+        contenu.put("billets", billets);
+        contenu.put("retires", retires.entrySet().stream()
+                .map(r -> Map.of("code", r.getKey(), "motif", r.getValue()))
+                .toList());
+
+        // Le contenu est renvoyé tel que signé (chaîne JSON) : pas d'ambiguïté de sérialisation côté appareil
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(contenu);
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Impossible de générer le manifeste");
+        }
+        log.info("Manifeste {} : {} billet(s), {} retrait(s) depuis {} (version {})",
+                parOffre ? offreUuid : siteUuid + "/" + dateDepart, billets.size(), retires.size(), depuis, jusqua);
+
+        return Map.of(
+                "manifeste", json,
+                "signature", signatureBillets.signer(json),
+                "kid", signatureBillets.getKid(),
+                "version", jusqua
+        );
+    }
+
+    @Override
+    public List<ResultatScan> synchroniserScans(List<ScansHorsLigneRequest.ScanDto> scans, Long validePar,
+                                                Long operateurId) {
+        log.info("Synchronisation de {} scan(s) hors ligne par userId: {}", scans.size(), validePar);
+        OffsetDateTime recuLe = OffsetDateTime.now();
+        OffsetDateTime plusAncien = recuLe.minus(ancienneteMaxScan);
+
+        // QR signés vérifiés en mémoire comme à la validation en ligne ; rejets hors base
+        List<ResultatScan> rejets = new ArrayList<>();
+        List<String> codes = new ArrayList<>();
+        List<String> qrCodes = new ArrayList<>();
+        List<String> scannesLe = new ArrayList<>();
+        for (ScansHorsLigneRequest.ScanDto scan : scans) {
+            // Horloge d'appareil non fiable : pas de scan dans le futur ni antérieur à la fenêtre admise
+            OffsetDateTime scanneLe = scan.getScanneLe().isAfter(recuLe) ? recuLe
+                    : scan.getScanneLe().isBefore(plusAncien) ? plusAncien : scan.getScanneLe();
+            String code = scan.getCodeBillet();
+            String qr = null;
+            if (qrCodeBillets.estSigne(code)) {
                 try {
-                    kafkaTemplate.send(message);
-                    log.info("Notification Kafka BILLET_VALIDE envoyée pour: {}", codeBillet);
-                } catch (Exception ex) {
-                    log.error("Kafka notification non envoyée pour billet {}: {}", codeBillet, ex.getMessage());
+                    QrCodeBillets.ContenuQr contenu = qrCodeBillets.verifier(code);
+                    if (!contenu.getDateDepart().equals(scanneLe.atZoneSameInstant(QrCodeBillets.FUSEAU).toLocalDate())) {
+                        rejets.add(ResultatScan.builder().codeBillet(contenu.getCodeBillet())
+                                .resultat("AUTRE_JOUR").nombreScans(1).build());
+                        continue;
+                    }
+                    qr = code;
+                    code = contenu.getCodeBillet();
+                } catch (ApiException e) {
+                    rejets.add(ResultatScan.builder().codeBillet(scan.getCodeBillet())
+                            .resultat("QR_INVALIDE").nombreScans(1).build());
+                    continue;
                 }
-            });
+            }
+            codes.add(code);
+            qrCodes.add(qr);
+            scannesLe.add(scanneLe.toString());
+        }
+        if (codes.isEmpty()) return rejets;
+
+        List<Long> commandesTouchees = new ArrayList<>();
+        List<ResultatScan> resultats = jdbcClient.sql(BilletQuery.REJOUER_SCANS)
+                .param("codes", codes.toArray(String[]::new))
+                .param("scannesLe", scannesLe.toArray(String[]::new))
+                .param("qrCodes", qrCodes.toArray(String[]::new))
+                .param("validePar", validePar)
+                .param("operateurId", operateurId)
+                .query((rs, rowNum) -> {
+                    ResultatScan.ResultatScanBuilder resultat = ResultatScan.builder()
+                            .codeBillet(rs.getString("code_billet"))
+                            .nomPassager(rs.getString("nom_passager"))
+                            .nombreScans(rs.getInt("nombre_scans"));
+                    String statutAvant = rs.getString("statut_avant");
+                    if (rs.getObject("billet_id") == null) {
+                        return resultat.resultat("INCONNU").build();
+                    }
+                    if (rs.getBoolean("valide")) {
+                        commandesTouchees.add(rs.getLong("commande_id"));
+                        return resultat.resultat("VALIDE")
+                                .dateValidation(rs.getObject("scanne_le", OffsetDateTime.class))
+                                .build();
+                    }
+                    if (rs.getBoolean("qr_perime")) {
+                        return resultat.resultat("QR_PERIME").build();
+                    }
+                    // VALIDE avant mais non mis à jour : validé en ligne entre-temps
+                    if ("UTILISE".equals(statutAvant) || "VALIDE".equals(statutAvant)) {
+                        return resultat.resultat("DEJA_UTILISE")
+                                .dateValidation(rs.getObject("date_validation_avant", OffsetDateTime.class))
+                                .build();
+                    }
+                    return resultat.resultat("ANNULE".equals(statutAvant) ? "ANNULE" : "NON_VALIDE").build();
+                })
+                .list();
+
+        if (!commandesTouchees.isEmpty()) {
+            int commandes = jdbcClient.sql(BilletQuery.UPDATE_COMMANDES_UTILISEES)
+                    .param("commandeIds", commandesTouchees.stream().distinct().toArray(Long[]::new))
+                    .update();
+            log.info("{} commande(s) passée(s) UTILISEE", commandes);
+        }
+        // Pas de notification passager : les scans hors ligne sont rejoués après l'embarquement
+        log.info("Scans hors ligne : {} validé(s) sur {} code(s), {} QR rejeté(s)",
+                commandesTouchees.size(), resultats.size(), rejets.size());
+        List<ResultatScan> tous = new ArrayList<>(resultats);
+        tous.addAll(rejets);
+        return tous;
+    }
+
+    /** Rejette en mémoire les QR falsifiés ou d'un autre jour ; retourne le code billet embarqué. */
+    private String verifierQrCode(String qr) {
+        QrCodeBillets.ContenuQr contenu = qrCodeBillets.verifier(qr);
+        if (!LocalDate.now(QrCodeBillets.FUSEAU).equals(contenu.getDateDepart())) {
+            throw new ApiException("Billet valable le " + contenu.getDateDepart() + ", pas aujourd'hui");
+        }
+        return contenu.getCodeBillet();
+    }
+
+    /**
+     * Une insertion in-app et une insertion outbox pour tout le lot ; les
+     * voyageurs absents du cache sont résolus en un seul appel user-service.
+     * Lignes : userId, billetId, codeBillet, nomPassager, telephone, trajet, dateDepart.
+     */
+    private void notifierBilletsValides(List<Object[]> valides) {
+        if (valides.isEmpty()) return;
+        inAppNotificationService.createNotifications(valides.stream()
+                .map(v -> InAppNotification.builder()
+                        .userId((Long) v[0])
+                        .typeNotification("IN_APP")
+                        .categorie("BILLET_VALIDE")
+                        .titre("Billet validé")
+                        .message("Votre billet " + v[2] + " pour " + v[5] + " a été validé. Bon voyage!")
+                        .envoyee(false)
+                        .referenceId((Long) v[1])
+                        .referenceType("BILLET")
+                        .build())
+                .toList());
+
+        // Préparation tolérée en échec ; l'INSERT dans l'outbox, lui, remonte (transaction annulée)
+        List<Map<String, String>> donnees = new ArrayList<>();
+        List<String> cles = new ArrayList<>();
+        try {
+            userCache.getUsersByIds(valides.stream().map(v -> (Long) v[0]).toList());
+            Map<Long, String> emails = new HashMap<>();
+            for (Object[] v : valides) {
+                String email = emails.computeIfAbsent((Long) v[0], this::emailUtilisateur);
+                donnees.add(donneesBilletValide((String) v[3], email, (String) v[4], (String) v[2],
+                        (String) v[5], (LocalDate) v[6]));
+                cles.add((String) v[2]);
+            }
         } catch (Exception e) {
-            log.error("Erreur préparation notification billet validé: {}", e.getMessage());
+            log.error("Erreur préparation notifications billets validés: {}", e.getMessage());
+            donnees.clear();
+            cles.clear();
         }
+        outboxService.publierTous(EventType.BILLET_VALIDE, donnees, cles);
+    }
 
-        return billet;
+    private String emailUtilisateur(Long userId) {
+        try {
+            User user = userCache.getUserById(userId);
+            if (user != null && user.getEmail() != null) {
+                return user.getEmail();
+            }
+        } catch (Exception e) {
+            log.warn("Impossible de récupérer l'email utilisateur {}: {}", userId, e.getMessage());
+        }
+        return "";
+    }
+
+    private Map<String, String> donneesBilletValide(String nomPassager, String userEmail, String telephone,
+                                                    String codeBillet, String trajet, LocalDate dateDepart) {
+        var data = new HashMap<String, String>();
+        data.put("name", nomPassager);
+        data.put("userEmail", userEmail);
+        data.put("phone", telephone != null ? telephone : "");
+        data.put("codeBillet", codeBillet);
+        data.put("trajet", trajet);
+        data.put("dateDepart", dateDepart != null ? dateDepart.toString() : "");
+        return data;
     }
 }
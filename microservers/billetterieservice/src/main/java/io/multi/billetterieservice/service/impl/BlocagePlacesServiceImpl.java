@@ -0,0 +1,254 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.BlocagePlaces;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.exception.PlacesInsuffisantesException;
+import io.multi.billetterieservice.query.BlocagePlacesQuery;
+import io.multi.billetterieservice.service.BlocagePlacesService;
+import io.multi.billetterieservice.utils.TimingWheel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static io.multi.billetterieservice.utils.TransactionUtils.apresCommit;
+
+/**
+ * Blocages temporaires de places avec expiration par roue temporelle.
+ *
+ * La table blocages_places est la source de vérité : affichage et contrôles
+ * de disponibilité lisent les sommes en base (toutes instances confondues).
+ * La roue ne sert qu'à l'échéance : un tick par seconde l'avance et expire en
+ * un seul UPDATE les blocages échus — pas de balayage périodique de la table,
+ * ni de transaction quand rien n'est échu.
+ *
+ * Chaque instance planifie les blocages qu'elle crée, plus tous les blocages
+ * actifs trouvés à son démarrage (recharger), quelle que soit l'instance qui
+ * les a créés : un même blocage peut donc être planifié sur plusieurs
+ * instances. L'expiration repose sur l'idempotence de l'UPDATE conditionnel
+ * (statut = 'ACTIVE') : la première instance à l'échéance l'expire, les
+ * suivantes ne modifient aucune ligne. expirerOrphelins rattrape les blocages
+ * d'une instance arrêtée qu'aucune autre n'a rechargés.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class BlocagePlacesServiceImpl implements BlocagePlacesService {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int TAILLE_ROUE = 1024; // un tour ≈ 17 min, au-delà du TTL usuel
+    private static final int TAILLE_LOT_EXPIRATION = 500;
+
+    private final JdbcClient jdbcClient;
+
+    /** Durée de vie d'un blocage (formulaire passagers). */
+    @Value("${billetterie.blocage-places.ttl-minutes:10}")
+    private int ttlMinutes;
+
+    private final TimingWheel<String> roue = new TimingWheel<>(TICK_MILLIS, TAILLE_ROUE, System.currentTimeMillis());
+
+    @Override
+    public BlocagePlaces bloquer(String offreUuid, int nombrePlaces, Long userId) {
+        log.info("Blocage de {} places sur l'offre {} pour userId: {}", nombrePlaces, offreUuid, userId);
+        if (nombrePlaces <= 0) {
+            throw new ApiException("Le nombre de places doit être positif");
+        }
+
+        // Verrou de l'offre : sérialisé avec les commandes et les autres blocages
+        var offre = jdbcClient.sql(BlocagePlacesQuery.LOCK_OFFRE)
+                .param("offreUuid", offreUuid)
+                .query((rs, rowNum) -> new Object[]{
+                        rs.getLong("offre_id"),
+                        rs.getString("statut"),
+                        rs.getInt("nombre_places_disponibles")
+                })
+                .optional()
+                .orElseThrow(() -> new ApiException("Offre non trouvée: " + offreUuid));
+
+        Long offreId = (Long) offre[0];
+        String statut = (String) offre[1];
+        int disponibles = (Integer) offre[2];
+        if ("COMPLET".equals(statut)) {
+            throw new PlacesInsuffisantesException(offreUuid, 0, nombrePlaces);
+        }
+        if (!"OUVERT".equals(statut)) {
+            throw new ApiException("L'offre n'est pas disponible (statut: " + statut + ")");
+        }
+
+        // Un seul blocage actif par utilisateur et par offre
+        List<String> precedents = jdbcClient.sql(BlocagePlacesQuery.LIBERER_BY_USER_AND_OFFRE)
+                .param("offreId", offreId)
+                .param("userId", userId)
+                .query(String.class)
+                .list();
+
+        int libres = disponibles - getPlacesBloqueesEnBase(offreId, null, null);
+        if (libres < nombrePlaces) {
+            throw new PlacesInsuffisantesException(offreUuid, Math.max(libres, 0), nombrePlaces);
+        }
+
+        BlocagePlaces blocage = jdbcClient.sql(BlocagePlacesQuery.INSERT)
+                .param("offreId", offreId)
+                .param("userId", userId)
+                .param("nombrePlaces", nombrePlaces)
+                .param("ttlSecondes", ttlMinutes * 60)
+                .query((rs, rowNum) -> BlocagePlaces.builder()
+                        .blocageId(rs.getLong("blocage_id"))
+                        .blocageUuid(rs.getString("blocage_uuid"))
+                        .statut(rs.getString("statut"))
+                        .expireAt(rs.getObject("expire_at", OffsetDateTime.class))
+                        .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+                        .offreId(offreId)
+                        .offreUuid(offreUuid)
+                        .userId(userId)
+                        .nombrePlaces(nombrePlaces)
+                        .build())
+                .single();
+
+        apresCommit(() -> {
+            precedents.forEach(this::retirer);
+            activer(blocage.getBlocageUuid(), blocage.getExpireAt());
+        });
+        log.info("Blocage {} créé, expire à {}", blocage.getBlocageUuid(), blocage.getExpireAt());
+        return blocage;
+    }
+
+    @Override
+    public void liberer(String blocageUuid, Long userId) {
+        log.info("Libération du blocage {} par userId: {}", blocageUuid, userId);
+        int updated = jdbcClient.sql(BlocagePlacesQuery.LIBERER)
+                .param("blocageUuid", blocageUuid)
+                .param("userId", userId)
+                .update();
+        if (updated == 0) {
+            throw new ApiException("Blocage non trouvé ou déjà terminé: " + blocageUuid);
+        }
+        apresCommit(() -> retirer(blocageUuid));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int getPlacesBloqueesEnBase(Long offreId, String exclureBlocageUuid, Long userId) {
+        Integer bloquees = jdbcClient.sql(BlocagePlacesQuery.SUM_PLACES_BLOQUEES)
+                .param("offreId", offreId)
+                .param("exclureUuid", exclureBlocageUuid)
+                .param("userId", userId)
+                .query(Integer.class)
+                .single();
+        return bloquees != null ? bloquees : 0;
+    }
+
+    @Override
+    public void consommer(String blocageUuid, Long offreId, Long userId, Long commandeId) {
+        var consomme = jdbcClient.sql(BlocagePlacesQuery.CONSOMMER)
+                .param("commandeId", commandeId)
+                .param("blocageUuid", blocageUuid)
+                .param("userId", userId)
+                .param("offreId", offreId)
+                .query(Integer.class)
+                .optional();
+        if (consomme.isEmpty()) {
+            // Blocage échu entre-temps : la commande a été validée sur les places libres
+            log.info("Blocage {} déjà expiré ou invalide, commande {} créée sans lui", blocageUuid, commandeId);
+            return;
+        }
+        apresCommit(() -> retirer(blocageUuid));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getPlacesBloquees(Collection<Long> offreIds, Long exclureUserId) {
+        List<Long> ids = offreIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) return Map.of();
+        Map<Long, Integer> bloquees = new HashMap<>();
+        jdbcClient.sql(BlocagePlacesQuery.SUM_PLACES_BLOQUEES_BY_OFFRES)
+                .param("offreIds", ids)
+                .param("exclureUserId", exclureUserId)
+                .query(rs -> {
+                    bloquees.put(rs.getLong("offre_id"), rs.getInt("places_bloquees"));
+                });
+        return bloquees;
+    }
+
+    /**
+     * Tick de la roue : expire en lot les blocages échus. Hors transaction :
+     * rien n'est ouvert quand aucun blocage n'est échu, chaque lot est un
+     * UPDATE autonome. Un lot en échec est replanifié au tick suivant.
+     */
+    @Scheduled(fixedRate = TICK_MILLIS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expirer() {
+        List<String> echus = roue.avancer(System.currentTimeMillis());
+        if (echus.isEmpty()) return;
+
+        int expires = 0;
+        for (int i = 0; i < echus.size(); i += TAILLE_LOT_EXPIRATION) {
+            List<String> lot = echus.subList(i, Math.min(i + TAILLE_LOT_EXPIRATION, echus.size()));
+            try {
+                jdbcClient.sql(BlocagePlacesQuery.EXPIRER)
+                        .param("uuids", lot)
+                        .update();
+                lot.forEach(this::retirer);
+                expires += lot.size();
+            } catch (DataAccessException e) {
+                long relance = System.currentTimeMillis() + TICK_MILLIS;
+                lot.forEach(uuid -> roue.planifier(uuid, relance));
+                log.warn("Expiration de {} blocage(s) reportée : {}", lot.size(), e.getMessage());
+            }
+        }
+        if (expires > 0) {
+            log.info("{} blocage(s) de places expiré(s)", expires);
+        }
+    }
+
+    /** Filet de sécurité pour les blocages d'une instance arrêtée (index partiel, pas de scan). */
+    @Scheduled(fixedRate = 3600000)
+    public void expirerOrphelins() {
+        int expires = jdbcClient.sql(BlocagePlacesQuery.EXPIRER_ORPHELINS).update();
+        if (expires > 0) {
+            log.info("{} blocage(s) orphelin(s) expiré(s)", expires);
+        }
+    }
+
+    /** Recharge la roue au démarrage avec tous les blocages actifs, de toutes les instances. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recharger() {
+        var blocages = jdbcClient.sql(BlocagePlacesQuery.FIND_ACTIFS)
+                .query((rs, rowNum) -> new Object[]{
+                        rs.getString("blocage_uuid"),
+                        rs.getLong("offre_id"),
+                        rs.getInt("nombre_places"),
+                        rs.getObject("expire_at", OffsetDateTime.class)
+                })
+                .list();
+        for (var b : blocages) {
+            activer((String) b[0], (OffsetDateTime) b[3]);
+        }
+        log.info("Blocages de places rechargés : {}", blocages.size());
+    }
+
+    // ========== MÉTHODES PRIVÉES ==========
+
+    private void activer(String blocageUuid, OffsetDateTime expireAt) {
+        roue.planifier(blocageUuid, expireAt.toInstant().toEpochMilli());
+    }
+
+    private void retirer(String blocageUuid) {
+        roue.annuler(blocageUuid);
+    }
+}
@@ -2,22 +2,27 @@ package io.multi.billetterieservice.service.impl;
 
 import io.multi.billetterieservice.domain.Billet;
 import io.multi.billetterieservice.domain.Commande;
+import io.multi.billetterieservice.domain.PageCommandes;
 import io.multi.billetterieservice.domain.Offre;
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import io.multi.billetterieservice.dto.CommandeRequest;
-import io.multi.billetterieservice.event.Event;
 import io.multi.billetterieservice.event.EventType;
-import io.multi.billetterieservice.event.Notification;
 import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.exception.PlacesInsuffisantesException;
+import io.multi.billetterieservice.mapper.BilletRowMapper;
+import io.multi.billetterieservice.mapper.CommandeRowMapper;
 import io.multi.billetterieservice.query.CommandeQuery;
+import io.multi.billetterieservice.securite.QrCodeBillets;
+import io.multi.billetterieservice.service.AllocateurNumeroCommande;
+import io.multi.billetterieservice.service.BlocagePlacesService;
 import io.multi.billetterieservice.service.CommandeService;
+import io.multi.billetterieservice.service.InventairePlaces;
 import io.multi.billetterieservice.service.OffreService;
+import io.multi.billetterieservice.service.OutboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.simple.JdbcClient;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,12 +31,11 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-
-import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -39,28 +43,43 @@ import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
 @Transactional
 public class CommandeServiceImpl implements CommandeService {
 
-    private static final String NOTIFICATION_TOPIC = "NOTIFICATION_TOPIC";
+    private static final int TAILLE_PAGE_MAX = 100;
 
     private final JdbcClient jdbcClient;
     private final OffreService offreService;
-    private final UserClient userClient;
-    private final KafkaTemplate<String, Notification> kafkaTemplate;
+    private final InventairePlaces inventairePlaces;
+    private final BlocagePlacesService blocagePlacesService;
+    private final AllocateurNumeroCommande allocateurNumeroCommande;
+    private final UserCache userCache;
+    private final OutboxService outboxService;
+    private final CommandeRowMapper commandeRowMapper;
+    private final BilletRowMapper billetRowMapper;
+    private final QrCodeBillets qrCodeBillets;
 
     @Override
     public Commande creerCommande(CommandeRequest request, Long userId) {
         log.info("Création de commande - offreUuid: {}, userId: {}, passagers: {}",
                 request.getOffreUuid(), userId, request.getPassagers().size());
 
-        // 1. Vérifier l'offre
+        // 1. Vérifier l'offre (indice mémoire d'abord : offre suivie et pleine en base → rejet sans verrou)
+        int nombrePassagers = request.getPassagers().size();
+        var reservationMemoire = inventairePlaces.reserver(request.getOffreUuid(), nombrePassagers);
+        if (reservationMemoire == InventairePlaces.Resultat.REJETE) {
+            throw new PlacesInsuffisantesException(request.getOffreUuid(),
+                    Math.max(inventairePlaces.getDisponibles(request.getOffreUuid()), 0), nombrePassagers);
+        }
+
         Offre offre = offreService.getByUuid(request.getOffreUuid());
+        if ("COMPLET".equals(offre.getStatut())) {
+            throw new PlacesInsuffisantesException(offre.getOffreUuid(), 0, nombrePassagers);
+        }
         if (!"OUVERT".equals(offre.getStatut())) {
             throw new ApiException("L'offre n'est pas disponible (statut: " + offre.getStatut() + ")");
         }
 
-        int nombrePassagers = request.getPassagers().size();
         if (offre.getNombrePlacesDisponibles() < nombrePassagers) {
-            throw new ApiException("Places insuffisantes. Disponibles: " + offre.getNombrePlacesDisponibles()
-                    + ", demandées: " + nombrePassagers);
+            throw new PlacesInsuffisantesException(offre.getOffreUuid(),
+                    offre.getNombrePlacesDisponibles(), nombrePassagers);
         }
 
         // 2. Résoudre le mode de règlement
@@ -88,9 +107,23 @@ public class CommandeServiceImpl implements CommandeService {
         BigDecimal montantTotal = montantPlaces.add(montantFraisService);
         BigDecimal montantPaye = montantTotal.add(montantFraisPaiement);
         String referencePaiement = "PAY-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        // Numéro tiré avant le verrou de l'offre : un changement de bloc (un
+        // aller-retour) ne rallonge pas la section verrouillée.
+        String numeroCommande = allocateurNumeroCommande.suivant();
+
+        // 4. Verrouiller l'offre puis re-contrôler statut et places sous verrou.
+        // Le contrôle de l'étape 1 est un simple fail-fast : deux acheteurs
+        // concurrents peuvent l'avoir passé tous les deux. Les places bloquées
+        // par d'autres utilisateurs (hors blocage de cette commande) sont exclues.
+        int disponiblesSousVerrou = verrouillerPlaces(request.getOffreUuid(), nombrePassagers,
+                request.getBlocageUuid(), userId);
+        if (reservationMemoire == InventairePlaces.Resultat.INCONNU) {
+            inventairePlaces.suivre(offre.getOffreId(), offre.getOffreUuid(), disponiblesSousVerrou - nombrePassagers);
+        }
 
-        // 4. Insérer la commande
+        // 5. Insérer la commande (le trigger update_offre_places décrémente sous le verrou)
         var commandeResult = jdbcClient.sql(CommandeQuery.INSERT_COMMANDE)
+                .param("numeroCommande", numeroCommande)
                 .param("offreId", offre.getOffreId())
                 .param("userId", userId)
                 .param("modeReglementId", modeReglementId)
@@ -112,38 +145,21 @@ public class CommandeServiceImpl implements CommandeService {
 
         Long commandeId = (Long) commandeResult[0];
         String commandeUuid = (String) commandeResult[1];
-        String numeroCommande = (String) commandeResult[2];
         OffsetDateTime createdAt = (OffsetDateTime) commandeResult[3];
 
         log.info("Commande créée: {} ({})", numeroCommande, commandeUuid);
 
-        // 5. Insérer les billets
-        List<Billet> billets = new ArrayList<>();
-        for (CommandeRequest.PassagerDto passager : request.getPassagers()) {
-            String nomComplet = passager.getPrenom() + " " + passager.getNom();
-            var billetResult = jdbcClient.sql(CommandeQuery.INSERT_BILLET)
-                    .param("commandeId", commandeId)
-                    .param("nomPassager", nomComplet)
-                    .param("telephonePassager", passager.getTelephone())
-                    .param("pieceIdentite", passager.getPieceIdentite())
-                    .query((rs, rowNum) -> Billet.builder()
-                            .billetId(rs.getLong("billet_id"))
-                            .billetUuid(rs.getString("billet_uuid"))
-                            .codeBillet(rs.getString("code_billet"))
-                            .statut(rs.getString("statut"))
-                            .createdAt(rs.getObject("created_at", OffsetDateTime.class))
-                            .commandeId(commandeId)
-                            .nomPassager(nomComplet)
-                            .telephonePassager(passager.getTelephone())
-                            .pieceIdentite(passager.getPieceIdentite())
-                            .build())
-                    .single();
-
-            billets.add(billetResult);
-            log.info("Billet créé: {} pour {}", billetResult.getCodeBillet(), nomComplet);
+        if (request.getBlocageUuid() != null) {
+            blocagePlacesService.consommer(request.getBlocageUuid(), offre.getOffreId(), userId, commandeId);
         }
 
-        // 6. Insérer le paiement
+        // 6. Insérer les billets (un seul INSERT multi-lignes, quel que soit le nombre de passagers)
+        List<Billet> billets = insererBillets(commandeId, request.getPassagers());
+        signerQrCodes(billets, offre, nombrePassagers);
+        log.info("{} billet(s) créé(s): {}", billets.size(),
+                billets.stream().map(Billet::getCodeBillet).toList());
+
+        // 7. Insérer le paiement
         jdbcClient.sql(CommandeQuery.INSERT_PAIEMENT)
                 .param("commandeId", commandeId)
                 .param("modeReglementId", modeReglementId)
@@ -156,7 +172,10 @@ public class CommandeServiceImpl implements CommandeService {
 
         log.info("Paiement enregistré: {} GNF via {}", montantPaye, request.getModeReglementCode());
 
-        // 7. Envoyer notification Kafka (non-bloquant)
+        // 8. Événement Kafka via l'outbox (publié après commit, jamais en cas de rollback).
+        // Seule la préparation des données est tolérée en échec : une erreur d'INSERT
+        // dans l'outbox annule la transaction et doit remonter à l'appelant.
+        Map<String, String> donnees = null;
         try {
             String billetCodes = billets.stream()
                     .map(Billet::getCodeBillet)
@@ -176,7 +195,7 @@ public class CommandeServiceImpl implements CommandeService {
             // Récupérer l'email de l'utilisateur qui réserve
             String userEmail = "";
             try {
-                User user = userClient.getUserById(userId);
+                User user = userCache.getUserById(userId);
                 if (user != null && user.getEmail() != null) {
                     userEmail = user.getEmail();
                 }
@@ -184,7 +203,7 @@ public class CommandeServiceImpl implements CommandeService {
                 log.warn("Impossible de récupérer l'email utilisateur {}: {}", userId, e.getMessage());
             }
 
-            var event = new Event(EventType.COMMANDE_CONFIRMEE, Map.ofEntries(
+            donnees = Map.ofEntries(
                     Map.entry("numeroCommande", numeroCommande),
                     Map.entry("email", offre.getUserEmail() != null ? offre.getUserEmail() : ""),
                     Map.entry("userEmail", userEmail),
@@ -197,25 +216,15 @@ public class CommandeServiceImpl implements CommandeService {
                     Map.entry("montantPaye", montantPaye.toPlainString()),
                     Map.entry("billetCodes", billetCodes),
                     Map.entry("referencePaiement", referencePaiement)
-            ));
-            var message = MessageBuilder.withPayload(new Notification(event))
-                    .setHeader(TOPIC, NOTIFICATION_TOPIC)
-                    .build();
-
-            final String cmdNum = numeroCommande;
-            CompletableFuture.runAsync(() -> {
-                try {
-                    kafkaTemplate.send(message);
-                    log.info("Notification Kafka envoyée pour commande: {}", cmdNum);
-                } catch (Exception ex) {
-                    log.error("Kafka indisponible, notification non envoyée pour: {}", cmdNum, ex);
-                }
-            });
+            );
         } catch (Exception e) {
             log.error("Erreur préparation notification Kafka: {}", e.getMessage());
         }
+        if (donnees != null) {
+            outboxService.publier(EventType.COMMANDE_CONFIRMEE, donnees, numeroCommande);
+        }
 
-        // 8. Construire et retourner la commande complète
+        // 9. Construire et retourner la commande complète
         return Commande.builder()
                 .commandeId(commandeId)
                 .commandeUuid(commandeUuid)
@@ -249,63 +258,13 @@ public class CommandeServiceImpl implements CommandeService {
         log.info("Récupération de la commande: {}", commandeUuid);
         Commande commande = jdbcClient.sql(CommandeQuery.FIND_COMMANDE_BY_UUID)
                 .param("commandeUuid", commandeUuid)
-                .query((rs, rowNum) -> Commande.builder()
-                        .commandeId(rs.getLong("commande_id"))
-                        .commandeUuid(rs.getString("commande_uuid"))
-                        .numeroCommande(rs.getString("numero_commande"))
-                        .offreId(rs.getLong("offre_id"))
-                        .userId(rs.getLong("user_id"))
-                        .modeReglementId(rs.getLong("mode_reglement_id"))
-                        .nombrePlaces(rs.getInt("nombre_places"))
-                        .montantUnitaire(rs.getBigDecimal("montant_unitaire"))
-                        .montantTotal(rs.getBigDecimal("montant_total"))
-                        .montantFrais(rs.getBigDecimal("montant_frais"))
-                        .montantRemise(rs.getBigDecimal("montant_remise"))
-                        .montantPaye(rs.getBigDecimal("montant_paye"))
-                        .devise(rs.getString("devise"))
-                        .statut(rs.getString("statut"))
-                        .dateReservation(rs.getObject("date_reservation", OffsetDateTime.class))
-                        .dateConfirmation(rs.getObject("date_confirmation", OffsetDateTime.class))
-                        .datePaiement(rs.getObject("date_paiement", OffsetDateTime.class))
-                        .referencePaiement(rs.getString("reference_paiement"))
-                        .notes(rs.getString("notes"))
-                        .createdAt(rs.getObject("created_at", OffsetDateTime.class))
-                        .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
-                        .offreUuid(rs.getString("offre_uuid"))
-                        .dateDepart(rs.getObject("date_depart", java.time.LocalDate.class))
-                        .heureDepart(rs.getObject("heure_depart", java.time.LocalTime.class))
-                        .villeDepartLibelle(rs.getString("ville_depart_libelle"))
-                        .villeArriveeLibelle(rs.getString("ville_arrivee_libelle"))
-                        .siteDepart(rs.getString("site_depart"))
-                        .siteArrivee(rs.getString("site_arrivee"))
-                        .vehiculeImmatriculation(rs.getString("vehicule_immatriculation"))
-                        .nomChauffeur(rs.getString("nom_chauffeur"))
-                        .contactChauffeur(rs.getString("contact_chauffeur"))
-                        .niveauRemplissage(rs.getObject("niveau_remplissage") != null ? rs.getInt("niveau_remplissage") : null)
-                        .pointRendezVous(rs.getString("point_rendez_vous"))
-                        .typeVehicule(rs.getString("type_vehicule"))
-                        .build())
+                .query(commandeRowMapper)
                 .optional()
                 .orElseThrow(() -> new ApiException("Commande non trouvée: " + commandeUuid));
 
-        // Charger les billets
         List<Billet> billets = jdbcClient.sql(CommandeQuery.FIND_BILLETS_BY_COMMANDE_ID)
                 .param("commandeId", commande.getCommandeId())
-                .query((rs, rowNum) -> Billet.builder()
-                        .billetId(rs.getLong("billet_id"))
-                        .billetUuid(rs.getString("billet_uuid"))
-                        .commandeId(rs.getLong("commande_id"))
-                        .codeBillet(rs.getString("code_billet"))
-                        .numeroSiege(rs.getString("numero_siege"))
-                        .nomPassager(rs.getString("nom_passager"))
-                        .telephonePassager(rs.getString("telephone_passager"))
-                        .pieceIdentite(rs.getString("piece_identite"))
-                        .statut(rs.getString("statut"))
-                        .dateValidation(rs.getObject("date_validation", OffsetDateTime.class))
-                        .qrCodeData(rs.getString("qr_code_data"))
-                        .createdAt(rs.getObject("created_at", OffsetDateTime.class))
-                        .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
-                        .build())
+                .query(billetRowMapper)
                 .list();
 
         commande.setBillets(billets);
@@ -314,73 +273,45 @@ public class CommandeServiceImpl implements CommandeService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Commande> getCommandesByUserId(Long userId) {
-        log.info("Récupération des commandes pour userId: {}", userId);
+    public PageCommandes getCommandesByUserId(Long userId, Integer page, int size) {
+        Integer limit = page == null ? null : Math.min(Math.max(size, 1), TAILLE_PAGE_MAX);
+        int offset = page == null ? 0 : Math.max(page, 0) * limit;
+        log.info("Récupération des commandes pour userId: {} (page {}, taille {})", userId, page, limit);
 
         List<Commande> commandes = jdbcClient.sql(CommandeQuery.FIND_COMMANDES_BY_USER_ID)
                 .param("userId", userId)
-                .query((rs, rowNum) -> Commande.builder()
-                        .commandeId(rs.getLong("commande_id"))
-                        .commandeUuid(rs.getString("commande_uuid"))
-                        .numeroCommande(rs.getString("numero_commande"))
-                        .offreId(rs.getLong("offre_id"))
-                        .userId(rs.getLong("user_id"))
-                        .modeReglementId(rs.getLong("mode_reglement_id"))
-                        .nombrePlaces(rs.getInt("nombre_places"))
-                        .montantUnitaire(rs.getBigDecimal("montant_unitaire"))
-                        .montantTotal(rs.getBigDecimal("montant_total"))
-                        .montantFrais(rs.getBigDecimal("montant_frais"))
-                        .montantRemise(rs.getBigDecimal("montant_remise"))
-                        .montantPaye(rs.getBigDecimal("montant_paye"))
-                        .devise(rs.getString("devise"))
-                        .statut(rs.getString("statut"))
-                        .dateReservation(rs.getObject("date_reservation", OffsetDateTime.class))
-                        .dateConfirmation(rs.getObject("date_confirmation", OffsetDateTime.class))
-                        .datePaiement(rs.getObject("date_paiement", OffsetDateTime.class))
-                        .referencePaiement(rs.getString("reference_paiement"))
-                        .notes(rs.getString("notes"))
-                        .createdAt(rs.getObject("created_at", OffsetDateTime.class))
-                        .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
-                        .offreUuid(rs.getString("offre_uuid"))
-                        .dateDepart(rs.getObject("date_depart", java.time.LocalDate.class))
-                        .heureDepart(rs.getObject("heure_depart", java.time.LocalTime.class))
-                        .villeDepartLibelle(rs.getString("ville_depart_libelle"))
-                        .villeArriveeLibelle(rs.getString("ville_arrivee_libelle"))
-                        .siteDepart(rs.getString("site_depart"))
-                        .siteArrivee(rs.getString("site_arrivee"))
-                        .vehiculeImmatriculation(rs.getString("vehicule_immatriculation"))
-                        .nomChauffeur(rs.getString("nom_chauffeur"))
-                        .contactChauffeur(rs.getString("contact_chauffeur"))
-                        .niveauRemplissage(rs.getObject("niveau_remplissage") != null ? rs.getInt("niveau_remplissage") : null)
-                        .pointRendezVous(rs.getString("point_rendez_vous"))
-                        .typeVehicule(rs.getString("type_vehicule"))
-                        .build())
+                .param("limit", limit)
+                .param("offset", offset)
+                .query(commandeRowMapper)
                 .list();
 
-        for (Commande commande : commandes) {
-            List<Billet> billets = jdbcClient.sql(CommandeQuery.FIND_BILLETS_BY_COMMANDE_ID)
-                    .param("commandeId", commande.getCommandeId())
-                    .query((rs, rowNum) -> Billet.builder()
-                            .billetId(rs.getLong("billet_id"))
-                            .billetUuid(rs.getString("billet_uuid"))
-                            .commandeId(rs.getLong("commande_id"))
-                            .codeBillet(rs.getString("code_billet"))
-                            .numeroSiege(rs.getString("numero_siege"))
-                            .nomPassager(rs.getString("nom_passager"))
-                            .telephonePassager(rs.getString("telephone_passager"))
-                            .pieceIdentite(rs.getString("piece_identite"))
-                            .statut(rs.getString("statut"))
-                            .dateValidation(rs.getObject("date_validation", OffsetDateTime.class))
-                            .qrCodeData(rs.getString("qr_code_data"))
-                            .createdAt(rs.getObject("created_at", OffsetDateTime.class))
-                            .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
-                            .build())
-                    .list();
-            commande.setBillets(billets);
+        // Page incomplète (ou liste entière) : le total se déduit sans COUNT
+        long total = limit == null || (commandes.size() < limit && (offset == 0 || !commandes.isEmpty()))
+                ? offset + commandes.size()
+                : jdbcClient.sql(CommandeQuery.COUNT_COMMANDES_BY_USER_ID)
+                        .param("userId", userId)
+                        .query(Long.class)
+                        .single();
+
+        if (!commandes.isEmpty()) {
+            // Billets de toute la page en une requête (au lieu d'une par commande)
+            Map<Long, List<Billet>> billetsParCommande = jdbcClient.sql(CommandeQuery.FIND_BILLETS_BY_COMMANDE_IDS)
+                    .param("commandeIds", commandes.stream().map(Commande::getCommandeId).toArray(Long[]::new))
+                    .query(billetRowMapper)
+                    .list()
+                    .stream()
+                    .collect(Collectors.groupingBy(Billet::getCommandeId));
+            commandes.forEach(c -> c.setBillets(billetsParCommande.getOrDefault(c.getCommandeId(), List.of())));
         }
 
-        log.info("Trouvé {} commandes pour userId: {}", commandes.size(), userId);
-        return commandes;
+        log.info("Trouvé {} commandes sur {} pour userId: {}", commandes.size(), total, userId);
+        return PageCommandes.builder()
+                .commandes(commandes)
+                .total(total)
+                .hasMore(offset + commandes.size() < total)
+                .page(page == null ? null : Math.max(page, 0))
+                .size(limit == null ? commandes.size() : limit)
+                .build();
     }
 
     @Override
@@ -417,8 +348,11 @@ public class CommandeServiceImpl implements CommandeService {
         // update_offre_places (branche statut → ANNULEE de l'étape 2). Appeler
         // libererPlaces ici libérerait les places une seconde fois (disponibles
         // surévaluées, niveau_remplissage faussé → surbooking possible).
+        // Seul l'inventaire mémoire est crédité (au commit).
+        inventairePlaces.liberer(commande.getOffreUuid(), commande.getNombrePlaces());
 
-        // 5. Envoyer notification Kafka d'annulation (non-bloquant)
+        // 5. Événement Kafka d'annulation via l'outbox (échec d'INSERT : annulation refusée)
+        Map<String, String> donnees = null;
         try {
             String billetCodes = commande.getBillets().stream()
                     .map(Billet::getCodeBillet)
@@ -444,7 +378,7 @@ public class CommandeServiceImpl implements CommandeService {
             }
             String userEmail = "";
             try {
-                User user = userClient.getUserById(commande.getUserId());
+                User user = userCache.getUserById(commande.getUserId());
                 if (user != null && user.getEmail() != null) {
                     userEmail = user.getEmail();
                 }
@@ -452,7 +386,7 @@ public class CommandeServiceImpl implements CommandeService {
                 log.warn("Impossible de récupérer l'email utilisateur {}: {}", commande.getUserId(), e.getMessage());
             }
 
-            var event = new Event(EventType.COMMANDE_ANNULEE, Map.ofEntries(
+            donnees = Map.ofEntries(
                     Map.entry("numeroCommande", commande.getNumeroCommande()),
                     Map.entry("email", email),
                     Map.entry("userEmail", userEmail),
@@ -465,23 +399,13 @@ public class CommandeServiceImpl implements CommandeService {
                     Map.entry("montantPaye", commande.getMontantPaye().toPlainString()),
                     Map.entry("billetCodes", billetCodes),
                     Map.entry("referencePaiement", commande.getReferencePaiement() != null ? commande.getReferencePaiement() : "")
-            ));
-            var message = MessageBuilder.withPayload(new Notification(event))
-                    .setHeader(TOPIC, NOTIFICATION_TOPIC)
-                    .build();
-
-            final String cmdNum = commande.getNumeroCommande();
-            CompletableFuture.runAsync(() -> {
-                try {
-                    kafkaTemplate.send(message);
-                    log.info("Notification Kafka annulation envoyée pour commande: {}", cmdNum);
-                } catch (Exception ex) {
-                    log.error("Kafka indisponible, notification annulation non envoyée pour: {}", cmdNum, ex);
-                }
-            });
+            );
         } catch (Exception e) {
             log.error("Erreur préparation notification Kafka annulation: {}", e.getMessage());
         }
+        if (donnees != null) {
+            outboxService.publier(EventType.COMMANDE_ANNULEE, donnees, commande.getNumeroCommande());
+        }
 
         // 6. Retourner la commande mise à jour
         return getByUuid(commandeUuid);
@@ -562,6 +486,8 @@ public class CommandeServiceImpl implements CommandeService {
         if (updated == 0) {
             throw new ApiException("Impossible de modifier la commande");
         }
+        // Les QR embarquent offre et date : les anciens deviennent invalides
+        signerQrCodes(commande.getBillets(), nouvelleOffre, commande.getNombrePlaces());
 
         log.info("Commande {} déplacée: {} -> {} (montant d'origine conservé)", commandeUuid,
                 offreActuelle.getDateDepart(), nouvelleOffre.getDateDepart());
@@ -569,4 +495,94 @@ public class CommandeServiceImpl implements CommandeService {
         // Montant d'origine conservé (MVP paiement simulé — dette réconciliation prix).
         return getByUuid(commandeUuid);
     }
+
+    private List<Billet> insererBillets(Long commandeId, List<CommandeRequest.PassagerDto> passagers) {
+        int n = passagers.size();
+        String[] noms = new String[n];
+        String[] telephones = new String[n];
+        String[] pieces = new String[n];
+        for (int i = 0; i < n; i++) {
+            CommandeRequest.PassagerDto passager = passagers.get(i);
+            noms[i] = passager.getPrenom() + " " + passager.getNom();
+            telephones[i] = passager.getTelephone();
+            pieces[i] = passager.getPieceIdentite();
+        }
+
+        List<Billet> billets = new ArrayList<>(jdbcClient.sql(CommandeQuery.INSERT_BILLETS)
+                .param("commandeId", commandeId)
+                .param("nomsPassagers", noms)
+                .param("telephonesPassagers", telephones)
+                .param("piecesIdentite", pieces)
+                .query((rs, rowNum) -> Billet.builder()
+                        .billetId(rs.getLong("billet_id"))
+                        .billetUuid(rs.getString("billet_uuid"))
+                        .codeBillet(rs.getString("code_billet"))
+                        .statut(rs.getString("statut"))
+                        .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+                        .commandeId(commandeId)
+                        .nomPassager(rs.getString("nom_passager"))
+                        .telephonePassager(rs.getString("telephone_passager"))
+                        .pieceIdentite(rs.getString("piece_identite"))
+                        .build())
+                .list());
+        // RETURNING ne garantit pas l'ordre : billet_id suit l'ordre d'insertion des passagers
+        billets.sort(Comparator.comparing(Billet::getBilletId));
+        return billets;
+    }
+
+    /**
+     * Émet le QR signé de chaque billet (vérifiable hors base au contrôle) et
+     * l'enregistre dans billets.qr_code_data en un seul UPDATE.
+     */
+    private void signerQrCodes(List<Billet> billets, Offre offre, int nombrePlaces) {
+        if (billets.isEmpty()) return;
+        Long[] billetIds = new Long[billets.size()];
+        String[] qrCodes = new String[billets.size()];
+        for (int i = 0; i < billets.size(); i++) {
+            Billet billet = billets.get(i);
+            billet.setQrCodeData(qrCodeBillets.emettre(billet.getBilletId(), offre.getOffreId(),
+                    offre.getDateDepart(), nombrePlaces, billet.getCodeBillet()));
+            billetIds[i] = billet.getBilletId();
+            qrCodes[i] = billet.getQrCodeData();
+        }
+        jdbcClient.sql(CommandeQuery.UPDATE_QR_CODES)
+                .param("billetIds", billetIds)
+                .param("qrCodes", qrCodes)
+                .update();
+    }
+
+    /**
+     * Prend le verrou de ligne sur l'offre (SELECT ... FOR UPDATE, relâché au commit)
+     * et vérifie qu'elle est toujours ouverte avec assez de places, déduction
+     * faite des blocages actifs des autres (le blocage de l'acheteur n'est exclu que s'il lui appartient).
+     * @return places disponibles lues sous verrou (hors blocages)
+     */
+    private int verrouillerPlaces(String offreUuid, int nombrePlaces, String blocageUuid, Long userId) {
+        var places = jdbcClient.sql(CommandeQuery.LOCK_OFFRE_PLACES)
+                .param("offreUuid", offreUuid)
+                .query((rs, rowNum) -> new Object[]{
+                        rs.getLong("offre_id"),
+                        rs.getString("statut"),
+                        rs.getInt("nombre_places_disponibles")
+                })
+                .optional()
+                .orElseThrow(() -> new ApiException("Offre non trouvée: " + offreUuid));
+
+        Long offreId = (Long) places[0];
+        String statut = (String) places[1];
+        int disponibles = (Integer) places[2];
+        if ("COMPLET".equals(statut)) {
+            throw new PlacesInsuffisantesException(offreUuid, 0, nombrePlaces);
+        }
+        if ("OUVERT".equals(statut)) {
+            int libres = disponibles - blocagePlacesService.getPlacesBloqueesEnBase(offreId, blocageUuid, userId);
+            if (libres < nombrePlaces) {
+                throw new PlacesInsuffisantesException(offreUuid, Math.max(libres, 0), nombrePlaces);
+            }
+        }
+        if (!"OUVERT".equals(statut)) {
+            throw new ApiException("L'offre n'est pas disponible (statut: " + statut + ")");
+        }
+        return disponibles;
+    }
 }
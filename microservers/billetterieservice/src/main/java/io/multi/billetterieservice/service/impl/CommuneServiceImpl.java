@@ -7,12 +7,15 @@ import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.CommuneRepository;
 import io.multi.billetterieservice.response.CommuneResponse;
 import io.multi.billetterieservice.service.CommuneService;
+import io.multi.billetterieservice.service.ReferentielGeographique;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implémentation du service pour la gestion des communes.
@@ -24,6 +27,7 @@ import java.util.List;
 public class CommuneServiceImpl implements CommuneService {
 
     private final CommuneRepository communeRepository;
+    private final ReferentielGeographique referentielGeographique;
 
     @Override
     public CommuneResponse createCommune(CommuneCreateRequest request) {
@@ -48,6 +52,7 @@ public class CommuneServiceImpl implements CommuneService {
         // Sauvegarder
         Commune savedCommune = communeRepository.save(commune);
         log.info("Commune créée avec succès: UUID={}", savedCommune.getCommuneUuid());
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return communeRepository.findByUuid(savedCommune.getCommuneUuid())
@@ -83,6 +88,7 @@ public class CommuneServiceImpl implements CommuneService {
                 .orElseThrow(() -> new ApiException("Erreur lors de la mise à jour de la commune"));
 
         log.info("Commune mise à jour avec succès: UUID={}", communeUuid);
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return communeRepository.findByUuid(communeUuid)
@@ -104,6 +110,7 @@ public class CommuneServiceImpl implements CommuneService {
                 .orElseThrow(() -> new ApiException("Erreur lors de la mise à jour du statut de la commune"));
 
         log.info("Statut de la commune mis à jour avec succès: UUID={}, actif={}", communeUuid, actif);
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return communeRepository.findByUuid(communeUuid)
@@ -115,7 +122,7 @@ public class CommuneServiceImpl implements CommuneService {
     @Transactional(readOnly = true)
     public List<CommuneResponse> getAllCommunes() {
         log.info("Récupération de toutes les communes");
-        List<Commune> communes = communeRepository.findAll();
+        List<Commune> communes = referentielGeographique.instantane().getCommunes();
         log.info("Nombre de communes trouvées: {}", communes.size());
         return communes.stream().map(this::mapToResponse).toList();
     }
@@ -124,7 +131,7 @@ public class CommuneServiceImpl implements CommuneService {
     @Transactional(readOnly = true)
     public List<CommuneResponse> getActiveCommunes() {
         log.info("Récupération des communes actives");
-        List<Commune> communes = communeRepository.findAllActive();
+        List<Commune> communes = referentielGeographique.instantane().getCommunesActives();
         log.info("Nombre de communes actives trouvées: {}", communes.size());
         return communes.stream().map(this::mapToResponse).toList();
     }
@@ -133,7 +140,7 @@ public class CommuneServiceImpl implements CommuneService {
     @Transactional(readOnly = true)
     public List<CommuneResponse> getCommunesByVille(String villeUuid) {
         log.info("Récupération des communes de la ville: {}", villeUuid);
-        List<Commune> communes = communeRepository.findByVilleUuid(villeUuid);
+        List<Commune> communes = Instantane.enfants(referentielGeographique.instantane().getCommunesParVille(), villeUuid);
         log.info("Nombre de communes trouvées: {}", communes.size());
         return communes.stream().map(this::mapToResponse).toList();
     }
@@ -142,7 +149,9 @@ public class CommuneServiceImpl implements CommuneService {
     @Transactional(readOnly = true)
     public List<CommuneResponse> getActiveCommunesByVille(String villeUuid) {
         log.info("Récupération des communes actives de la ville: {}", villeUuid);
-        List<Commune> communes = communeRepository.findActiveByVilleUuid(villeUuid);
+        List<Commune> communes = Instantane.enfants(referentielGeographique.instantane().getCommunesParVille(), villeUuid).stream()
+                .filter(commune -> Boolean.TRUE.equals(commune.getActif()))
+                .toList();
         log.info("Nombre de communes actives trouvées: {}", communes.size());
         return communes.stream().map(this::mapToResponse).toList();
     }
@@ -151,7 +160,7 @@ public class CommuneServiceImpl implements CommuneService {
     @Transactional(readOnly = true)
     public List<CommuneResponse> getCommunesByRegion(String regionUuid) {
         log.info("Récupération des communes de la région: {}", regionUuid);
-        List<Commune> communes = communeRepository.findByRegionUuid(regionUuid);
+        List<Commune> communes = Instantane.enfants(referentielGeographique.instantane().getCommunesParRegion(), regionUuid);
         log.info("Nombre de communes trouvées: {}", communes.size());
         return communes.stream().map(this::mapToResponse).toList();
     }
@@ -160,7 +169,7 @@ public class CommuneServiceImpl implements CommuneService {
     @Transactional(readOnly = true)
     public CommuneResponse getCommuneByUuid(String communeUuid) {
         log.info("Récupération de la commune: {}", communeUuid);
-        Commune commune = communeRepository.findByUuid(communeUuid)
+        Commune commune = Optional.ofNullable(referentielGeographique.instantane().getCommuneParUuid().get(communeUuid))
                 .orElseThrow(() -> new ApiException("Commune non trouvée avec l'UUID: " + communeUuid));
         return mapToResponse(commune);
     }
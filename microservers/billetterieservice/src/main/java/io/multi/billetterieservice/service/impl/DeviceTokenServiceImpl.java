@@ -8,7 +8,11 @@ import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -37,10 +41,31 @@ public class DeviceTokenServiceImpl implements DeviceTokenService {
                 .list();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<String>> getTokensByUsers(Collection<Long> userIds) {
+        Map<Long, List<String>> tokens = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) return tokens;
+        jdbcClient.sql(DeviceTokenQuery.FIND_TOKENS_BY_USERS)
+                .param("userIds", userIds.stream().distinct().toArray(Long[]::new))
+                .query((rs, rowNum) -> tokens.computeIfAbsent(rs.getLong("user_id"), k -> new ArrayList<>())
+                        .add(rs.getString("token")))
+                .list();
+        return tokens;
+    }
+
     @Override
     public void delete(String token) {
         jdbcClient.sql(DeviceTokenQuery.DELETE_BY_TOKEN)
                 .param("token", token)
                 .update();
     }
+
+    @Override
+    public int deleteAll(Collection<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) return 0;
+        return jdbcClient.sql(DeviceTokenQuery.DELETE_BY_TOKENS)
+                .param("tokens", tokens.toArray(String[]::new))
+                .update();
+    }
 }
@@ -1,67 +1,181 @@
 package io.multi.billetterieservice.service.impl;
 
 import io.multi.billetterieservice.domain.InAppNotification;
+import io.multi.billetterieservice.domain.PageNotifications;
 import io.multi.billetterieservice.query.NotificationQuery;
 import io.multi.billetterieservice.service.InAppNotificationService;
-import lombok.RequiredArgsConstructor;
+import io.multi.billetterieservice.utils.CacheLruTtl;
+import io.multi.billetterieservice.utils.CurseurNotification;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static io.multi.billetterieservice.utils.TransactionUtils.apresCommit;
+
+/**
+ * Notifications in-app. Le compteur de non lues vient de notifications_non_lues
+ * (triggers V50), mis en cache par utilisateur : la valeur est remplacée à
+ * chaque publication PostgreSQL (DiffusionNotifications), oubliée après une
+ * écriture locale, et bornée dans le temps en cas de publication manquée.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class InAppNotificationServiceImpl implements InAppNotificationService {
 
+    private static final int TAILLE_PAGE_DEFAUT = 20;
+    private static final int TAILLE_PAGE_MAX = 100;
+
     private final JdbcClient jdbcClient;
+    private final CacheLruTtl<Long, Long> compteursNonLues;
+
+    private final RowMapper<InAppNotification> rowMapper = (rs, rowNum) -> InAppNotification.builder()
+            .notificationId(rs.getLong("notification_id"))
+            .notificationUuid(rs.getString("notification_uuid"))
+            .userId(rs.getLong("user_id"))
+            .typeNotification(rs.getString("type_notification"))
+            .categorie(rs.getString("categorie"))
+            .titre(rs.getString("titre"))
+            .message(rs.getString("message"))
+            .lue(rs.getBoolean("lue"))
+            .envoyee(rs.getBoolean("envoyee"))
+            .dateEnvoi(rs.getObject("date_envoi", OffsetDateTime.class))
+            .dateLecture(rs.getObject("date_lecture", OffsetDateTime.class))
+            .referenceId(rs.getObject("reference_id", Long.class))
+            .referenceType(rs.getString("reference_type"))
+            .metadata(rs.getString("metadata"))
+            .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+            .build();
+
+    public InAppNotificationServiceImpl(JdbcClient jdbcClient,
+                                        @Value("${billetterie.notifications.compteurs-cache:50000}") int tailleCache,
+                                        @Value("${billetterie.notifications.compteurs-ttl-ms:60000}") long ttlMs) {
+        this.jdbcClient = jdbcClient;
+        this.compteursNonLues = new CacheLruTtl<>(tailleCache, ttlMs);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageNotifications getByUserId(Long userId, String curseur, Integer taille) {
+        int limit = taille == null || taille <= 0 ? TAILLE_PAGE_DEFAUT : Math.min(taille, TAILLE_PAGE_MAX);
+        CurseurNotification position = CurseurNotification.decoder(curseur);
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        params.put("limit", limit + 1);
+        String predicat = "";
+        if (position != null) {
+            predicat = NotificationQuery.AVANT_CURSEUR;
+            params.put("curseurDate", position.getCreatedAt());
+            params.put("curseurId", position.getNotificationId());
+        }
+        List<InAppNotification> notifications = jdbcClient.sql(NotificationQuery.FIND_BY_USER_ID.formatted(predicat))
+                .params(params)
+                .query(rowMapper)
+                .list();
+        return page(notifications, limit);
+    }
 
     @Override
     @Transactional(readOnly = true)
-    public List<InAppNotification> getByUserId(Long userId, int page, int size) {
-        return jdbcClient.sql(NotificationQuery.FIND_BY_USER_ID)
+    public PageNotifications getByUserIdParPage(Long userId, int page, Integer taille) {
+        int limit = taille == null || taille <= 0 ? TAILLE_PAGE_DEFAUT : Math.min(taille, TAILLE_PAGE_MAX);
+        List<InAppNotification> notifications = jdbcClient.sql(NotificationQuery.FIND_BY_USER_ID_PAGE)
                 .param("userId", userId)
-                .param("limit", size)
-                .param("offset", page * size)
-                .query((rs, rowNum) -> InAppNotification.builder()
-                        .notificationId(rs.getLong("notification_id"))
-                        .notificationUuid(rs.getString("notification_uuid"))
-                        .userId(rs.getLong("user_id"))
-                        .typeNotification(rs.getString("type_notification"))
-                        .categorie(rs.getString("categorie"))
-                        .titre(rs.getString("titre"))
-                        .message(rs.getString("message"))
-                        .lue(rs.getBoolean("lue"))
-                        .envoyee(rs.getBoolean("envoyee"))
-                        .dateEnvoi(rs.getObject("date_envoi", OffsetDateTime.class))
-                        .dateLecture(rs.getObject("date_lecture", OffsetDateTime.class))
-                        .referenceId(rs.getObject("reference_id", Long.class))
-                        .referenceType(rs.getString("reference_type"))
-                        .metadata(rs.getString("metadata"))
-                        .createdAt(rs.getObject("created_at", OffsetDateTime.class))
-                        .build())
+                .param("limit", limit + 1)
+                .param("offset", (long) Math.max(page, 0) * limit)
+                .query(rowMapper)
                 .list();
+        return page(notifications, limit);
+    }
+
+    /** limit + 1 lignes lues : la ligne en trop indique qu'une page suivante existe. */
+    private PageNotifications page(List<InAppNotification> notifications, int limit) {
+        boolean hasMore = notifications.size() > limit;
+        List<InAppNotification> contenu = hasMore ? notifications.subList(0, limit) : notifications;
+        return PageNotifications.builder()
+                .notifications(contenu)
+                .hasMore(hasMore)
+                .curseurSuivant(hasMore ? CurseurNotification.de(contenu.get(limit - 1)).encoder() : null)
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Long countUnread(Long userId) {
-        return jdbcClient.sql(NotificationQuery.COUNT_UNREAD)
+    public List<InAppNotification> getNouvelles(Long userId, long apresId, OffsetDateTime depuis, int limite) {
+        return jdbcClient.sql(NotificationQuery.FIND_NOUVELLES)
+                .param("userId", userId)
+                .param("apresId", apresId)
+                .param("depuis", depuis)
+                .param("limit", limite)
+                .query(rowMapper)
+                .list();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getDernierId(Long userId, OffsetDateTime depuis) {
+        return jdbcClient.sql(NotificationQuery.FIND_DERNIER_ID)
                 .param("userId", userId)
+                .param("depuis", depuis)
                 .query(Long.class)
                 .single();
     }
 
     @Override
-    public void markAsRead(Long notificationId, Long userId) {
-        jdbcClient.sql(NotificationQuery.MARK_AS_READ)
-                .param("notificationId", notificationId)
+    @Transactional(readOnly = true)
+    public Long countUnread(Long userId) {
+        Long enCache = compteursNonLues.get(userId);
+        if (enCache != null) return enCache;
+        Long count = jdbcClient.sql(NotificationQuery.COUNT_UNREAD)
                 .param("userId", userId)
+                .query(Long.class)
+                .single();
+        compteursNonLues.put(userId, count);
+        return count;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void majCompteurNonLues(Long userId, long nonLues) {
+        compteursNonLues.put(userId, nonLues);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void oublierCompteursNonLues() {
+        compteursNonLues.clear();
+    }
+
+    @Override
+    public void markAsRead(Long notificationId, OffsetDateTime creeLe, Long userId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("notificationId", notificationId);
+        params.put("userId", userId);
+        String predicat = "";
+        if (creeLe != null) {
+            predicat = NotificationQuery.CREE_LE;
+            params.put("creeLe", creeLe);
+        }
+        int maj = jdbcClient.sql(NotificationQuery.MARK_AS_READ.formatted(predicat))
+                .params(params)
                 .update();
+        if (maj == 0 && creeLe != null) {
+            // createdAt erroné (fuseau, arrondi du client) : recherche sur toutes les partitions
+            params.remove("creeLe");
+            jdbcClient.sql(NotificationQuery.MARK_AS_READ.formatted(""))
+                    .params(params)
+                    .update();
+        }
+        apresCommit(() -> compteursNonLues.remove(userId));
     }
 
     @Override
@@ -69,6 +183,7 @@ public class InAppNotificationServiceImpl implements InAppNotificationService {
         int updated = jdbcClient.sql(NotificationQuery.MARK_ALL_AS_READ)
                 .param("userId", userId)
                 .update();
+        apresCommit(() -> compteursNonLues.remove(userId));
         log.info("Marqué {} notifications comme lues pour userId: {}", updated, userId);
     }
 
@@ -96,9 +211,28 @@ public class InAppNotificationServiceImpl implements InAppNotificationService {
                 .param("metadata", metadata)
                 .query((rs, rowNum) -> rs.getLong("notification_id"))
                 .single();
+        apresCommit(() -> compteursNonLues.remove(userId));
         log.debug("Notification in-app créée pour userId: {} - {}", userId, titre);
     }
 
+    @Override
+    public void createNotifications(List<InAppNotification> notifications) {
+        if (notifications.isEmpty()) return;
+        InAppNotification modele = notifications.get(0);
+        int inserees = jdbcClient.sql(NotificationQuery.INSERT_LOT)
+                .param("userIds", notifications.stream().map(InAppNotification::getUserId).toArray(Long[]::new))
+                .param("messages", notifications.stream().map(InAppNotification::getMessage).toArray(String[]::new))
+                .param("referenceIds", notifications.stream().map(InAppNotification::getReferenceId).toArray(Long[]::new))
+                .param("typeNotification", modele.getTypeNotification())
+                .param("categorie", modele.getCategorie())
+                .param("titre", modele.getTitre())
+                .param("envoyee", Boolean.TRUE.equals(modele.getEnvoyee()))
+                .param("referenceType", modele.getReferenceType())
+                .update();
+        apresCommit(() -> notifications.forEach(n -> compteursNonLues.remove(n.getUserId())));
+        log.debug("{} notification(s) in-app créée(s) en lot - {}", inserees, modele.getTitre());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean existsByReference(Long userId, Long referenceId, String referenceType, String categorie) {
@@ -7,12 +7,15 @@ import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.LocalisationRepository;
 import io.multi.billetterieservice.response.LocalisationResponse;
 import io.multi.billetterieservice.service.LocalisationService;
+import io.multi.billetterieservice.service.ReferentielGeographique;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implémentation du service pour la gestion des localisations.
@@ -24,6 +27,7 @@ import java.util.List;
 public class LocalisationServiceImpl implements LocalisationService {
 
     private final LocalisationRepository localisationRepository;
+    private final ReferentielGeographique referentielGeographique;
 
     @Override
     public LocalisationResponse createLocalisation(LocalisationCreateRequest request) {
@@ -53,6 +57,7 @@ public class LocalisationServiceImpl implements LocalisationService {
         // Sauvegarder
         Localisation savedLocalisation = localisationRepository.save(localisation);
         log.info("Localisation créée avec succès: UUID={}", savedLocalisation.getLocalisationUuid());
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return localisationRepository.findByUuid(savedLocalisation.getLocalisationUuid())
@@ -97,6 +102,7 @@ public class LocalisationServiceImpl implements LocalisationService {
         ).orElseThrow(() -> new ApiException("Erreur lors de la mise à jour de la localisation"));
 
         log.info("Localisation mise à jour avec succès: UUID={}", localisationUuid);
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return localisationRepository.findByUuid(localisationUuid)
@@ -120,13 +126,14 @@ public class LocalisationServiceImpl implements LocalisationService {
         }
 
         log.info("Localisation supprimée avec succès: UUID={}", localisationUuid);
+        referentielGeographique.invalider();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<LocalisationResponse> getAllLocalisations() {
         log.info("Récupération de toutes les localisations");
-        List<Localisation> localisations = localisationRepository.findAll();
+        List<Localisation> localisations = referentielGeographique.instantane().getLocalisations();
         log.info("Nombre de localisations trouvées: {}", localisations.size());
         return localisations.stream().map(this::mapToResponse).toList();
     }
@@ -135,7 +142,7 @@ public class LocalisationServiceImpl implements LocalisationService {
     @Transactional(readOnly = true)
     public List<LocalisationResponse> getLocalisationsWithQuartier() {
         log.info("Récupération des localisations avec quartier");
-        List<Localisation> localisations = localisationRepository.findAllWithQuartier();
+        List<Localisation> localisations = referentielGeographique.instantane().getLocalisationsAvecQuartier();
         log.info("Nombre de localisations trouvées: {}", localisations.size());
         return localisations.stream().map(this::mapToResponse).toList();
     }
@@ -144,7 +151,7 @@ public class LocalisationServiceImpl implements LocalisationService {
     @Transactional(readOnly = true)
     public List<LocalisationResponse> getLocalisationsWithoutQuartier() {
         log.info("Récupération des localisations sans quartier");
-        List<Localisation> localisations = localisationRepository.findAllWithoutQuartier();
+        List<Localisation> localisations = referentielGeographique.instantane().getLocalisationsSansQuartier();
         log.info("Nombre de localisations trouvées: {}", localisations.size());
         return localisations.stream().map(this::mapToResponse).toList();
     }
@@ -153,7 +160,7 @@ public class LocalisationServiceImpl implements LocalisationService {
     @Transactional(readOnly = true)
     public List<LocalisationResponse> getLocalisationsByQuartier(String quartierUuid) {
         log.info("Récupération des localisations du quartier: {}", quartierUuid);
-        List<Localisation> localisations = localisationRepository.findByQuartierUuid(quartierUuid);
+        List<Localisation> localisations = Instantane.enfants(referentielGeographique.instantane().getLocalisationsParQuartier(), quartierUuid);
         log.info("Nombre de localisations trouvées: {}", localisations.size());
         return localisations.stream().map(this::mapToResponse).toList();
     }
@@ -162,7 +169,7 @@ public class LocalisationServiceImpl implements LocalisationService {
     @Transactional(readOnly = true)
     public List<LocalisationResponse> getLocalisationsByCommune(String communeUuid) {
         log.info("Récupération des localisations de la commune: {}", communeUuid);
-        List<Localisation> localisations = localisationRepository.findByCommuneUuid(communeUuid);
+        List<Localisation> localisations = Instantane.enfants(referentielGeographique.instantane().getLocalisationsParCommune(), communeUuid);
         log.info("Nombre de localisations trouvées: {}", localisations.size());
         return localisations.stream().map(this::mapToResponse).toList();
     }
@@ -171,7 +178,7 @@ public class LocalisationServiceImpl implements LocalisationService {
     @Transactional(readOnly = true)
     public List<LocalisationResponse> getLocalisationsByVille(String villeUuid) {
         log.info("Récupération des localisations de la ville: {}", villeUuid);
-        List<Localisation> localisations = localisationRepository.findByVilleUuid(villeUuid);
+        List<Localisation> localisations = Instantane.enfants(referentielGeographique.instantane().getLocalisationsParVille(), villeUuid);
         log.info("Nombre de localisations trouvées: {}", localisations.size());
         return localisations.stream().map(this::mapToResponse).toList();
     }
@@ -180,7 +187,7 @@ public class LocalisationServiceImpl implements LocalisationService {
     @Transactional(readOnly = true)
     public List<LocalisationResponse> getLocalisationsByRegion(String regionUuid) {
         log.info("Récupération des localisations de la région: {}", regionUuid);
-        List<Localisation> localisations = localisationRepository.findByRegionUuid(regionUuid);
+        List<Localisation> localisations = Instantane.enfants(referentielGeographique.instantane().getLocalisationsParRegion(), regionUuid);
         log.info("Nombre de localisations trouvées: {}", localisations.size());
         return localisations.stream().map(this::mapToResponse).toList();
     }
@@ -189,7 +196,7 @@ public class LocalisationServiceImpl implements LocalisationService {
     @Transactional(readOnly = true)
     public LocalisationResponse getLocalisationByUuid(String localisationUuid) {
         log.info("Récupération de la localisation: {}", localisationUuid);
-        Localisation localisation = localisationRepository.findByUuid(localisationUuid)
+        Localisation localisation = Optional.ofNullable(referentielGeographique.instantane().getLocalisationParUuid().get(localisationUuid))
                 .orElseThrow(() -> new ApiException("Localisation non trouvée avec l'UUID: " + localisationUuid));
         return mapToResponse(localisation);
     }
@@ -1,15 +1,19 @@
 package io.multi.billetterieservice.service.impl;
 
 import io.multi.billetterieservice.domain.Offre;
+import io.multi.billetterieservice.domain.PageOffres;
 import io.multi.billetterieservice.domain.Trajet;
 import io.multi.billetterieservice.domain.Vehicule;
 import io.multi.billetterieservice.dto.OffreRequest;
 import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.exception.PlacesInsuffisantesException;
 import io.multi.billetterieservice.repository.OffreRepository;
 import io.multi.billetterieservice.repository.TrajetRepository;
 import io.multi.billetterieservice.repository.VehiculeRepository;
+import io.multi.billetterieservice.service.InventairePlaces;
 import io.multi.billetterieservice.service.OffreService;
-import io.multi.clients.UserClient;
+import io.multi.billetterieservice.utils.CurseurOffre;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,35 +39,39 @@ public class OffreServiceImpl implements OffreService {
     private final OffreRepository offreRepository;
     private final TrajetRepository trajetRepository;
     private final VehiculeRepository vehiculeRepository;
-    private final UserClient userClient;
+    private final UserCache userCache;
+    private final InventairePlaces inventairePlaces;
 
     // Constantes pour les statuts
     private static final String STATUT_EN_ATTENTE = "EN_ATTENTE";
     private static final String STATUT_OUVERT = "OUVERT";
     private static final String STATUT_FERME = "FERME";
-    // COMPLET = plein automatiquement (même statut que le trigger SQL update_offre_places) ;
-    // FERME reste réservé à la fermeture manuelle par le transporteur.
-    private static final String STATUT_COMPLET = "COMPLET";
     private static final String STATUT_CLOTURE = "CLOTURE";
     private static final String STATUT_ANNULE = "ANNULE";
     private static final String STATUT_EN_COURS = "EN_COURS";
     private static final String STATUT_TERMINE = "TERMINE";
     private static final String STATUT_SUSPENDU = "SUSPENDU";
 
+    // Pagination des listes d'offres
+    private static final int TAILLE_PAGE_DEFAUT = 20;
+    private static final int TAILLE_PAGE_MAX = 100;
+
     // ========== LECTURE ==========
 
     @Override
     @Transactional(readOnly = true)
-    public List<Offre> getAll() {
-        log.info("Récupération de toutes les offres");
-        return offreRepository.findAll();
+    public PageOffres getAll(String curseur, Integer taille) {
+        log.info("Récupération de toutes les offres (page)");
+        int limit = borner(taille);
+        return page(offreRepository.findAll(CurseurOffre.decoder(curseur), limit + 1), limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Offre> getAllOuvertes() {
-        log.info("Récupération de toutes les offres ouvertes");
-        return offreRepository.findAllOuvertes();
+    public PageOffres getAllOuvertes(String curseur, Integer taille) {
+        log.info("Récupération des offres ouvertes (page)");
+        int limit = borner(taille);
+        return page(offreRepository.findAllOuvertes(CurseurOffre.decoder(curseur), limit + 1), limit);
     }
 
     @Override
@@ -105,9 +113,10 @@ public class OffreServiceImpl implements OffreService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Offre> getByStatut(String statut) {
+    public PageOffres getByStatut(String statut, String curseur, Integer taille) {
         log.info("Récupération des offres par statut: {}", statut);
-        return offreRepository.findByStatut(statut);
+        int limit = borner(taille);
+        return page(offreRepository.findByStatut(statut, CurseurOffre.decoder(curseur), limit + 1), limit);
     }
 
     @Override
@@ -161,16 +170,18 @@ public class OffreServiceImpl implements OffreService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Offre> getAVenir() {
+    public PageOffres getAVenir(String curseur, Integer taille) {
         log.info("Récupération des offres à venir");
-        return offreRepository.findAVenir();
+        int limit = borner(taille);
+        return page(offreRepository.findAVenir(CurseurOffre.decoder(curseur), limit + 1), limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Offre> getPassees() {
+    public PageOffres getPassees(String curseur, Integer taille) {
         log.info("Récupération des offres passées");
-        return offreRepository.findPassees();
+        int limit = borner(taille);
+        return page(offreRepository.findPassees(CurseurOffre.decoder(curseur), limit + 1), limit);
     }
 
     @Override
@@ -182,12 +193,14 @@ public class OffreServiceImpl implements OffreService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Offre> search(String searchTerm) {
+    public PageOffres search(String searchTerm, String curseur, Integer taille) {
         log.info("Recherche des offres: {}", searchTerm);
+        int limit = borner(taille);
+        CurseurOffre position = CurseurOffre.decoder(curseur);
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return offreRepository.findAllOuvertes();
+            return page(offreRepository.findAllOuvertes(position, limit + 1), limit);
         }
-        return offreRepository.search(searchTerm.trim());
+        return page(offreRepository.search(searchTerm.trim(), position, limit + 1), limit);
     }
 
     // ========== ÉCRITURE ==========
@@ -451,26 +464,24 @@ public class OffreServiceImpl implements OffreService {
     @Override
     public Offre reserverPlaces(String uuid, int nombrePlaces) {
         log.info("Réservation de {} places pour l'offre: {}", nombrePlaces, uuid);
-        Offre offre = getByUuid(uuid);
 
         if (nombrePlaces <= 0) {
             throw new ApiException("Le nombre de places doit être positif");
         }
 
-        if (offre.getNombrePlacesDisponibles() < nombrePlaces) {
-            throw new ApiException("Pas assez de places disponibles. Disponibles: " + offre.getNombrePlacesDisponibles());
+        // Indice mémoire : une offre suivie et pleine (confirmé par relecture) est rejetée sans verrou
+        if (inventairePlaces.reserver(uuid, nombrePlaces) == InventairePlaces.Resultat.REJETE) {
+            throw new PlacesInsuffisantesException(uuid, Math.max(inventairePlaces.getDisponibles(uuid), 0), nombrePlaces);
         }
 
-        int newDisponibles = offre.getNombrePlacesDisponibles() - nombrePlaces;
-        int newReservees = offre.getNombrePlacesReservees() + nombrePlaces;
-        int niveauRemplissage = calculateNiveauRemplissage(newReservees, offre.getNombrePlacesTotal());
-
-        offreRepository.updatePlaces(uuid, newDisponibles, newReservees, niveauRemplissage);
+        Offre offre = getByUuid(uuid);
 
-        // Si plus de places disponibles, marquer complet (aligné sur le trigger SQL)
-        if (newDisponibles == 0) {
-            offreRepository.updateStatut(uuid, STATUT_COMPLET);
-        }
+        // UPDATE conditionnel : contrôle et décrément dans la même instruction,
+        // passage en COMPLET aligné sur le trigger SQL.
+        int restantes = offreRepository.reserverPlaces(uuid, nombrePlaces)
+                .orElseThrow(() -> new PlacesInsuffisantesException(
+                        uuid, offre.getNombrePlacesDisponibles(), nombrePlaces));
+        inventairePlaces.suivre(offre.getOffreId(), uuid, restantes);
 
         return offreRepository.findByUuid(uuid).orElse(offre);
     }
@@ -484,22 +495,12 @@ public class OffreServiceImpl implements OffreService {
             throw new ApiException("Le nombre de places doit être positif");
         }
 
-        if (offre.getNombrePlacesReservees() < nombrePlaces) {
-            throw new ApiException("Impossible de libérer plus de places que réservées");
-        }
-
-        int newDisponibles = offre.getNombrePlacesDisponibles() + nombrePlaces;
-        int newReservees = offre.getNombrePlacesReservees() - nombrePlaces;
-        int niveauRemplissage = calculateNiveauRemplissage(newReservees, offre.getNombrePlacesTotal());
-
-        offreRepository.updatePlaces(uuid, newDisponibles, newReservees, niveauRemplissage);
-
-        // Si l'offre était pleine et qu'on libère des places, la rouvrir.
-        // FERME est conservé ici pour les anciennes offres passées pleines par
-        // le chemin Java historique (avant l'alignement sur COMPLET).
-        if ((STATUT_COMPLET.equals(offre.getStatut()) || STATUT_FERME.equals(offre.getStatut())) && newDisponibles > 0) {
-            offreRepository.updateStatut(uuid, STATUT_OUVERT);
-        }
+        // Si l'offre était pleine, la requête la rouvre. FERME est conservé pour
+        // les anciennes offres passées pleines par le chemin Java historique
+        // (avant l'alignement sur COMPLET).
+        offreRepository.libererPlaces(uuid, nombrePlaces)
+                .orElseThrow(() -> new ApiException("Impossible de libérer plus de places que réservées"));
+        inventairePlaces.liberer(uuid, nombrePlaces);
 
         return offreRepository.findByUuid(uuid).orElse(offre);
     }
@@ -612,7 +613,7 @@ public class OffreServiceImpl implements OffreService {
 
     private User getUserById(Long userId) {
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             if (user == null) {
                 throw new ApiException("Utilisateur non trouvé avec l'ID: " + userId);
             }
@@ -637,6 +638,25 @@ public class OffreServiceImpl implements OffreService {
                 || STATUT_FERME.equals(offre.getStatut());
     }
 
+    private int borner(Integer taille) {
+        if (taille == null || taille <= 0) return TAILLE_PAGE_DEFAUT;
+        return Math.min(taille, TAILLE_PAGE_MAX);
+    }
+
+    /**
+     * Les requêtes lisent limit + 1 lignes : la ligne en trop indique qu'une page suivante existe.
+     * Pas de COUNT(*) de la liste : il relirait toute la liste à chaque page.
+     */
+    private PageOffres page(List<Offre> offres, int limit) {
+        boolean hasMore = offres.size() > limit;
+        List<Offre> contenu = hasMore ? offres.subList(0, limit) : offres;
+        return PageOffres.builder()
+                .offres(contenu)
+                .hasMore(hasMore)
+                .curseurSuivant(hasMore ? CurseurOffre.de(contenu.get(limit - 1)).encoder() : null)
+                .build();
+    }
+
     private int calculateNiveauRemplissage(int placesReservees, int placesTotal) {
         if (placesTotal == 0) return 0;
         return (int) Math.round((double) placesReservees / placesTotal * 100);
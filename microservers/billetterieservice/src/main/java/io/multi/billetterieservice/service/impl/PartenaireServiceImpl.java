@@ -34,6 +34,8 @@ public class PartenaireServiceImpl implements PartenaireService {
     private static final String STATUT_SUSPENDU = "SUSPENDU";
     private static final String STATUT_EN_ATTENTE = "EN_ATTENTE";
 
+    private static final int TAILLE_PAGE_MAX = 100;
+
     // ========== LECTURE ==========
 
     @Override
@@ -96,12 +98,13 @@ public class PartenaireServiceImpl implements PartenaireService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Partenaire> search(String searchTerm) {
-        log.info("Recherche des partenaires: {}", searchTerm);
+    public List<Partenaire> search(String searchTerm, int page, int size) {
+        log.info("Recherche des partenaires: {} (page {})", searchTerm, page);
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return partenaireRepository.findAllActifs();
         }
-        return partenaireRepository.search(searchTerm.trim());
+        int taille = Math.min(Math.max(size, 1), TAILLE_PAGE_MAX);
+        return partenaireRepository.search(searchTerm.trim(), taille, Math.max(page, 0) * taille);
     }
 
     @Override
@@ -0,0 +1,61 @@
+package io.multi.billetterieservice.service.impl;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import io.multi.billetterieservice.service.PasserellePush;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PasserellePush sur le Firebase Admin SDK (sendEachForMulticast).
+ * Token mort : UNREGISTERED (device désinstallé) ou INVALID_ARGUMENT (token périmé).
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class PasserellePushFirebase implements PasserellePush {
+
+    private final FirebaseMessaging messaging;
+
+    @Override
+    public List<Issue> envoyer(List<String> tokens, String titre, String corps, Map<String, String> data)
+            throws EchecLot {
+        MulticastMessage message = MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .setNotification(Notification.builder()
+                        .setTitle(titre)
+                        .setBody(corps)
+                        .build())
+                .putAllData(data)
+                .build();
+        BatchResponse reponse;
+        try {
+            reponse = messaging.sendEachForMulticast(message);
+        } catch (FirebaseMessagingException e) {
+            throw new EchecLot(e.getMessage(), e);
+        }
+
+        List<Issue> issues = new ArrayList<>(tokens.size());
+        for (SendResponse r : reponse.getResponses()) {
+            FirebaseMessagingException e = r.getException();
+            if (e == null) {
+                issues.add(Issue.ENVOYE);
+            } else if (e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED
+                    || e.getMessagingErrorCode() == MessagingErrorCode.INVALID_ARGUMENT) {
+                issues.add(Issue.TOKEN_MORT);
+            } else {
+                log.debug("Échec envoi push FCM : {}", e.getMessage());
+                issues.add(Issue.ECHEC);
+            }
+        }
+        return issues;
+    }
+}
@@ -7,12 +7,15 @@ import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.QuartierRepository;
 import io.multi.billetterieservice.response.QuartierResponse;
 import io.multi.billetterieservice.service.QuartierService;
+import io.multi.billetterieservice.service.ReferentielGeographique;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implémentation du service pour la gestion des quartiers.
@@ -24,6 +27,7 @@ import java.util.List;
 public class QuartierServiceImpl implements QuartierService {
 
     private final QuartierRepository quartierRepository;
+    private final ReferentielGeographique referentielGeographique;
 
     @Override
     public QuartierResponse createQuartier(QuartierCreateRequest request) {
@@ -48,6 +52,7 @@ public class QuartierServiceImpl implements QuartierService {
         // Sauvegarder
         Quartier savedQuartier = quartierRepository.save(quartier);
         log.info("Quartier créé avec succès: UUID={}", savedQuartier.getQuartierUuid());
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return quartierRepository.findByUuid(savedQuartier.getQuartierUuid())
@@ -83,6 +88,7 @@ public class QuartierServiceImpl implements QuartierService {
                 .orElseThrow(() -> new ApiException("Erreur lors de la mise à jour du quartier"));
 
         log.info("Quartier mis à jour avec succès: UUID={}", quartierUuid);
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return quartierRepository.findByUuid(quartierUuid)
@@ -104,6 +110,7 @@ public class QuartierServiceImpl implements QuartierService {
                 .orElseThrow(() -> new ApiException("Erreur lors de la mise à jour du statut du quartier"));
 
         log.info("Statut du quartier mis à jour avec succès: UUID={}, actif={}", quartierUuid, actif);
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations complètes
         return quartierRepository.findByUuid(quartierUuid)
@@ -115,7 +122,7 @@ public class QuartierServiceImpl implements QuartierService {
     @Transactional(readOnly = true)
     public List<QuartierResponse> getAllQuartiers() {
         log.info("Récupération de tous les quartiers");
-        List<Quartier> quartiers = quartierRepository.findAll();
+        List<Quartier> quartiers = referentielGeographique.instantane().getQuartiers();
         log.info("Nombre de quartiers trouvés: {}", quartiers.size());
         return quartiers.stream().map(this::mapToResponse).toList();
     }
@@ -124,7 +131,7 @@ public class QuartierServiceImpl implements QuartierService {
     @Transactional(readOnly = true)
     public List<QuartierResponse> getActiveQuartiers() {
         log.info("Récupération des quartiers actifs");
-        List<Quartier> quartiers = quartierRepository.findAllActive();
+        List<Quartier> quartiers = referentielGeographique.instantane().getQuartiersActifs();
         log.info("Nombre de quartiers actifs trouvés: {}", quartiers.size());
         return quartiers.stream().map(this::mapToResponse).toList();
     }
@@ -133,7 +140,7 @@ public class QuartierServiceImpl implements QuartierService {
     @Transactional(readOnly = true)
     public List<QuartierResponse> getQuartiersByCommune(String communeUuid) {
         log.info("Récupération des quartiers de la commune: {}", communeUuid);
-        List<Quartier> quartiers = quartierRepository.findByCommuneUuid(communeUuid);
+        List<Quartier> quartiers = Instantane.enfants(referentielGeographique.instantane().getQuartiersParCommune(), communeUuid);
         log.info("Nombre de quartiers trouvés: {}", quartiers.size());
         return quartiers.stream().map(this::mapToResponse).toList();
     }
@@ -142,7 +149,9 @@ public class QuartierServiceImpl implements QuartierService {
     @Transactional(readOnly = true)
     public List<QuartierResponse> getActiveQuartiersByCommune(String communeUuid) {
         log.info("Récupération des quartiers actifs de la commune: {}", communeUuid);
-        List<Quartier> quartiers = quartierRepository.findActiveByCommuneUuid(communeUuid);
+        List<Quartier> quartiers = Instantane.enfants(referentielGeographique.instantane().getQuartiersParCommune(), communeUuid).stream()
+                .filter(quartier -> Boolean.TRUE.equals(quartier.getActif()))
+                .toList();
         log.info("Nombre de quartiers actifs trouvés: {}", quartiers.size());
         return quartiers.stream().map(this::mapToResponse).toList();
     }
@@ -151,7 +160,7 @@ public class QuartierServiceImpl implements QuartierService {
     @Transactional(readOnly = true)
     public List<QuartierResponse> getQuartiersByVille(String villeUuid) {
         log.info("Récupération des quartiers de la ville: {}", villeUuid);
-        List<Quartier> quartiers = quartierRepository.findByVilleUuid(villeUuid);
+        List<Quartier> quartiers = Instantane.enfants(referentielGeographique.instantane().getQuartiersParVille(), villeUuid);
         log.info("Nombre de quartiers trouvés: {}", quartiers.size());
         return quartiers.stream().map(this::mapToResponse).toList();
     }
@@ -160,7 +169,7 @@ public class QuartierServiceImpl implements QuartierService {
     @Transactional(readOnly = true)
     public List<QuartierResponse> getQuartiersByRegion(String regionUuid) {
         log.info("Récupération des quartiers de la région: {}", regionUuid);
-        List<Quartier> quartiers = quartierRepository.findByRegionUuid(regionUuid);
+        List<Quartier> quartiers = Instantane.enfants(referentielGeographique.instantane().getQuartiersParRegion(), regionUuid);
         log.info("Nombre de quartiers trouvés: {}", quartiers.size());
         return quartiers.stream().map(this::mapToResponse).toList();
     }
@@ -169,7 +178,7 @@ public class QuartierServiceImpl implements QuartierService {
     @Transactional(readOnly = true)
     public QuartierResponse getQuartierByUuid(String quartierUuid) {
         log.info("Récupération du quartier: {}", quartierUuid);
-        Quartier quartier = quartierRepository.findByUuid(quartierUuid)
+        Quartier quartier = Optional.ofNullable(referentielGeographique.instantane().getQuartierParUuid().get(quartierUuid))
                 .orElseThrow(() -> new ApiException("Quartier non trouvé avec l'UUID: " + quartierUuid));
         return mapToResponse(quartier);
     }
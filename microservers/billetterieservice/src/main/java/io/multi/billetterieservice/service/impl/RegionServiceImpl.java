@@ -7,6 +7,7 @@ import io.multi.billetterieservice.dto.RegionUpdateRequest;
 import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.RegionRepository;
 import io.multi.billetterieservice.response.RegionResponse;
+import io.multi.billetterieservice.service.ReferentielGeographique;
 import io.multi.billetterieservice.service.RegionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implémentation du service pour la gestion des régions.
@@ -25,6 +27,7 @@ import java.util.List;
 public class RegionServiceImpl implements RegionService {
 
     private final RegionRepository regionRepository;
+    private final ReferentielGeographique referentielGeographique;
 
     @Override
     public RegionResponse createRegion(RegionCreateRequest request) {
@@ -45,6 +48,7 @@ public class RegionServiceImpl implements RegionService {
         // Sauvegarder et retourner
         Region savedRegion = regionRepository.save(region);
         log.info("Région créée avec succès: UUID={}", savedRegion.getRegionUuid());
+        referentielGeographique.invalider();
 
         return mapToResponse(savedRegion);
     }
@@ -68,6 +72,7 @@ public class RegionServiceImpl implements RegionService {
                 .orElseThrow(() -> new ApiException("Région non trouvée avec l'UUID: " + regionUuid));
 
         log.info("Région mise à jour avec succès: UUID={}", regionUuid);
+        referentielGeographique.invalider();
         return mapToResponse(updatedRegion);
     }
 
@@ -85,6 +90,7 @@ public class RegionServiceImpl implements RegionService {
                 .orElseThrow(() -> new ApiException("Région non trouvée avec l'UUID: " + regionUuid));
 
         log.info("Statut de la région mis à jour avec succès: UUID={}, actif={}", regionUuid, request.getActif());
+        referentielGeographique.invalider();
         return mapToResponse(updatedRegion);
     }
 
@@ -93,7 +99,7 @@ public class RegionServiceImpl implements RegionService {
     public List<RegionResponse> getAllRegions() {
         log.info("Récupération de toutes les régions");
 
-        List<Region> regions = regionRepository.findAll();
+        List<Region> regions = referentielGeographique.instantane().getRegions();
         log.info("Nombre de régions trouvées: {}", regions.size());
 
         return regions.stream()
@@ -106,7 +112,7 @@ public class RegionServiceImpl implements RegionService {
     public List<RegionResponse> getActiveRegions() {
         log.info("Récupération des régions actives");
 
-        List<Region> regions = regionRepository.findAllActive();
+        List<Region> regions = referentielGeographique.instantane().getRegionsActives();
         log.info("Nombre de régions actives trouvées: {}", regions.size());
 
         return regions.stream()
@@ -119,7 +125,7 @@ public class RegionServiceImpl implements RegionService {
     public RegionResponse getRegionByUuid(String regionUuid) {
         log.info("Récupération de la région: {}", regionUuid);
 
-        Region region = regionRepository.findByUuid(regionUuid)
+        Region region = Optional.ofNullable(referentielGeographique.instantane().getRegionParUuid().get(regionUuid))
                 .orElseThrow(() -> new ApiException("Région non trouvée avec l'UUID: " + regionUuid));
 
         return mapToResponse(region);
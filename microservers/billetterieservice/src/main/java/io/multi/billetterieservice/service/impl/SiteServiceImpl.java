@@ -7,6 +7,8 @@ import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.LocalisationRepository;
 import io.multi.billetterieservice.repository.SiteRepository;
 import io.multi.billetterieservice.repository.VilleRepository;
+import io.multi.billetterieservice.service.ReferentielGeographique;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
 import io.multi.billetterieservice.service.SiteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -24,26 +27,27 @@ public class SiteServiceImpl implements SiteService {
     private final SiteRepository siteRepository;
     private final LocalisationRepository localisationRepository;
     private final VilleRepository villeRepository;
+    private final ReferentielGeographique referentielGeographique;
 
     @Override
     @Transactional(readOnly = true)
     public List<Site> getAllSites() {
         log.info("Récupération de tous les sites");
-        return siteRepository.findAll();
+        return referentielGeographique.instantane().getSites();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Site> getAllSitesActifs() {
         log.info("Récupération de tous les sites actifs");
-        return siteRepository.findAllActifs();
+        return referentielGeographique.instantane().getSitesActifs();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Site getSiteByUuid(String uuid) {
         log.info("Récupération du site avec UUID: {}", uuid);
-        return siteRepository.findByUuid(uuid)
+        return Optional.ofNullable(referentielGeographique.instantane().getSiteParUuid().get(uuid))
                 .orElseThrow(() -> new ApiException("Site non trouvé avec l'UUID: " + uuid));
     }
 
@@ -51,30 +55,32 @@ public class SiteServiceImpl implements SiteService {
     @Transactional(readOnly = true)
     public List<Site> getSitesByTypeSite(String typeSite) {
         log.info("Récupération des sites de type: {}", typeSite);
-        return siteRepository.findByTypeSite(typeSite);
+        return Instantane.enfants(referentielGeographique.instantane().getSitesActifsParType(), typeSite);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Site> getSitesByLocalisation(String localisationUuid) {
         log.info("Récupération des sites pour la localisation: {}", localisationUuid);
-        Localisation localisation = localisationRepository.findByUuid(localisationUuid)
-                .orElseThrow(() -> new ApiException("Localisation non trouvée avec l'UUID: " + localisationUuid));
-        return siteRepository.findByLocalisation(localisation.getLocalisationId());
+        Instantane instantane = referentielGeographique.instantane();
+        if (!instantane.getLocalisationParUuid().containsKey(localisationUuid)) {
+            throw new ApiException("Localisation non trouvée avec l'UUID: " + localisationUuid);
+        }
+        return Instantane.enfants(instantane.getSitesParLocalisation(), localisationUuid);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Site> getSitesByVille(String villeUuid) {
         log.info("Récupération des sites pour la ville: {}", villeUuid);
-        return siteRepository.findByVille(villeUuid);
+        return Instantane.enfants(referentielGeographique.instantane().getSitesActifsParVille(), villeUuid);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Site> getSitesByCommune(String communeUuid) {
         log.info("Récupération des sites pour la commune: {}", communeUuid);
-        return siteRepository.findByCommune(communeUuid);
+        return Instantane.enfants(referentielGeographique.instantane().getSitesActifsParCommune(), communeUuid);
     }
 
     @Override
@@ -111,6 +117,7 @@ public class SiteServiceImpl implements SiteService {
         site.setLocalisationId(localisation.getLocalisationId());
         site.setVilleId(ville.getVilleId());
         Site savedSite = siteRepository.save(site);
+        referentielGeographique.invalider();
 
         // Recharger avec toutes les informations jointes
         return siteRepository.findByUuid(savedSite.getSiteUuid())
@@ -167,6 +174,7 @@ public class SiteServiceImpl implements SiteService {
         }
 
         Site updatedSite = siteRepository.update(existingSite);
+        referentielGeographique.invalider();
 
         // Recharger avec toutes les informations jointes
         return siteRepository.findByUuid(updatedSite.getSiteUuid())
@@ -183,6 +191,7 @@ public class SiteServiceImpl implements SiteService {
         boolean newActif = !site.getActif();
         siteRepository.updateActif(uuid, newActif);
         site.setActif(newActif);
+        referentielGeographique.invalider();
 
         return siteRepository.findByUuid(uuid).orElse(site);
     }
@@ -211,6 +220,7 @@ public class SiteServiceImpl implements SiteService {
         }
 
         log.info("Site supprimé avec succès: {}", uuid);
+        referentielGeographique.invalider();
     }
 }
 
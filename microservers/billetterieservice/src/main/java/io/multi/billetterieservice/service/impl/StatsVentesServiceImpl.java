@@ -0,0 +1,155 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.StatsVentes;
+import io.multi.billetterieservice.domain.Trajet;
+import io.multi.billetterieservice.domain.Vehicule;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.query.StatsVentesQuery;
+import io.multi.billetterieservice.repository.TrajetRepository;
+import io.multi.billetterieservice.repository.VehiculeRepository;
+import io.multi.billetterieservice.service.StatsVentesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatsVentesServiceImpl implements StatsVentesService {
+
+    private static final int PERIODE_DEFAUT_JOURS = 30;
+    private static final int PERIODE_MAX_JOURS = 366;
+    private static final long VERROU_INTEGRATION = 0x5354415453L; // "STATS"
+
+    private final JdbcClient jdbcClient;
+    private final TrajetRepository trajetRepository;
+    private final VehiculeRepository vehiculeRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getVentes(LocalDate debut, LocalDate fin) {
+        log.info("Statistiques de ventes globales du {} au {}", debut, fin);
+        return lire("", new HashMap<>(), debut, fin);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getVentesTransporteur(Long userId, LocalDate debut, LocalDate fin) {
+        log.info("Statistiques de ventes du transporteur {} du {} au {}", userId, debut, fin);
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        return lire(StatsVentesQuery.FILTRE_TRANSPORTEUR, params, debut, fin);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getVentesTrajet(String trajetUuid, LocalDate debut, LocalDate fin, Long proprietaireId) {
+        log.info("Statistiques de ventes du trajet {} du {} au {}", trajetUuid, debut, fin);
+        Trajet trajet = trajetRepository.findByUuid(trajetUuid)
+                .orElseThrow(() -> new ApiException("Trajet non trouvé: " + trajetUuid));
+        if (proprietaireId != null && !proprietaireId.equals(trajet.getUserId())) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les ventes de ce trajet");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("uuid", trajetUuid);
+        return lire(StatsVentesQuery.FILTRE_TRAJET, params, debut, fin);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getVentesVehicule(String vehiculeUuid, LocalDate debut, LocalDate fin, Long proprietaireId) {
+        log.info("Statistiques de ventes du véhicule {} du {} au {}", vehiculeUuid, debut, fin);
+        Vehicule vehicule = vehiculeRepository.findByUuid(vehiculeUuid)
+                .orElseThrow(() -> new ApiException("Véhicule non trouvé: " + vehiculeUuid));
+        if (proprietaireId != null && !proprietaireId.equals(vehicule.getUserId())) {
+            throw new ApiException("Vous n'êtes pas autorisé à consulter les ventes de ce véhicule");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("uuid", vehiculeUuid);
+        return lire(StatsVentesQuery.FILTRE_VEHICULE, params, debut, fin);
+    }
+
+    @Override
+    @Transactional
+    public int recalculer(LocalDate debut, LocalDate fin) {
+        Integer lignes = jdbcClient.sql(StatsVentesQuery.RECALCULER)
+                .param("debut", debut)
+                .param("fin", fin)
+                .query(Integer.class)
+                .single();
+        log.info("Agrégats de ventes consolidés du {} au {} : {} clé(s) corrigée(s)",
+                debut != null ? debut : "début", fin != null ? fin : "aujourd'hui", lignes);
+        return lignes != null ? lignes : 0;
+    }
+
+    @Override
+    @Transactional
+    public int integrerMouvements(int taille) {
+        Boolean verrou = jdbcClient.sql(StatsVentesQuery.VERROU_INTEGRATION)
+                .param("verrou", VERROU_INTEGRATION)
+                .query(Boolean.class)
+                .single();
+        if (!verrou) return 0;
+        Integer mouvements = jdbcClient.sql(StatsVentesQuery.INTEGRER_MOUVEMENTS)
+                .param("taille", taille)
+                .query(Integer.class)
+                .single();
+        return mouvements != null ? mouvements : 0;
+    }
+
+    private Map<String, Object> lire(String filtre, Map<String, Object> params, LocalDate debut, LocalDate fin) {
+        LocalDate dateFin = fin != null ? fin : LocalDate.now();
+        LocalDate dateDebut = debut != null ? debut : dateFin.minusDays(PERIODE_DEFAUT_JOURS - 1);
+        if (dateDebut.isAfter(dateFin)) {
+            throw new ApiException("La date de début doit précéder la date de fin");
+        }
+        if (ChronoUnit.DAYS.between(dateDebut, dateFin) >= PERIODE_MAX_JOURS) {
+            throw new ApiException("Période limitée à " + PERIODE_MAX_JOURS + " jours");
+        }
+        params.put("debut", dateDebut);
+        params.put("fin", dateFin);
+
+        List<StatsVentes> parJour = jdbcClient.sql(StatsVentesQuery.PAR_JOUR.formatted(filtre))
+                .params(params)
+                .query((rs, rowNum) -> StatsVentes.builder()
+                        .jour(rs.getObject("jour", LocalDate.class))
+                        .commandes(rs.getLong("commandes"))
+                        .places(rs.getLong("places"))
+                        .montant(rs.getBigDecimal("montant"))
+                        .annulations(rs.getLong("annulations"))
+                        .placesAnnulees(rs.getLong("places_annulees"))
+                        .montantAnnule(rs.getBigDecimal("montant_annule"))
+                        .build())
+                .list();
+
+        StatsVentes totaux = StatsVentes.builder()
+                .montant(BigDecimal.ZERO)
+                .montantAnnule(BigDecimal.ZERO)
+                .build();
+        for (StatsVentes jour : parJour) {
+            totaux.setCommandes(totaux.getCommandes() + jour.getCommandes());
+            totaux.setPlaces(totaux.getPlaces() + jour.getPlaces());
+            totaux.setMontant(totaux.getMontant().add(jour.getMontant()));
+            totaux.setAnnulations(totaux.getAnnulations() + jour.getAnnulations());
+            totaux.setPlacesAnnulees(totaux.getPlacesAnnulees() + jour.getPlacesAnnulees());
+            totaux.setMontantAnnule(totaux.getMontantAnnule().add(jour.getMontantAnnule()));
+        }
+
+        Map<String, Object> resultat = new LinkedHashMap<>();
+        resultat.put("debut", dateDebut);
+        resultat.put("fin", dateFin);
+        resultat.put("totaux", totaux);
+        resultat.put("parJour", parJour);
+        return resultat;
+    }
+}
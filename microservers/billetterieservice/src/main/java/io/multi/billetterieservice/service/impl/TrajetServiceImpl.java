@@ -8,8 +8,9 @@ import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.ArriveeRepository;
 import io.multi.billetterieservice.repository.DepartRepository;
 import io.multi.billetterieservice.repository.TrajetRepository;
+import io.multi.billetterieservice.service.IndexAutocompletion;
 import io.multi.billetterieservice.service.TrajetService;
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,7 +33,8 @@ public class TrajetServiceImpl implements TrajetService {
     private final TrajetRepository trajetRepository;
     private final DepartRepository departRepository;
     private final ArriveeRepository arriveeRepository;
-    private final UserClient userClient;
+    private final UserCache userCache;
+    private final IndexAutocompletion indexAutocompletion;
 
     // ========== LECTURE ==========
 
@@ -183,6 +185,7 @@ public class TrajetServiceImpl implements TrajetService {
 
         Trajet savedTrajet = trajetRepository.save(trajet);
         log.info("Trajet créé avec succès: {}", savedTrajet.getTrajetUuid());
+        indexAutocompletion.invaliderTrajets();
 
         return trajetRepository.findByUuid(savedTrajet.getTrajetUuid()).orElse(savedTrajet);
     }
@@ -233,6 +236,7 @@ public class TrajetServiceImpl implements TrajetService {
 
         Trajet updatedTrajet = trajetRepository.update(existingTrajet);
         log.info("Trajet mis à jour avec succès: {}", uuid);
+        indexAutocompletion.invaliderTrajets();
 
         return trajetRepository.findByUuid(uuid).orElse(updatedTrajet);
     }
@@ -263,6 +267,7 @@ public class TrajetServiceImpl implements TrajetService {
         }
 
         trajetRepository.updateActif(uuid, true);
+        indexAutocompletion.invaliderTrajets();
         return trajetRepository.findByUuid(uuid).orElse(trajet);
     }
 
@@ -280,6 +285,7 @@ public class TrajetServiceImpl implements TrajetService {
         }
 
         trajetRepository.updateActif(uuid, false);
+        indexAutocompletion.invaliderTrajets();
         return trajetRepository.findByUuid(uuid).orElse(trajet);
     }
 
@@ -311,6 +317,7 @@ public class TrajetServiceImpl implements TrajetService {
         }
 
         log.info("Trajet supprimé avec succès: {}", uuid);
+        indexAutocompletion.invaliderTrajets();
     }
 
     // ========== STATISTIQUES ==========
@@ -334,7 +341,7 @@ public class TrajetServiceImpl implements TrajetService {
      */
     private User getUserById(Long userId) {
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             if (user == null) {
                 throw new ApiException("Utilisateur non trouvé avec l'ID: " + userId);
             }
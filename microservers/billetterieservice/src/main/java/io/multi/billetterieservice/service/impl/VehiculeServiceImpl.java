@@ -7,7 +7,7 @@ import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.TypeVehiculeRepository;
 import io.multi.billetterieservice.repository.VehiculeRepository;
 import io.multi.billetterieservice.service.VehiculeService;
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,7 +28,7 @@ public class VehiculeServiceImpl implements VehiculeService {
 
     private final VehiculeRepository vehiculeRepository;
     private final TypeVehiculeRepository typeVehiculeRepository;
-    private final UserClient userClient;
+    private final UserCache userCache;
 
     // Constantes pour les statuts
     private static final String STATUT_ACTIF = "ACTIF";
@@ -36,6 +36,8 @@ public class VehiculeServiceImpl implements VehiculeService {
     private static final String STATUT_EN_MAINTENANCE = "EN_MAINTENANCE";
     private static final String STATUT_SUSPENDU = "SUSPENDU";
 
+    private static final int TAILLE_PAGE_MAX = 100;
+
     // ========== LECTURE ==========
 
     @Override
@@ -126,12 +128,13 @@ public class VehiculeServiceImpl implements VehiculeService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Vehicule> search(String searchTerm) {
-        log.info("Recherche des véhicules: {}", searchTerm);
+    public List<Vehicule> search(String searchTerm, int page, int size) {
+        log.info("Recherche des véhicules: {} (page {})", searchTerm, page);
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return vehiculeRepository.findAllActifs();
         }
-        return vehiculeRepository.search(searchTerm.trim());
+        int taille = Math.min(Math.max(size, 1), TAILLE_PAGE_MAX);
+        return vehiculeRepository.search(searchTerm.trim(), taille, Math.max(page, 0) * taille);
     }
 
     // ========== ÉCRITURE ==========
@@ -329,7 +332,7 @@ public class VehiculeServiceImpl implements VehiculeService {
 
     private User getUserById(Long userId) {
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             if (user == null) {
                 throw new ApiException("Utilisateur non trouvé avec l'ID: " + userId);
             }
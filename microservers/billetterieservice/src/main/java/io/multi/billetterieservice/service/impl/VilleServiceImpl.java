@@ -5,6 +5,8 @@ import io.multi.billetterieservice.dto.VilleUpdateRequest;
 import io.multi.billetterieservice.exception.ApiException;
 import io.multi.billetterieservice.repository.VilleRepository;
 import io.multi.billetterieservice.response.VilleResponse;
+import io.multi.billetterieservice.service.ReferentielGeographique;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
 import io.multi.billetterieservice.service.VilleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implémentation du service pour la gestion des villes.
@@ -23,6 +26,7 @@ import java.util.List;
 public class VilleServiceImpl implements VilleService {
 
     private final VilleRepository villeRepository;
+    private final ReferentielGeographique referentielGeographique;
 
     @Override
     public VilleResponse createVille(VilleCreateRequest request) {
@@ -48,6 +52,7 @@ public class VilleServiceImpl implements VilleService {
         // Sauvegarder
         Ville savedVille = villeRepository.save(ville);
         log.info("Ville créée avec succès: UUID={}", savedVille.getVilleUuid());
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations de la région pour la réponse
         return villeRepository.findByUuid(savedVille.getVilleUuid())
@@ -83,6 +88,7 @@ public class VilleServiceImpl implements VilleService {
                 .orElseThrow(() -> new ApiException("Erreur lors de la mise à jour de la ville"));
 
         log.info("Ville mise à jour avec succès: UUID={}", villeUuid);
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations de la région pour la réponse
         return villeRepository.findByUuid(villeUuid)
@@ -104,6 +110,7 @@ public class VilleServiceImpl implements VilleService {
                 .orElseThrow(() -> new ApiException("Erreur lors de la mise à jour du statut de la ville"));
 
         log.info("Statut de la ville mis à jour avec succès: UUID={}, actif={}", villeUuid, actif);
+        referentielGeographique.invalider();
 
         // Récupérer avec les informations de la région pour la réponse
         return villeRepository.findByUuid(villeUuid)
@@ -116,7 +123,7 @@ public class VilleServiceImpl implements VilleService {
     public List<VilleResponse> getAllVilles() {
         log.info("Récupération de toutes les villes");
 
-        List<Ville> villes = villeRepository.findAll();
+        List<Ville> villes = referentielGeographique.instantane().getVilles();
         log.info("Nombre de villes trouvées: {}", villes.size());
 
         return villes.stream()
@@ -129,7 +136,7 @@ public class VilleServiceImpl implements VilleService {
     public List<VilleResponse> getActiveVilles() {
         log.info("Récupération des villes actives");
 
-        List<Ville> villes = villeRepository.findAllActive();
+        List<Ville> villes = referentielGeographique.instantane().getVillesActives();
         log.info("Nombre de villes actives trouvées: {}", villes.size());
 
         return villes.stream()
@@ -142,7 +149,7 @@ public class VilleServiceImpl implements VilleService {
     public List<VilleResponse> getVillesByRegion(String regionUuid) {
         log.info("Récupération des villes de la région: {}", regionUuid);
 
-        List<Ville> villes = villeRepository.findByRegionUuid(regionUuid);
+        List<Ville> villes = Instantane.enfants(referentielGeographique.instantane().getVillesParRegion(), regionUuid);
         log.info("Nombre de villes trouvées pour la région {}: {}", regionUuid, villes.size());
 
         return villes.stream()
@@ -155,7 +162,9 @@ public class VilleServiceImpl implements VilleService {
     public List<VilleResponse> getActiveVillesByRegion(String regionUuid) {
         log.info("Récupération des villes actives de la région: {}", regionUuid);
 
-        List<Ville> villes = villeRepository.findActiveByRegionUuid(regionUuid);
+        List<Ville> villes = Instantane.enfants(referentielGeographique.instantane().getVillesParRegion(), regionUuid).stream()
+                .filter(ville -> Boolean.TRUE.equals(ville.getActif()))
+                .toList();
         log.info("Nombre de villes actives trouvées pour la région {}: {}", regionUuid, villes.size());
 
         return villes.stream()
@@ -168,7 +177,7 @@ public class VilleServiceImpl implements VilleService {
     public VilleResponse getVilleByUuid(String villeUuid) {
         log.info("Récupération de la ville: {}", villeUuid);
 
-        Ville ville = villeRepository.findByUuid(villeUuid)
+        Ville ville = Optional.ofNullable(referentielGeographique.instantane().getVilleParUuid().get(villeUuid))
                 .orElseThrow(() -> new ApiException("Ville non trouvée avec l'UUID: " + villeUuid));
 
         return mapToResponse(ville);
@@ -0,0 +1,70 @@
+package io.multi.billetterieservice.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache borné LRU avec durée de vie par entrée.
+ *
+ * Au-delà de `tailleMax`, l'entrée la moins récemment lue est évincée
+ * (LinkedHashMap en ordre d'accès) ; une entrée plus vieille que `ttlMillis`
+ * est ignorée et retirée à la lecture.
+ *
+ * Thread-safe (méthodes synchronisées) ; prévu pour quelques milliers
+ * d'entrées lues bien plus souvent qu'écrites.
+ */
+public class CacheLruTtl<K, V> {
+
+    private final long ttlMillis;
+    private final Map<K, Entree<V>> entrees;
+
+    public CacheLruTtl(int tailleMax, long ttlMillis) {
+        if (tailleMax <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("tailleMax et ttlMillis doivent être positifs");
+        }
+        this.ttlMillis = ttlMillis;
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entree<V>> plusAncienne) {
+                return size() > tailleMax;
+            }
+        };
+    }
+
+    /** Valeur encore valide, ou null (absente ou expirée). */
+    public synchronized V get(K cle) {
+        Entree<V> entree = entrees.get(cle);
+        if (entree == null) return null;
+        if (System.currentTimeMillis() - entree.creeeLe > ttlMillis) {
+            entrees.remove(cle);
+            return null;
+        }
+        return entree.valeur;
+    }
+
+    public synchronized void put(K cle, V valeur) {
+        entrees.put(cle, new Entree<>(valeur, System.currentTimeMillis()));
+    }
+
+    public synchronized void remove(K cle) {
+        entrees.remove(cle);
+    }
+
+    public synchronized void clear() {
+        entrees.clear();
+    }
+
+    public synchronized int size() {
+        return entrees.size();
+    }
+
+    private static final class Entree<V> {
+        private final V valeur;
+        private final long creeeLe;
+
+        private Entree(V valeur, long creeeLe) {
+            this.valeur = valeur;
+            this.creeeLe = creeeLe;
+        }
+    }
+}
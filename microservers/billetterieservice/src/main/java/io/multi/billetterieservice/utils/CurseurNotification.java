@@ -0,0 +1,43 @@
+package io.multi.billetterieservice.utils;
+
+import io.multi.billetterieservice.domain.InAppNotification;
+import io.multi.billetterieservice.exception.ApiException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+
+/**
+ * Curseur de pagination keyset du fil de notifications sur (created_at, notification_id).
+ * Opaque pour le client (base64 url-safe), il désigne la dernière notification
+ * de la page précédente.
+ */
+@Getter
+@AllArgsConstructor
+public class CurseurNotification {
+
+    private final OffsetDateTime createdAt;
+    private final Long notificationId;
+
+    public static CurseurNotification de(InAppNotification notification) {
+        return new CurseurNotification(notification.getCreatedAt(), notification.getNotificationId());
+    }
+
+    public String encoder() {
+        String brut = createdAt + "|" + notificationId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return null si aucun curseur (première page) */
+    public static CurseurNotification decoder(String curseur) {
+        if (curseur == null || curseur.isBlank()) return null;
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8).split("\\|");
+            return new CurseurNotification(OffsetDateTime.parse(parties[0]), Long.parseLong(parties[1]));
+        } catch (RuntimeException e) {
+            throw new ApiException("Curseur de pagination invalide");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.multi.billetterieservice.utils;
+
+import io.multi.billetterieservice.domain.Offre;
+import io.multi.billetterieservice.exception.ApiException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Curseur de pagination keyset sur (date_depart, heure_depart, offre_id).
+ * Exposé au client sous forme opaque (base64 url-safe), il désigne la dernière
+ * offre de la page précédente.
+ */
+@Getter
+@AllArgsConstructor
+public class CurseurOffre {
+
+    private final LocalDate dateDepart;
+    private final LocalTime heureDepart;
+    private final Long offreId;
+
+    public static CurseurOffre de(Offre offre) {
+        return new CurseurOffre(offre.getDateDepart(), offre.getHeureDepart(), offre.getOffreId());
+    }
+
+    public String encoder() {
+        String brut = dateDepart + "|" + heureDepart + "|" + offreId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return null si aucun curseur (première page) */
+    public static CurseurOffre decoder(String curseur) {
+        if (curseur == null || curseur.isBlank()) return null;
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8).split("\\|");
+            return new CurseurOffre(LocalDate.parse(parties[0]), LocalTime.parse(parties[1]), Long.parseLong(parties[2]));
+        } catch (RuntimeException e) {
+            throw new ApiException("Curseur de pagination invalide");
+        }
+    }
+}
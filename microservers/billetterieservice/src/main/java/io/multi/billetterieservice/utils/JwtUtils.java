@@ -1,18 +1,37 @@
 package io.multi.billetterieservice.utils;
 
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtUtils {
 
-    private final UserClient userClient;
+    private final UserCache userCache;
+
+    /** Claim "authorities" (rôles et permissions séparés par des virgules) contient l'une des autorités. */
+    public boolean hasAnyAuthority(Jwt jwt, String... autorites) {
+        Object claim = jwt.getClaim("authorities");
+        if (!(claim instanceof String valeur) || valeur.isBlank()) return false;
+        Set<String> detenues = Arrays.stream(valeur.split(","))
+                .map(String::trim)
+                .collect(Collectors.toSet());
+        return Arrays.stream(autorites).anyMatch(detenues::contains);
+    }
+
+    /** Administrateur de la plateforme (ADMIN ou SUPER_ADMIN) : accès aux données de tous les transporteurs. */
+    public boolean isAdmin(Jwt jwt) {
+        return hasAnyAuthority(jwt, "ADMIN", "SUPER_ADMIN");
+    }
 
     public Long extractUserId(Jwt jwt) {
         log.debug("Extraction du user_id depuis le JWT. Claims disponibles: {}", jwt.getClaims().keySet());
@@ -65,7 +84,7 @@ public class JwtUtils {
         if (userUuid != null && !userUuid.isBlank()) {
             log.debug("Tentative de récupération de l'utilisateur par UUID: {}", userUuid);
             try {
-                User user = userClient.getUserByUuid(userUuid);
+                User user = userCache.getUserByUuid(userUuid);
                 if (user != null && user.getUserId() != null) {
                     log.debug("Utilisateur trouvé: userId={}", user.getUserId());
                     return user.getUserId();
@@ -0,0 +1,178 @@
+package io.multi.billetterieservice.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Trie de préfixes figé, insensible aux accents et à la casse, pour l'autocomplétion.
+ *
+ * Chaque libellé est indexé à partir de chaque début de mot ("Gare routière de
+ * Labé" répond à "gar", "rout" et "lab"). Chaque nœud conserve ses meilleurs
+ * éléments (ordre fourni à la construction, ex. popularité) : une recherche ne
+ * parcourt que les caractères du préfixe, sans explorer le sous-arbre.
+ *
+ * Immuable une fois construit (Constructeur → construire()) : partageable entre
+ * threads sans verrou, remplacé d'un bloc quand les données changent.
+ */
+public class PrefixTrie<T> {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern APOSTROPHES = Pattern.compile("['’`]");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Noeud racine;
+    private final int elements;
+    private final int noeuds;
+
+    private PrefixTrie(Noeud racine, int elements, int noeuds) {
+        this.racine = racine;
+        this.elements = elements;
+        this.noeuds = noeuds;
+    }
+
+    /** Forme de comparaison : sans accents, minuscules, apostrophes retirées (N'Zérékoré → nzerekore). */
+    public static String normaliser(String texte) {
+        if (texte == null) return "";
+        String sansAccents = DIACRITIQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        String sansApostrophes = APOSTROPHES.matcher(sansAccents.toLowerCase(Locale.ROOT)).replaceAll("");
+        return SEPARATEURS.matcher(sansApostrophes).replaceAll(" ").trim();
+    }
+
+    public static <T> Constructeur<T> constructeur(int capaciteParNoeud, Comparator<T> ordre) {
+        return new Constructeur<>(capaciteParNoeud, ordre);
+    }
+
+    /** Meilleurs éléments dont un mot commence par le préfixe (déjà dans l'ordre de classement). */
+    @SuppressWarnings("unchecked")
+    public List<T> rechercher(String prefixe, int limite) {
+        String cle = normaliser(prefixe);
+        if (cle.isEmpty() || limite <= 0) return List.of();
+        Noeud noeud = racine;
+        for (int i = 0; i < cle.length() && noeud != null; i++) {
+            noeud = noeud.enfant(cle.charAt(i));
+        }
+        if (noeud == null) return List.of();
+        Object[] meilleurs = noeud.meilleurs;
+        List<T> resultats = new ArrayList<>(Math.min(limite, meilleurs.length));
+        for (int i = 0; i < meilleurs.length && i < limite; i++) {
+            resultats.add((T) meilleurs[i]);
+        }
+        return resultats;
+    }
+
+    public int getElements() {
+        return elements;
+    }
+
+    public int getNoeuds() {
+        return noeuds;
+    }
+
+    /** Nœud figé : enfants triés par caractère (recherche dichotomique). */
+    private static final class Noeud {
+        private static final Object[] AUCUN = new Object[0];
+
+        private final char[] caracteres;
+        private final Noeud[] enfants;
+        private final Object[] meilleurs;
+
+        private Noeud(char[] caracteres, Noeud[] enfants, Object[] meilleurs) {
+            this.caracteres = caracteres;
+            this.enfants = enfants;
+            this.meilleurs = meilleurs;
+        }
+
+        private Noeud enfant(char c) {
+            int i = Arrays.binarySearch(caracteres, c);
+            return i >= 0 ? enfants[i] : null;
+        }
+    }
+
+    /** Construction mono-thread, puis figée par construire(). */
+    public static final class Constructeur<T> {
+
+        private final int capacite;
+        private final Comparator<T> ordre;
+        private final NoeudMutable<T> racine = new NoeudMutable<>();
+        private int elements;
+        private int noeuds = 1;
+
+        private Constructeur(int capacite, Comparator<T> ordre) {
+            this.capacite = Math.max(1, capacite);
+            this.ordre = ordre;
+        }
+
+        /** Indexe l'élément sous chaque début de mot de chacun des libellés fournis. */
+        public Constructeur<T> ajouter(T element, String... libelles) {
+            elements++;
+            for (String libelle : libelles) {
+                String texte = normaliser(libelle);
+                for (int debut = 0; debut < texte.length(); debut++) {
+                    if (debut == 0 || texte.charAt(debut - 1) == ' ') {
+                        inserer(texte, debut, element);
+                    }
+                }
+            }
+            return this;
+        }
+
+        public PrefixTrie<T> construire() {
+            return new PrefixTrie<>(figer(racine), elements, noeuds);
+        }
+
+        private void inserer(String texte, int debut, T element) {
+            NoeudMutable<T> noeud = racine;
+            for (int i = debut; i < texte.length(); i++) {
+                NoeudMutable<T> enfant = noeud.enfants.get(texte.charAt(i));
+                if (enfant == null) {
+                    enfant = new NoeudMutable<>();
+                    noeud.enfants.put(texte.charAt(i), enfant);
+                    noeuds++;
+                }
+                noeud = enfant;
+                noeud.proposer(element, capacite, ordre);
+            }
+        }
+
+        private Noeud figer(NoeudMutable<T> noeud) {
+            char[] caracteres = new char[noeud.enfants.size()];
+            Noeud[] enfants = new Noeud[caracteres.length];
+            int i = 0;
+            for (Map.Entry<Character, NoeudMutable<T>> entree : noeud.enfants.entrySet()) {
+                caracteres[i] = entree.getKey();
+                enfants[i] = figer(entree.getValue());
+                i++;
+            }
+            Object[] meilleurs = noeud.meilleurs.isEmpty() ? Noeud.AUCUN : noeud.meilleurs.toArray();
+            return new Noeud(caracteres, enfants, meilleurs);
+        }
+    }
+
+    private static final class NoeudMutable<T> {
+        private final TreeMap<Character, NoeudMutable<T>> enfants = new TreeMap<>();
+        private final List<T> meilleurs = new ArrayList<>(2);
+
+        /** Garde les `capacite` meilleurs éléments, triés, sans doublon (un élément peut arriver par plusieurs mots). */
+        private void proposer(T element, int capacite, Comparator<T> ordre) {
+            for (T present : meilleurs) {
+                if (present == element) return;
+            }
+            int position = meilleurs.size();
+            while (position > 0 && ordre.compare(element, meilleurs.get(position - 1)) < 0) {
+                position--;
+            }
+            if (position >= capacite) return;
+            meilleurs.add(position, element);
+            if (meilleurs.size() > capacite) {
+                meilleurs.remove(meilleurs.size() - 1);
+            }
+        }
+    }
+}
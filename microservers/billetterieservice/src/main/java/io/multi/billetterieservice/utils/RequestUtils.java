@@ -7,19 +7,24 @@ import io.multi.billetterieservice.domain.Response;
 import io.multi.billetterieservice.exception.ApiException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.*;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static java.util.Collections.emptyMap;
 import static org.apache.commons.lang.exception.ExceptionUtils.getRootCauseMessage;
 import static org.apache.logging.log4j.util.Strings.EMPTY;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON_VALUE;
 
@@ -81,6 +86,25 @@ public class RequestUtils {
         );
     }
 
+    /**
+     * Réponse GET conditionnelle : 304 sans corps si le client présente déjà la
+     * version courante (If-None-Match), sinon la réponse habituelle avec son ETag.
+     * Les données ne sont calculées que si elles doivent être envoyées.
+     */
+    public static ResponseEntity<Response> getConditionalResponse(HttpServletRequest request, String etag,
+                                                                  Supplier<Map<?, ?>> data, String message) {
+        String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+        if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidat -> candidat.equals(etag) || candidat.equals("W/" + etag) || candidat.equals("*"))) {
+            return ResponseEntity.status(NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(getResponse(request, data.get(), message, OK));
+    }
+
     private static final BiFunction<Exception, HttpStatus, String> errorReason = (exception, httpStatus) -> {
         if(httpStatus.isSameCodeAs(FORBIDDEN)) {
             return "You don't have enough permission";
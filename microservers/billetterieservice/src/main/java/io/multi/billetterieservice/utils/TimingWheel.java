@@ -0,0 +1,80 @@
+package io.multi.billetterieservice.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Roue temporelle hachée (hashed timing wheel) pour expirer des clés à échéance.
+ *
+ * Chaque clé est rangée dans le seau (échéance en ticks % taille) : planifier et
+ * annuler sont en O(1), et un tick ne parcourt qu'un seau au lieu de toutes les
+ * échéances. Une clé dont l'échéance est à plus d'un tour de roue reste dans son
+ * seau jusqu'au bon tour (comparaison sur le tick absolu).
+ *
+ * Thread-safe (méthodes synchronisées) ; avancée par un appelant périodique.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<Set<T>> seaux;
+    private final Map<T, Long> echeances = new HashMap<>();
+    private long dernierTick;
+
+    public TimingWheel(long tickMillis, int taille, long maintenantMillis) {
+        if (tickMillis <= 0 || taille <= 0) {
+            throw new IllegalArgumentException("tickMillis et taille doivent être positifs");
+        }
+        this.tickMillis = tickMillis;
+        this.seaux = new ArrayList<>(taille);
+        for (int i = 0; i < taille; i++) {
+            seaux.add(new HashSet<>());
+        }
+        this.dernierTick = maintenantMillis / tickMillis;
+    }
+
+    /** Planifie (ou replanifie) l'expiration d'une clé. Une échéance passée expire au prochain tick. */
+    public synchronized void planifier(T cle, long echeanceMillis) {
+        annuler(cle);
+        long tick = Math.max(Math.ceilDiv(echeanceMillis, tickMillis), dernierTick + 1);
+        echeances.put(cle, tick);
+        seaux.get((int) (tick % seaux.size())).add(cle);
+    }
+
+    /** Retire une clé de la roue (consommée ou libérée avant échéance). */
+    public synchronized boolean annuler(T cle) {
+        Long tick = echeances.remove(cle);
+        if (tick == null) return false;
+        seaux.get((int) (tick % seaux.size())).remove(cle);
+        return true;
+    }
+
+    /** Avance la roue jusqu'à maintenant et retourne les clés échues. */
+    public synchronized List<T> avancer(long maintenantMillis) {
+        long tickCible = maintenantMillis / tickMillis;
+        List<T> echues = new ArrayList<>();
+        // Au-delà d'un tour complet, chaque seau est visité une seule fois
+        long debut = Math.max(dernierTick + 1, tickCible - seaux.size() + 1);
+        for (long tick = debut; tick <= tickCible; tick++) {
+            Iterator<T> it = seaux.get((int) (tick % seaux.size())).iterator();
+            while (it.hasNext()) {
+                T cle = it.next();
+                if (echeances.get(cle) <= tickCible) {
+                    it.remove();
+                    echeances.remove(cle);
+                    echues.add(cle);
+                }
+            }
+        }
+        dernierTick = Math.max(dernierTick, tickCible);
+        return echues;
+    }
+
+    public synchronized int size() {
+        return echeances.size();
+    }
+}
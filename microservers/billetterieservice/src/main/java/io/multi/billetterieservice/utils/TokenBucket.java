@@ -0,0 +1,47 @@
+package io.multi.billetterieservice.utils;
+
+/**
+ * Seau à jetons local : `debit` jetons par seconde, au plus `capacite` en réserve.
+ *
+ * Chaque appel sortant consomme un jeton ; sans jeton disponible l'appelant ne
+ * patiente pas (tenterAcquerir retourne false) et bascule sur son repli. Le
+ * remplissage est calculé à la demande à partir du temps écoulé, sans thread.
+ *
+ * Thread-safe (méthodes synchronisées).
+ */
+public class TokenBucket {
+
+    private final double capacite;
+    private final double jetonsParNano;
+    private double jetons;
+    private long dernierRemplissage;
+
+    public TokenBucket(double debitParSeconde, double capacite) {
+        if (debitParSeconde <= 0 || capacite < 1) {
+            throw new IllegalArgumentException("debitParSeconde doit être positif et capacite au moins 1");
+        }
+        this.capacite = capacite;
+        this.jetonsParNano = debitParSeconde / 1_000_000_000d;
+        this.jetons = capacite;
+        this.dernierRemplissage = System.nanoTime();
+    }
+
+    /** Consomme un jeton s'il y en a un, sans attendre. */
+    public synchronized boolean tenterAcquerir() {
+        remplir();
+        if (jetons < 1) return false;
+        jetons -= 1;
+        return true;
+    }
+
+    public synchronized double getJetonsDisponibles() {
+        remplir();
+        return jetons;
+    }
+
+    private void remplir() {
+        long maintenant = System.nanoTime();
+        jetons = Math.min(capacite, jetons + (maintenant - dernierRemplissage) * jetonsParNano);
+        dernierRemplissage = maintenant;
+    }
+}
@@ -0,0 +1,40 @@
+package io.multi.billetterieservice.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions rattachées à l'issue de la transaction courante (caches, index et
+ * compteurs en mémoire qui ne doivent refléter que des écritures commitées).
+ */
+public final class TransactionUtils {
+
+    private TransactionUtils() {}
+
+    /** Exécute l'action au commit de la transaction courante, tout de suite s'il n'y en a pas. */
+    public static void apresCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Exécute l'action si la transaction courante est annulée ; rien hors transaction. */
+    public static void siAnnulee(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package io.multi.billetterieservice.query;
+
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Triggers référentiels de offre_search (V40) : seules les offres non passées
+ * sont recalculées, updated_at avance pour les lecteurs incrémentaux, et un
+ * UPDATE qui ne change aucune colonne affichée ne recalcule rien.
+ */
+class OffreSearchSynchronisationTest extends BaseDonneesTest {
+
+    @Test
+    void renommageTrajet_offresAVenirSeulement() {
+        Long transporteur = creerUtilisateur();
+        Long trajetId = creerTrajet(transporteur);
+        Long vehiculeId = creerVehicule(transporteur, 10);
+        OffreTest aVenir = creerOffre(transporteur, trajetId, vehiculeId, 10, 7);
+        OffreTest passee = creerOffre(transporteur, trajetId, vehiculeId, 10, -3);
+        OffsetDateTime avant = majLe(aVenir.offreId());
+
+        jdbcClient.sql("UPDATE trajets SET libelle_trajet = 'Conakry - Labé' WHERE trajet_id = :trajetId")
+                .param("trajetId", trajetId)
+                .update();
+
+        assertEquals("Conakry - Labé", libelle(aVenir.offreId(), "trajet_libelle"));
+        assertTrue(majLe(aVenir.offreId()).isAfter(avant));
+        assertTrue(libelle(passee.offreId(), "trajet_libelle").startsWith("Trajet "));
+    }
+
+    @Test
+    void updateSansChangement_neRecalculePas() {
+        OffreTest offre = creerOffre(5);
+        OffsetDateTime avant = majLe(offre.offreId());
+
+        jdbcClient.sql("""
+                        UPDATE trajets SET libelle_trajet = libelle_trajet
+                        WHERE trajet_id = (SELECT trajet_id FROM offres WHERE offre_id = :offreId)
+                        """)
+                .param("offreId", offre.offreId())
+                .update();
+
+        assertEquals(avant, majLe(offre.offreId()));
+    }
+
+    @Test
+    void rattachementCommune_villeDeLaChaine() {
+        OffreTest offre = creerOffre(5);
+        Long siteId = jdbcClient.sql("""
+                        SELECT d.site_id FROM offres o
+                        JOIN trajets t ON o.trajet_id = t.trajet_id
+                        JOIN departs d ON t.depart_id = d.depart_id
+                        WHERE o.offre_id = :offreId
+                        """)
+                .param("offreId", offre.offreId())
+                .query(Long.class)
+                .single();
+        Long communeId = jdbcClient.sql("""
+                        INSERT INTO communes (ville_id, libelle)
+                        SELECT ville_id, 'Commune Chaine' FROM sites WHERE site_id = :siteId
+                        RETURNING commune_id
+                        """)
+                .param("siteId", siteId)
+                .query(Long.class)
+                .single();
+        jdbcClient.sql("""
+                        WITH quartier AS (
+                            INSERT INTO quartiers (commune_id, libelle) VALUES (:communeId, 'Quartier Chaine')
+                            RETURNING quartier_id
+                        )
+                        UPDATE localisations SET quartier_id = (SELECT quartier_id FROM quartier)
+                        WHERE localisation_id = (SELECT localisation_id FROM sites WHERE site_id = :siteId)
+                        """)
+                .param("communeId", communeId)
+                .param("siteId", siteId)
+                .update();
+        // Ville portée par la seule chaîne localisation → quartier → commune
+        jdbcClient.sql("UPDATE sites SET ville_id = NULL WHERE site_id = :siteId")
+                .param("siteId", siteId)
+                .update();
+        Long autreVille = jdbcClient.sql("""
+                        INSERT INTO villes (region_id, libelle)
+                        SELECT region_id, 'Ville Rattachee ' || :communeId FROM regions WHERE code = 'CKY'
+                        RETURNING ville_id
+                        """)
+                .param("communeId", communeId)
+                .query(Long.class)
+                .single();
+
+        jdbcClient.sql("UPDATE communes SET ville_id = :villeId WHERE commune_id = :communeId")
+                .param("villeId", autreVille)
+                .param("communeId", communeId)
+                .update();
+
+        assertEquals("Ville Rattachee " + communeId, libelle(offre.offreId(), "ville_depart_libelle"));
+    }
+
+    // ---- helpers ----
+
+    private static OffsetDateTime majLe(Long offreId) {
+        return jdbcClient.sql("SELECT updated_at FROM offre_search WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query((rs, rowNum) -> rs.getObject("updated_at", OffsetDateTime.class))
+                .single();
+    }
+
+    private static String libelle(Long offreId, String colonne) {
+        return jdbcClient.sql("SELECT " + colonne + " FROM offre_search WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query(String.class)
+                .single();
+    }
+}
@@ -0,0 +1,77 @@
+package io.multi.billetterieservice.query;
+
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans des recherches textuelles (V46) : les expressions des requêtes doivent
+ * rester identiques à celles des index trigrammes, sinon le planificateur
+ * retombe sur un parcours séquentiel sans erreur visible. Le parcours
+ * séquentiel est désactivé pour la transaction : sur des tables presque vides
+ * il serait choisi de toute façon, seul compte ici que l'index soit utilisable.
+ * Les parcours d'index ordonnés aussi (tri keyset) : les index trigrammes GIN
+ * ne servent que des parcours bitmap.
+ */
+class RechercheTrigrammesPlanTest extends BaseDonneesTest {
+
+    @Test
+    void rechercheVehicules_indexDocumentEtType() {
+        String plan = plan(VehiculeQuery.SEARCH);
+
+        assertTrue(plan.contains("idx_vehicules_recherche_trgm"), plan);
+        assertTrue(plan.contains("idx_types_vehicules_libelle_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan on vehicules"), plan);
+    }
+
+    @Test
+    void recherchePartenaires_indexDocumentEtVille() {
+        String plan = plan(PartenaireQuery.SEARCH);
+
+        assertTrue(plan.contains("idx_partenaires_recherche_trgm"), plan);
+        assertTrue(plan.contains("idx_villes_libelle_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan on partenaires"), plan);
+    }
+
+    @Test
+    void rechercheOffres_indexPartiel() {
+        String plan = plan(OffreQuery.SEARCH.formatted(""));
+
+        assertTrue(plan.contains("idx_offre_search_texte_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan on offre_search"), plan);
+    }
+
+    @Test
+    void texteRecherche_independantDuSearchPath() {
+        // Contexte des REINDEX / pg_restore : seul pg_catalog est visible (V46)
+        String texte = transactions.execute(statut -> {
+            jdbcClient.sql("SET LOCAL search_path = pg_catalog").update();
+            return jdbcClient.sql("SELECT public.f_texte_recherche('Labé', NULL, 'CONAKRY')")
+                    .query(String.class)
+                    .single();
+        });
+
+        assertEquals("labe conakry", texte);
+    }
+
+    // ---- helpers ----
+
+    private static String plan(String requete) {
+        List<String> lignes = transactions.execute(statut -> {
+            jdbcClient.sql("SET LOCAL enable_seqscan = off").update();
+            jdbcClient.sql("SET LOCAL enable_indexscan = off").update();
+            return jdbcClient.sql("EXPLAIN " + requete)
+                    .param("searchTerm", "conakri")
+                    .param("limit", 20)
+                    .param("offset", 0)
+                    .query(String.class)
+                    .list();
+        });
+        return String.join("\n", lignes);
+    }
+}
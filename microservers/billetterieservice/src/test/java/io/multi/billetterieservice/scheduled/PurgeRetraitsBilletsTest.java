@@ -0,0 +1,66 @@
+package io.multi.billetterieservice.scheduled;
+
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.clients.jobs.CoordinateurJobs;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * Purge des retraits du manifeste (V52) : ceux des offres parties au-delà de
+ * la conservation disparaissent, ceux des offres encore contrôlables restent.
+ */
+class PurgeRetraitsBilletsTest extends BaseDonneesTest {
+
+    @Test
+    void offrePartie_retraitsPurges() {
+        Long transporteur = creerUtilisateur();
+        Long trajetId = creerTrajet(transporteur);
+        Long vehiculeId = creerVehicule(transporteur, 10);
+        OffreTest partie = creerOffre(transporteur, trajetId, vehiculeId, 10, -10);
+        OffreTest hier = creerOffre(transporteur, trajetId, vehiculeId, 10, -1);
+        OffreTest aVenir = creerOffre(transporteur, trajetId, vehiculeId, 10, 7);
+        retrait(partie.offreId());
+        retrait(hier.offreId());
+        retrait(aVenir.offreId());
+
+        purge().purger();
+
+        assertEquals(0, retraits(partie.offreId()));
+        assertEquals(1, retraits(hier.offreId()));
+        assertEquals(1, retraits(aVenir.offreId()));
+    }
+
+    // ---- helpers ----
+
+    private static PurgeRetraitsBillets purge() {
+        CoordinateurJobs coordinateur = Mockito.mock(CoordinateurJobs.class);
+        Mockito.doAnswer(invocation -> ((IntSupplier) invocation.getArgument(2)).getAsInt())
+                .when(coordinateur).executer(anyString(), any(), any());
+        PurgeRetraitsBillets purge = new PurgeRetraitsBillets(jdbcClient, coordinateur);
+        ReflectionTestUtils.setField(purge, "joursConservation", 3);
+        return purge;
+    }
+
+    private static void retrait(Long offreId) {
+        jdbcClient.sql("""
+                        INSERT INTO billets_retraits (billet_id, code_billet, offre_id)
+                        VALUES (0, 'BIL-' || :offreId, :offreId)
+                        """)
+                .param("offreId", offreId)
+                .update();
+    }
+
+    private static int retraits(Long offreId) {
+        return jdbcClient.sql("SELECT COUNT(*) FROM billets_retraits WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query(Integer.class)
+                .single();
+    }
+}
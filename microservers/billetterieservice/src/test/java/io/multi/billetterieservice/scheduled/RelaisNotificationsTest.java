@@ -0,0 +1,105 @@
+package io.multi.billetterieservice.scheduled;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Relais des avis de notifications : créations et lectures ne font que
+ * journaliser (aucun pg_notify dans la transaction), le relais publie un avis
+ * par utilisateur avec le compteur courant.
+ */
+class RelaisNotificationsTest extends BaseDonneesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void deuxCreationsEtUneLecture_unSeulAvisCumule() throws Exception {
+        Long userId = creerUtilisateur();
+        try (Connection ecoute = dataSource.getConnection()) {
+            try (Statement statement = ecoute.createStatement()) {
+                statement.execute("LISTEN notifications_in_app");
+            }
+            creerNotification(userId);
+            creerNotification(userId);
+            jdbcClient.sql("UPDATE notifications SET lue = TRUE WHERE notification_id = "
+                            + "(SELECT MIN(notification_id) FROM notifications WHERE user_id = :userId)")
+                    .param("userId", userId)
+                    .update();
+            assertEquals(3, lignesJournal(userId));
+
+            relais().relayer();
+
+            List<JsonNode> avis = new ArrayList<>();
+            for (PGNotification notification : recues(ecoute)) {
+                for (JsonNode element : objectMapper.readTree(notification.getParameter())) {
+                    if (element.path("userId").asLong() == userId) avis.add(element);
+                }
+            }
+            assertEquals(1, avis.size());
+            assertEquals(1, avis.get(0).path("nonLues").asInt());
+            assertEquals(2, avis.get(0).path("nouvelles").asInt());
+            assertEquals(0, lignesJournal(userId));
+        }
+    }
+
+    @Test
+    void creationSansNotification_avantLeRelais() throws Exception {
+        Long userId = creerUtilisateur();
+        try (Connection ecoute = dataSource.getConnection()) {
+            try (Statement statement = ecoute.createStatement()) {
+                statement.execute("LISTEN notifications_in_app");
+            }
+            creerNotification(userId);
+
+            PGNotification[] notifications = ecoute.unwrap(PGConnection.class).getNotifications(200);
+            assertTrue(notifications == null || notifications.length == 0);
+        }
+    }
+
+    // ---- helpers ----
+
+    private static RelaisNotifications relais() {
+        RelaisNotifications relais = new RelaisNotifications(jdbcClient, transactionManager);
+        ReflectionTestUtils.setField(relais, "tailleLot", 1000);
+        return relais;
+    }
+
+    private static void creerNotification(Long userId) {
+        jdbcClient.sql("""
+                        INSERT INTO notifications (user_id, type_notification, categorie, titre, message)
+                        VALUES (:userId, 'IN_APP', 'RESERVATION', 'Test', 'Notification de test')
+                        """)
+                .param("userId", userId)
+                .update();
+    }
+
+    private static int lignesJournal(Long userId) {
+        return jdbcClient.sql("SELECT COUNT(*) FROM notifications_journal WHERE user_id = :userId")
+                .param("userId", userId)
+                .query(Integer.class)
+                .single();
+    }
+
+    private static List<PGNotification> recues(Connection ecoute) throws Exception {
+        List<PGNotification> recues = new ArrayList<>();
+        PGNotification[] notifications;
+        while ((notifications = ecoute.unwrap(PGConnection.class).getNotifications(500)) != null
+                && notifications.length > 0) {
+            recues.addAll(List.of(notifications));
+        }
+        return recues;
+    }
+}
@@ -0,0 +1,149 @@
+package io.multi.billetterieservice.scheduled;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.event.Notification;
+import io.multi.billetterieservice.query.OutboxQuery;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Relais de l'outbox sur une vraie table : ordre par clé préservé malgré les
+ * échecs (un seul événement en vol par clé), et aucune transaction ouverte
+ * pendant l'attente des acquittements Kafka. Kafka est simulé.
+ */
+class RelaisOutboxTest extends BaseDonneesTest {
+
+    @Test
+    void echecSurUneCle_lesSuivantsDeCetteCleNeSontPasEnvoyes() {
+        String cleA = cle();
+        String cleB = cle();
+        Long a1 = inserer(cleA);
+        Long a2 = inserer(cleA);
+        Long b1 = inserer(cleB);
+
+        List<String> envoyes = Collections.synchronizedList(new ArrayList<>());
+        vider(relais(envoyes, Set.of(cleA)));
+
+        assertEquals(List.of(cleA, cleB), envoyes.stream().filter(c -> c.equals(cleA) || c.equals(cleB)).toList());
+        assertEquals("EN_ATTENTE", statut(a1));
+        assertEquals(1, tentatives(a1));
+        assertEquals("EN_ATTENTE", statut(a2));
+        assertEquals(0, tentatives(a2));
+        assertEquals("PUBLIE", statut(b1));
+    }
+
+    @Test
+    void plusieursEvenementsDeMemeCle_publiesDansLOrdre() {
+        String cleA = cle();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(inserer(cleA));
+        }
+
+        List<String> envoyes = Collections.synchronizedList(new ArrayList<>());
+        vider(relais(envoyes, Set.of()));
+
+        List<String> attendus = new ArrayList<>();
+        for (Long id : ids) {
+            assertEquals("PUBLIE", statut(id));
+            attendus.add(cleA + "#" + uuid(id));
+        }
+        assertEquals(attendus, envoyes.stream().filter(e -> e.startsWith(cleA + "#")).toList());
+    }
+
+    @Test
+    void envois_horsTransaction() {
+        inserer(cle());
+        List<Boolean> transactionActive = Collections.synchronizedList(new ArrayList<>());
+        KafkaTemplate<String, Notification> kafka = kafka(message -> {
+            transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return CompletableFuture.completedFuture(null);
+        });
+        vider(new RelaisOutbox(jdbcClient, kafka, new ObjectMapper(), transactionManager));
+
+        assertFalse(transactionActive.isEmpty());
+        assertFalse(transactionActive.contains(Boolean.TRUE));
+    }
+
+    // ---- helpers ----
+
+    private interface Envoi {
+        CompletableFuture<?> envoyer(Message<?> message);
+    }
+
+    /** Relais dont Kafka échoue pour les clés en panne ; envoyes reçoit « cle » et « cle#uuid ». */
+    private static RelaisOutbox relais(List<String> envoyes, Set<String> enPanne) {
+        return new RelaisOutbox(jdbcClient, kafka(message -> {
+            String cle = (String) message.getHeaders().get(KafkaHeaders.KEY);
+            envoyes.add(cle);
+            envoyes.add(cle + "#" + ((Notification) message.getPayload()).getHeaders().get("id"));
+            return enPanne.contains(cle)
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker indisponible"))
+                    : CompletableFuture.completedFuture(null);
+        }), new ObjectMapper(), transactionManager);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, Notification> kafka(Envoi envoi) {
+        KafkaTemplate<String, Notification> kafka = Mockito.mock(KafkaTemplate.class);
+        Mockito.doAnswer(invocation -> envoi.envoyer(invocation.getArgument(0)))
+                .when(kafka).send(any(Message.class));
+        return kafka;
+    }
+
+    private static void vider(RelaisOutbox relais) {
+        ReflectionTestUtils.setField(relais, "tailleLot", 100);
+        ReflectionTestUtils.setField(relais, "tentativesMax", 10);
+        ReflectionTestUtils.setField(relais, "delaiEnvoiMs", 2000L);
+        ReflectionTestUtils.invokeMethod(relais, "vider");
+    }
+
+    private static String cle() {
+        return "test-" + UUID.randomUUID();
+    }
+
+    private static Long inserer(String cle) {
+        jdbcClient.sql(OutboxQuery.INSERT)
+                .param("topic", "NOTIFICATION_TOPIC")
+                .param("cle", cle)
+                .param("typeEvenement", "COMMANDE_CONFIRMEE")
+                .param("donnees", "{}")
+                .update();
+        return jdbcClient.sql("SELECT MAX(evenement_id) FROM outbox_evenements WHERE cle = :cle")
+                .param("cle", cle)
+                .query(Long.class)
+                .single();
+    }
+
+    private static String statut(Long id) {
+        return jdbcClient.sql("SELECT statut FROM outbox_evenements WHERE evenement_id = :id")
+                .param("id", id).query(String.class).single();
+    }
+
+    private static int tentatives(Long id) {
+        return jdbcClient.sql("SELECT tentatives FROM outbox_evenements WHERE evenement_id = :id")
+                .param("id", id).query(Integer.class).single();
+    }
+
+    private static String uuid(Long id) {
+        return jdbcClient.sql("SELECT evenement_uuid FROM outbox_evenements WHERE evenement_id = :id")
+                .param("id", id).query(String.class).single();
+    }
+}
@@ -0,0 +1,123 @@
+package io.multi.billetterieservice.scheduled;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.domain.PlacesOffre;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Relais des changements de places : les réservations ne font que journaliser,
+ * le relais publie un état par offre (deltas cumulés) par lot, en tableaux
+ * JSON sous la limite d'une charge utile NOTIFY.
+ */
+class RelaisPlacesTest extends BaseDonneesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void deuxChangements_unSeulEtatCumule() throws Exception {
+        OffreTest offre = creerOffre(20);
+        try (Connection ecoute = dataSource.getConnection()) {
+            try (Statement statement = ecoute.createStatement()) {
+                statement.execute("LISTEN places_offres");
+            }
+            retirerPlaces(offre.offreId(), 2);
+            retirerPlaces(offre.offreId(), 3);
+            assertEquals(2, lignesJournal(offre.offreId()));
+
+            relais().relayer();
+
+            List<PlacesOffre> etats = new ArrayList<>();
+            for (PGNotification notification : recues(ecoute)) {
+                for (PlacesOffre etat : objectMapper.readValue(notification.getParameter(), PlacesOffre[].class)) {
+                    if (etat.getOffreUuid().equals(offre.offreUuid())) etats.add(etat);
+                }
+            }
+            assertEquals(1, etats.size());
+            assertEquals(15, etats.get(0).getDisponibles().intValue());
+            assertEquals(-5, etats.get(0).getDelta());
+            assertEquals(0, lignesJournal(offre.offreId()));
+        }
+    }
+
+    @Test
+    void reservationsSansNotification_avantLeRelais() throws Exception {
+        OffreTest offre = creerOffre(20);
+        try (Connection ecoute = dataSource.getConnection()) {
+            try (Statement statement = ecoute.createStatement()) {
+                statement.execute("LISTEN places_offres");
+            }
+            retirerPlaces(offre.offreId(), 1);
+
+            PGNotification[] notifications = ecoute.unwrap(PGConnection.class).getNotifications(200);
+            assertTrue(notifications == null || notifications.length == 0);
+        }
+    }
+
+    @Test
+    void charges_decoupeesSousLaLimite() throws Exception {
+        List<String> etats = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            etats.add(objectMapper.writeValueAsString(PlacesOffre.builder()
+                    .offreUuid("offre-" + i).disponibles(i).reservees(0).total(50)
+                    .niveauRemplissage(0).statut("OUVERT").delta(-1).build()));
+        }
+
+        List<String> charges = RelaisPlaces.charges(etats);
+
+        assertTrue(charges.size() > 1);
+        int total = 0;
+        for (String charge : charges) {
+            assertTrue(charge.getBytes(StandardCharsets.UTF_8).length < 8000, String.valueOf(charge.length()));
+            total += objectMapper.readValue(charge, PlacesOffre[].class).length;
+        }
+        assertEquals(300, total);
+    }
+
+    // ---- helpers ----
+
+    private static RelaisPlaces relais() {
+        RelaisPlaces relais = new RelaisPlaces(jdbcClient, transactionManager);
+        ReflectionTestUtils.setField(relais, "tailleLot", 1000);
+        return relais;
+    }
+
+    private static void retirerPlaces(Long offreId, int places) {
+        jdbcClient.sql("""
+                        UPDATE offres SET nombre_places_disponibles = nombre_places_disponibles - :places
+                        WHERE offre_id = :offreId
+                        """)
+                .param("places", places)
+                .param("offreId", offreId)
+                .update();
+    }
+
+    private static int lignesJournal(Long offreId) {
+        return jdbcClient.sql("SELECT COUNT(*) FROM places_offres_journal WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query(Integer.class)
+                .single();
+    }
+
+    private static List<PGNotification> recues(Connection ecoute) throws Exception {
+        List<PGNotification> recues = new ArrayList<>();
+        PGNotification[] notifications;
+        while ((notifications = ecoute.unwrap(PGConnection.class).getNotifications(500)) != null
+                && notifications.length > 0) {
+            recues.addAll(List.of(notifications));
+        }
+        return recues;
+    }
+}
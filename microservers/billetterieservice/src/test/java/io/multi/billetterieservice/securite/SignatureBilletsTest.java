@@ -0,0 +1,104 @@
+package io.multi.billetterieservice.securite;
+
+import io.multi.billetterieservice.exception.ApiException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Signature Ed25519 des QR et manifestes : démarrage refusé sans paire hors dev
+ * ou avec deux clés qui ne forment pas une paire, kid dérivé de la clé publique
+ * (identique sur toutes les réplicas), rotation.
+ */
+class SignatureBilletsTest {
+
+    @Test
+    void sansCle_horsDev_demarrageRefuse() {
+        SignatureBillets signature = signature(null, false, null);
+        assertThrows(IllegalStateException.class, signature::init);
+    }
+
+    @Test
+    void clesDeDeuxPaires_demarrageRefuse() throws Exception {
+        KeyPair melangee = new KeyPair(paire().getPublic(), paire().getPrivate());
+        SignatureBillets signature = signature(melangee, false, null);
+        assertThrows(IllegalStateException.class, signature::init);
+    }
+
+    @Test
+    void memePaire_memeKid_signaturesCroisees() throws Exception {
+        KeyPair paire = paire();
+        SignatureBillets replicaA = demarree(paire, null);
+        SignatureBillets replicaB = demarree(paire, null);
+
+        assertEquals(replicaA.getKid(), replicaB.getKid());
+        assertEquals(SignatureBillets.kidDe(paire.getPublic()), replicaA.getKid());
+        String sig = replicaA.signer("contenu");
+        assertTrue(replicaB.verifier(replicaA.getKid(), "contenu", sig));
+        assertFalse(replicaB.verifier(replicaA.getKid(), "contenu modifié", sig));
+    }
+
+    @Test
+    void rotation_ancienneCleToujoursVerifiee() throws Exception {
+        KeyPair ancienne = paire();
+        KeyPair nouvelle = paire();
+        SignatureBillets avant = demarree(ancienne, null);
+        String sig = avant.signer("billet");
+
+        SignatureBillets apres = demarree(nouvelle, base64(ancienne) + ",k1:" + base64(ancienne));
+        assertNotEquals(avant.getKid(), apres.getKid());
+        assertTrue(apres.verifier(avant.getKid(), "billet", sig));
+        assertTrue(apres.verifier("k1", "billet", sig));
+        assertFalse(apres.verifier("inconnu", "billet", sig));
+    }
+
+    @Test
+    void qrFalsifie_rejete() throws Exception {
+        QrCodeBillets qr = new QrCodeBillets(demarree(paire(), null));
+        String emis = qr.emettre(12L, 34L, LocalDate.of(2026, 3, 1), 2, "BLT-ABC");
+
+        QrCodeBillets.ContenuQr contenu = qr.verifier(emis);
+        assertEquals("BLT-ABC", contenu.getCodeBillet());
+        assertEquals(LocalDate.of(2026, 3, 1), contenu.getDateDepart());
+        String[] parties = emis.split("\\.");
+        parties[2] = Base64.getUrlEncoder().withoutPadding().encodeToString("12|34|2026-03-02|2|BLT-ABC".getBytes());
+        String falsifie = String.join(".", parties);
+        assertThrows(ApiException.class, () -> qr.verifier(falsifie));
+    }
+
+    // ---- helpers ----
+
+    static KeyPair paire() throws Exception {
+        return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    }
+
+    static SignatureBillets demarree(KeyPair paire, String precedentes) throws Exception {
+        SignatureBillets signature = signature(paire, false, precedentes);
+        signature.init();
+        return signature;
+    }
+
+    private static SignatureBillets signature(KeyPair paire, boolean ephemere, String precedentes) {
+        SignatureBillets signature = new SignatureBillets();
+        ReflectionTestUtils.setField(signature, "cleEphemereAutorisee", ephemere);
+        ReflectionTestUtils.setField(signature, "clePriveeB64",
+                paire == null ? "" : Base64.getEncoder().encodeToString(paire.getPrivate().getEncoded()));
+        ReflectionTestUtils.setField(signature, "clePubliqueB64", paire == null ? "" : base64(paire));
+        ReflectionTestUtils.setField(signature, "clesPrecedentes", precedentes == null ? "" : precedentes);
+        return signature;
+    }
+
+    private static String base64(KeyPair paire) {
+        return Base64.getEncoder().encodeToString(paire.getPublic().getEncoded());
+    }
+}
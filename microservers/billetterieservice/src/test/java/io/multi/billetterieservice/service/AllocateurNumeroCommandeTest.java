@@ -0,0 +1,157 @@
+package io.multi.billetterieservice.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress de l'allocation des numéros de commande : unicité sous forte
+ * concurrence (blocs minuscules, réservations en rafale), et pas d'épuisement
+ * du pool quand chaque appelant tient déjà une connexion — le cas de
+ * creerCommande, dont la transaction est ouverte au moment du tirage. Un bloc
+ * distribué survit au rollback de l'appelant. Le jour du préfixe et le
+ * changement de jour suivent la base.
+ */
+class AllocateurNumeroCommandeTest extends BaseDonneesTest {
+
+    private static final String FORMAT = "CMD-\\d{8}-\\d{4,7}";
+
+    @Test
+    void appelsConcurrents_aucunDoublon() throws Exception {
+        AllocateurNumeroCommande allocateur = allocateur(connexionsDediees(), 3);
+        List<Callable<List<String>>> taches = new ArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            taches.add(() -> {
+                List<String> numeros = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    numeros.add(allocateur.suivant());
+                }
+                return numeros;
+            });
+        }
+
+        Set<String> distincts = new HashSet<>();
+        for (Future<List<String>> resultat : enParallele(taches)) {
+            for (String numero : resultat.get()) {
+                assertTrue(numero.matches(FORMAT), numero);
+                distincts.add(numero);
+            }
+        }
+        assertEquals(32 * 200, distincts.size());
+    }
+
+    @Test
+    void plusieursInstances_aucunDoublon() throws Exception {
+        List<AllocateurNumeroCommande> instances = List.of(
+                allocateur(connexionsDediees(), 5), allocateur(connexionsDediees(), 7), allocateur(connexionsDediees(), 50));
+        List<Callable<List<String>>> taches = new ArrayList<>();
+        for (int t = 0; t < 24; t++) {
+            AllocateurNumeroCommande allocateur = instances.get(t % instances.size());
+            taches.add(() -> {
+                List<String> numeros = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    numeros.add(allocateur.suivant());
+                }
+                return numeros;
+            });
+        }
+
+        Set<String> distincts = new HashSet<>();
+        for (Future<List<String>> resultat : enParallele(taches)) {
+            distincts.addAll(resultat.get());
+        }
+        assertEquals(24 * 100, distincts.size());
+    }
+
+    @Test
+    void appelantsEnTransaction_petitPool_aucunEpuisement() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(dataSource.getJdbcUrl());
+        config.setUsername(dataSource.getUsername());
+        config.setPassword(dataSource.getPassword());
+        config.setMaximumPoolSize(4);
+        config.setConnectionTimeout(5_000);
+        try (HikariDataSource petitPool = new HikariDataSource(config)) {
+            JdbcClient client = JdbcClient.create(petitPool);
+            TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(petitPool));
+            // Bloc de 1 : chaque appel réserve sur le compteur alors que la transaction de l'appelant est ouverte
+            AllocateurNumeroCommande allocateur = allocateur(connexionsDediees(), 1);
+
+            List<Callable<List<String>>> taches = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                taches.add(() -> {
+                    List<String> numeros = new ArrayList<>();
+                    for (int i = 0; i < 25; i++) {
+                        numeros.add(transaction.execute(statut -> {
+                            client.sql("SELECT 1").query(Integer.class).single(); // connexion prise
+                            return allocateur.suivant();
+                        }));
+                    }
+                    return numeros;
+                });
+            }
+
+            Set<String> distincts = new HashSet<>();
+            for (Future<List<String>> resultat : enParallele(taches)) {
+                distincts.addAll(resultat.get()); // un délai d'obtention de connexion lèverait ici
+            }
+            assertEquals(16 * 25, distincts.size());
+        }
+    }
+
+    @Test
+    void rollbackAppelant_blocConserve() {
+        AllocateurNumeroCommande premiere = allocateur(connexionsDediees(), 20);
+        String annule = transactions.execute(statut -> {
+            String numero = premiere.suivant();
+            statut.setRollbackOnly();
+            return numero;
+        });
+
+        // Une autre instance ne doit pas recevoir le bloc de la transaction annulée
+        String suivant = allocateur(connexionsDediees(), 20).suivant();
+        assertTrue(numero(suivant) >= numero(annule) + 20, annule + " puis " + suivant);
+    }
+
+    @Test
+    void jourDeLaBase_prefixeEtChangementDeJour() {
+        AllocateurNumeroCommande allocateur = allocateur(connexionsDediees(), 50);
+        String jourBase = jdbcClient.sql("SELECT TO_CHAR(CURRENT_DATE, 'YYYYMMDD')").query(String.class).single();
+        String premier = allocateur.suivant();
+        assertTrue(premier.startsWith("CMD-" + jourBase + "-"), premier);
+
+        // Minuit passé selon la base : le reste du bloc est abandonné
+        ReflectionTestUtils.setField(allocateur, "finJour", OffsetDateTime.now().minusSeconds(1));
+        String suivant = allocateur.suivant();
+
+        assertTrue(numero(suivant) >= numero(premier) + 50, premier + " puis " + suivant);
+    }
+
+    // ---- helpers ----
+
+    private static long numero(String numeroCommande) {
+        return Long.parseLong(numeroCommande.substring(numeroCommande.lastIndexOf('-') + 1));
+    }
+
+    private static AllocateurNumeroCommande allocateur(JdbcClient client, int tailleBloc) {
+        AllocateurNumeroCommande allocateur = new AllocateurNumeroCommande(client);
+        ReflectionTestUtils.setField(allocateur, "tailleBloc", tailleBloc);
+        return allocateur;
+    }
+}
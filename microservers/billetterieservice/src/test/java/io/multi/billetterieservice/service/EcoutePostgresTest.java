@@ -0,0 +1,67 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Écoute LISTEN/NOTIFY sur une connexion ouverte hors du pool Hikari : les
+ * notifications arrivent, et la connexion tenue n'est pas prise au pool.
+ */
+class EcoutePostgresTest extends BaseDonneesTest {
+
+    private EcoutePostgres ecoute;
+
+    @AfterEach
+    void arreter() {
+        if (ecoute != null) ReflectionTestUtils.invokeMethod(ecoute, "arreter");
+    }
+
+    @Test
+    void notificationRecue_sansConnexionDuPool() throws Exception {
+        List<String> recues = new CopyOnWriteArrayList<>();
+        AtomicInteger resynchronisations = new AtomicInteger();
+        ecoute = new EcoutePostgres(proprietes());
+        ecoute.ecouter("test_ecoute", recues::add, resynchronisations::incrementAndGet);
+        int actives = dataSource.getHikariPoolMXBean().getActiveConnections();
+
+        ecoute.demarrer();
+        attendre(ecoute::isConnectee);
+        jdbcClient.sql("SELECT pg_notify('test_ecoute', 'bonjour')").query().listOfRows();
+        attendre(() -> !recues.isEmpty());
+
+        assertEquals(List.of("bonjour"), recues);
+        assertEquals(1, resynchronisations.get());
+        assertEquals(actives, dataSource.getHikariPoolMXBean().getActiveConnections());
+    }
+
+    // ---- helpers ----
+
+    private static DataSourceProperties proprietes() throws Exception {
+        DataSourceProperties proprietes = new DataSourceProperties();
+        proprietes.setUrl(dataSource.getJdbcUrl());
+        proprietes.setUsername(dataSource.getUsername());
+        proprietes.setPassword(dataSource.getPassword());
+        proprietes.afterPropertiesSet();
+        return proprietes;
+    }
+
+    private static void attendre(BooleanSupplier condition) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "délai dépassé");
+            Thread.sleep(20);
+        }
+    }
+}
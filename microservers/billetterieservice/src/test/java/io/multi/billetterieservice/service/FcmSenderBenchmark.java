@@ -0,0 +1,63 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.BilanPush;
+import io.multi.billetterieservice.support.Mesures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Débit de FcmSender selon fcm.parallelisme, sur une PasserellePush simulée
+ * qui répond en LATENCE_LOT_MS par lot (aller-retour FCM typique) : 20 000
+ * tokens, soit 40 lots de 500 par envoi.
+ * Exclu du build courant : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@Slf4j
+class FcmSenderBenchmark {
+
+    private static final long LATENCE_LOT_MS = 80;
+    private static final int TOKENS = 20_000;
+    private static final int ENVOIS = 5;
+
+    @Test
+    void debitSelonParallelisme() throws Exception {
+        PasserellePush passerelle = (tokens, titre, corps, data) -> {
+            try {
+                Thread.sleep(LATENCE_LOT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PasserellePush.EchecLot("interrompu", e);
+            }
+            return tokens.stream().map(t -> PasserellePush.Issue.ENVOYE).toList();
+        };
+        List<String> tokens = FcmSenderTest.tokens(TOKENS);
+
+        for (int parallelisme : new int[]{1, 2, 4, 8, 16}) {
+            FcmSender sender = new FcmSender(
+                    new StaticListableBeanFactory(Map.of("passerellePush", passerelle)).getBeanProvider(PasserellePush.class),
+                    Mockito.mock(DeviceTokenService.class), parallelisme);
+            ReflectionTestUtils.setField(sender, "tailleLot", 500);
+            ReflectionTestUtils.setField(sender, "delaiMaxSecondes", 120L);
+            try {
+                Mesures mesures = new Mesures();
+                for (int i = 0; i < ENVOIS; i++) {
+                    BilanPush bilan = mesures.mesurer(() -> sender.sendToTokens(tokens, "Titre", "Corps", Map.of()));
+                    assertEquals(TOKENS, bilan.getEnvoyes());
+                }
+                log.info("FCM {} tokens, parallélisme {} : {} ({} tokens/s)", TOKENS, parallelisme,
+                        mesures.resume(), Math.round(TOKENS * mesures.debit()));
+            } finally {
+                ReflectionTestUtils.invokeMethod(sender, "arreter");
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.BilanPush;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Découpage en lots, comptage et purge des tokens morts de FcmSender, sur une
+ * PasserellePush simulée (FirebaseMessaging, classe finale, n'est pas appelé).
+ */
+class FcmSenderTest {
+
+    private final List<String> purges = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> taillesLots = Collections.synchronizedList(new ArrayList<>());
+    private DeviceTokenService deviceTokens;
+    private FcmSender sender;
+
+    @AfterEach
+    void arreter() {
+        if (sender != null) ReflectionTestUtils.invokeMethod(sender, "arreter");
+    }
+
+    @Test
+    void tokensDecoupesEnLotsDe500_doublonsIgnores() {
+        sender = sender((tokens, titre, corps, data) -> {
+            taillesLots.add(tokens.size());
+            return tokens.stream().map(t -> PasserellePush.Issue.ENVOYE).toList();
+        });
+        List<String> tokens = new ArrayList<>(tokens(1200));
+        tokens.addAll(tokens(10)); // doublons
+
+        BilanPush bilan = sender.sendToTokens(tokens, "Titre", "Corps", Map.of("categorie", "TEST"));
+
+        assertEquals(1200, bilan.getTokens());
+        assertEquals(3, bilan.getLots());
+        assertEquals(1200, bilan.getEnvoyes());
+        assertEquals(0, bilan.getEchecs());
+        assertEquals(List.of(200, 500, 500), taillesLots.stream().sorted().toList());
+        assertTrue(purges.isEmpty());
+    }
+
+    @Test
+    void tokensMorts_purgesEnUneFois() {
+        sender = sender((tokens, titre, corps, data) -> tokens.stream()
+                .map(t -> t.endsWith("7") ? PasserellePush.Issue.TOKEN_MORT
+                        : t.endsWith("3") ? PasserellePush.Issue.ECHEC
+                        : PasserellePush.Issue.ENVOYE)
+                .toList());
+
+        BilanPush bilan = sender.sendToTokens(tokens(1000), "Titre", "Corps", Map.of());
+
+        assertEquals(800, bilan.getEnvoyes());
+        assertEquals(200, bilan.getEchecs());
+        assertEquals(100, bilan.getTokensPurges());
+        Set<String> attendus = new HashSet<>();
+        tokens(1000).stream().filter(t -> t.endsWith("7")).forEach(attendus::add);
+        assertEquals(attendus, new HashSet<>(purges));
+        Mockito.verify(deviceTokens, Mockito.times(1)).deleteAll(any());
+    }
+
+    @Test
+    void lotEntierEnEchec_compteSansPurge() {
+        sender = sender((tokens, titre, corps, data) -> {
+            if (tokens.contains("token-0")) throw new PasserellePush.EchecLot("quota", null);
+            return tokens.stream().map(t -> PasserellePush.Issue.ENVOYE).toList();
+        });
+
+        BilanPush bilan = sender.sendToTokens(tokens(700), "Titre", "Corps", Map.of());
+
+        assertEquals(200, bilan.getEnvoyes());
+        assertEquals(500, bilan.getEchecs());
+        assertEquals(0, bilan.getTokensPurges());
+    }
+
+    @Test
+    void erreurInattendueDeLaPasserelle_lotCompteEnEchec() {
+        sender = sender((tokens, titre, corps, data) -> {
+            if (tokens.contains("token-0")) throw new IllegalStateException("réponse inattendue");
+            return tokens.stream().map(t -> PasserellePush.Issue.ENVOYE).toList();
+        });
+
+        BilanPush bilan = sender.sendToTokens(tokens(700), "Titre", "Corps", Map.of());
+
+        assertEquals(200, bilan.getEnvoyes());
+        assertEquals(500, bilan.getEchecs());
+        assertEquals(0, bilan.getTokensPurges());
+    }
+
+    @Test
+    void firebaseNonConfigure_aucunEnvoi() {
+        sender = new FcmSender(new StaticListableBeanFactory().getBeanProvider(PasserellePush.class), deviceTokens(), 2);
+
+        BilanPush bilan = sender.sendToTokens(tokens(10), "Titre", "Corps", Map.of());
+
+        assertEquals(0, bilan.getTokens());
+        assertEquals(Boolean.FALSE, sender.getStatistiques().get("actif"));
+    }
+
+    // ---- helpers ----
+
+    private FcmSender sender(PasserellePush passerelle) {
+        FcmSender fcm = new FcmSender(
+                new StaticListableBeanFactory(Map.of("passerellePush", passerelle)).getBeanProvider(PasserellePush.class),
+                deviceTokens(), 4);
+        ReflectionTestUtils.setField(fcm, "tailleLot", 500);
+        ReflectionTestUtils.setField(fcm, "delaiMaxSecondes", 30L);
+        return fcm;
+    }
+
+    @SuppressWarnings("unchecked")
+    private DeviceTokenService deviceTokens() {
+        deviceTokens = Mockito.mock(DeviceTokenService.class);
+        Mockito.when(deviceTokens.deleteAll(any())).thenAnswer(invocation -> {
+            Collection<String> tokens = invocation.getArgument(0);
+            purges.addAll(tokens);
+            return tokens.size();
+        });
+        return deviceTokens;
+    }
+
+    static List<String> tokens(int nombre) {
+        return IntStream.range(0, nombre).mapToObj(i -> "token-" + i).toList();
+    }
+}
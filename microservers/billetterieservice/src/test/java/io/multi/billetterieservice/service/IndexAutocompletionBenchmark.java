@@ -0,0 +1,68 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.Suggestion;
+import io.multi.billetterieservice.support.Mesures;
+import io.multi.billetterieservice.utils.PrefixTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Latence de rechercher() sur un index de 50 000 éléments répartis sur les
+ * cinq segments (fusion et tri des candidats compris), avec des saisies de 1 à
+ * 6 caractères tirées des libellés indexés : débit, p50, p99 et max.
+ * Exclu du build courant : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@Slf4j
+class IndexAutocompletionBenchmark {
+
+    private static final int ELEMENTS_PAR_SEGMENT = 10_000;
+    private static final int RECHERCHES = 200_000;
+    private static final String[] MOTS = {"Gare", "Conakry", "Labé", "Kindia", "N'Zérékoré", "Kankan", "Boké",
+            "Mamou", "Siguiri", "Faranah", "Kaloum", "Matoto", "Ratoma", "Dixinn", "Routière", "Marché"};
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rechercheTousSegments() throws Exception {
+        IndexAutocompletion index = IndexAutocompletionTest.index();
+        Map<Suggestion.Type, PrefixTrie<Suggestion>> segments =
+                (Map<Suggestion.Type, PrefixTrie<Suggestion>>) ReflectionTestUtils.getField(index, "segments");
+        Comparator<Suggestion> ordre = (Comparator<Suggestion>) ReflectionTestUtils.getField(index, "ORDRE");
+        Random aleatoire = new Random(42);
+        List<String> saisies = new ArrayList<>();
+        for (Suggestion.Type type : Suggestion.Type.values()) {
+            PrefixTrie.Constructeur<Suggestion> constructeur =
+                    PrefixTrie.constructeur(IndexAutocompletion.LIMITE_MAX, ordre);
+            for (int i = 0; i < ELEMENTS_PAR_SEGMENT; i++) {
+                String libelle = MOTS[aleatoire.nextInt(MOTS.length)] + " " + MOTS[aleatoire.nextInt(MOTS.length)] + " " + i;
+                constructeur.ajouter(Suggestion.builder().type(type).uuid(type + "-" + i).libelle(libelle)
+                        .popularite(aleatoire.nextInt(1_000)).build(), libelle);
+                if (saisies.size() < 1_000) {
+                    saisies.add(libelle.substring(0, 1 + aleatoire.nextInt(Math.min(6, libelle.length()))));
+                }
+            }
+            segments.put(type, constructeur.construire());
+        }
+
+        for (int i = 0; i < RECHERCHES / 10; i++) {
+            index.rechercher(saisies.get(i % saisies.size()), null, 10);
+        }
+        Mesures mesures = new Mesures();
+        for (int i = 0; i < RECHERCHES; i++) {
+            String saisie = saisies.get(i % saisies.size());
+            assertFalse(mesures.mesurer(() -> index.rechercher(saisie, null, 10)).isEmpty());
+        }
+        log.info("autocomplétion ({} éléments, 5 segments) : {}", ELEMENTS_PAR_SEGMENT * 5, mesures.resume());
+        log.info("statistiques de l'index : {}", index.getStatistiques());
+    }
+}
@@ -0,0 +1,80 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.domain.Site;
+import io.multi.billetterieservice.domain.Suggestion;
+import io.multi.billetterieservice.repository.TrajetRepository;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index d'autocomplétion : un instantané du référentiel rechargé à l'identique
+ * (nouveaux objets, mêmes valeurs) ne reconstruit aucun segment ; les
+ * statistiques exposent les centiles de latence des dernières recherches.
+ */
+class IndexAutocompletionTest {
+
+    @Test
+    void instantaneIdentique_aucunSegmentReconstruit() {
+        IndexAutocompletion index = index();
+        ReflectionTestUtils.invokeMethod(index, "indexerReferentiel", instantane("v1", "Gare routière de Labé"));
+        long apresPremier = reconstructions(index);
+
+        ReflectionTestUtils.invokeMethod(index, "indexerReferentiel", instantane("v2", "Gare routière de Labé"));
+        assertEquals(apresPremier, reconstructions(index));
+
+        ReflectionTestUtils.invokeMethod(index, "indexerReferentiel", instantane("v3", "Gare de Kindia"));
+        assertEquals(apresPremier + 1, reconstructions(index));
+        assertEquals("Gare de Kindia",
+                index.rechercher("kin", Set.of(Suggestion.Type.SITE), 5).get(0).getLibelle());
+    }
+
+    @Test
+    void statistiques_centilesDeLatence() {
+        IndexAutocompletion index = index();
+        ReflectionTestUtils.invokeMethod(index, "indexerReferentiel", instantane("v1", "Gare routière de Labé"));
+        for (int i = 0; i < 2_000; i++) {
+            index.rechercher("gare", null, 10);
+        }
+
+        Map<String, Object> stats = index.getStatistiques();
+        long fenetre = ((Number) stats.get("fenetreCentiles")).longValue();
+        long p50 = ((Number) stats.get("dureeP50Micros")).longValue();
+        long p99 = ((Number) stats.get("dureeP99Micros")).longValue();
+        long max = ((Number) stats.get("dureeMaxMicros")).longValue();
+        assertEquals(1024L, fenetre);
+        assertTrue(p50 <= p99 && p99 <= max, p50 + " / " + p99 + " / " + max);
+    }
+
+    // ---- helpers ----
+
+    static IndexAutocompletion index() {
+        return new IndexAutocompletion(Mockito.mock(ReferentielGeographique.class),
+                Mockito.mock(TrajetRepository.class), null);
+    }
+
+    /** Référentiel réduit à un site actif, relu comme depuis la base (objets neufs). */
+    static Instantane instantane(String version, String nomSite) {
+        Site site = Site.builder()
+                .siteId(1L)
+                .siteUuid("site-1")
+                .nom(nomSite)
+                .actif(true)
+                .villeLibelle(nomSite.substring(nomSite.lastIndexOf(' ') + 1))
+                .build();
+        return new Instantane(version, List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(site));
+    }
+
+    private static long reconstructions(IndexAutocompletion index) {
+        return ((Number) index.getStatistiques().get("reconstructions")).longValue();
+    }
+}
@@ -0,0 +1,82 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.CompteurRequetes;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * L'inventaire mémoire rejette sans lire la base quand le compteur est épuisé ;
+ * un compteur périmé (autre instance) est corrigé par l'état publié sur
+ * places_offres ou par la réconciliation, jamais par le chemin de réservation.
+ */
+class InventairePlacesTest extends BaseDonneesTest {
+
+    @Test
+    void compteurEpuise_rejeteSansLireLaBase() {
+        OffreTest offre = creerOffre(5);
+        CompteurRequetes compteur = new CompteurRequetes(dataSource);
+        InventairePlaces inventaire = new InventairePlaces(JdbcClient.create(compteur));
+        ReflectionTestUtils.setField(inventaire, "enabled", true);
+        inventaire.suivre(offre.offreId(), offre.offreUuid(), 0); // vue d'une instance en retard
+
+        assertEquals(InventairePlaces.Resultat.REJETE, inventaire.reserver(offre.offreUuid(), 2));
+        assertEquals(0, compteur.requetes());
+        assertEquals(1L, inventaire.getStatistiques().get("rejets"));
+    }
+
+    @Test
+    void recalage_parLeCanalPlaces() {
+        OffreTest offre = creerOffre(5);
+        InventairePlaces inventaire = inventaire(true);
+        inventaire.suivre(offre.offreId(), offre.offreUuid(), 0);
+
+        inventaire.recaler(offre.offreUuid(), 5);
+
+        assertEquals(InventairePlaces.Resultat.RESERVE, inventaire.reserver(offre.offreUuid(), 2));
+        assertEquals(3, inventaire.getDisponibles(offre.offreUuid()));
+        assertEquals(1L, inventaire.getStatistiques().get("recalages"));
+        assertEquals(5L, inventaire.getStatistiques().get("deriveCumulee"));
+    }
+
+    @Test
+    void reconciliation_recaleLeCompteur() {
+        OffreTest offre = creerOffre(5);
+        InventairePlaces inventaire = inventaire(true);
+        inventaire.suivre(offre.offreId(), offre.offreUuid(), 0);
+
+        inventaire.reconcilier();
+
+        assertEquals(5, inventaire.getDisponibles(offre.offreUuid()));
+        assertEquals(InventairePlaces.Resultat.RESERVE, inventaire.reserver(offre.offreUuid(), 2));
+    }
+
+    @Test
+    void offreNonReservable_oublieeALaReconciliation() {
+        OffreTest offre = creerOffre(3);
+        jdbcClient.sql("UPDATE offres SET statut = 'ANNULE' WHERE offre_id = :offreId")
+                .param("offreId", offre.offreId())
+                .update();
+        InventairePlaces inventaire = inventaire(true);
+        inventaire.suivre(offre.offreId(), offre.offreUuid(), 0);
+
+        inventaire.reconcilier();
+
+        assertEquals(InventairePlaces.Resultat.INCONNU, inventaire.reserver(offre.offreUuid(), 1));
+        assertEquals(-1, inventaire.getDisponibles(offre.offreUuid()));
+    }
+
+    @Test
+    void compteurSuffisant_reserve() {
+        OffreTest offre = creerOffre(5);
+        InventairePlaces inventaire = inventaire(true);
+        inventaire.suivre(offre.offreId(), offre.offreUuid(), 5);
+
+        assertEquals(InventairePlaces.Resultat.RESERVE, inventaire.reserver(offre.offreUuid(), 5));
+        assertEquals(0, inventaire.getDisponibles(offre.offreUuid()));
+        assertEquals(0L, inventaire.getStatistiques().get("deriveCumulee"));
+    }
+}
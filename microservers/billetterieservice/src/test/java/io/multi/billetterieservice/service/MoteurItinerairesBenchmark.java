@@ -0,0 +1,64 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.Mesures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Graphe d'itinéraires sur 20 000 offres ouvertes : rechargement complet, et
+ * passage incrémental après modification de 1 000 offres (lecture de
+ * updated_at en OffsetDateTime sur idx_offre_search_updated_at).
+ * Exclu du build courant : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@Slf4j
+class MoteurItinerairesBenchmark extends BaseDonneesTest {
+
+    private static final int OFFRES = 20_000;
+    private static final int MODIFIEES = 1_000;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    void rechargementEtPassageIncremental() throws Exception {
+        Long transporteur = creerUtilisateur();
+        Long trajet = creerTrajet(transporteur);
+        Long vehicule = creerVehicule(transporteur, 50);
+        jdbcClient.sql("""
+                        INSERT INTO offres (trajet_id, vehicule_id, user_id, date_depart, heure_depart,
+                                            nombre_places_total, nombre_places_disponibles, montant, statut)
+                        SELECT :trajetId, :vehiculeId, :userId, CURRENT_DATE + (i % 7),
+                               TIME '05:00' + (i % 900) * INTERVAL '1 minute', 50, 50, 150000, 'OUVERT'
+                        FROM generate_series(1, :nombre) AS i
+                        """)
+                .param("trajetId", trajet)
+                .param("vehiculeId", vehicule)
+                .param("userId", transporteur)
+                .param("nombre", OFFRES)
+                .update();
+        jdbcClient.sql("ANALYZE offre_search").update();
+
+        MoteurItineraires moteur = MoteurItinerairesTest.moteur();
+        Mesures rechargement = new Mesures();
+        Mesures incremental = new Mesures();
+        for (int i = 0; i < ITERATIONS; i++) {
+            rechargement.mesurer(() -> ReflectionTestUtils.invokeMethod(moteur, "recharger"));
+            jdbcClient.sql("""
+                            UPDATE offres SET nombre_places_disponibles = nombre_places_disponibles - 1, updated_at = now()
+                            WHERE offre_id IN (SELECT offre_id FROM offres WHERE trajet_id = :trajetId
+                                               ORDER BY random() LIMIT :nombre)
+                            """)
+                    .param("trajetId", trajet)
+                    .param("nombre", MODIFIEES)
+                    .update();
+            incremental.mesurer(() -> ReflectionTestUtils.invokeMethod(moteur, "appliquerModifications"));
+        }
+        assertTrue(MoteurItinerairesTest.connexions(moteur).size() >= OFFRES);
+        log.info("rechargement complet ({} offres) : {}", OFFRES, rechargement.resume());
+        log.info("passage incrémental ({} offres modifiées) : {}", MODIFIEES, incremental.resume());
+    }
+}
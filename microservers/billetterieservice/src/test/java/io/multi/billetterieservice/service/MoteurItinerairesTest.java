@@ -0,0 +1,84 @@
+package io.multi.billetterieservice.service;
+
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chargement et rafraîchissement incrémental du graphe d'itinéraires sur
+ * offre_search : updated_at (timestamptz) est lu en OffsetDateTime et sert de
+ * repère aux passages suivants sans décalage de fuseau.
+ */
+class MoteurItinerairesTest extends BaseDonneesTest {
+
+    @Test
+    void rechargement_litUpdatedAtCommeInstant() {
+        OffreTest offre = creerOffre(20);
+        MoteurItineraires moteur = moteur();
+
+        ReflectionTestUtils.invokeMethod(moteur, "recharger");
+
+        assertTrue(connexions(moteur).containsKey(offre.offreId()));
+        OffsetDateTime dernierVu = (OffsetDateTime) ReflectionTestUtils.getField(moteur, "dernierVu");
+        assertNotNull(dernierVu);
+        assertFalse(dernierVu.isBefore(majEnBase(offre.offreId())), dernierVu + " < " + majEnBase(offre.offreId()));
+    }
+
+    @Test
+    void modificationApresChargement_appliqueeAuPassageSuivant() {
+        OffreTest offre = creerOffre(20);
+        MoteurItineraires moteur = moteur();
+        ReflectionTestUtils.invokeMethod(moteur, "recharger");
+        assertTrue(connexions(moteur).containsKey(offre.offreId()));
+
+        jdbcClient.sql("UPDATE offres SET nombre_places_disponibles = 0, updated_at = now() WHERE offre_id = :offreId")
+                .param("offreId", offre.offreId())
+                .update();
+        ReflectionTestUtils.invokeMethod(moteur, "appliquerModifications");
+
+        assertFalse(connexions(moteur).containsKey(offre.offreId()));
+    }
+
+    @Test
+    void ligneDeLaMargeInchangee_pasRepubliee() {
+        creerOffre(20);
+        MoteurItineraires moteur = moteur();
+        ReflectionTestUtils.invokeMethod(moteur, "recharger");
+        Object graphe = ReflectionTestUtils.getField(moteur, "graphe");
+
+        // Même updated_at relu dans la marge : comparé comme instant, pas de republication
+        ReflectionTestUtils.invokeMethod(moteur, "appliquerModifications");
+
+        assertSame(graphe, ReflectionTestUtils.getField(moteur, "graphe"));
+    }
+
+    // ---- helpers ----
+
+    static MoteurItineraires moteur() {
+        MoteurItineraires moteur = new MoteurItineraires(jdbcClient, Mockito.mock(ReferentielGeographique.class));
+        ReflectionTestUtils.setField(moteur, "horizonJours", 30);
+        ReflectionTestUtils.setField(moteur, "correspondanceMinutes", 30);
+        return moteur;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<Long, ?> connexions(MoteurItineraires moteur) {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(moteur, "connexions");
+    }
+
+    private static OffsetDateTime majEnBase(Long offreId) {
+        return jdbcClient.sql("SELECT updated_at FROM offre_search WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query(OffsetDateTime.class)
+                .single();
+    }
+}
@@ -0,0 +1,122 @@
+package io.multi.billetterieservice.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.multi.billetterieservice.domain.Response;
+import io.multi.billetterieservice.resource.OpenStreetMapResource;
+import io.multi.billetterieservice.service.ReferentielGeographique.Instantane;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.utils.JwtUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Proxy de géocodage face à un Nominatim simulé (serveur HTTP local) : la
+ * limite de débit est partagée par les répliques via limiteurs_debit, le
+ * cache évite le second appel, et une panne amont bascule sur le repli local.
+ */
+class ProxyGeocodageTest extends BaseDonneesTest {
+
+    private static final String REPONSE = """
+            [{"place_id": 1, "display_name": "Kaloum, Conakry", "lat": "9.509", "lon": "-13.712", "type": "suburb"}]
+            """;
+
+    private final AtomicInteger appels = new AtomicInteger();
+    private volatile int statutAmont = 200;
+    private HttpServer amont;
+
+    @BeforeEach
+    void demarrer() throws Exception {
+        jdbcClient.sql("DELETE FROM limiteurs_debit WHERE cle LIKE 'geocodage:%'").update();
+        amont = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        amont.createContext("/", echange -> {
+            appels.incrementAndGet();
+            byte[] corps = REPONSE.getBytes(StandardCharsets.UTF_8);
+            echange.getResponseHeaders().set("Content-Type", "application/json");
+            echange.sendResponseHeaders(statutAmont, corps.length);
+            echange.getResponseBody().write(corps);
+            echange.close();
+        });
+        amont.start();
+    }
+
+    @AfterEach
+    void arreter() {
+        amont.stop(0);
+    }
+
+    @Test
+    void deuxRepliques_limiteDeDebitPartagee() {
+        // Rafale 1, débit quasi nul : une seule requête amont pour tout le parc
+        List<OpenStreetMapResource> repliques = List.of(resource(proxy(0.0001)), resource(proxy(0.0001)));
+
+        List<String> origines = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            origines.add(origine(repliques.get(i % 2).search("conakry " + i, "gn", 5, requete())));
+        }
+
+        assertEquals(1, appels.get());
+        assertEquals(1, origines.stream().filter("amont"::equals).count());
+        assertEquals(5, origines.stream().filter("local"::equals).count());
+    }
+
+    @Test
+    void requeteRepetee_servieParLeCache() {
+        OpenStreetMapResource resource = resource(proxy(100));
+
+        assertEquals("amont", origine(resource.search("Kaloum", "gn", 5, requete())));
+        assertEquals("cache", origine(resource.search("  kaloum ", "gn", 5, requete())));
+        assertEquals(1, appels.get());
+    }
+
+    @Test
+    void amontEnErreur_repliLocal() {
+        statutAmont = 500;
+        OpenStreetMapResource resource = resource(proxy(100));
+
+        assertEquals("local", origine(resource.search("Kaloum", "gn", 5, requete())));
+        assertEquals(1, appels.get());
+    }
+
+    // ---- helpers ----
+
+    private static ProxyGeocodage proxy(double debit) {
+        Instantane instantane = Mockito.mock(Instantane.class);
+        Mockito.when(instantane.getVersion()).thenReturn("v1");
+        Mockito.when(instantane.getLocalisations()).thenReturn(List.of());
+        ReferentielGeographique referentiel = Mockito.mock(ReferentielGeographique.class);
+        Mockito.when(referentiel.instantane()).thenReturn(instantane);
+        return new ProxyGeocodage(referentiel, new LimiteurDebitPartage(jdbcClient), true,
+                100, 60, debit, 1, debit, 1);
+    }
+
+    private OpenStreetMapResource resource(ProxyGeocodage proxy) {
+        OpenStreetMapResource resource = new OpenStreetMapResource(new RestTemplate(), proxy, new JwtUtils(null));
+        ReflectionTestUtils.setField(resource, "nominatimUrl", "http://127.0.0.1:" + amont.getAddress().getPort());
+        return resource;
+    }
+
+    private static HttpServletRequest requete() {
+        HttpServletRequest requete = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(requete.getRequestURI()).thenReturn("/billetterie/osm/search");
+        return requete;
+    }
+
+    private static String origine(ResponseEntity<Response> reponse) {
+        return (String) ((Map<?, ?>) reponse.getBody().getData()).get("origine");
+    }
+}
@@ -0,0 +1,179 @@
+package io.multi.billetterieservice.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.multi.billetterieservice.domain.Commande;
+import io.multi.billetterieservice.domain.ResultatScan;
+import io.multi.billetterieservice.dto.ScansHorsLigneRequest;
+import io.multi.billetterieservice.exception.ApiException;
+import io.multi.billetterieservice.mapper.BilletRowMapper;
+import io.multi.billetterieservice.securite.QrCodeBillets;
+import io.multi.billetterieservice.securite.SignatureBillets;
+import io.multi.billetterieservice.service.BilletService;
+import io.multi.billetterieservice.service.InAppNotificationService;
+import io.multi.billetterieservice.service.OutboxService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.clients.UserCache;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * Manifeste hors ligne : réservé au transporteur de l'offre (ou aux contrôleurs),
+ * retraits (tombstones) pour les billets déplacés, heure de scan bornée ;
+ * validation en lot à l'embarquement.
+ */
+class BilletServiceImplManifesteTest extends BaseDonneesTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Test
+    void autreTransporteur_refuse() {
+        OffreTest offre = creerOffre(10);
+        BilletService service = serviceBillets();
+
+        assertThrows(ApiException.class,
+                () -> service.getManifeste(offre.offreUuid(), null, null, 0, creerUtilisateur()));
+        service.getManifeste(offre.offreUuid(), null, null, 0, offre.transporteurId());
+        service.getManifeste(offre.offreUuid(), null, null, 0, null);
+    }
+
+    @Test
+    void commandeDeplacee_retireeDuManifesteDOrigine() throws Exception {
+        OffreTest origine = creerOffre(10);
+        OffreTest cible = creerOffre(10);
+        Commande commande = serviceCommandes(inventaire(false))
+                .creerCommande(demandeCommande(origine.offreUuid(), 2), creerUtilisateur());
+        BilletService service = serviceBillets();
+        long version = manifeste(service, origine, 0).get("version").asLong();
+
+        jdbcClient.sql("UPDATE commandes SET offre_id = :offreId WHERE commande_id = :commandeId")
+                .param("offreId", cible.offreId())
+                .param("commandeId", commande.getCommandeId())
+                .update();
+
+        JsonNode delta = manifeste(service, origine, version);
+        Set<String> retires = new HashSet<>();
+        delta.get("retires").forEach(r -> retires.add(r.get("code").asText()));
+        assertEquals(codes(commande), retires);
+        assertEquals(0, delta.get("billets").size());
+
+        JsonNode arrivee = manifeste(service, cible, 0);
+        assertEquals(2, arrivee.get("billets").size());
+        assertEquals(0, arrivee.get("retires").size());
+    }
+
+    @Test
+    void scanDansLeFutur_rameneALaReception() {
+        OffreTest offre = creerOffre(10);
+        Commande commande = serviceCommandes(inventaire(false))
+                .creerCommande(demandeCommande(offre.offreUuid(), 1), creerUtilisateur());
+        OffsetDateTime avant = OffsetDateTime.now();
+
+        List<ResultatScan> resultats = serviceBillets().synchroniserScans(List.of(
+                ScansHorsLigneRequest.ScanDto.builder()
+                        .codeBillet(commande.getBillets().get(0).getCodeBillet())
+                        .scanneLe(avant.plusDays(30))
+                        .build()), offre.transporteurId(), offre.transporteurId());
+
+        assertEquals("VALIDE", resultats.get(0).getResultat());
+        assertFalse(resultats.get(0).getDateValidation().isAfter(OffsetDateTime.now()));
+        assertTrue(resultats.get(0).getDateValidation().isAfter(avant.minusSeconds(1)));
+    }
+
+    @Test
+    void scansHorsLigne_billetDUnAutreTransporteur_inconnuEtNonModifie() {
+        OffreTest offre = creerOffre(10);
+        Commande commande = serviceCommandes(inventaire(false))
+                .creerCommande(demandeCommande(offre.offreUuid(), 1), creerUtilisateur());
+        String code = commande.getBillets().get(0).getCodeBillet();
+        Long autre = creerUtilisateur();
+
+        List<ResultatScan> resultats = serviceBillets().synchroniserScans(List.of(
+                ScansHorsLigneRequest.ScanDto.builder()
+                        .codeBillet(code)
+                        .scanneLe(OffsetDateTime.now().minusHours(1))
+                        .build()), autre, autre);
+
+        assertEquals("INCONNU", resultats.get(0).getResultat());
+        assertEquals("VALIDE", statutBillet(code));
+    }
+
+    @Test
+    void validerLot_sansLigneOffreSearch_villesDesTablesDeBase() {
+        OffreTest offre = creerOffre(10);
+        Commande commande = serviceCommandes(inventaire(false))
+                .creerCommande(demandeCommande(offre.offreUuid(), 1), creerUtilisateur());
+        jdbcClient.sql("DELETE FROM offre_search WHERE offre_id = :offreId")
+                .param("offreId", offre.offreId())
+                .update();
+
+        List<ResultatScan> resultats = serviceBillets().validerLot(
+                List.of(commande.getBillets().get(0).getCodeBillet()), offre.transporteurId(), offre.transporteurId());
+
+        assertEquals("VALIDE", resultats.get(0).getResultat());
+        assertTrue(resultats.get(0).getTrajet().matches("Ville Depart \\d+ \u2192 Ville Arrivee \\d+"),
+                resultats.get(0).getTrajet());
+    }
+
+    @Test
+    void validerLot_billetDUnAutreTransporteur_inconnuEtNonModifie() {
+        OffreTest offre = creerOffre(10);
+        Commande commande = serviceCommandes(inventaire(false))
+                .creerCommande(demandeCommande(offre.offreUuid(), 1), creerUtilisateur());
+        String code = commande.getBillets().get(0).getCodeBillet();
+        Long autre = creerUtilisateur();
+
+        List<ResultatScan> resultats = serviceBillets().validerLot(List.of(code), autre, autre);
+
+        assertEquals("INCONNU", resultats.get(0).getResultat());
+        assertEquals("VALIDE", statutBillet(code));
+        // Contrôleur (operateurId null) : toutes les offres
+        assertEquals("VALIDE", serviceBillets().validerLot(List.of(code), autre, null).get(0).getResultat());
+        assertEquals("UTILISE", statutBillet(code));
+    }
+
+    // ---- helpers ----
+
+    private static BilletService serviceBillets() {
+        SignatureBillets signature = Mockito.mock(SignatureBillets.class);
+        Mockito.when(signature.signer(anyString())).thenReturn("signature");
+        Mockito.when(signature.getKid()).thenReturn("test");
+        BilletServiceImpl service = new BilletServiceImpl(jdbcClient, Mockito.mock(InAppNotificationService.class),
+                Mockito.mock(OutboxService.class), Mockito.mock(UserCache.class), new BilletRowMapper(),
+                signature, new QrCodeBillets(signature), JSON);
+        ReflectionTestUtils.setField(service, "ancienneteMaxScan", Duration.ofHours(72));
+        return transactionnel(service, BilletService.class);
+    }
+
+    private static JsonNode manifeste(BilletService service, OffreTest offre, long depuis) throws Exception {
+        Map<String, Object> reponse = service.getManifeste(offre.offreUuid(), null, null, depuis, offre.transporteurId());
+        return JSON.readTree((String) reponse.get("manifeste"));
+    }
+
+    private static String statutBillet(String codeBillet) {
+        return jdbcClient.sql("SELECT statut FROM billets WHERE code_billet = :code")
+                .param("code", codeBillet)
+                .query(String.class)
+                .single();
+    }
+
+    private static Set<String> codes(Commande commande) {
+        Set<String> codes = new HashSet<>();
+        commande.getBillets().forEach(b -> codes.add(b.getCodeBillet()));
+        return codes;
+    }
+}
@@ -0,0 +1,100 @@
+package io.multi.billetterieservice.service.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.multi.billetterieservice.domain.BlocagePlaces;
+import io.multi.billetterieservice.service.BlocagePlacesService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.utils.TimingWheel;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Blocages de places : sommes lues en base (toutes instances), exclusion du
+ * blocage de l'acheteur seulement s'il lui appartient (contrôle comme
+ * affichage), et roue d'expiration qui ne perd pas un blocage quand l'UPDATE
+ * échoue.
+ */
+class BlocagePlacesServiceImplTest extends BaseDonneesTest {
+
+    @Test
+    void placesBloquees_vuesDeToutesLesInstances() {
+        OffreTest offre = creerOffre(10);
+        instance(10).bloquer(offre.offreUuid(), 2, creerUtilisateur());
+        instance(10).bloquer(offre.offreUuid(), 3, creerUtilisateur());
+
+        Map<Long, Integer> bloquees = instance(10).getPlacesBloquees(List.of(offre.offreId()), null);
+        assertEquals(Integer.valueOf(5), bloquees.get(offre.offreId()));
+    }
+
+    @Test
+    void placesBloquees_horsBlocageDeLAppelant() {
+        OffreTest offre = creerOffre(10);
+        Long acheteur = creerUtilisateur();
+        instance(10).bloquer(offre.offreUuid(), 2, acheteur);
+        instance(10).bloquer(offre.offreUuid(), 3, creerUtilisateur());
+
+        Map<Long, Integer> bloquees = instance(10).getPlacesBloquees(List.of(offre.offreId()), acheteur);
+        assertEquals(Integer.valueOf(3), bloquees.get(offre.offreId()));
+    }
+
+    @Test
+    void blocageDUnAutre_nonExclu() {
+        OffreTest offre = creerOffre(10);
+        Long proprietaire = creerUtilisateur();
+        Long autre = creerUtilisateur();
+        BlocagePlacesService service = instance(10);
+        BlocagePlaces blocage = service.bloquer(offre.offreUuid(), 4, proprietaire);
+
+        assertEquals(0, service.getPlacesBloqueesEnBase(offre.offreId(), blocage.getBlocageUuid(), proprietaire));
+        assertEquals(4, service.getPlacesBloqueesEnBase(offre.offreId(), blocage.getBlocageUuid(), autre));
+        assertEquals(4, service.getPlacesBloqueesEnBase(offre.offreId(), null, null));
+    }
+
+    @Test
+    void echecDeLExpiration_blocageReplanifie() throws Exception {
+        OffreTest offre = creerOffre(10);
+        BlocagePlacesServiceImpl impl = new BlocagePlacesServiceImpl(jdbcClient);
+        ReflectionTestUtils.setField(impl, "ttlMinutes", 0);
+        BlocagePlaces blocage = transactionnel(impl, BlocagePlacesService.class)
+                .bloquer(offre.offreUuid(), 2, creerUtilisateur());
+        Thread.sleep(1_100);
+
+        HikariDataSource fermee = new HikariDataSource();
+        fermee.close();
+        ReflectionTestUtils.setField(impl, "jdbcClient", JdbcClient.create(fermee));
+        impl.expirer();
+        assertEquals(1, roue(impl).size());
+        assertEquals("ACTIVE", statut(blocage.getBlocageUuid()));
+
+        ReflectionTestUtils.setField(impl, "jdbcClient", jdbcClient);
+        Thread.sleep(1_100);
+        impl.expirer();
+        assertEquals(0, roue(impl).size());
+        assertEquals("EXPIRE", statut(blocage.getBlocageUuid()));
+    }
+
+    // ---- helpers ----
+
+    private static BlocagePlacesService instance(int ttlMinutes) {
+        BlocagePlacesServiceImpl impl = new BlocagePlacesServiceImpl(jdbcClient);
+        ReflectionTestUtils.setField(impl, "ttlMinutes", ttlMinutes);
+        return transactionnel(impl, BlocagePlacesService.class);
+    }
+
+    private static TimingWheel<?> roue(BlocagePlacesServiceImpl impl) {
+        return (TimingWheel<?>) ReflectionTestUtils.getField(impl, "roue");
+    }
+
+    private static String statut(String blocageUuid) {
+        return jdbcClient.sql("SELECT statut FROM blocages_places WHERE blocage_uuid = :uuid")
+                .param("uuid", blocageUuid)
+                .query(String.class)
+                .single();
+    }
+}
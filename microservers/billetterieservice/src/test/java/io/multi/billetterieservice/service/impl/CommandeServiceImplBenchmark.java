@@ -0,0 +1,70 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.service.CommandeService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.Mesures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Débit de réservation sur UNE offre très demandée (une seule ligne offres,
+ * verrou de ligne tenu le temps de la commande) selon le nombre d'acheteurs
+ * simultanés. Exclu du build courant : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@Slf4j
+class CommandeServiceImplBenchmark extends BaseDonneesTest {
+
+    private static final int PLACES = 1_000_000;
+    private static final long DUREE_MS = 10_000;
+    private static final long CHAUFFE_MS = 3_000;
+
+    @Test
+    void reservationsParSecondeSurUneOffre() throws Exception {
+        CommandeService service = serviceCommandes(inventaire(false));
+        for (int acheteurs : new int[]{1, 4, 16, 32}) {
+            OffreTest offre = creerOffre(PLACES);
+            mesurer(service, offre, acheteurs, CHAUFFE_MS);
+            Mesures mesures = mesurer(service, offre, acheteurs, DUREE_MS);
+            log.info("creerCommande, {} acheteur(s) sur une offre : {}", acheteurs, mesures.resume());
+        }
+    }
+
+    // ---- helpers ----
+
+    private Mesures mesurer(CommandeService service, OffreTest offre, int acheteurs, long dureeMs) throws Exception {
+        List<Callable<Mesures>> taches = new ArrayList<>();
+        for (int i = 0; i < acheteurs; i++) {
+            Long client = creerUtilisateur();
+            taches.add(() -> {
+                Mesures mesures = new Mesures();
+                long fin = System.currentTimeMillis() + dureeMs;
+                while (System.currentTimeMillis() < fin) {
+                    mesures.mesurer(() -> service.creerCommande(demandeCommande(offre.offreUuid(), 1), client));
+                }
+                return mesures;
+            });
+        }
+        Mesures total = new Mesures();
+        for (Future<Mesures> resultat : enParallele(taches)) {
+            total.fusionner(resultat.get());
+        }
+        assertEquals(PLACES - placesVendues(offre.offreId()), placesDisponibles(offre.offreId()));
+        return total;
+    }
+
+    private static int placesVendues(Long offreId) {
+        return jdbcClient.sql("SELECT COUNT(*)::INTEGER FROM commandes WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query(Integer.class)
+                .single();
+    }
+}
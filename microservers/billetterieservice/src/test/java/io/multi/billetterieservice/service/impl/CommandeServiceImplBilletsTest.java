@@ -0,0 +1,40 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.Billet;
+import io.multi.billetterieservice.domain.Commande;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Billets d'une commande écrits en un seul INSERT (unnest) : un billet par
+ * passager, dans l'ordre des passagers de la demande.
+ */
+class CommandeServiceImplBilletsTest extends BaseDonneesTest {
+
+    @Test
+    void unBilletParPassager_dansLOrdreDeLaDemande() {
+        OffreTest offre = creerOffre(20);
+        Commande commande = serviceCommandes(inventaire(false))
+                .creerCommande(demandeCommande(offre.offreUuid(), 6), creerUtilisateur());
+
+        List<Billet> billets = commande.getBillets();
+        assertEquals(6, billets.size());
+        for (int i = 0; i < billets.size(); i++) {
+            assertEquals("Passager " + (i + 1), billets.get(i).getNomPassager());
+        }
+        assertEquals(6, billetsEnBase(commande.getCommandeId()));
+    }
+
+    // ---- helpers ----
+
+    private static int billetsEnBase(Long commandeId) {
+        return jdbcClient.sql("SELECT COUNT(*)::INTEGER FROM billets WHERE commande_id = :commandeId")
+                .param("commandeId", commandeId)
+                .query(Integer.class)
+                .single();
+    }
+}
@@ -0,0 +1,104 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.Commande;
+import io.multi.billetterieservice.exception.PlacesInsuffisantesException;
+import io.multi.billetterieservice.service.CommandeService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Réservations concurrentes sur une même offre (CommandeServiceImpl.creerCommande) :
+ * le verrou de ligne sur l'offre garantit qu'aucune place n'est vendue deux fois,
+ * et les acheteurs refusés reçoivent l'issue typée « complet »
+ * (PlacesInsuffisantesException), jamais une erreur technique.
+ */
+class CommandeServiceImplContentionTest extends BaseDonneesTest {
+
+    @Test
+    void acheteursConcurrents_aucuneSurvente() throws Exception {
+        OffreTest offre = creerOffre(10);
+        Bilan bilan = reserverEnParallele(serviceCommandes(inventaire(false)), offre, 40, 1);
+
+        assertEquals(10, bilan.confirmees);
+        assertEquals(30, bilan.completes);
+        assertEquals(0, placesDisponibles(offre.offreId()));
+        assertEquals("COMPLET", statut(offre.offreId()));
+        assertEquals(10, placesVendues(offre.offreId()));
+    }
+
+    @Test
+    void reservationsDePlusieursPlaces_leResteNeDepassePasLesPlacesLibres() throws Exception {
+        OffreTest offre = creerOffre(15);
+        Bilan bilan = reserverEnParallele(serviceCommandes(inventaire(false)), offre, 20, 2);
+
+        assertEquals(7, bilan.confirmees);
+        assertEquals(13, bilan.completes);
+        assertEquals(1, placesDisponibles(offre.offreId()));
+        assertEquals(14, placesVendues(offre.offreId()));
+    }
+
+    @Test
+    void inventaireMemoireActif_memeGarantie() throws Exception {
+        OffreTest offre = creerOffre(10);
+        Bilan bilan = reserverEnParallele(serviceCommandes(inventaire(true)), offre, 40, 1);
+
+        assertEquals(10, bilan.confirmees);
+        assertEquals(30, bilan.completes);
+        assertEquals(0, placesDisponibles(offre.offreId()));
+        assertEquals(10, placesVendues(offre.offreId()));
+    }
+
+    // ---- helpers ----
+
+    private record Bilan(int confirmees, int completes) {
+    }
+
+    private Bilan reserverEnParallele(CommandeService service, OffreTest offre, int acheteurs, int places)
+            throws InterruptedException {
+        List<Callable<Commande>> taches = new ArrayList<>();
+        for (int i = 0; i < acheteurs; i++) {
+            Long client = creerUtilisateur();
+            taches.add(() -> service.creerCommande(demandeCommande(offre.offreUuid(), places), client));
+        }
+        int confirmees = 0;
+        int completes = 0;
+        for (Future<Commande> resultat : enParallele(taches)) {
+            try {
+                assertEquals("CONFIRMEE", resultat.get().getStatut());
+                confirmees++;
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof PlacesInsuffisantesException)) {
+                    fail("Issue inattendue : " + e.getCause());
+                }
+                completes++;
+            }
+        }
+        return new Bilan(confirmees, completes);
+    }
+
+    private static String statut(Long offreId) {
+        return jdbcClient.sql("SELECT statut FROM offres WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query(String.class)
+                .single();
+    }
+
+    private static int placesVendues(Long offreId) {
+        return jdbcClient.sql("""
+                        SELECT COALESCE(SUM(nombre_places), 0)::INTEGER FROM commandes
+                        WHERE offre_id = :offreId AND statut = 'CONFIRMEE'
+                        """)
+                .param("offreId", offreId)
+                .query(Integer.class)
+                .single();
+    }
+}
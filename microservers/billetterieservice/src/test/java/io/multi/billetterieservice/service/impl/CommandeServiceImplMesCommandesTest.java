@@ -0,0 +1,75 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.Commande;
+import io.multi.billetterieservice.domain.PageCommandes;
+import io.multi.billetterieservice.service.CommandeService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.CompteurRequetes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mes commandes : nombre de requêtes indépendant du nombre de commandes
+ * (commandes + billets de la page, COUNT seulement pour une page pleine),
+ * total réel et liste complète quand aucune page n'est demandée.
+ */
+class CommandeServiceImplMesCommandesTest extends BaseDonneesTest {
+
+    private static final int COMMANDES = 25;
+
+    private CompteurRequetes compteur;
+    private CommandeService lecture;
+    private Long client;
+
+    @BeforeEach
+    void preparer() {
+        CommandeService reservations = serviceCommandes(inventaire(false));
+        OffreTest offre = creerOffre(100);
+        client = creerUtilisateur();
+        for (int i = 0; i < COMMANDES; i++) {
+            reservations.creerCommande(demandeCommande(offre.offreUuid(), 1 + i % 3), client);
+        }
+        compteur = new CompteurRequetes(dataSource);
+        lecture = serviceCommandes(inventaire(false), JdbcClient.create(compteur));
+    }
+
+    @Test
+    void pagePleine_troisRequetes() {
+        PageCommandes page = lecture.getCommandesByUserId(client, 0, 10);
+
+        assertEquals(10, page.getCommandes().size());
+        assertEquals(COMMANDES, page.getTotal());
+        assertTrue(page.isHasMore());
+        assertEquals(3, compteur.requetes());
+        for (Commande commande : page.getCommandes()) {
+            assertEquals(commande.getNombrePlaces().intValue(), commande.getBillets().size());
+        }
+    }
+
+    @Test
+    void dernierePage_sansCount() {
+        PageCommandes page = lecture.getCommandesByUserId(client, 2, 10);
+
+        assertEquals(5, page.getCommandes().size());
+        assertEquals(COMMANDES, page.getTotal());
+        assertFalse(page.isHasMore());
+        assertEquals(2, compteur.requetes());
+    }
+
+    @Test
+    void sansPage_toutesLesCommandesEnDeuxRequetes() {
+        PageCommandes page = lecture.getCommandesByUserId(client, null, 10);
+
+        assertEquals(COMMANDES, page.getCommandes().size());
+        assertEquals(COMMANDES, page.getTotal());
+        assertFalse(page.isHasMore());
+        assertNull(page.getPage());
+        assertEquals(2, compteur.requetes());
+    }
+}
@@ -0,0 +1,45 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.service.CommandeService;
+import io.multi.billetterieservice.service.OutboxService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * L'événement outbox fait partie de la transaction de commande : son échec
+ * remonte à l'appelant et annule la commande, au lieu d'un succès annoncé
+ * suivi d'un rollback au COMMIT.
+ */
+class CommandeServiceImplOutboxTest extends BaseDonneesTest {
+
+    @Test
+    void echecOutbox_commandeAnnulee() {
+        OffreTest offre = creerOffre(10);
+        Long userId = creerUtilisateur();
+        OutboxService outbox = Mockito.mock(OutboxService.class);
+        Mockito.doThrow(new DataIntegrityViolationException("outbox_evenements"))
+                .when(outbox).publier(any(), any(), any());
+        CommandeService service = serviceCommandes(inventaire(false), jdbcClient, outbox);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> service.creerCommande(demandeCommande(offre.offreUuid(), 2), userId));
+
+        assertEquals(0, commandes(userId));
+        assertEquals(10, placesDisponibles(offre.offreId()));
+    }
+
+    // ---- helpers ----
+
+    private static int commandes(Long userId) {
+        return jdbcClient.sql("SELECT COUNT(*)::INTEGER FROM commandes WHERE user_id = :userId")
+                .param("userId", userId)
+                .query(Integer.class)
+                .single();
+    }
+}
@@ -0,0 +1,40 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.service.CommandeService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.Mesures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Latence de creerCommande selon le nombre de passagers : avec l'INSERT
+ * unique des billets, elle doit rester quasi plate.
+ * Exclu du build courant : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@Slf4j
+class CommandeServiceImplPassagersBenchmark extends BaseDonneesTest {
+
+    private static final int PLACES = 1_000_000;
+    private static final int CHAUFFE = 50;
+    private static final int ITERATIONS = 500;
+
+    @Test
+    void latenceParNombreDePassagers() throws Exception {
+        CommandeService service = serviceCommandes(inventaire(false));
+        Long client = creerUtilisateur();
+        for (int passagers : new int[]{1, 2, 4, 8, 16}) {
+            OffreTest offre = creerOffre(PLACES);
+            Mesures mesures = new Mesures();
+            for (int i = 0; i < CHAUFFE + ITERATIONS; i++) {
+                if (i < CHAUFFE) {
+                    service.creerCommande(demandeCommande(offre.offreUuid(), passagers), client);
+                } else {
+                    mesures.mesurer(() -> service.creerCommande(demandeCommande(offre.offreUuid(), passagers), client));
+                }
+            }
+            log.info("creerCommande, {} passager(s) : {}", passagers, mesures.resume());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.PageNotifications;
+import io.multi.billetterieservice.service.InAppNotificationService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.Mesures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Notifications sur 10 millions de lignes réparties sur douze partitions
+ * mensuelles (V51) : première page du fil, compteur de non lues, garde de
+ * dédoublonnage des rappels (30 jours), et marquage comme lue par identifiant
+ * seul (toutes les partitions) ou avec created_at (partition du mois).
+ * Exclu du build courant : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@Slf4j
+class InAppNotificationServiceImplBenchmark extends BaseDonneesTest {
+
+    private static final int NOTIFICATIONS = 10_000_000;
+    private static final int LOT = 1_000_000;
+    private static final int UTILISATEURS = 1_000;
+    private static final int ITERATIONS = 200;
+
+    @Test
+    void filCompteurDedoublonnageEtLecture() throws Exception {
+        Long[] utilisateurs = creerUtilisateurs();
+        jdbcClient.sql("""
+                        SELECT creer_partitions_mensuelles('notifications',
+                            (CURRENT_DATE - INTERVAL '13 months')::date, (CURRENT_DATE + INTERVAL '1 month')::date)
+                        """)
+                .query(Integer.class)
+                .single();
+        for (int debut = 1; debut <= NOTIFICATIONS; debut += LOT) {
+            jdbcClient.sql("""
+                            INSERT INTO notifications (user_id, type_notification, categorie, titre, message,
+                                                       lue, envoyee, date_envoi, reference_id, reference_type, created_at)
+                            SELECT (CAST(:userIds AS BIGINT[]))[1 + i % :utilisateurs], 'IN_APP',
+                                   (ARRAY['RAPPEL_J1', 'RAPPEL_H2', 'RESERVATION', 'PAIEMENT'])[1 + i % 4],
+                                   'Benchmark', 'Notification ' || i, i % 3 <> 0, TRUE, now(),
+                                   i % 50000, 'OFFRE',
+                                   now() - ((i / :utilisateurs) % 360) * INTERVAL '1 day' - (i % 86400) * INTERVAL '1 second'
+                            FROM generate_series(:debut, :fin) AS i
+                            """)
+                    .param("userIds", utilisateurs)
+                    .param("utilisateurs", UTILISATEURS)
+                    .param("debut", debut)
+                    .param("fin", Math.min(debut + LOT - 1, NOTIFICATIONS))
+                    .update();
+        }
+        jdbcClient.sql("ANALYZE notifications").update();
+        long horsPartition = jdbcClient.sql("SELECT COUNT(*) FROM notifications_defaut").query(Long.class).single();
+        assertEquals(0, horsPartition);
+
+        InAppNotificationService service = transactionnel(
+                new InAppNotificationServiceImpl(jdbcClient, 50_000, 60_000), InAppNotificationService.class);
+        Long userId = utilisateurs[UTILISATEURS / 2];
+        List<Cible> cibles = cibles(userId, 2 * ITERATIONS);
+        assertEquals(2 * ITERATIONS, cibles.size());
+
+        Mesures fil = new Mesures();
+        Mesures compteur = new Mesures();
+        Mesures dedoublonnage = new Mesures();
+        Mesures lectureSansDate = new Mesures();
+        Mesures lectureAvecDate = new Mesures();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Long utilisateur = utilisateurs[i % UTILISATEURS];
+            PageNotifications page = fil.mesurer(() -> service.getByUserId(utilisateur, null, 20));
+            assertEquals(20, page.getNotifications().size());
+            service.oublierCompteursNonLues();
+            compteur.mesurer(() -> service.countUnread(utilisateur));
+            long reference = i * 7L;
+            dedoublonnage.mesurer(() -> service.existsByReference(utilisateur, reference, "OFFRE", "RAPPEL_J1"));
+
+            Cible sansDate = cibles.get(2 * i);
+            Cible avecDate = cibles.get(2 * i + 1);
+            lectureSansDate.mesurer(() -> {
+                service.markAsRead(sansDate.notificationId(), null, userId);
+                return null;
+            });
+            lectureAvecDate.mesurer(() -> {
+                service.markAsRead(avecDate.notificationId(), avecDate.createdAt(), userId);
+                return null;
+            });
+        }
+        long nonLues = jdbcClient.sql("""
+                        SELECT COUNT(*) FROM notifications
+                        WHERE user_id = :userId AND notification_id = ANY(CAST(:ids AS BIGINT[])) AND lue = FALSE
+                        """)
+                .param("userId", userId)
+                .param("ids", cibles.stream().map(Cible::notificationId).toArray(Long[]::new))
+                .query(Long.class)
+                .single();
+        assertEquals(0, nonLues);
+        log.info("getByUserId, première page : {}", fil.resume());
+        log.info("countUnread, cache vidé : {}", compteur.resume());
+        log.info("existsByReference (30 jours) : {}", dedoublonnage.resume());
+        log.info("markAsRead, identifiant seul : {}", lectureSansDate.resume());
+        log.info("markAsRead, avec created_at : {}", lectureAvecDate.resume());
+    }
+
+    // ---- helpers ----
+
+    private record Cible(Long notificationId, OffsetDateTime createdAt) {}
+
+    private static Long[] creerUtilisateurs() {
+        String prefixe = "bench" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        return jdbcClient.sql("""
+                        INSERT INTO users (user_uuid, username, first_name, last_name, email, member_id, enabled,
+                                           account_non_expired, account_non_locked)
+                        SELECT uuid_generate_v4(), :prefixe || g, 'Test', 'Utilisateur', :prefixe || g || '@exemple.gn',
+                               'M-' || :prefixe || g, TRUE, TRUE, TRUE
+                        FROM generate_series(1, :nombre) AS g
+                        RETURNING user_id
+                        """)
+                .param("prefixe", prefixe)
+                .param("nombre", UTILISATEURS)
+                .query(Long.class)
+                .list()
+                .toArray(Long[]::new);
+    }
+
+    /** Non lues de l'utilisateur tirées au hasard, donc réparties sur tous les mois. */
+    private static List<Cible> cibles(Long userId, int nombre) {
+        return jdbcClient.sql("""
+                        SELECT notification_id, created_at FROM notifications
+                        WHERE user_id = :userId AND lue = FALSE
+                        ORDER BY random()
+                        LIMIT :nombre
+                        """)
+                .param("userId", userId)
+                .param("nombre", nombre)
+                .query((rs, rowNum) -> new Cible(rs.getLong("notification_id"),
+                        rs.getObject("created_at", OffsetDateTime.class)))
+                .list();
+    }
+}
@@ -0,0 +1,73 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.InAppNotification;
+import io.multi.billetterieservice.domain.PageNotifications;
+import io.multi.billetterieservice.service.InAppNotificationService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fil de notifications : l'ancienne pagination par numéro de page (transition
+ * des applications) rend les mêmes lignes que le curseur ; une lecture avec un
+ * createdAt erroné retrouve quand même la notification.
+ */
+class InAppNotificationServiceImplTest extends BaseDonneesTest {
+
+    @Test
+    void anciennePagination_memesLignesQueLeCurseur() {
+        Long userId = creerUtilisateur();
+        for (int i = 0; i < 5; i++) {
+            creerNotification(userId, "Notification " + i);
+        }
+        InAppNotificationService service = service();
+
+        PageNotifications premiere = service.getByUserId(userId, null, 2);
+        PageNotifications suivante = service.getByUserId(userId, premiere.getCurseurSuivant(), 2);
+        PageNotifications parNumero = service.getByUserIdParPage(userId, 1, 2);
+
+        assertEquals(ids(suivante.getNotifications()), ids(parNumero.getNotifications()));
+        assertTrue(parNumero.isHasMore());
+        assertEquals(1, service.getByUserIdParPage(userId, 2, 2).getNotifications().size());
+    }
+
+    @Test
+    void lecture_createdAtExactOuErrone() {
+        Long userId = creerUtilisateur();
+        creerNotification(userId, "Première");
+        creerNotification(userId, "Seconde");
+        InAppNotificationService service = service();
+        List<InAppNotification> fil = service.getByUserId(userId, null, 10).getNotifications();
+
+        service.markAsRead(fil.get(0).getNotificationId(), fil.get(0).getCreatedAt(), userId);
+        service.markAsRead(fil.get(1).getNotificationId(), fil.get(1).getCreatedAt().minusDays(40), userId);
+
+        assertTrue(service.getByUserId(userId, null, 10).getNotifications().stream()
+                .allMatch(notification -> Boolean.TRUE.equals(notification.getLue())));
+    }
+
+    // ---- helpers ----
+
+    static InAppNotificationService service() {
+        return transactionnel(new InAppNotificationServiceImpl(jdbcClient, 1_000, 60_000),
+                InAppNotificationService.class);
+    }
+
+    static void creerNotification(Long userId, String message) {
+        jdbcClient.sql("""
+                        INSERT INTO notifications (user_id, type_notification, categorie, titre, message)
+                        VALUES (:userId, 'IN_APP', 'RESERVATION', 'Test', :message)
+                        """)
+                .param("userId", userId)
+                .param("message", message)
+                .update();
+    }
+
+    private static List<Long> ids(List<InAppNotification> notifications) {
+        return notifications.stream().map(InAppNotification::getNotificationId).toList();
+    }
+}
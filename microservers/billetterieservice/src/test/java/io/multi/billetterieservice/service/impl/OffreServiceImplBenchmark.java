@@ -0,0 +1,77 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.Offre;
+import io.multi.billetterieservice.domain.PageOffres;
+import io.multi.billetterieservice.repository.impl.OffreRepositoryImpl;
+import io.multi.billetterieservice.service.OffreService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.Mesures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Listes d'offres sur 100 000 offres : première page, page profonde (curseur)
+ * et ancienne liste complète sans LIMIT, pour comparaison.
+ * Exclu du build courant : mvn -pl billetterieservice -am test -Pbenchmarks
+ */
+@Tag("benchmark")
+@Slf4j
+class OffreServiceImplBenchmark extends BaseDonneesTest {
+
+    private static final int OFFRES = 100_000;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    void pageCurseurContreListeComplete() throws Exception {
+        Long transporteur = creerUtilisateur();
+        Long trajet = creerTrajet(transporteur);
+        Long vehicule = creerVehicule(transporteur, 50);
+        jdbcClient.sql("""
+                        INSERT INTO offres (trajet_id, vehicule_id, user_id, date_depart, heure_depart,
+                                            nombre_places_total, nombre_places_disponibles, montant, statut)
+                        SELECT :trajetId, :vehiculeId, :userId, CURRENT_DATE + (i % 365),
+                               TIME '05:00' + (i % 900) * INTERVAL '1 minute', 50, 50, 150000,
+                               CASE WHEN i % 4 = 0 THEN 'FERME' ELSE 'OUVERT' END
+                        FROM generate_series(1, :nombre) AS i
+                        """)
+                .param("trajetId", trajet)
+                .param("vehiculeId", vehicule)
+                .param("userId", transporteur)
+                .param("nombre", OFFRES)
+                .update();
+        jdbcClient.sql("ANALYZE offres").update();
+
+        OffreService service = serviceOffres(inventaire(false));
+        OffreRepositoryImpl repository = new OffreRepositoryImpl(jdbcClient);
+
+        String profond = curseurApres(service, 100);
+        Mesures premiere = new Mesures();
+        Mesures profonde = new Mesures();
+        Mesures complete = new Mesures();
+        for (int i = 0; i < ITERATIONS; i++) {
+            premiere.mesurer(() -> service.getAllOuvertes(null, 20));
+            profonde.mesurer(() -> service.getAllOuvertes(profond, 20));
+            List<Offre> toutes = complete.mesurer(() -> repository.findAllOuvertes(null, Integer.MAX_VALUE));
+            assertTrue(toutes.size() >= OFFRES / 2);
+        }
+        log.info("getAllOuvertes, première page (20) : {}", premiere.resume());
+        log.info("getAllOuvertes, page 101 par curseur : {}", profonde.resume());
+        log.info("liste complète sans LIMIT (ancien chemin) : {}", complete.resume());
+    }
+
+    // ---- helpers ----
+
+    private static String curseurApres(OffreService service, int pages) {
+        String curseur = null;
+        for (int i = 0; i < pages; i++) {
+            PageOffres page = service.getAllOuvertes(curseur, 20);
+            curseur = page.getCurseurSuivant();
+        }
+        return curseur;
+    }
+}
@@ -0,0 +1,64 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.PageOffres;
+import io.multi.billetterieservice.service.OffreService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import io.multi.billetterieservice.support.CompteurRequetes;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Listes d'offres paginées par curseur : hasMore et curseurSuivant permettent
+ * de la parcourir sans doublon ni trou, en une seule requête par page (pas de
+ * COUNT de la liste entière).
+ */
+class OffreServiceImplPaginationTest extends BaseDonneesTest {
+
+    @Test
+    void parcoursComplet_uneRequeteParPageEtDernierePageSansCurseur() {
+        Long transporteur = creerUtilisateur();
+        Long trajet = creerTrajet(transporteur);
+        Long vehicule = creerVehicule(transporteur, 10);
+        for (int i = 0; i < 23; i++) {
+            Long offreId = creerOffre(transporteur, trajet, vehicule, 10, 1 + i % 5).offreId();
+            jdbcClient.sql("UPDATE offres SET statut = 'SUSPENDU' WHERE offre_id = :offreId")
+                    .param("offreId", offreId)
+                    .update();
+        }
+        long attendu = suspendues();
+        CompteurRequetes compteur = new CompteurRequetes(dataSource);
+        OffreService service = serviceOffres(inventaire(false), JdbcClient.create(compteur));
+
+        Set<Long> vues = new HashSet<>();
+        String curseur = null;
+        PageOffres page;
+        do {
+            compteur.remettreAZero();
+            page = service.getByStatut("SUSPENDU", curseur, 7);
+            assertEquals(1, compteur.requetes());
+            assertTrue(page.getOffres().size() <= 7);
+            page.getOffres().forEach(offre -> assertTrue(vues.add(offre.getOffreId()), "offre vue deux fois"));
+            curseur = page.getCurseurSuivant();
+        } while (page.isHasMore());
+
+        assertEquals(attendu, vues.size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getCurseurSuivant());
+    }
+
+    // ---- helpers ----
+
+    private static long suspendues() {
+        return jdbcClient.sql("SELECT COUNT(*) FROM offres WHERE statut = 'SUSPENDU'")
+                .query(Long.class)
+                .single();
+    }
+}
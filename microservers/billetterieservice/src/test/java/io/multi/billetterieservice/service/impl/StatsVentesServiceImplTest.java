@@ -0,0 +1,120 @@
+package io.multi.billetterieservice.service.impl;
+
+import io.multi.billetterieservice.domain.StatsVentes;
+import io.multi.billetterieservice.service.StatsVentesService;
+import io.multi.billetterieservice.support.BaseDonneesTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Agrégats de ventes (V48) : les triggers n'écrivent que des mouvements, lus
+ * avant comme après intégration ; une offre réaffectée emporte ses ventes ;
+ * la consolidation rattrape une correction faite hors triggers, sans doublon.
+ */
+class StatsVentesServiceImplTest extends BaseDonneesTest {
+
+    @Test
+    void venteLueAvantEtApresIntegration() {
+        OffreTest offre = creerOffre(10);
+        StatsVentesService service = service();
+        commande(offre, 2, "CONFIRMEE");
+
+        StatsVentes avant = totaux(service, offre.transporteurId());
+        assertEquals(1L, avant.getCommandes());
+        assertEquals(2L, avant.getPlaces());
+
+        integrerTout(service);
+        StatsVentes apres = totaux(service, offre.transporteurId());
+        assertEquals(avant, apres);
+        long enAttente = mouvements(offre.transporteurId());
+        assertEquals(0L, enAttente);
+    }
+
+    @Test
+    void offreReaffectee_ventesSuiventLeTransporteur() {
+        OffreTest offre = creerOffre(10);
+        StatsVentesService service = service();
+        commande(offre, 3, "PAYEE");
+        integrerTout(service);
+        Long repreneur = creerUtilisateur();
+
+        jdbcClient.sql("UPDATE offres SET user_id = :userId WHERE offre_id = :offreId")
+                .param("userId", repreneur)
+                .param("offreId", offre.offreId())
+                .update();
+
+        long cedees = totaux(service, offre.transporteurId()).getPlaces();
+        long reprises = totaux(service, repreneur).getPlaces();
+        assertEquals(0L, cedees);
+        assertEquals(3L, reprises);
+    }
+
+    @Test
+    void correctionHorsTriggers_consolideeSansDoublon() {
+        OffreTest offre = creerOffre(10);
+        StatsVentesService service = service();
+        Long commandeId = commande(offre, 2, "CONFIRMEE");
+        integrerTout(service);
+
+        transactions.executeWithoutResult(statut -> {
+            jdbcClient.sql("SET LOCAL session_replication_role = replica").update();
+            jdbcClient.sql("UPDATE commandes SET statut = 'ANNULEE' WHERE commande_id = :commandeId")
+                    .param("commandeId", commandeId)
+                    .update();
+        });
+        assertEquals(1L, totaux(service, offre.transporteurId()).getCommandes());
+
+        assertTrue(service.recalculer(null, null) >= 1);
+        service.recalculer(null, null);
+        integrerTout(service);
+
+        StatsVentes corrigees = totaux(service, offre.transporteurId());
+        assertEquals(0L, corrigees.getCommandes());
+        assertEquals(1L, corrigees.getAnnulations());
+        assertEquals(2L, corrigees.getPlacesAnnulees());
+    }
+
+    // ---- helpers ----
+
+    private static StatsVentesService service() {
+        return transactionnel(new StatsVentesServiceImpl(jdbcClient, null, null), StatsVentesService.class);
+    }
+
+    private static Long commande(OffreTest offre, int places, String statut) {
+        return jdbcClient.sql("""
+                        INSERT INTO commandes (numero_commande, offre_id, user_id, nombre_places,
+                                               montant_unitaire, montant_total, statut)
+                        VALUES (substr(md5(random()::text), 1, 20), :offreId, :userId, :places,
+                                150000, 150000 * :places, :statut)
+                        RETURNING commande_id
+                        """)
+                .param("offreId", offre.offreId())
+                .param("userId", offre.transporteurId())
+                .param("places", places)
+                .param("statut", statut)
+                .query(Long.class)
+                .single();
+    }
+
+    private static StatsVentes totaux(StatsVentesService service, Long transporteurId) {
+        LocalDate jour = jdbcClient.sql("SELECT f_jour_commande(now())").query(LocalDate.class).single();
+        return (StatsVentes) service.getVentesTransporteur(transporteurId, jour, jour).get("totaux");
+    }
+
+    private static void integrerTout(StatsVentesService service) {
+        while (service.integrerMouvements(1_000) > 0) {
+            // lots successifs jusqu'à épuisement
+        }
+    }
+
+    private static long mouvements(Long transporteurId) {
+        return jdbcClient.sql("SELECT COUNT(*) FROM stats_ventes_mouvements WHERE transporteur_id = :userId")
+                .param("userId", transporteurId)
+                .query(Long.class)
+                .single();
+    }
+}
@@ -0,0 +1,342 @@
+package io.multi.billetterieservice.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.multi.billetterieservice.mapper.BilletRowMapper;
+import io.multi.billetterieservice.mapper.CommandeRowMapper;
+import io.multi.billetterieservice.repository.TrajetRepository;
+import io.multi.billetterieservice.repository.VehiculeRepository;
+import io.multi.billetterieservice.repository.impl.OffreRepositoryImpl;
+import io.multi.billetterieservice.scheduled.RelaisOutbox;
+import io.multi.billetterieservice.securite.QrCodeBillets;
+import io.multi.billetterieservice.service.AllocateurNumeroCommande;
+import io.multi.billetterieservice.service.BlocagePlacesService;
+import io.multi.billetterieservice.service.CommandeService;
+import io.multi.billetterieservice.service.InventairePlaces;
+import io.multi.billetterieservice.service.OffreService;
+import io.multi.billetterieservice.service.OutboxService;
+import io.multi.billetterieservice.service.impl.BlocagePlacesServiceImpl;
+import io.multi.billetterieservice.service.impl.CommandeServiceImpl;
+import io.multi.billetterieservice.service.impl.OffreServiceImpl;
+import io.multi.billetterieservice.dto.CommandeRequest;
+import io.multi.clients.UserCache;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Base des tests sur une vraie base PostgreSQL : un conteneur partagé par
+ * toute la campagne, schéma appliqué par les migrations Flyway du dépôt
+ * (database-migrations), sans contexte Spring. Les tests sont ignorés si
+ * Docker n'est pas disponible.
+ *
+ * Les services sont construits à la main sur la base (JdbcClient, verrous et
+ * triggers réels) ; seuls les appels sortants (userservice, QR, Kafka) sont
+ * simulés. transactionnel() applique les @Transactional des implémentations.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class BaseDonneesTest {
+
+    // postgis : requis par les migrations immobilier (V13), même base partagée qu'en production
+    private static final DockerImageName IMAGE = DockerImageName.parse("postgis/postgis:16-3.4-alpine")
+            .asCompatibleSubstituteFor("postgres");
+    private static final String MIGRATIONS = "filesystem:../database-migrations/src/main/resources/db/migration";
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000);
+
+    private static PostgreSQLContainer<?> postgres;
+    protected static HikariDataSource dataSource;
+    protected static JdbcClient jdbcClient;
+    protected static DataSourceTransactionManager transactionManager;
+    protected static TransactionTemplate transactions;
+
+    @BeforeAll
+    static synchronized void demarrerBase() {
+        if (postgres != null) return;
+        postgres = new PostgreSQLContainer<>(IMAGE)
+                .withDatabaseName("innodb")
+                .withCommand("postgres", "-c", "max_connections=300");
+        postgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations(MIGRATIONS)
+                .load()
+                .migrate();
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(postgres.getUsername());
+        config.setPassword(postgres.getPassword());
+        config.setMaximumPoolSize(64);
+        dataSource = new HikariDataSource(config);
+        jdbcClient = JdbcClient.create(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        transactions = new TransactionTemplate(transactionManager);
+    }
+
+    /** Proxy de l'interface appliquant les @Transactional de la cible (comme le conteneur Spring). */
+    protected static <I> I transactionnel(I cible, Class<I> type) {
+        ProxyFactory proxy = new ProxyFactory(cible);
+        proxy.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        return type.cast(proxy.getProxy());
+    }
+
+    /** Connexions hors du pool et de toute transaction gérée (comme la connexion dédiée d'AllocateurNumeroCommande). */
+    protected static JdbcClient connexionsDediees() {
+        return JdbcClient.create(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+    }
+
+    // ---- services ----
+
+    protected static OffreService serviceOffres(InventairePlaces inventaire) {
+        return serviceOffres(inventaire, jdbcClient);
+    }
+
+    /** Idem, lectures passant par client (CompteurRequetes). */
+    protected static OffreService serviceOffres(InventairePlaces inventaire, JdbcClient client) {
+        return transactionnel(new OffreServiceImpl(new OffreRepositoryImpl(client),
+                Mockito.mock(TrajetRepository.class), Mockito.mock(VehiculeRepository.class),
+                Mockito.mock(UserCache.class), inventaire), OffreService.class);
+    }
+
+    protected static InventairePlaces inventaire(boolean actif) {
+        InventairePlaces inventaire = new InventairePlaces(jdbcClient);
+        ReflectionTestUtils.setField(inventaire, "enabled", actif);
+        return inventaire;
+    }
+
+    /**
+     * Chaîne de réservation réelle (offre, verrou, blocages, numéros, billets,
+     * paiement, outbox). QR codes et utilisateurs simulés.
+     */
+    protected static CommandeService serviceCommandes(InventairePlaces inventaire) {
+        return serviceCommandes(inventaire, jdbcClient);
+    }
+
+    /** Même chaîne, les requêtes du service de commandes passant par client (ex. CompteurRequetes). */
+    protected static CommandeService serviceCommandes(InventairePlaces inventaire, JdbcClient client) {
+        return serviceCommandes(inventaire, client,
+                new OutboxService(jdbcClient, new ObjectMapper(), Mockito.mock(RelaisOutbox.class)));
+    }
+
+    /** Même chaîne avec un autre outbox (ex. simulé en échec). */
+    protected static CommandeService serviceCommandes(InventairePlaces inventaire, JdbcClient client,
+                                                      OutboxService outbox) {
+        QrCodeBillets qrCodes = Mockito.mock(QrCodeBillets.class);
+        Mockito.when(qrCodes.emettre(anyLong(), anyLong(), any(), anyInt(), any())).thenReturn("QR-TEST");
+        BlocagePlacesServiceImpl blocages = new BlocagePlacesServiceImpl(jdbcClient);
+        ReflectionTestUtils.setField(blocages, "ttlMinutes", 10);
+        AllocateurNumeroCommande allocateur = new AllocateurNumeroCommande(connexionsDediees());
+        ReflectionTestUtils.setField(allocateur, "tailleBloc", 50);
+        return transactionnel(new CommandeServiceImpl(client, serviceOffres(inventaire), inventaire,
+                transactionnel(blocages, BlocagePlacesService.class), allocateur, Mockito.mock(UserCache.class),
+                outbox, new CommandeRowMapper(), new BilletRowMapper(), qrCodes), CommandeService.class);
+    }
+
+    // ---- jeux de données ----
+
+    /** Utilisateur minimal (contraintes d'unicité respectées) ; retourne user_id. */
+    protected static Long creerUtilisateur() {
+        String suffixe = String.valueOf(SEQUENCE.incrementAndGet());
+        return jdbcClient.sql("""
+                        INSERT INTO users (user_uuid, username, first_name, last_name, email, member_id, enabled,
+                                           account_non_expired, account_non_locked)
+                        VALUES (:uuid, :username, 'Test', 'Utilisateur', :email, :memberId, TRUE, TRUE, TRUE)
+                        RETURNING user_id
+                        """)
+                .param("uuid", UUID.randomUUID().toString())
+                .param("username", "test" + suffixe)
+                .param("email", "test" + suffixe + "@exemple.gn")
+                .param("memberId", "M-" + suffixe)
+                .query(Long.class)
+                .single();
+    }
+
+    /** Trajet entre deux gares neuves (ville, site, départ, arrivée) ; retourne trajet_id. */
+    protected static Long creerTrajet(Long userId) {
+        String suffixe = String.valueOf(SEQUENCE.incrementAndGet());
+        Long depart = creerDepart("Depart " + suffixe);
+        Long arrivee = jdbcClient.sql("""
+                        INSERT INTO arrivees (site_id, depart_id, libelle)
+                        VALUES (:siteId, :departId, :libelle)
+                        RETURNING arrivee_id
+                        """)
+                .param("siteId", creerSite("Arrivee " + suffixe))
+                .param("departId", depart)
+                .param("libelle", "Arrivee " + suffixe)
+                .query(Long.class)
+                .single();
+        return jdbcClient.sql("""
+                        INSERT INTO trajets (depart_id, arrivee_id, user_id, libelle_trajet, duree_estimee_minutes, montant_base)
+                        VALUES (:departId, :arriveeId, :userId, :libelle, 240, 100000)
+                        RETURNING trajet_id
+                        """)
+                .param("departId", depart)
+                .param("arriveeId", arrivee)
+                .param("userId", userId)
+                .param("libelle", "Trajet " + suffixe)
+                .query(Long.class)
+                .single();
+    }
+
+    private static Long creerSite(String nom) {
+        Long villeId = jdbcClient.sql("""
+                        INSERT INTO villes (region_id, libelle)
+                        SELECT region_id, :libelle FROM regions WHERE code = 'CKY'
+                        RETURNING ville_id
+                        """)
+                .param("libelle", "Ville " + nom)
+                .query(Long.class)
+                .single();
+        Long localisationId = jdbcClient.sql("""
+                        INSERT INTO localisations (adresse_complete) VALUES (:adresse)
+                        RETURNING localisation_id
+                        """)
+                .param("adresse", "Adresse " + nom)
+                .query(Long.class)
+                .single();
+        return jdbcClient.sql("""
+                        INSERT INTO sites (localisation_id, ville_id, nom) VALUES (:localisationId, :villeId, :nom)
+                        RETURNING site_id
+                        """)
+                .param("localisationId", localisationId)
+                .param("villeId", villeId)
+                .param("nom", "Gare " + nom)
+                .query(Long.class)
+                .single();
+    }
+
+    private static Long creerDepart(String libelle) {
+        return jdbcClient.sql("""
+                        INSERT INTO departs (site_id, libelle) VALUES (:siteId, :libelle)
+                        RETURNING depart_id
+                        """)
+                .param("siteId", creerSite(libelle))
+                .param("libelle", libelle)
+                .query(Long.class)
+                .single();
+    }
+
+    protected static Long creerVehicule(Long userId, int places) {
+        String suffixe = String.valueOf(SEQUENCE.incrementAndGet());
+        return jdbcClient.sql("""
+                        INSERT INTO vehicules (user_id, immatriculation, nombre_places, nom_chauffeur, contact_chauffeur)
+                        VALUES (:userId, :immatriculation, :places, 'Chauffeur Test', '620000000')
+                        RETURNING vehicule_id
+                        """)
+                .param("userId", userId)
+                .param("immatriculation", "RC-" + suffixe)
+                .param("places", Math.min(places, 100))
+                .query(Long.class)
+                .single();
+    }
+
+    /** Offre OUVERT de nombrePlaces places, départ dans dansJours jours. */
+    protected static OffreTest creerOffre(Long userId, Long trajetId, Long vehiculeId, int nombrePlaces, int dansJours) {
+        return jdbcClient.sql("""
+                        INSERT INTO offres (trajet_id, vehicule_id, user_id, date_depart, heure_depart,
+                                            nombre_places_total, nombre_places_disponibles, montant, statut)
+                        VALUES (:trajetId, :vehiculeId, :userId, :dateDepart, :heureDepart,
+                                :places, :places, 150000, 'OUVERT')
+                        RETURNING offre_id, offre_uuid
+                        """)
+                .param("trajetId", trajetId)
+                .param("vehiculeId", vehiculeId)
+                .param("userId", userId)
+                .param("dateDepart", LocalDate.now().plusDays(dansJours))
+                .param("heureDepart", LocalTime.of(8, 0).plusMinutes(SEQUENCE.incrementAndGet() % 600))
+                .param("places", nombrePlaces)
+                .query((rs, rowNum) -> new OffreTest(rs.getLong("offre_id"), rs.getString("offre_uuid"), userId))
+                .single();
+    }
+
+    /** Offre OUVERT complète (transporteur, trajet, véhicule neufs). */
+    protected static OffreTest creerOffre(int nombrePlaces) {
+        Long transporteur = creerUtilisateur();
+        return creerOffre(transporteur, creerTrajet(transporteur), creerVehicule(transporteur, nombrePlaces),
+                nombrePlaces, 7);
+    }
+
+    protected static int placesDisponibles(Long offreId) {
+        return jdbcClient.sql("SELECT nombre_places_disponibles FROM offres WHERE offre_id = :offreId")
+                .param("offreId", offreId)
+                .query(Integer.class)
+                .single();
+    }
+
+    protected static CommandeRequest demandeCommande(String offreUuid, int nombrePassagers) {
+        List<CommandeRequest.PassagerDto> passagers = new ArrayList<>();
+        for (int i = 0; i < nombrePassagers; i++) {
+            passagers.add(CommandeRequest.PassagerDto.builder()
+                    .prenom("Passager")
+                    .nom(String.valueOf(i + 1))
+                    .telephone("62000000" + (i % 10))
+                    .build());
+        }
+        return CommandeRequest.builder()
+                .offreUuid(offreUuid)
+                .modeReglementCode("CASH")
+                .passagers(passagers)
+                .build();
+    }
+
+    // ---- concurrence ----
+
+    /**
+     * Lance les tâches sur autant de threads, libérées ensemble, et retourne
+     * leurs résultats (Future) une fois toutes terminées.
+     */
+    protected static <T> List<Future<T>> enParallele(List<Callable<T>> taches) throws InterruptedException {
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(taches.size());
+        try {
+            List<Future<T>> resultats = new ArrayList<>();
+            for (Callable<T> tache : taches) {
+                resultats.add(executor.submit(() -> {
+                    depart.await();
+                    return tache.call();
+                }));
+            }
+            depart.countDown();
+            executor.shutdown();
+            executor.awaitTermination(2, TimeUnit.MINUTES);
+            return resultats;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public record OffreTest(Long offreId, String offreUuid, Long transporteurId) {
+    }
+}
@@ -0,0 +1,56 @@
+package io.multi.billetterieservice.support;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource qui compte les instructions SQL préparées : sert à vérifier
+ * qu'un chemin de lecture n'émet pas une requête par ligne (N+1).
+ */
+public final class CompteurRequetes extends DelegatingDataSource {
+
+    private static final Set<String> INSTRUCTIONS = Set.of("prepareStatement", "createStatement", "prepareCall");
+
+    private final AtomicInteger requetes = new AtomicInteger();
+
+    public CompteurRequetes(DataSource cible) {
+        super(cible);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return compter(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return compter(super.getConnection(username, password));
+    }
+
+    public int requetes() {
+        return requetes.get();
+    }
+
+    public void remettreAZero() {
+        requetes.set(0);
+    }
+
+    private Connection compter(Connection connexion) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, methode, args) -> {
+                    if (INSTRUCTIONS.contains(methode.getName())) requetes.incrementAndGet();
+                    try {
+                        return methode.invoke(connexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,71 @@
+package io.multi.billetterieservice.support;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latences relevées par un benchmark (une valeur par opération) et résumé
+ * lisible : débit, médiane, p99, max. Pas de thread-safety : un relevé par
+ * thread, fusionnés ensuite.
+ */
+public final class Mesures {
+
+    private long[] durees = new long[1024];
+    private int taille;
+    private long debut = Long.MAX_VALUE;
+    private long fin;
+
+    /** Exécute l'opération, la chronomètre et l'enregistre. */
+    public <T> T mesurer(Operation<T> operation) throws Exception {
+        long t0 = System.nanoTime();
+        try {
+            return operation.executer();
+        } finally {
+            ajouter(t0, System.nanoTime());
+        }
+    }
+
+    public void ajouter(long debutNanos, long finNanos) {
+        if (taille == durees.length) durees = Arrays.copyOf(durees, taille * 2);
+        durees[taille++] = finNanos - debutNanos;
+        debut = Math.min(debut, debutNanos);
+        fin = Math.max(fin, finNanos);
+    }
+
+    public Mesures fusionner(Mesures autre) {
+        for (int i = 0; i < autre.taille; i++) {
+            if (taille == durees.length) durees = Arrays.copyOf(durees, taille * 2);
+            durees[taille++] = autre.durees[i];
+        }
+        debut = Math.min(debut, autre.debut);
+        fin = Math.max(fin, autre.fin);
+        return this;
+    }
+
+    public int nombre() {
+        return taille;
+    }
+
+    /** Opérations par seconde sur la fenêtre couverte par les mesures. */
+    public double debit() {
+        return taille == 0 ? 0 : taille * 1e9 / Math.max(fin - debut, 1);
+    }
+
+    public double centileMs(double centile) {
+        if (taille == 0) return 0;
+        long[] tri = Arrays.copyOf(durees, taille);
+        Arrays.sort(tri);
+        int rang = (int) Math.min(taille - 1, Math.ceil(centile / 100 * taille) - 1);
+        return tri[Math.max(rang, 0)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public String resume() {
+        return String.format("%d op, %.0f op/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                taille, debit(), centileMs(50), centileMs(99), centileMs(100));
+    }
+
+    @FunctionalInterface
+    public interface Operation<T> {
+        T executer() throws Exception;
+    }
+}
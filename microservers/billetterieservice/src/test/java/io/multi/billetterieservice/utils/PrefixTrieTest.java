@@ -0,0 +1,78 @@
+package io.multi.billetterieservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trie d'autocomplétion : préfixe de chaque mot, accents, casse et apostrophes
+ * ignorés, meilleurs éléments conservés par nœud dans l'ordre de classement,
+ * sans doublon quand un élément répond par plusieurs mots.
+ */
+class PrefixTrieTest {
+
+    private static final Comparator<String> ORDRE = Comparator.<String>comparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+
+    @Test
+    void normaliser_accentsCasseApostrophes() {
+        assertEquals("nzerekore", PrefixTrie.normaliser("N'Zérékoré"));
+        assertEquals("gare routiere de labe", PrefixTrie.normaliser("  Gare  routière-de Labé "));
+        assertEquals("", PrefixTrie.normaliser(null));
+    }
+
+    @Test
+    void chaqueDebutDeMot_trouve() {
+        PrefixTrie<String> trie = trie(3, "Gare routière de Labé");
+
+        assertEquals(List.of("Gare routière de Labé"), trie.rechercher("gar", 5));
+        assertEquals(List.of("Gare routière de Labé"), trie.rechercher("ROUT", 5));
+        assertEquals(List.of("Gare routière de Labé"), trie.rechercher("labe", 5));
+        // Milieu de mot : pas une entrée du trie
+        assertTrue(trie.rechercher("outi", 5).isEmpty());
+    }
+
+    @Test
+    void saisieVideOuInconnue_aucunResultat() {
+        PrefixTrie<String> trie = trie(3, "Conakry");
+
+        assertTrue(trie.rechercher("", 5).isEmpty());
+        assertTrue(trie.rechercher("  ", 5).isEmpty());
+        assertTrue(trie.rechercher("kindia", 5).isEmpty());
+        assertTrue(trie.rechercher("con", 0).isEmpty());
+    }
+
+    @Test
+    void meilleursParNoeud_bornesEtOrdonnes() {
+        PrefixTrie<String> trie = trie(2, "Kankan centre", "Kan", "Kankan", "Kindia");
+
+        // Capacité 2 : les deux plus courts, dans l'ordre du comparateur
+        assertEquals(List.of("Kan", "Kankan"), trie.rechercher("kan", 10));
+        assertEquals(List.of("Kan"), trie.rechercher("k", 1));
+        assertEquals(List.of("Kindia"), trie.rechercher("ki", 10));
+    }
+
+    @Test
+    void elementSousPlusieursMots_pasDeDoublon() {
+        PrefixTrie<String> trie = PrefixTrie.constructeur(5, ORDRE)
+                .ajouter("Labé", "Labé", "Gare de Labé")
+                .construire();
+
+        assertEquals(List.of("Labé"), trie.rechercher("lab", 5));
+        assertEquals(1, trie.getElements());
+    }
+
+    // ---- helpers ----
+
+    private static PrefixTrie<String> trie(int capacite, String... libelles) {
+        PrefixTrie.Constructeur<String> constructeur = PrefixTrie.constructeur(capacite, ORDRE);
+        for (String libelle : libelles) {
+            constructeur.ajouter(libelle, libelle);
+        }
+        return constructeur.construire();
+    }
+}
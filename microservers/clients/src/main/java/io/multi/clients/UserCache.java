@@ -0,0 +1,179 @@
+package io.multi.clients;
+
+import io.multi.clients.domain.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache local (near-cache) devant {@link UserClient}, partagé par les services
+ * consommateurs (auto-configuré par {@code ClientsAutoConfiguration}).
+ *
+ * Borné en taille (LRU) et en durée (TTL) ; une entrée est invalidée dès que
+ * userservice publie la modification de l'utilisateur sur USER_UPDATED_TOPIC.
+ * Le TTL ne sert que de filet si un événement est perdu. Les utilisateurs
+ * introuvables ne sont pas mis en cache.
+ *
+ * Chaque invalidation incrémente une version : une réponse de userservice
+ * n'est stockée que si aucune invalidation de cet utilisateur (ou totale) n'est
+ * survenue depuis le début de l'appel — sinon une invalidation reçue pendant
+ * l'appel serait écrasée par la valeur périmée, jusqu'au TTL.
+ *
+ * Les {@link User} renvoyés sont partagés : les appelants ne doivent pas les modifier.
+ */
+public class UserCache {
+
+    /** Taille maximale d'un appel groupé vers userservice. */
+    static final int TAILLE_LOT_MAX = 500;
+
+    private record Entree(User user, long expireA) {}
+
+    private final UserClient userClient;
+    private final long ttlMillis;
+    private final Map<Long, Entree> parId;
+    private final Map<String, Long> idParUuid = new ConcurrentHashMap<>();
+
+    // Sous le verrou de parId
+    private long version;
+    private long versionInvalidationTotale;
+    private final Map<Long, Long> invalidationsPendantLectures = new HashMap<>(); // userId -> version
+    private int lecturesEnCours;
+
+    public UserCache(UserClient userClient, long ttlMillis, int tailleMax) {
+        this.userClient = userClient;
+        this.ttlMillis = ttlMillis;
+        this.parId = new LinkedHashMap<>(Math.min(tailleMax, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entree> eldest) {
+                if (size() <= tailleMax) return false;
+                idParUuid.remove(eldest.getValue().user().getUserUuid());
+                return true;
+            }
+        };
+    }
+
+    public User getUserById(Long userId) {
+        User user = lire(userId);
+        if (user != null) return user;
+        long versionLue = debutLecture();
+        try {
+            user = userClient.getUserById(userId);
+            stocker(user, versionLue);
+        } finally {
+            finLecture();
+        }
+        return user;
+    }
+
+    public User getUserByUuid(String userUuid) {
+        Long userId = idParUuid.get(userUuid);
+        User user = userId != null ? lire(userId) : null;
+        if (user != null) return user;
+        long versionLue = debutLecture();
+        try {
+            user = userClient.getUserByUuid(userUuid);
+            stocker(user, versionLue);
+        } finally {
+            finLecture();
+        }
+        return user;
+    }
+
+    /**
+     * Résout plusieurs utilisateurs : les absents du cache sont demandés en un
+     * appel groupé (par tranches de {@value #TAILLE_LOT_MAX}). Les ids inconnus
+     * sont absents de la map retournée.
+     */
+    public Map<Long, User> getUsersByIds(Collection<Long> userIds) {
+        Map<Long, User> resultat = new HashMap<>();
+        List<Long> manquants = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (userId == null) continue;
+            User user = lire(userId);
+            if (user != null) {
+                resultat.put(userId, user);
+            } else {
+                manquants.add(userId);
+            }
+        }
+        for (int i = 0; i < manquants.size(); i += TAILLE_LOT_MAX) {
+            long versionLue = debutLecture();
+            try {
+                for (User user : userClient.getUsersByIds(manquants.subList(i, Math.min(i + TAILLE_LOT_MAX, manquants.size())))) {
+                    stocker(user, versionLue);
+                    resultat.put(user.getUserId(), user);
+                }
+            } finally {
+                finLecture();
+            }
+        }
+        return resultat;
+    }
+
+    public void invalidate(Long userId) {
+        synchronized (parId) {
+            version++;
+            if (lecturesEnCours > 0) invalidationsPendantLectures.put(userId, version);
+            Entree entree = parId.remove(userId);
+            if (entree != null) idParUuid.remove(entree.user().getUserUuid());
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (parId) {
+            versionInvalidationTotale = ++version;
+            invalidationsPendantLectures.clear();
+            parId.clear();
+            idParUuid.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (parId) {
+            return parId.size();
+        }
+    }
+
+    private User lire(Long userId) {
+        synchronized (parId) {
+            Entree entree = parId.get(userId);
+            if (entree == null) return null;
+            if (entree.expireA() < System.currentTimeMillis()) {
+                parId.remove(userId);
+                return null;
+            }
+            return entree.user();
+        }
+    }
+
+    private long debutLecture() {
+        synchronized (parId) {
+            lecturesEnCours++;
+            return version;
+        }
+    }
+
+    private void finLecture() {
+        synchronized (parId) {
+            // Plus aucun appel en cours : les versions notées ne servent plus
+            if (--lecturesEnCours == 0) invalidationsPendantLectures.clear();
+        }
+    }
+
+    /** Stocke la réponse sauf si l'utilisateur a été invalidé depuis versionLue. */
+    private void stocker(User user, long versionLue) {
+        if (user == null || user.getUserId() == null) return;
+        synchronized (parId) {
+            if (versionInvalidationTotale > versionLue
+                    || invalidationsPendantLectures.getOrDefault(user.getUserId(), 0L) > versionLue) return;
+            parId.put(user.getUserId(), new Entree(user, System.currentTimeMillis() + ttlMillis));
+            if (user.getUserUuid() != null) idParUuid.put(user.getUserUuid(), user.getUserId());
+        }
+    }
+}
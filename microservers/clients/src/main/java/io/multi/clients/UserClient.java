@@ -4,6 +4,8 @@ import io.multi.clients.domain.User;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.List;
 
@@ -51,6 +53,16 @@ public interface UserClient {
     @GetMapping("/user/getUser/uuid/{uuid}")
     User getUserByUuid(@PathVariable(name ="uuid" ) String uuid);
 
+    /**
+     * Résolution groupée (500 ids max, plafond vérifié par userservice) pour les
+     * traitements par lots. Renvoie {@code List<User>} DIRECT, ids inconnus absents.
+     * <b>Hors permitAll</b> : exige le jeton de service (services.jeton-interne,
+     * en-tête posé par {@code ClientsAutoConfiguration}) ou un JWT ADMIN/SUPER_ADMIN.
+     * Préférer {@link UserCache#getUsersByIds} qui ne demande que les absents du cache.
+     */
+    @PostMapping("/user/getUser/lot")
+    List<User> getUsersByIds(@RequestBody List<Long> userIds);
+
     /**
      * Liste les comptes ayant un rôle donné (ex. ADMIN_BACKOFFICE pour le routing des
      * leads contact/visite). Renvoie {@code List<User>} DIRECT (endpoint userservice non
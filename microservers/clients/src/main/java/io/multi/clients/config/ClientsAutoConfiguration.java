@@ -0,0 +1,86 @@
+package io.multi.clients.config;
+
+import io.multi.clients.UserCache;
+import io.multi.clients.UserClient;
+import feign.RequestInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Beans partagés des clients Feign, chargés dans tout service qui active
+ * {@code @EnableFeignClients(basePackages = "io.multi.clients")}.
+ *
+ * users.cache.ttl-seconds (défaut 600) et users.cache.max-size (défaut 10000)
+ * bornent le near-cache ; users.cache.invalidation.enabled=false coupe l'écoute
+ * de USER_UPDATED_TOPIC (le TTL seul limite alors la fraîcheur).
+ *
+ * services.jeton-interne : jeton partagé attaché aux appels vers userservice
+ * (en-tête {@value #EN_TETE_JETON_SERVICE}) ; exigé par ses points d'entrée
+ * réservés aux services (ex. /user/getUser/lot).
+ */
+@AutoConfiguration
+@ConditionalOnBean(UserClient.class)
+public class ClientsAutoConfiguration {
+
+    public static final String EN_TETE_JETON_SERVICE = "X-Service-Token";
+
+    @Bean
+    @ConditionalOnMissingBean
+    public UserCache userCache(UserClient userClient,
+                               @Value("${users.cache.ttl-seconds:600}") long ttlSeconds,
+                               @Value("${users.cache.max-size:10000}") int tailleMax) {
+        return new UserCache(userClient, ttlSeconds * 1000, tailleMax);
+    }
+
+    /** Limité aux clients nommés userservice : le jeton ne part pas vers d'autres cibles Feign. */
+    @Bean
+    @ConditionalOnProperty(name = "services.jeton-interne")
+    public RequestInterceptor jetonServiceUserClient(@Value("${services.jeton-interne}") String jeton) {
+        return template -> {
+            if (template.feignTarget() != null && "userservice".equals(template.feignTarget().name())) {
+                template.header(EN_TETE_JETON_SERVICE, jeton);
+            }
+        };
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(KafkaListener.class)
+    @ConditionalOnProperty(name = "users.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    @Slf4j
+    static class InvalidationUserCache {
+
+        private final UserCache userCache;
+
+        InvalidationUserCache(UserCache userCache) {
+            this.userCache = userCache;
+        }
+
+        /**
+         * Groupe propre à chaque instance : toutes reçoivent toutes les invalidations.
+         * Le message porte le userId (JSON numérique) ; un message illisible vide le cache.
+         */
+        @KafkaListener(topics = "USER_UPDATED_TOPIC",
+                groupId = "user-cache-#{T(java.util.UUID).randomUUID().toString()}",
+                properties = {
+                        "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                        "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                        "auto.offset.reset=latest"
+                })
+        public void onUserUpdated(String userId) {
+            try {
+                userCache.invalidate(Long.parseLong(userId.replace("\"", "").trim()));
+            } catch (RuntimeException e) {
+                log.warn("Invalidation utilisateur illisible ({}), cache vidé", userId);
+                userCache.invalidateAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.multi.clients.config;
+
+import io.multi.clients.jobs.CoordinateurJobs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcClientAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link CoordinateurJobs} pour tout service qui embarque le module clients et
+ * une base PostgreSQL (table executions_jobs, V45). L'instance tracée est
+ * spring.application.name@HOSTNAME:pid.
+ */
+@AutoConfiguration(after = {DataSourceAutoConfiguration.class, JdbcClientAutoConfiguration.class})
+@ConditionalOnClass(JdbcClient.class)
+@ConditionalOnBean({DataSource.class, JdbcClient.class})
+public class JobsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CoordinateurJobs coordinateurJobs(DataSource dataSource, JdbcClient jdbcClient,
+                                             @Value("${spring.application.name:application}") String application) {
+        return new CoordinateurJobs(dataSource, jdbcClient, application);
+    }
+}
@@ -0,0 +1,187 @@
+package io.multi.clients.jobs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Coordination des tâches planifiées entre répliques.
+ *
+ * Chaque @Scheduled se déclenche sur toutes les instances ; seule celle qui
+ * obtient le verrou consultatif PostgreSQL du job (ou de la tranche) l'exécute,
+ * les autres passent leur tour sans attendre. Le verrou est tenu par une
+ * connexion dédiée pendant toute l'exécution : un pod qui meurt le libère avec
+ * sa connexion. Une tranche réussie dans l'intervalle minimal du job n'est pas
+ * rejouée (déclenchements décalés de quelques secondes entre pods).
+ *
+ * Les gros jobs sont découpés en tranches (clé % tranches) : chaque instance
+ * parcourt les tranches à partir d'une position aléatoire et prend celles qui
+ * sont libres, le travail se répartit. Chaque exécution est tracée dans
+ * executions_jobs (V45) : instance, durée, éléments traités, erreur.
+ *
+ * Partagé par les services qui planifient des jobs (module clients,
+ * auto-configuré par JobsAutoConfiguration) : mêmes clés de verrou partout,
+ * la table executions_jobs étant commune.
+ */
+@Slf4j
+public class CoordinateurJobs {
+
+    /** Travail d'une tranche ; retourne le nombre d'éléments traités. */
+    @FunctionalInterface
+    public interface TacheParTranche {
+        int executer(int tranche, int tranches);
+    }
+
+    private final DataSource dataSource;
+    private final JdbcClient jdbcClient;
+    private final String instance;
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+    private final AtomicLong verrouPris = new AtomicLong();
+    private final AtomicLong dejaExecutees = new AtomicLong();
+
+    public CoordinateurJobs(DataSource dataSource, JdbcClient jdbcClient, String application) {
+        this.dataSource = dataSource;
+        this.jdbcClient = jdbcClient;
+        this.instance = application + "@" + System.getenv().getOrDefault("HOSTNAME", "local")
+                + ":" + ProcessHandle.current().pid();
+    }
+
+    /** Exécute le job sur une seule instance. */
+    public void executer(String jobNom, Duration intervalleMin, IntSupplier tache) {
+        executerParTranches(jobNom, 1, intervalleMin, (tranche, tranches) -> tache.getAsInt());
+    }
+
+    /** Exécute chaque tranche du job une seule fois, réparties entre les instances. */
+    public void executerParTranches(String jobNom, int tranches, Duration intervalleMin, TacheParTranche tache) {
+        int nombre = Math.max(1, tranches);
+        int depart = ThreadLocalRandom.current().nextInt(nombre);
+        for (int i = 0; i < nombre; i++) {
+            executerTranche(jobNom, (depart + i) % nombre, nombre, intervalleMin, tache);
+        }
+    }
+
+    @Scheduled(cron = "0 45 3 * * *")
+    public void purger() {
+        executer("purgeExecutionsJobs", Duration.ofHours(1), () -> {
+            int supprimees = jdbcClient.sql(ExecutionJobQuery.PURGER_EXECUTIONS)
+                    .param("retention", "30 days")
+                    .update();
+            if (supprimees > 0) {
+                log.info("Historique des jobs : {} exécution(s) purgée(s)", supprimees);
+            }
+            return supprimees;
+        });
+    }
+
+    /**
+     * Compteurs et dernière exécution de chaque job. Ni hôte, ni PID, ni message
+     * d'exception : le détail d'un ECHEC reste dans executions_jobs et les logs.
+     */
+    public Map<String, Object> getStatistiques() {
+        List<Map<String, Object>> dernieres = jdbcClient.sql(ExecutionJobQuery.FIND_DERNIERES_EXECUTIONS)
+                .query((rs, rowNum) -> {
+                    Map<String, Object> execution = new HashMap<>();
+                    execution.put("job", rs.getString("job_nom"));
+                    execution.put("tranche", rs.getInt("tranche"));
+                    execution.put("tranches", rs.getInt("tranches"));
+                    execution.put("statut", rs.getString("statut"));
+                    execution.put("elements", rs.getObject("elements", Integer.class));
+                    execution.put("debut", rs.getObject("debut", OffsetDateTime.class));
+                    execution.put("dureeMs", rs.getObject("duree_ms", Long.class));
+                    return execution;
+                })
+                .list();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("executions", executions.get());
+        stats.put("echecs", echecs.get());
+        stats.put("verrouPris", verrouPris.get());
+        stats.put("dejaExecutees", dejaExecutees.get());
+        stats.put("dernieresExecutions", dernieres);
+        return stats;
+    }
+
+    private void executerTranche(String jobNom, int tranche, int tranches, Duration intervalleMin,
+                                 TacheParTranche tache) {
+        try (Connection connexion = dataSource.getConnection()) {
+            // Verrou de session : la connexion doit rester en autocommit et ne pas être rendue avant l'unlock
+            connexion.setAutoCommit(true);
+            JdbcClient session = JdbcClient.create(new SingleConnectionDataSource(connexion, true));
+            if (!Boolean.TRUE.equals(session.sql(ExecutionJobQuery.VERROU_JOB)
+                    .params(jobNom.hashCode(), tranche)
+                    .query(Boolean.class)
+                    .single())) {
+                verrouPris.incrementAndGet();
+                log.debug("Job {} [{}/{}] en cours sur une autre instance", jobNom, tranche, tranches);
+                return;
+            }
+            try {
+                executerSousVerrou(jobNom, tranche, tranches, intervalleMin, tache);
+            } finally {
+                session.sql(ExecutionJobQuery.LIBERER_VERROU_JOB)
+                        .params(jobNom.hashCode(), tranche)
+                        .query(Boolean.class)
+                        .single();
+            }
+        } catch (SQLException | DataAccessException e) {
+            log.error("Coordination du job {} [{}/{}] impossible : {}", jobNom, tranche, tranches, e.getMessage());
+        }
+    }
+
+    private void executerSousVerrou(String jobNom, int tranche, int tranches, Duration intervalleMin,
+                                    TacheParTranche tache) {
+        if (Boolean.TRUE.equals(jdbcClient.sql(ExecutionJobQuery.EXISTE_SUCCES_RECENT)
+                .param("jobNom", jobNom)
+                .param("tranche", tranche)
+                .param("intervalleSecondes", intervalleMin.toSeconds())
+                .query(Boolean.class)
+                .single())) {
+            dejaExecutees.incrementAndGet();
+            log.debug("Job {} [{}/{}] déjà exécuté dans les {} s", jobNom, tranche, tranches, intervalleMin.toSeconds());
+            return;
+        }
+        Long executionId = jdbcClient.sql(ExecutionJobQuery.INSERT_EXECUTION)
+                .param("jobNom", jobNom)
+                .param("tranche", tranche)
+                .param("tranches", tranches)
+                .param("instance", instance)
+                .query(Long.class)
+                .single();
+
+        long debut = System.currentTimeMillis();
+        String statut = "SUCCES";
+        Integer elements = null;
+        String erreur = null;
+        try {
+            elements = tache.executer(tranche, tranches);
+        } catch (RuntimeException e) {
+            statut = "ECHEC";
+            erreur = e.getMessage();
+            echecs.incrementAndGet();
+            log.error("Job {} [{}/{}] en échec : {}", jobNom, tranche, tranches, e.getMessage(), e);
+        }
+        executions.incrementAndGet();
+        jdbcClient.sql(ExecutionJobQuery.TERMINER_EXECUTION)
+                .param("executionId", executionId)
+                .param("statut", statut)
+                .param("elements", elements)
+                .param("erreur", erreur)
+                .param("dureeMs", System.currentTimeMillis() - debut)
+                .update();
+    }
+}
@@ -0,0 +1,57 @@
+package io.multi.clients.jobs;
+
+/**
+ * Coordination des jobs planifiés entre répliques (table executions_jobs, V45,
+ * partagée par billetterieservice, immobilierservice et authorizationserver).
+ */
+public final class ExecutionJobQuery {
+
+    private ExecutionJobQuery() {}
+
+    /** Verrou consultatif de session (job, tranche) : tenu par la connexion dédiée pendant l'exécution. */
+    public static final String VERROU_JOB = """
+        SELECT pg_try_advisory_lock(?, ?)
+        """;
+
+    public static final String LIBERER_VERROU_JOB = """
+        SELECT pg_advisory_unlock(?, ?)
+        """;
+
+    /** Tranche déjà exécutée avec succès dans l'intervalle minimal (autre instance, horloge décalée). */
+    public static final String EXISTE_SUCCES_RECENT = """
+        SELECT EXISTS (
+            SELECT 1 FROM executions_jobs
+            WHERE job_nom = :jobNom AND tranche = :tranche AND statut = 'SUCCES'
+              AND debut > now() - make_interval(secs => :intervalleSecondes)
+        )
+        """;
+
+    public static final String INSERT_EXECUTION = """
+        INSERT INTO executions_jobs (job_nom, tranche, tranches, instance)
+        VALUES (:jobNom, :tranche, :tranches, :instance)
+        RETURNING execution_id
+        """;
+
+    public static final String TERMINER_EXECUTION = """
+        UPDATE executions_jobs
+        SET statut = :statut,
+            elements = :elements,
+            erreur = :erreur,
+            fin = now(),
+            duree_ms = :dureeMs
+        WHERE execution_id = :executionId
+        """;
+
+    /** Dernière exécution de chaque (job, tranche), sans instance ni message d'erreur (exposée en statistiques). */
+    public static final String FIND_DERNIERES_EXECUTIONS = """
+        SELECT DISTINCT ON (job_nom, tranche)
+               job_nom, tranche, tranches, statut, elements, debut, fin, duree_ms
+        FROM executions_jobs
+        ORDER BY job_nom, tranche, debut DESC
+        """;
+
+    public static final String PURGER_EXECUTIONS = """
+        DELETE FROM executions_jobs
+        WHERE debut < now() - CAST(:retention AS INTERVAL)
+        """;
+}
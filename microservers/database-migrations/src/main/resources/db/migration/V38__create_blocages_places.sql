@@ -0,0 +1,44 @@
+-- V38 : blocages temporaires de places (étape "hold" avant la commande).
+--
+-- Quand l'utilisateur ouvre le formulaire passagers, N places sont bloquées sur
+-- l'offre pour une durée limitée (TTL). Sans commande avant l'échéance, le
+-- blocage expire et les places redeviennent visibles.
+--
+-- Les blocages ne touchent PAS offres.nombre_places_disponibles (le trigger
+-- update_offre_places reste seul maître du compteur) : la disponibilité réelle
+-- est nombre_places_disponibles - SUM(blocages ACTIVE non échus).
+--
+-- L'expiration est pilotée en mémoire par une roue temporelle dans
+-- billetterieservice ; cette table est la trace durable (rechargée au
+-- démarrage). Les contrôles SQL filtrent toujours sur expire_at > now() : un
+-- blocage resté ACTIVE après échéance (instance arrêtée) ne bloque jamais rien.
+--
+-- statut : ACTIVE | CONSOMME (commande créée) | EXPIRE | LIBERE (abandon explicite)
+
+CREATE TABLE IF NOT EXISTS blocages_places (
+    blocage_id    BIGSERIAL PRIMARY KEY,
+    blocage_uuid  VARCHAR(40) NOT NULL DEFAULT uuid_generate_v4(),
+    offre_id      BIGINT NOT NULL REFERENCES offres(offre_id) ON DELETE CASCADE,
+    user_id       BIGINT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+    nombre_places INTEGER NOT NULL,
+    statut        VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    expire_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    commande_id   BIGINT REFERENCES commandes(commande_id) ON DELETE SET NULL,
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    CONSTRAINT uq_blocages_places_uuid UNIQUE (blocage_uuid),
+    CONSTRAINT chk_blocages_places_nombre CHECK (nombre_places > 0)
+);
+
+-- Somme des blocages actifs d'une offre (contrôle de disponibilité sous verrou)
+CREATE INDEX IF NOT EXISTS idx_blocages_places_offre_actifs
+    ON blocages_places (offre_id, expire_at) WHERE statut = 'ACTIVE';
+
+-- Rechargement au démarrage / filet de sécurité sur les blocages orphelins
+CREATE INDEX IF NOT EXISTS idx_blocages_places_expire_actifs
+    ON blocages_places (expire_at) WHERE statut = 'ACTIVE';
+
+DROP TRIGGER IF EXISTS update_blocages_places_updated_at ON blocages_places;
+CREATE TRIGGER update_blocages_places_updated_at
+    BEFORE UPDATE ON blocages_places
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
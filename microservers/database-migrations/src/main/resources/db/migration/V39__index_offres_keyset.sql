@@ -0,0 +1,15 @@
+-- V39 : index de pagination keyset des listes d'offres.
+--
+-- Les listes paginées (toutes, ouvertes, à venir, passées, par statut,
+-- recherche) trient sur (date_depart, heure_depart, offre_id) et reprennent
+-- après le curseur par comparaison de ligne : chaque page est un parcours
+-- d'index borné par LIMIT, quelle que soit sa profondeur.
+
+CREATE INDEX IF NOT EXISTS idx_offres_keyset
+    ON offres (date_depart, heure_depart, offre_id);
+
+CREATE INDEX IF NOT EXISTS idx_offres_statut_keyset
+    ON offres (statut, date_depart, heure_depart, offre_id);
+
+-- Préfixe de idx_offres_keyset : devenu redondant
+DROP INDEX IF EXISTS idx_offres_date_depart;
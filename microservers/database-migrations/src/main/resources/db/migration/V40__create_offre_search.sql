@@ -0,0 +1,465 @@
+-- V40 : modèle de lecture dénormalisé des offres (offre_search).
+--
+-- Chaque lecture d'offre reconstituait trajet, départ/arrivée, sites, villes et
+-- régions (avec les COALESCE V35 ville directe / ville de la chaîne), véhicule,
+-- type de véhicule et transporteur : une vingtaine de jointures par ligne.
+-- offre_search en stocke le résultat, une ligne par offre, avec exactement les
+-- colonnes de OffreQuery.BASE_SELECT (le RowMapper Java est inchangé).
+--
+-- Maintenance incrémentale par triggers :
+--   - offres   : INSERT → ligne calculée ; UPDATE des seules colonnes de l'offre
+--                (places, statut, prix...) → UPDATE ciblé sans jointure ;
+--                changement de trajet/véhicule/transporteur → ligne recalculée ;
+--                DELETE → ON DELETE CASCADE.
+--   - référentiels (trajets, départs, arrivées, sites, localisations, quartiers,
+--     communes, villes, régions, véhicules, types de véhicule, users) : UPDATE OF
+--     des seules colonnes affichées ou de rattachement, et seulement si la valeur
+--     change → offres concernées recalculées, updated_at = now() pour que les
+--     lecteurs incrémentaux (MoteurItineraires, V47) voient la correction.
+-- Seules les offres non passées (date_depart >= CURRENT_DATE) sont recalculées :
+-- les offres passées gardent les libellés du moment où elles ont circulé.
+-- Rattrapage complet après une correction hors triggers :
+--   SELECT rafraichir_offre_search(ARRAY(SELECT offre_id FROM offres), TRUE);
+
+-- 1. Source : même projection que BASE_SELECT + texte de recherche
+CREATE OR REPLACE VIEW v_offre_search_source AS
+SELECT
+    -- Offre
+    o.offre_id,
+    o.offre_uuid,
+    o.token_offre,
+    o.trajet_id,
+    o.vehicule_id,
+    o.user_id,
+    o.date_depart,
+    o.heure_depart,
+    o.heure_arrivee_estimee,
+    o.nombre_places_total,
+    o.nombre_places_disponibles,
+    o.nombre_places_reservees,
+    o.montant,
+    o.montant_promotion,
+    o.devise,
+    o.statut,
+    o.niveau_remplissage,
+    o.point_rencontre,
+    o.conditions,
+    o.annulation_autorisee,
+    o.delai_annulation_heures,
+    o.date_publication,
+    o.date_cloture,
+    o.date_depart_effectif,
+    o.date_arrivee_effective,
+    o.created_at,
+    o.updated_at,
+    -- Trajet
+    t.trajet_uuid,
+    t.libelle_trajet AS trajet_libelle,
+    t.distance_km AS trajet_distance_km,
+    t.duree_estimee_minutes AS trajet_duree_minutes,
+    -- Départ
+    dep.depart_uuid,
+    dep.libelle AS depart_libelle,
+    sd.nom AS site_depart,
+    COALESCE(vsd.libelle, vd.libelle) AS ville_depart_libelle,
+    COALESCE(vsd.ville_uuid, vd.ville_uuid) AS ville_depart_uuid,
+    COALESCE(rsd.libelle, rd.libelle) AS region_depart_libelle,
+    -- Arrivée
+    arr.arrivee_uuid,
+    arr.libelle AS arrivee_libelle,
+    sa.nom AS site_arrivee,
+    COALESCE(vsa.libelle, va.libelle) AS ville_arrivee_libelle,
+    COALESCE(vsa.ville_uuid, va.ville_uuid) AS ville_arrivee_uuid,
+    COALESCE(rsa.libelle, ra.libelle) AS region_arrivee_libelle,
+    -- Véhicule
+    v.vehicule_uuid,
+    v.immatriculation AS vehicule_immatriculation,
+    v.marque AS vehicule_marque,
+    v.modele AS vehicule_modele,
+    v.couleur AS vehicule_couleur,
+    v.nombre_places AS vehicule_nombre_places,
+    v.climatise AS vehicule_climatise,
+    v.statut AS vehicule_statut,
+    tv.libelle AS type_vehicule_libelle,
+    v.nom_chauffeur,
+    v.contact_chauffeur,
+    -- Utilisateur
+    u.user_uuid,
+    u.username AS user_username,
+    CONCAT(u.first_name, ' ', u.last_name) AS user_full_name,
+    u.email AS user_email,
+    u.phone AS user_phone,
+    -- Recherche textuelle (mêmes champs que OffreQuery.SEARCH)
+    LOWER(CONCAT_WS(' ',
+        t.libelle_trajet,
+        COALESCE(vsd.libelle, vd.libelle),
+        COALESCE(vsa.libelle, va.libelle),
+        sd.nom,
+        sa.nom,
+        v.immatriculation,
+        v.marque
+    )) AS texte_recherche
+FROM offres o
+INNER JOIN trajets t ON o.trajet_id = t.trajet_id
+INNER JOIN departs dep ON t.depart_id = dep.depart_id
+INNER JOIN sites sd ON dep.site_id = sd.site_id
+INNER JOIN localisations ld ON sd.localisation_id = ld.localisation_id
+LEFT JOIN quartiers qd ON ld.quartier_id = qd.quartier_id
+LEFT JOIN communes cd ON qd.commune_id = cd.commune_id
+LEFT JOIN villes vd ON cd.ville_id = vd.ville_id
+LEFT JOIN regions rd ON vd.region_id = rd.region_id
+LEFT JOIN villes vsd ON sd.ville_id = vsd.ville_id
+LEFT JOIN regions rsd ON vsd.region_id = rsd.region_id
+INNER JOIN arrivees arr ON t.arrivee_id = arr.arrivee_id
+INNER JOIN sites sa ON arr.site_id = sa.site_id
+INNER JOIN localisations la ON sa.localisation_id = la.localisation_id
+LEFT JOIN quartiers qa ON la.quartier_id = qa.quartier_id
+LEFT JOIN communes ca ON qa.commune_id = ca.commune_id
+LEFT JOIN villes va ON ca.ville_id = va.ville_id
+LEFT JOIN regions ra ON va.region_id = ra.region_id
+LEFT JOIN villes vsa ON sa.ville_id = vsa.ville_id
+LEFT JOIN regions rsa ON vsa.region_id = rsa.region_id
+INNER JOIN vehicules v ON o.vehicule_id = v.vehicule_id
+LEFT JOIN types_vehicules tv ON v.type_vehicule_id = tv.type_vehicule_id
+INNER JOIN users u ON o.user_id = u.user_id;
+
+-- 2. Table de lecture (types et ordre des colonnes hérités de la vue)
+CREATE TABLE IF NOT EXISTS offre_search AS
+SELECT * FROM v_offre_search_source WITH NO DATA;
+
+ALTER TABLE offre_search ADD PRIMARY KEY (offre_id);
+ALTER TABLE offre_search
+    ADD CONSTRAINT fk_offre_search_offre
+    FOREIGN KEY (offre_id) REFERENCES offres (offre_id) ON DELETE CASCADE;
+
+-- Recherche entre villes (avec ou sans date), tri par date/heure
+CREATE INDEX IF NOT EXISTS idx_offre_search_villes
+    ON offre_search (ville_depart_uuid, ville_arrivee_uuid, date_depart, heure_depart)
+    WHERE statut IN ('EN_ATTENTE', 'OUVERT');
+
+-- Listes des offres réservables triées par curseur (places disponibles, recherche)
+CREATE INDEX IF NOT EXISTS idx_offre_search_ouvertes_keyset
+    ON offre_search (date_depart, heure_depart, offre_id)
+    INCLUDE (nombre_places_disponibles)
+    WHERE statut IN ('EN_ATTENTE', 'OUVERT');
+
+-- 3. Recalcul complet d'un ensemble d'offres ; p_referentiel : la ligne change
+--    sans que l'offre change, updated_at prend l'heure du recalcul
+CREATE OR REPLACE FUNCTION rafraichir_offre_search(p_offre_ids BIGINT[],
+                                                   p_referentiel BOOLEAN DEFAULT FALSE)
+RETURNS VOID AS $$
+BEGIN
+    DELETE FROM offre_search WHERE offre_id = ANY(p_offre_ids);
+    INSERT INTO offre_search
+    SELECT * FROM v_offre_search_source WHERE offre_id = ANY(p_offre_ids);
+    IF p_referentiel THEN
+        UPDATE offre_search SET updated_at = now() WHERE offre_id = ANY(p_offre_ids);
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Offres non passées dont le départ ou l'arrivée est sur l'un des sites
+CREATE OR REPLACE FUNCTION offres_a_venir_des_sites(p_site_ids BIGINT[])
+RETURNS BIGINT[] AS $$
+    SELECT ARRAY(
+        SELECT o.offre_id
+        FROM offres o
+        JOIN trajets t ON o.trajet_id = t.trajet_id
+        JOIN departs d ON t.depart_id = d.depart_id
+        JOIN arrivees a ON t.arrivee_id = a.arrivee_id
+        WHERE (d.site_id = ANY(p_site_ids) OR a.site_id = ANY(p_site_ids))
+          AND o.date_depart >= CURRENT_DATE);
+$$ LANGUAGE sql STABLE;
+
+-- 4. Trigger offres : chemin chaud (réservations) = UPDATE ciblé sans jointure
+CREATE OR REPLACE FUNCTION sync_offre_search_offre()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND NEW.trajet_id = OLD.trajet_id
+       AND NEW.vehicule_id = OLD.vehicule_id
+       AND NEW.user_id = OLD.user_id THEN
+        UPDATE offre_search SET
+            offre_uuid = NEW.offre_uuid,
+            token_offre = NEW.token_offre,
+            date_depart = NEW.date_depart,
+            heure_depart = NEW.heure_depart,
+            heure_arrivee_estimee = NEW.heure_arrivee_estimee,
+            nombre_places_total = NEW.nombre_places_total,
+            nombre_places_disponibles = NEW.nombre_places_disponibles,
+            nombre_places_reservees = NEW.nombre_places_reservees,
+            montant = NEW.montant,
+            montant_promotion = NEW.montant_promotion,
+            devise = NEW.devise,
+            statut = NEW.statut,
+            niveau_remplissage = NEW.niveau_remplissage,
+            point_rencontre = NEW.point_rencontre,
+            conditions = NEW.conditions,
+            annulation_autorisee = NEW.annulation_autorisee,
+            delai_annulation_heures = NEW.delai_annulation_heures,
+            date_publication = NEW.date_publication,
+            date_cloture = NEW.date_cloture,
+            date_depart_effectif = NEW.date_depart_effectif,
+            date_arrivee_effective = NEW.date_arrivee_effective,
+            created_at = NEW.created_at,
+            updated_at = NEW.updated_at
+        WHERE offre_id = NEW.offre_id;
+        IF FOUND THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    PERFORM rafraichir_offre_search(ARRAY[NEW.offre_id]);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_offres ON offres;
+CREATE TRIGGER trg_offre_search_offres
+    AFTER INSERT OR UPDATE ON offres
+    FOR EACH ROW EXECUTE FUNCTION sync_offre_search_offre();
+
+-- 5. Triggers référentiels : recalcul des offres non passées rattachées
+CREATE OR REPLACE FUNCTION sync_offre_search_trajet()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT offre_id FROM offres
+        WHERE trajet_id = NEW.trajet_id AND date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_trajets ON trajets;
+CREATE TRIGGER trg_offre_search_trajets
+    AFTER UPDATE OF trajet_uuid, libelle_trajet, distance_km, duree_estimee_minutes,
+                    depart_id, arrivee_id ON trajets
+    FOR EACH ROW
+    WHEN ((OLD.trajet_uuid, OLD.libelle_trajet, OLD.distance_km, OLD.duree_estimee_minutes,
+           OLD.depart_id, OLD.arrivee_id)
+          IS DISTINCT FROM
+          (NEW.trajet_uuid, NEW.libelle_trajet, NEW.distance_km, NEW.duree_estimee_minutes,
+           NEW.depart_id, NEW.arrivee_id))
+    EXECUTE FUNCTION sync_offre_search_trajet();
+
+-- Départ / arrivée : libellé ou site de rattachement
+CREATE OR REPLACE FUNCTION sync_offre_search_depart()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT o.offre_id
+        FROM offres o
+        JOIN trajets t ON o.trajet_id = t.trajet_id
+        WHERE t.depart_id = NEW.depart_id AND o.date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_departs ON departs;
+CREATE TRIGGER trg_offre_search_departs
+    AFTER UPDATE OF depart_uuid, libelle, site_id ON departs
+    FOR EACH ROW
+    WHEN ((OLD.depart_uuid, OLD.libelle, OLD.site_id)
+          IS DISTINCT FROM (NEW.depart_uuid, NEW.libelle, NEW.site_id))
+    EXECUTE FUNCTION sync_offre_search_depart();
+
+CREATE OR REPLACE FUNCTION sync_offre_search_arrivee()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT o.offre_id
+        FROM offres o
+        JOIN trajets t ON o.trajet_id = t.trajet_id
+        WHERE t.arrivee_id = NEW.arrivee_id AND o.date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_arrivees ON arrivees;
+CREATE TRIGGER trg_offre_search_arrivees
+    AFTER UPDATE OF arrivee_uuid, libelle, site_id ON arrivees
+    FOR EACH ROW
+    WHEN ((OLD.arrivee_uuid, OLD.libelle, OLD.site_id)
+          IS DISTINCT FROM (NEW.arrivee_uuid, NEW.libelle, NEW.site_id))
+    EXECUTE FUNCTION sync_offre_search_arrivee();
+
+CREATE OR REPLACE FUNCTION sync_offre_search_vehicule()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT offre_id FROM offres
+        WHERE vehicule_id = NEW.vehicule_id AND date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_vehicules ON vehicules;
+CREATE TRIGGER trg_offre_search_vehicules
+    AFTER UPDATE OF vehicule_uuid, immatriculation, marque, modele, couleur, nombre_places,
+                    climatise, statut, type_vehicule_id, nom_chauffeur, contact_chauffeur ON vehicules
+    FOR EACH ROW
+    WHEN ((OLD.vehicule_uuid, OLD.immatriculation, OLD.marque, OLD.modele, OLD.couleur,
+           OLD.nombre_places, OLD.climatise, OLD.statut, OLD.type_vehicule_id,
+           OLD.nom_chauffeur, OLD.contact_chauffeur)
+          IS DISTINCT FROM
+          (NEW.vehicule_uuid, NEW.immatriculation, NEW.marque, NEW.modele, NEW.couleur,
+           NEW.nombre_places, NEW.climatise, NEW.statut, NEW.type_vehicule_id,
+           NEW.nom_chauffeur, NEW.contact_chauffeur))
+    EXECUTE FUNCTION sync_offre_search_vehicule();
+
+CREATE OR REPLACE FUNCTION sync_offre_search_type_vehicule()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT o.offre_id
+        FROM offres o
+        JOIN vehicules v ON o.vehicule_id = v.vehicule_id
+        WHERE v.type_vehicule_id = NEW.type_vehicule_id AND o.date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_types_vehicules ON types_vehicules;
+CREATE TRIGGER trg_offre_search_types_vehicules
+    AFTER UPDATE OF libelle ON types_vehicules
+    FOR EACH ROW
+    WHEN (OLD.libelle IS DISTINCT FROM NEW.libelle)
+    EXECUTE FUNCTION sync_offre_search_type_vehicule();
+
+CREATE OR REPLACE FUNCTION sync_offre_search_site()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(offres_a_venir_des_sites(ARRAY[NEW.site_id]), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_sites ON sites;
+CREATE TRIGGER trg_offre_search_sites
+    AFTER UPDATE OF nom, ville_id, localisation_id ON sites
+    FOR EACH ROW
+    WHEN ((OLD.nom, OLD.ville_id, OLD.localisation_id)
+          IS DISTINCT FROM (NEW.nom, NEW.ville_id, NEW.localisation_id))
+    EXECUTE FUNCTION sync_offre_search_site();
+
+-- Chaîne localisation → quartier → commune → ville : seul le rattachement est
+-- dénormalisé (la ville du site quand sites.ville_id est vide)
+CREATE OR REPLACE FUNCTION sync_offre_search_localisation()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(offres_a_venir_des_sites(ARRAY(
+        SELECT site_id FROM sites WHERE localisation_id = NEW.localisation_id)), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_localisations ON localisations;
+CREATE TRIGGER trg_offre_search_localisations
+    AFTER UPDATE OF quartier_id ON localisations
+    FOR EACH ROW
+    WHEN (OLD.quartier_id IS DISTINCT FROM NEW.quartier_id)
+    EXECUTE FUNCTION sync_offre_search_localisation();
+
+CREATE OR REPLACE FUNCTION sync_offre_search_quartier()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(offres_a_venir_des_sites(ARRAY(
+        SELECT s.site_id
+        FROM sites s
+        JOIN localisations l ON s.localisation_id = l.localisation_id
+        WHERE l.quartier_id = NEW.quartier_id)), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_quartiers ON quartiers;
+CREATE TRIGGER trg_offre_search_quartiers
+    AFTER UPDATE OF commune_id ON quartiers
+    FOR EACH ROW
+    WHEN (OLD.commune_id IS DISTINCT FROM NEW.commune_id)
+    EXECUTE FUNCTION sync_offre_search_quartier();
+
+CREATE OR REPLACE FUNCTION sync_offre_search_commune()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(offres_a_venir_des_sites(ARRAY(
+        SELECT s.site_id
+        FROM sites s
+        JOIN localisations l ON s.localisation_id = l.localisation_id
+        JOIN quartiers q ON l.quartier_id = q.quartier_id
+        WHERE q.commune_id = NEW.commune_id)), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_communes ON communes;
+CREATE TRIGGER trg_offre_search_communes
+    AFTER UPDATE OF ville_id ON communes
+    FOR EACH ROW
+    WHEN (OLD.ville_id IS DISTINCT FROM NEW.ville_id)
+    EXECUTE FUNCTION sync_offre_search_commune();
+
+-- Renommage d'une ville : offres dont un site y est rattaché (directement ou par la chaîne)
+CREATE OR REPLACE FUNCTION sync_offre_search_ville()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT offre_id FROM offre_search
+        WHERE (ville_depart_uuid IN (OLD.ville_uuid, NEW.ville_uuid)
+               OR ville_arrivee_uuid IN (OLD.ville_uuid, NEW.ville_uuid))
+          AND date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_villes ON villes;
+CREATE TRIGGER trg_offre_search_villes
+    AFTER UPDATE OF libelle, ville_uuid, region_id ON villes
+    FOR EACH ROW
+    WHEN ((OLD.libelle, OLD.ville_uuid, OLD.region_id)
+          IS DISTINCT FROM (NEW.libelle, NEW.ville_uuid, NEW.region_id))
+    EXECUTE FUNCTION sync_offre_search_ville();
+
+-- Région : villes rattachées (region_*_libelle)
+CREATE OR REPLACE FUNCTION sync_offre_search_region()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT os.offre_id
+        FROM offre_search os
+        JOIN villes v ON v.ville_uuid IN (os.ville_depart_uuid, os.ville_arrivee_uuid)
+        WHERE v.region_id = NEW.region_id AND os.date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_regions ON regions;
+CREATE TRIGGER trg_offre_search_regions
+    AFTER UPDATE OF libelle ON regions
+    FOR EACH ROW
+    WHEN (OLD.libelle IS DISTINCT FROM NEW.libelle)
+    EXECUTE FUNCTION sync_offre_search_region();
+
+-- Transporteur : uniquement les colonnes affichées (pas last_login & co)
+CREATE OR REPLACE FUNCTION sync_offre_search_user()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM rafraichir_offre_search(ARRAY(
+        SELECT offre_id FROM offres
+        WHERE user_id = NEW.user_id AND date_depart >= CURRENT_DATE), TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offre_search_users ON users;
+CREATE TRIGGER trg_offre_search_users
+    AFTER UPDATE OF user_uuid, username, first_name, last_name, email, phone ON users
+    FOR EACH ROW
+    WHEN ((OLD.user_uuid, OLD.username, OLD.first_name, OLD.last_name, OLD.email, OLD.phone)
+          IS DISTINCT FROM
+          (NEW.user_uuid, NEW.username, NEW.first_name, NEW.last_name, NEW.email, NEW.phone))
+    EXECUTE FUNCTION sync_offre_search_user();
+
+-- 6. Backfill
+INSERT INTO offre_search
+SELECT * FROM v_offre_search_source
+ON CONFLICT (offre_id) DO NOTHING;
@@ -0,0 +1,45 @@
+-- V41 : version de synchronisation des billets (manifeste hors ligne des contrôleurs).
+--
+-- billets.version = identifiant de la transaction qui a écrit la ligne en
+-- dernier (pg_current_xact_id). Le manifeste delta renvoie les billets dont la
+-- version est dans [depuis, xmin du snapshot courant[ : toutes ces transactions
+-- sont terminées, donc aucune écriture ne peut « apparaître » plus tard sous un
+-- curseur déjà dépassé (contrairement à une séquence, attribuée avant le commit).
+-- Le nouveau curseur est ce xmin ; un billet peut être renvoyé deux fois, jamais perdu.
+
+ALTER TABLE billets
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION set_billet_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.version := pg_current_xact_id()::TEXT::BIGINT;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_billets_version ON billets;
+CREATE TRIGGER trg_billets_version
+    BEFORE INSERT OR UPDATE ON billets
+    FOR EACH ROW EXECUTE FUNCTION set_billet_version();
+
+-- Commande déplacée sur une autre offre (changement de date) : ses billets
+-- doivent réapparaître dans le delta de l'offre cible. (L'annulation passe déjà
+-- par un UPDATE des billets → version à jour.)
+CREATE OR REPLACE FUNCTION touch_billets_commande()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE billets SET updated_at = CURRENT_TIMESTAMP
+    WHERE commande_id = NEW.commande_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_commandes_touch_billets ON commandes;
+CREATE TRIGGER trg_commandes_touch_billets
+    AFTER UPDATE OF offre_id ON commandes
+    FOR EACH ROW
+    WHEN (OLD.offre_id IS DISTINCT FROM NEW.offre_id)
+    EXECUTE FUNCTION touch_billets_commande();
+
+CREATE INDEX IF NOT EXISTS idx_billets_commande_version ON billets (commande_id, version);
@@ -0,0 +1,65 @@
+-- V42 : numéros de commande tirés d'un compteur par jour.
+--
+-- generate_numero_commande (V11) calculait MAX(SUBSTRING(numero_commande FROM 14))
+-- sur toutes les commandes du jour à chaque insertion : balayage non indexable,
+-- de plus en plus lent au fil de la journée, et deux insertions concurrentes
+-- pouvaient obtenir le même numéro (violation d'unicité).
+--
+-- Une ligne par jour (jour, dernier). Un bloc de numéros se réserve en une
+-- seule instruction (INSERT … ON CONFLICT DO UPDATE SET dernier = dernier + n
+-- RETURNING) : le verrou de la ligne ne dure que l'instruction quand elle
+-- s'exécute en autocommit, ce que fait billetterieservice (connexion dédiée,
+-- voir AllocateurNumeroCommande). Un bloc non consommé (redémarrage,
+-- changement de jour) est perdu : numérotation unique, pas forcément continue.
+--
+-- Le format CMD-YYYYMMDD-NNNN est conservé, NNNN repart de 1 chaque jour.
+-- commandes.numero_commande est un VARCHAR(20) dont le préfixe prend 13
+-- caractères : NNNN compte au plus 7 chiffres. La contrainte CHECK fait
+-- échouer la réservation au-delà de 9 999 999 commandes dans la journée,
+-- plutôt que chaque insertion de commande sur une erreur de longueur.
+
+CREATE TABLE IF NOT EXISTS compteurs_numero_commande (
+    jour    DATE    PRIMARY KEY,
+    dernier INTEGER NOT NULL CHECK (dernier BETWEEN 0 AND 9999999)
+);
+
+-- Reprise au-delà des numéros déjà émis, jour par jour (date portée par le numéro)
+INSERT INTO compteurs_numero_commande (jour, dernier)
+SELECT TO_DATE(SUBSTRING(numero_commande FROM 5 FOR 8), 'YYYYMMDD'),
+       MAX(CAST(SUBSTRING(numero_commande FROM 14) AS INTEGER))
+FROM commandes
+WHERE numero_commande ~ '^CMD-[0-9]{8}-[0-9]{1,7}$'
+GROUP BY 1
+ON CONFLICT (jour) DO NOTHING;
+
+-- Réserve p_taille numéros sur le compteur du jour ; renvoie le dernier du bloc
+CREATE OR REPLACE FUNCTION reserver_numeros_commande(p_taille INTEGER)
+RETURNS TABLE (jour DATE, dernier INTEGER) AS $$
+    INSERT INTO compteurs_numero_commande AS c (jour, dernier)
+    VALUES (CURRENT_DATE, p_taille)
+    ON CONFLICT (jour) DO UPDATE SET dernier = c.dernier + EXCLUDED.dernier
+    RETURNING c.jour, c.dernier;
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION formater_numero_commande(p_jour DATE, p_numero INTEGER)
+RETURNS VARCHAR AS $$
+    -- LPAD tronque au-delà de la largeur demandée : 4 chiffres au moins, 7 au plus (CHECK)
+    SELECT 'CMD-' || TO_CHAR(p_jour, 'YYYYMMDD') || '-'
+           || LPAD(p_numero::TEXT, GREATEST(4, LENGTH(p_numero::TEXT)), '0');
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Le service fournit le numéro ; le trigger ne sert plus que de repli
+-- (insertions SQL directes) : un bloc d'un numéro sur le compteur du jour,
+-- dont le verrou court alors jusqu'à la fin de la transaction d'insertion.
+CREATE OR REPLACE FUNCTION generate_numero_commande()
+RETURNS TRIGGER AS $$
+DECLARE
+    v_bloc RECORD;
+BEGIN
+    IF NEW.numero_commande IS NULL THEN
+        SELECT * INTO v_bloc FROM reserver_numeros_commande(1);
+        NEW.numero_commande := formater_numero_commande(v_bloc.jour, v_bloc.dernier);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,40 @@
+-- V43 : outbox transactionnelle des événements Kafka de billetterieservice.
+--
+-- Les événements (COMMANDE_CONFIRMEE, BILLET_VALIDE, rappels...) étaient envoyés
+-- par CompletableFuture.runAsync AVANT le commit : un rollback pouvait quand même
+-- annoncer « réservation confirmée », et Kafka lent pesait sur le pool commun.
+--
+-- Ils sont désormais écrits ici dans la transaction métier, puis publiés par le
+-- relais (RelaisOutbox) après commit. Ordre : par evenement_id, un seul relais
+-- actif à la fois (verrou consultatif) ; un événement en attente de nouvel essai
+-- retient les suivants de même clé. Idempotence : evenement_uuid est repris
+-- comme identifiant du message (en-tête id) pour dédoublonner côté consommateur.
+--
+-- statut : EN_ATTENTE | PUBLIE | ECHEC (tentatives épuisées)
+
+CREATE TABLE IF NOT EXISTS outbox_evenements (
+    evenement_id    BIGSERIAL PRIMARY KEY,
+    evenement_uuid  VARCHAR(40) NOT NULL DEFAULT uuid_generate_v4(),
+    topic           VARCHAR(100) NOT NULL,
+    cle             VARCHAR(100),
+    type_evenement  VARCHAR(50) NOT NULL,
+    donnees         JSONB NOT NULL,
+    statut          VARCHAR(20) NOT NULL DEFAULT 'EN_ATTENTE',
+    tentatives      INTEGER NOT NULL DEFAULT 0,
+    derniere_erreur TEXT,
+    prochain_essai  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    publie_le       TIMESTAMP WITH TIME ZONE,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    CONSTRAINT uq_outbox_evenements_uuid UNIQUE (evenement_uuid)
+);
+
+-- File du relais : petite, ne contient que les événements non publiés
+CREATE INDEX IF NOT EXISTS idx_outbox_evenements_en_attente
+    ON outbox_evenements (evenement_id) WHERE statut = 'EN_ATTENTE';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_evenements_cle_en_attente
+    ON outbox_evenements (cle, evenement_id) WHERE statut = 'EN_ATTENTE';
+
+-- Purge des événements publiés
+CREATE INDEX IF NOT EXISTS idx_outbox_evenements_publie_le
+    ON outbox_evenements (publie_le) WHERE statut = 'PUBLIE';
@@ -0,0 +1,10 @@
+-- V44 : anti-jointure du job de remplissage (ScheduledNotificationService).
+--
+-- Le job déterminait « qui doit encore être notifié de quel palier » par un
+-- existsByReference par passager et par palier. Il le calcule maintenant en une
+-- requête (NOT EXISTS sur notifications) ; cet index partiel en est le support :
+-- uniquement les alertes de remplissage, par offre puis utilisateur.
+
+CREATE INDEX IF NOT EXISTS idx_notifications_remplissage
+    ON notifications (reference_id, user_id, categorie)
+    WHERE reference_type = 'OFFRE' AND categorie LIKE 'REMPLISSAGE\_%';
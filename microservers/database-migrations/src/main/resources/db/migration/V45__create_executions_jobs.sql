@@ -0,0 +1,33 @@
+-- V45 : historique des tâches planifiées (billetterieservice, immobilierservice,
+-- authorizationserver).
+--
+-- Chaque réplique déclenche les mêmes @Scheduled. Une exécution n'a lieu que
+-- sur l'instance qui obtient le verrou consultatif du job (ou de la tranche)
+-- pour toute sa durée ; les autres passent leur tour. Une tranche déjà réussie
+-- dans l'intervalle minimal du job n'est pas rejouée (horloges décalées entre
+-- pods). Les gros jobs sont découpés en tranches (clé % tranches) : chaque
+-- instance prend les tranches libres, le travail se répartit.
+--
+-- statut : EN_COURS | SUCCES | ECHEC
+
+CREATE TABLE IF NOT EXISTS executions_jobs (
+    execution_id  BIGSERIAL PRIMARY KEY,
+    job_nom       VARCHAR(100) NOT NULL,
+    tranche       INTEGER NOT NULL DEFAULT 0,
+    tranches      INTEGER NOT NULL DEFAULT 1,
+    instance      VARCHAR(200) NOT NULL,
+    statut        VARCHAR(20) NOT NULL DEFAULT 'EN_COURS',
+    elements      INTEGER,
+    erreur        TEXT,
+    debut         TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    fin           TIMESTAMP WITH TIME ZONE,
+    duree_ms      BIGINT
+);
+
+-- Dernière exécution réussie d'une tranche (garde d'intervalle) et historique par job
+CREATE INDEX IF NOT EXISTS idx_executions_jobs_job_debut
+    ON executions_jobs (job_nom, tranche, debut DESC);
+
+-- Purge de l'historique
+CREATE INDEX IF NOT EXISTS idx_executions_jobs_debut
+    ON executions_jobs (debut);
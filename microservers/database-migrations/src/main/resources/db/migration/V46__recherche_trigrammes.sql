@@ -0,0 +1,60 @@
+-- V46 : recherche textuelle indexée et tolérante aux fautes (pg_trgm + unaccent).
+--
+-- Les recherches d'offres, de véhicules et de partenaires filtraient par
+-- LOWER(col) LIKE '%terme%' : aucun index B-tree utilisable (parcours complet
+-- à chaque frappe), "labe" ne trouvait pas "Labé" ni "conakri" "Conakry".
+--
+-- Chaque entité a un document de recherche (texte sans accents, minuscules),
+-- indexé en GIN trigrammes. Les requêtes combinent :
+--   - doc LIKE '%terme%'   : sous-chaîne exacte (comportement historique) ;
+--   - terme <% doc         : similarité de mot >= pg_trgm.word_similarity_threshold
+--                            (0.6 par défaut), tolère une faute de frappe ;
+-- Les deux prédicats sont servis par le même index (BitmapOr). Les recherches
+-- de véhicules et de partenaires classent par word_similarity(terme, doc) ;
+-- celle des offres ne fait que filtrer et garde l'ordre chronologique de la
+-- pagination par curseur (pas de classement par similarité).
+--
+-- Les expressions des requêtes (OffreQuery, VehiculeQuery, PartenaireQuery)
+-- doivent rester identiques à celles des index, sinon le planificateur
+-- revient au parcours séquentiel.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+CREATE EXTENSION IF NOT EXISTS unaccent WITH SCHEMA public;
+
+-- unaccent(text) n'est que STABLE (dictionnaire résolu via search_path) : la
+-- forme à dictionnaire explicite est déclarée IMMUTABLE pour être indexable.
+CREATE OR REPLACE FUNCTION f_unaccent(texte TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, texte) $$;
+
+-- Document de recherche : morceaux non nuls joints par un espace, minuscules,
+-- sans accents. Sert aussi à normaliser la saisie (f_texte_recherche(:terme)).
+-- f_unaccent est qualifiée : les index GIN ci-dessous évaluent cette fonction
+-- hors session applicative (pg_restore, REINDEX, autovacuum) avec un
+-- search_path réduit à pg_catalog.
+CREATE OR REPLACE FUNCTION f_texte_recherche(VARIADIC morceaux TEXT[]) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$ SELECT public.f_unaccent(lower(array_to_string(morceaux, ' '))) $$;
+
+-- Offres : texte_recherche (V40) est déjà concaténé et en minuscules.
+-- Index partiel sur les offres réservables, seules visées par OffreQuery.SEARCH.
+CREATE INDEX IF NOT EXISTS idx_offre_search_texte_trgm
+    ON offre_search USING gin (f_texte_recherche(texte_recherche) gin_trgm_ops)
+    WHERE statut IN ('EN_ATTENTE', 'OUVERT');
+
+-- Véhicules
+CREATE INDEX IF NOT EXISTS idx_vehicules_recherche_trgm
+    ON vehicules USING gin (f_texte_recherche(immatriculation, marque, modele, nom_chauffeur) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_vehicules_type
+    ON vehicules (type_vehicule_id);
+
+-- Partenaires (le libellé de ville est cherché sur villes, puis remonté par
+-- communes → quartiers → localisations)
+CREATE INDEX IF NOT EXISTS idx_partenaires_recherche_trgm
+    ON partenaires USING gin (f_texte_recherche(nom, raison_sociale, email, telephone) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_partenaires_localisation
+    ON partenaires (localisation_id);
+CREATE INDEX IF NOT EXISTS idx_villes_libelle_trgm
+    ON villes USING gin (f_texte_recherche(libelle) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_types_vehicules_libelle_trgm
+    ON types_vehicules USING gin (f_texte_recherche(libelle) gin_trgm_ops);
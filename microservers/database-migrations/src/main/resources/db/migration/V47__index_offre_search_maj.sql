@@ -0,0 +1,9 @@
+-- V47 : index de rafraîchissement incrémental du graphe d'itinéraires.
+--
+-- MoteurItineraires (billetterieservice) garde en mémoire les offres ouvertes
+-- et relit toutes les quelques secondes les lignes de offre_search modifiées
+-- depuis son dernier passage (ouverture, fermeture, places, horaires) :
+-- parcours d'index borné au lieu d'un parcours complet de la table.
+
+CREATE INDEX IF NOT EXISTS idx_offre_search_updated_at
+    ON offre_search (updated_at);
@@ -0,0 +1,238 @@
+-- V48 : agrégats journaliers des ventes (stats_ventes_jour).
+--
+-- Les statistiques de ventes (tableaux de bord transporteur, trajet, véhicule)
+-- relisaient toutes les commandes à chaque rafraîchissement. stats_ventes_jour
+-- en garde le cumul par jour de réservation et par (transporteur, trajet,
+-- véhicule) de l'offre : une période se lit en O(jours) lignes.
+--
+-- Une commande compte en ventes (commandes, places, montant) tant qu'elle
+-- n'est pas ANNULEE / REMBOURSEE, en annulations ensuite, toujours au jour de
+-- sa réservation (fuseau Africa/Conakry).
+--
+-- Maintenance, sans ligne chaude ni verrou de table :
+--   - les triggers n'écrivent que des mouvements (deltas signés) dans
+--     stats_ventes_mouvements, en insertion seule : deux réservations de la
+--     même offre le même jour ne se disputent aucune ligne ;
+--       . commandes : INSERT / UPDATE (statut, places, montant, offre, date) /
+--         DELETE → retrait de l'ancienne contribution, ajout de la nouvelle ;
+--       . offres : réaffectation (transporteur, trajet, véhicule) → les
+--         commandes de l'offre changent de clé, quel que soit leur jour ;
+--   - le service intègre les mouvements par lots dans stats_ventes_jour
+--     (upsert par clé, StatsVentesQuery.INTEGRER_MOUVEMENTS) ; les lectures
+--     ajoutent les mouvements pas encore intégrés ;
+--   - recalculer_stats_ventes(debut, fin) compare une période à commandes et
+--     écrit l'écart en mouvements (reprise initiale ci-dessous, consolidation
+--     nocturne de tout l'historique : corrections faites hors triggers).
+
+CREATE TABLE IF NOT EXISTS stats_ventes_jour (
+    jour             DATE NOT NULL,
+    transporteur_id  BIGINT NOT NULL,
+    trajet_id        BIGINT NOT NULL,
+    vehicule_id      BIGINT NOT NULL,
+    commandes        INTEGER NOT NULL DEFAULT 0,
+    places           INTEGER NOT NULL DEFAULT 0,
+    montant          DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    annulations      INTEGER NOT NULL DEFAULT 0,
+    places_annulees  INTEGER NOT NULL DEFAULT 0,
+    montant_annule   DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    updated_at       TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_stats_ventes_jour PRIMARY KEY (jour, transporteur_id, trajet_id, vehicule_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stats_ventes_transporteur ON stats_ventes_jour (transporteur_id, jour);
+CREATE INDEX IF NOT EXISTS idx_stats_ventes_trajet ON stats_ventes_jour (trajet_id, jour);
+CREATE INDEX IF NOT EXISTS idx_stats_ventes_vehicule ON stats_ventes_jour (vehicule_id, jour);
+
+-- Deltas en attente d'intégration (quelques minutes de ventes au plus)
+CREATE TABLE IF NOT EXISTS stats_ventes_mouvements (
+    mouvement_id     BIGSERIAL PRIMARY KEY,
+    jour             DATE NOT NULL,
+    transporteur_id  BIGINT NOT NULL,
+    trajet_id        BIGINT NOT NULL,
+    vehicule_id      BIGINT NOT NULL,
+    commandes        INTEGER NOT NULL DEFAULT 0,
+    places           INTEGER NOT NULL DEFAULT 0,
+    montant          DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    annulations      INTEGER NOT NULL DEFAULT 0,
+    places_annulees  INTEGER NOT NULL DEFAULT 0,
+    montant_annule   DECIMAL(15, 2) NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_stats_ventes_mouvements_jour ON stats_ventes_mouvements (jour);
+
+-- Jour de rattachement d'une commande
+CREATE OR REPLACE FUNCTION f_jour_commande(p_date TIMESTAMPTZ) RETURNS DATE
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT (p_date AT TIME ZONE 'Africa/Conakry')::date $$;
+
+-- Sert recalculer_stats_ventes sur une période
+CREATE INDEX IF NOT EXISTS idx_commandes_jour
+    ON commandes (f_jour_commande(COALESCE(date_reservation, created_at)));
+
+-- Mouvement ajoutant (p_signe = 1) ou retirant (p_signe = -1) la contribution d'une commande
+CREATE OR REPLACE FUNCTION stats_ventes_mouvement(p_offre_id BIGINT, p_jour DATE, p_statut VARCHAR,
+                                                  p_places INTEGER, p_montant DECIMAL, p_signe INTEGER)
+RETURNS VOID AS $$
+DECLARE
+    v_annulee BOOLEAN := COALESCE(p_statut IN ('ANNULEE', 'REMBOURSEE'), FALSE);
+    v_montant DECIMAL := COALESCE(p_montant, 0);
+BEGIN
+    INSERT INTO stats_ventes_mouvements (jour, transporteur_id, trajet_id, vehicule_id,
+                                         commandes, places, montant,
+                                         annulations, places_annulees, montant_annule)
+    SELECT p_jour, o.user_id, o.trajet_id, o.vehicule_id,
+           CASE WHEN v_annulee THEN 0 ELSE p_signe END,
+           CASE WHEN v_annulee THEN 0 ELSE p_signe * p_places END,
+           CASE WHEN v_annulee THEN 0 ELSE p_signe * v_montant END,
+           CASE WHEN v_annulee THEN p_signe ELSE 0 END,
+           CASE WHEN v_annulee THEN p_signe * p_places ELSE 0 END,
+           CASE WHEN v_annulee THEN p_signe * v_montant ELSE 0 END
+    FROM offres o
+    WHERE o.offre_id = p_offre_id;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION trg_commandes_stats_ventes() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND NEW.offre_id = OLD.offre_id
+       AND NEW.nombre_places = OLD.nombre_places
+       AND NEW.montant_total = OLD.montant_total
+       AND COALESCE(NEW.date_reservation, NEW.created_at) IS NOT DISTINCT FROM COALESCE(OLD.date_reservation, OLD.created_at)
+       AND COALESCE(NEW.statut IN ('ANNULEE', 'REMBOURSEE'), FALSE)
+         = COALESCE(OLD.statut IN ('ANNULEE', 'REMBOURSEE'), FALSE) THEN
+        RETURN NULL; -- ex. EN_ATTENTE → PAYEE : même contribution
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM stats_ventes_mouvement(OLD.offre_id,
+                                       f_jour_commande(COALESCE(OLD.date_reservation, OLD.created_at, CURRENT_TIMESTAMP)),
+                                       OLD.statut, OLD.nombre_places, OLD.montant_total, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM stats_ventes_mouvement(NEW.offre_id,
+                                       f_jour_commande(COALESCE(NEW.date_reservation, NEW.created_at, CURRENT_TIMESTAMP)),
+                                       NEW.statut, NEW.nombre_places, NEW.montant_total, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_commandes_stats_ventes ON commandes;
+CREATE TRIGGER trg_commandes_stats_ventes
+    AFTER INSERT OR DELETE OR UPDATE OF statut, nombre_places, montant_total, offre_id, date_reservation
+    ON commandes
+    FOR EACH ROW EXECUTE FUNCTION trg_commandes_stats_ventes();
+
+-- Offre réaffectée : ses commandes quittent l'ancienne clé pour la nouvelle, jour par jour
+CREATE OR REPLACE FUNCTION trg_offres_stats_ventes() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO stats_ventes_mouvements (jour, transporteur_id, trajet_id, vehicule_id,
+                                         commandes, places, montant,
+                                         annulations, places_annulees, montant_annule)
+    SELECT c.jour, d.transporteur_id, d.trajet_id, d.vehicule_id,
+           d.signe * c.commandes, d.signe * c.places, d.signe * c.montant,
+           d.signe * c.annulations, d.signe * c.places_annulees, d.signe * c.montant_annule
+    FROM (
+        SELECT f_jour_commande(COALESCE(date_reservation, created_at)) AS jour,
+               COUNT(*) FILTER (WHERE NOT annulee) AS commandes,
+               COALESCE(SUM(nombre_places) FILTER (WHERE NOT annulee), 0) AS places,
+               COALESCE(SUM(montant_total) FILTER (WHERE NOT annulee), 0) AS montant,
+               COUNT(*) FILTER (WHERE annulee) AS annulations,
+               COALESCE(SUM(nombre_places) FILTER (WHERE annulee), 0) AS places_annulees,
+               COALESCE(SUM(montant_total) FILTER (WHERE annulee), 0) AS montant_annule
+        FROM (
+            SELECT date_reservation, created_at, nombre_places, montant_total,
+                   COALESCE(statut IN ('ANNULEE', 'REMBOURSEE'), FALSE) AS annulee
+            FROM commandes
+            WHERE offre_id = NEW.offre_id
+        ) x
+        GROUP BY 1
+    ) c
+    CROSS JOIN (VALUES (OLD.user_id, OLD.trajet_id, OLD.vehicule_id, -1),
+                       (NEW.user_id, NEW.trajet_id, NEW.vehicule_id, 1))
+        AS d(transporteur_id, trajet_id, vehicule_id, signe);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offres_stats_ventes ON offres;
+CREATE TRIGGER trg_offres_stats_ventes
+    AFTER UPDATE OF user_id, trajet_id, vehicule_id ON offres
+    FOR EACH ROW
+    WHEN ((OLD.user_id, OLD.trajet_id, OLD.vehicule_id) IS DISTINCT FROM (NEW.user_id, NEW.trajet_id, NEW.vehicule_id))
+    EXECUTE FUNCTION trg_offres_stats_ventes();
+
+-- Consolidation d'une période (NULL = depuis la première commande) : écart entre
+-- commandes et agrégats (intégrés ou non), écrit en mouvements ; retourne le
+-- nombre de clés corrigées. Une seule instruction, donc un seul instantané :
+-- une commande concurrente n'est vue ni dans commandes ni dans ses mouvements,
+-- son trigger la compte seul, sans double comptage ni verrou.
+CREATE OR REPLACE FUNCTION recalculer_stats_ventes(p_debut DATE, p_fin DATE) RETURNS INTEGER AS $$
+DECLARE
+    v_debut DATE := COALESCE(p_debut,
+        LEAST((SELECT MIN(f_jour_commande(COALESCE(date_reservation, created_at))) FROM commandes),
+              (SELECT MIN(jour) FROM stats_ventes_jour)),
+        CURRENT_DATE);
+    v_fin   DATE := COALESCE(p_fin, CURRENT_DATE + 1);
+    v_lignes INTEGER;
+BEGIN
+    INSERT INTO stats_ventes_mouvements (jour, transporteur_id, trajet_id, vehicule_id,
+                                         commandes, places, montant,
+                                         annulations, places_annulees, montant_annule)
+    SELECT jour, transporteur_id, trajet_id, vehicule_id,
+           COALESCE(cible.commandes, 0) - COALESCE(actuel.commandes, 0),
+           COALESCE(cible.places, 0) - COALESCE(actuel.places, 0),
+           COALESCE(cible.montant, 0) - COALESCE(actuel.montant, 0),
+           COALESCE(cible.annulations, 0) - COALESCE(actuel.annulations, 0),
+           COALESCE(cible.places_annulees, 0) - COALESCE(actuel.places_annulees, 0),
+           COALESCE(cible.montant_annule, 0) - COALESCE(actuel.montant_annule, 0)
+    FROM (
+        SELECT c.jour, o.user_id AS transporteur_id, o.trajet_id, o.vehicule_id,
+               COUNT(*) FILTER (WHERE NOT c.annulee) AS commandes,
+               COALESCE(SUM(c.nombre_places) FILTER (WHERE NOT c.annulee), 0) AS places,
+               COALESCE(SUM(c.montant_total) FILTER (WHERE NOT c.annulee), 0) AS montant,
+               COUNT(*) FILTER (WHERE c.annulee) AS annulations,
+               COALESCE(SUM(c.nombre_places) FILTER (WHERE c.annulee), 0) AS places_annulees,
+               COALESCE(SUM(c.montant_total) FILTER (WHERE c.annulee), 0) AS montant_annule
+        FROM (
+            SELECT offre_id, nombre_places, montant_total,
+                   f_jour_commande(COALESCE(date_reservation, created_at)) AS jour,
+                   COALESCE(statut IN ('ANNULEE', 'REMBOURSEE'), FALSE) AS annulee
+            FROM commandes
+            WHERE f_jour_commande(COALESCE(date_reservation, created_at)) BETWEEN v_debut AND v_fin
+        ) c
+        INNER JOIN offres o ON o.offre_id = c.offre_id
+        GROUP BY c.jour, o.user_id, o.trajet_id, o.vehicule_id
+    ) cible
+    FULL JOIN (
+        SELECT jour, transporteur_id, trajet_id, vehicule_id,
+               SUM(commandes) AS commandes, SUM(places) AS places, SUM(montant) AS montant,
+               SUM(annulations) AS annulations, SUM(places_annulees) AS places_annulees,
+               SUM(montant_annule) AS montant_annule
+        FROM (
+            SELECT jour, transporteur_id, trajet_id, vehicule_id, commandes, places, montant,
+                   annulations, places_annulees, montant_annule
+            FROM stats_ventes_jour
+            WHERE jour BETWEEN v_debut AND v_fin
+            UNION ALL
+            SELECT jour, transporteur_id, trajet_id, vehicule_id, commandes, places, montant,
+                   annulations, places_annulees, montant_annule
+            FROM stats_ventes_mouvements
+            WHERE jour BETWEEN v_debut AND v_fin
+        ) a
+        GROUP BY jour, transporteur_id, trajet_id, vehicule_id
+    ) actuel USING (jour, transporteur_id, trajet_id, vehicule_id)
+    WHERE (COALESCE(cible.commandes, 0), COALESCE(cible.places, 0), COALESCE(cible.montant, 0),
+           COALESCE(cible.annulations, 0), COALESCE(cible.places_annulees, 0), COALESCE(cible.montant_annule, 0))
+          IS DISTINCT FROM
+          (COALESCE(actuel.commandes, 0), COALESCE(actuel.places, 0), COALESCE(actuel.montant, 0),
+           COALESCE(actuel.annulations, 0), COALESCE(actuel.places_annulees, 0), COALESCE(actuel.montant_annule, 0));
+
+    GET DIAGNOSTICS v_lignes = ROW_COUNT;
+    RETURN v_lignes;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Reprise de l'historique (en mouvements, intégrés au premier passage du service)
+SELECT recalculer_stats_ventes(NULL, NULL);
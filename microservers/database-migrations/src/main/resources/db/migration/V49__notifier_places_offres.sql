@@ -0,0 +1,49 @@
+-- V49 : notification des changements de places des offres (LISTEN/NOTIFY).
+--
+-- Les clients mobiles interrogeaient les offres en boucle pour suivre
+-- nombre_places_disponibles. Chaque changement de places, de remplissage ou
+-- de statut d'une offre (réservation, annulation, ouverture, fermeture) est
+-- désormais publié sur le canal places_offres. Chaque instance de
+-- billetterieservice écoute le canal et pousse l'état aux abonnés SSE de
+-- l'offre (DiffusionPlaces), quelle que soit l'instance qui a écrit.
+--
+-- Le trigger n'appelle pas pg_notify : une transaction qui a notifié prend au
+-- commit le verrou global de la file de notifications, ce qui sérialiserait
+-- les commits des réservations concurrentes (toutes offres confondues). Il
+-- ajoute seulement une ligne au journal places_offres_journal (insertion
+-- seule : aucun conflit entre réservations, ni avec le relais). RelaisPlaces
+-- (billetterieservice) vide le journal toutes les quelques centaines de
+-- millisecondes et publie sur places_offres, dans sa propre transaction, un
+-- tableau JSON d'états (un par offre, deltas cumulés) par notification.
+--
+-- Charge utile (< 8000 octets) : tableau de { offreUuid, disponibles,
+-- reservees, total, niveauRemplissage, statut, delta (variation des places
+-- disponibles) }.
+--
+-- UNLOGGED : pas de WAL dans les réservations ; le journal est vidé après un
+-- arrêt brutal, les abonnés relisent alors l'état courant à la reconnexion.
+
+CREATE UNLOGGED TABLE IF NOT EXISTS places_offres_journal (
+    journal_id BIGSERIAL PRIMARY KEY,
+    offre_id   BIGINT  NOT NULL,
+    delta      INTEGER NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION notifier_places_offre() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.nombre_places_disponibles IS DISTINCT FROM OLD.nombre_places_disponibles
+       OR NEW.niveau_remplissage IS DISTINCT FROM OLD.niveau_remplissage
+       OR NEW.statut IS DISTINCT FROM OLD.statut THEN
+        INSERT INTO places_offres_journal (offre_id, delta)
+        VALUES (NEW.offre_id,
+                COALESCE(NEW.nombre_places_disponibles, 0) - COALESCE(OLD.nombre_places_disponibles, 0));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offres_notifier_places ON offres;
+CREATE TRIGGER trg_offres_notifier_places
+    AFTER UPDATE OF nombre_places_disponibles, nombre_places_reservees, niveau_remplissage, statut
+    ON offres
+    FOR EACH ROW EXECUTE FUNCTION notifier_places_offre();
@@ -0,0 +1,122 @@
+-- V50 : compteurs de notifications non lues et avis de nouvelles notifications.
+--
+-- Le badge des applications relançait un COUNT(*) sur notifications à chaque
+-- rafraîchissement. notifications_non_lues garde le nombre de non lues par
+-- utilisateur, tenu par des triggers de niveau instruction (un seul upsert
+-- par utilisateur pour une insertion en lot).
+--
+-- Les triggers n'appellent pas pg_notify : une transaction qui a notifié
+-- prend au commit le verrou global de la file de notifications, ce qui
+-- sérialiserait les commits de toutes les créations et lectures. Ils ajoutent
+-- une ligne par utilisateur touché à notifications_journal (insertion seule) ;
+-- RelaisNotifications (billetterieservice) vide le journal par lots, dans sa
+-- propre transaction, et publie sur le canal notifications_in_app, que chaque
+-- instance écoute pour rafraîchir son cache de compteurs et pousser les
+-- nouvelles notifications aux flux SSE (DiffusionNotifications).
+--
+-- Une notification est non lue quand lue = FALSE (comme l'ancien COUNT).
+-- Charge utile : tableau JSON de {userId, nonLues, nouvelles (notifications
+-- insérées)}, un élément par utilisateur, compteur lu au moment du relais.
+--
+-- UNLOGGED : pas de WAL pour le journal ; vidé après un arrêt brutal, les
+-- instances relisent alors les compteurs à la reconnexion de leur écoute.
+
+CREATE TABLE IF NOT EXISTS notifications_non_lues (
+    user_id     BIGINT PRIMARY KEY,
+    non_lues    INTEGER NOT NULL DEFAULT 0,
+    updated_at  TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNLOGGED TABLE IF NOT EXISTS notifications_journal (
+    journal_id  BIGSERIAL PRIMARY KEY,
+    user_id     BIGINT  NOT NULL,
+    nouvelles   INTEGER NOT NULL
+);
+
+-- Pagination keyset du fil (created_at DESC, notification_id DESC) ; couvre
+-- aussi les recherches par user_id seul.
+CREATE INDEX IF NOT EXISTS idx_notifications_user_fil
+    ON notifications (user_id, created_at DESC, notification_id DESC);
+DROP INDEX IF EXISTS idx_notifications_user;
+
+-- Applique des variations (user_id, delta non lues, nouvelles) et les journalise pour le relais.
+-- Les lignes sont verrouillées dans l'ordre des user_id : pas d'interblocage
+-- entre deux lots concurrents.
+CREATE OR REPLACE FUNCTION notifications_non_lues_appliquer(p_variations JSONB) RETURNS VOID AS $$
+DECLARE
+    v RECORD;
+BEGIN
+    FOR v IN
+        SELECT (e->>'userId')::BIGINT AS user_id,
+               SUM((e->>'delta')::INTEGER) AS delta,
+               SUM((e->>'nouvelles')::INTEGER) AS nouvelles
+        FROM jsonb_array_elements(p_variations) e
+        GROUP BY 1
+        ORDER BY 1
+    LOOP
+        CONTINUE WHEN v.delta = 0 AND v.nouvelles = 0;
+        INSERT INTO notifications_non_lues AS c (user_id, non_lues)
+        VALUES (v.user_id, GREATEST(v.delta, 0))
+        ON CONFLICT (user_id) DO UPDATE SET
+            non_lues   = GREATEST(c.non_lues + v.delta, 0),
+            updated_at = CURRENT_TIMESTAMP;
+        INSERT INTO notifications_journal (user_id, nouvelles) VALUES (v.user_id, v.nouvelles);
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION trg_notifications_compteurs() RETURNS TRIGGER AS $$
+DECLARE
+    v_variations JSONB;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT jsonb_agg(jsonb_build_object('userId', user_id,
+                                            'delta', CASE WHEN lue IS FALSE THEN 1 ELSE 0 END,
+                                            'nouvelles', 1))
+        INTO v_variations FROM nouvelles;
+    ELSIF TG_OP = 'UPDATE' THEN
+        SELECT jsonb_agg(jsonb_build_object('userId', user_id, 'delta', delta, 'nouvelles', 0))
+        INTO v_variations
+        FROM (
+            SELECT user_id, CASE WHEN lue IS FALSE THEN 1 ELSE 0 END AS delta FROM nouvelles
+            UNION ALL
+            SELECT user_id, CASE WHEN lue IS FALSE THEN -1 ELSE 0 END FROM anciennes
+        ) d
+        WHERE delta <> 0;
+    ELSE
+        SELECT jsonb_agg(jsonb_build_object('userId', user_id, 'delta', -1, 'nouvelles', 0))
+        INTO v_variations FROM anciennes
+        WHERE lue IS FALSE;
+    END IF;
+
+    IF v_variations IS NOT NULL THEN
+        PERFORM notifications_non_lues_appliquer(v_variations);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_notifications_compteurs_ins ON notifications;
+CREATE TRIGGER trg_notifications_compteurs_ins
+    AFTER INSERT ON notifications
+    REFERENCING NEW TABLE AS nouvelles
+    FOR EACH STATEMENT EXECUTE FUNCTION trg_notifications_compteurs();
+
+DROP TRIGGER IF EXISTS trg_notifications_compteurs_upd ON notifications;
+CREATE TRIGGER trg_notifications_compteurs_upd
+    AFTER UPDATE ON notifications
+    REFERENCING OLD TABLE AS anciennes NEW TABLE AS nouvelles
+    FOR EACH STATEMENT EXECUTE FUNCTION trg_notifications_compteurs();
+
+DROP TRIGGER IF EXISTS trg_notifications_compteurs_del ON notifications;
+CREATE TRIGGER trg_notifications_compteurs_del
+    AFTER DELETE ON notifications
+    REFERENCING OLD TABLE AS anciennes
+    FOR EACH STATEMENT EXECUTE FUNCTION trg_notifications_compteurs();
+
+-- Reprise de l'existant
+INSERT INTO notifications_non_lues (user_id, non_lues)
+SELECT user_id, COUNT(*) FROM notifications
+WHERE lue = FALSE
+GROUP BY user_id
+ON CONFLICT (user_id) DO UPDATE SET non_lues = EXCLUDED.non_lues, updated_at = CURRENT_TIMESTAMP;
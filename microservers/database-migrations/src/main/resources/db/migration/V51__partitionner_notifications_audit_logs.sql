@@ -0,0 +1,199 @@
+-- V51 : partitionnement mensuel de notifications et audit_logs, archivage.
+--
+-- Les deux tables ne faisaient que grossir : fil des utilisateurs, anti-jointures
+-- des jobs de notification (existsByReference, remplissage, demande d'avis) et
+-- journaux d'audit parcouraient des index toujours plus gros.
+--
+-- Elles sont partitionnées par plage mensuelle de created_at (nom_table_AAAA_MM,
+-- plus une partition par défaut qui doit rester vide). Les requêtes bornées par
+-- created_at n'ouvrent que les partitions concernées. Le job MaintenancePartitions
+-- crée les mois à venir et archive les mois anciens : la partition est détachée
+-- puis déplacée dans le schéma archives (toujours lisible, hors des requêtes ;
+-- suppression manuelle après sauvegarde).
+--
+-- La clé primaire et l'unicité de notification_uuid incluent created_at
+-- (contrainte PostgreSQL sur les tables partitionnées) ; identifiants et UUID
+-- restent générés par la même séquence / uuid_generate_v4().
+--
+-- Migration : les tables existantes sont renommées, recopiées puis supprimées
+-- (verrou exclusif le temps de la copie).
+
+CREATE SCHEMA IF NOT EXISTS archives;
+
+-- Crée les partitions mensuelles manquantes de p_table, du mois de p_debut jusqu'à p_fin (exclu).
+CREATE OR REPLACE FUNCTION creer_partitions_mensuelles(p_table TEXT, p_debut DATE, p_fin DATE) RETURNS INTEGER AS $$
+DECLARE
+    v_mois    DATE := date_trunc('month', p_debut)::date;
+    v_nom     TEXT;
+    v_creees  INTEGER := 0;
+BEGIN
+    WHILE v_mois < p_fin LOOP
+        v_nom := p_table || '_' || to_char(v_mois, 'YYYY_MM');
+        IF to_regclass('public.' || v_nom) IS NULL THEN
+            EXECUTE format('CREATE TABLE public.%I PARTITION OF public.%I FOR VALUES FROM (%L) TO (%L)',
+                           v_nom, p_table,
+                           v_mois::timestamp AT TIME ZONE 'Africa/Conakry',
+                           (v_mois + INTERVAL '1 month')::timestamp AT TIME ZONE 'Africa/Conakry');
+            v_creees := v_creees + 1;
+        END IF;
+        v_mois := (v_mois + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN v_creees;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Détache les partitions mensuelles de p_table entièrement antérieures à p_avant
+-- et les déplace dans archives. Pour notifications, les non lues archivées sont
+-- retirées des compteurs (le détachement ne déclenche pas les triggers).
+-- lock_timeout : un détachement bloqué par le trafic est retenté au passage suivant.
+CREATE OR REPLACE FUNCTION archiver_partitions_mensuelles(p_table TEXT, p_avant DATE) RETURNS INTEGER AS $$
+DECLARE
+    v           RECORD;
+    v_archivees INTEGER := 0;
+BEGIN
+    PERFORM set_config('lock_timeout', '5s', true);
+    FOR v IN
+        SELECT c.relname AS nom
+        FROM pg_inherits i
+        INNER JOIN pg_class c ON c.oid = i.inhrelid
+        INNER JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.oid = to_regclass('public.' || p_table)
+          AND c.relname ~ ('^' || p_table || '_[0-9]{4}_[0-9]{2}$')
+          AND to_date(right(c.relname, 7), 'YYYY_MM') + INTERVAL '1 month' <= p_avant
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE public.%I DETACH PARTITION public.%I', p_table, v.nom);
+        IF p_table = 'notifications' THEN
+            EXECUTE format($f$
+                SELECT notifications_non_lues_appliquer(
+                    jsonb_agg(jsonb_build_object('userId', user_id, 'delta', -nb, 'nouvelles', 0)))
+                FROM (SELECT user_id, COUNT(*) AS nb FROM public.%I WHERE lue IS FALSE GROUP BY user_id) d
+                $f$, v.nom);
+        END IF;
+        EXECUTE format('ALTER TABLE public.%I SET SCHEMA archives', v.nom);
+        v_archivees := v_archivees + 1;
+    END LOOP;
+    RETURN v_archivees;
+END;
+$$ LANGUAGE plpgsql;
+
+-- =====================================================
+-- NOTIFICATIONS
+-- =====================================================
+
+ALTER TABLE notifications RENAME TO notifications_v2;
+ALTER TABLE notifications_v2 RENAME CONSTRAINT notifications_pkey TO notifications_v2_pkey;
+ALTER TABLE notifications_v2 RENAME CONSTRAINT uq_notifications_uuid TO uq_notifications_v2_uuid;
+DROP INDEX IF EXISTS idx_notifications_lue;
+DROP INDEX IF EXISTS idx_notifications_user_fil;
+DROP INDEX IF EXISTS idx_notifications_remplissage;
+ALTER SEQUENCE notifications_notification_id_seq OWNED BY NONE;
+
+CREATE TABLE notifications (
+    notification_id   BIGINT NOT NULL DEFAULT nextval('notifications_notification_id_seq'),
+    notification_uuid VARCHAR(40) NOT NULL DEFAULT uuid_generate_v4(),
+    user_id           BIGINT NOT NULL,
+    type_notification VARCHAR(50) NOT NULL, -- SMS, EMAIL, PUSH, IN_APP
+    categorie         VARCHAR(50), -- RESERVATION, PAIEMENT, DEPART, PROMOTION
+    titre             VARCHAR(200),
+    message           TEXT NOT NULL,
+    lue               BOOLEAN DEFAULT FALSE,
+    envoyee           BOOLEAN DEFAULT FALSE,
+    date_envoi        TIMESTAMP(6) WITH TIME ZONE,
+    date_lecture      TIMESTAMP(6) WITH TIME ZONE,
+    reference_id      BIGINT, -- ID de l'objet concerné (commande, offre, etc.)
+    reference_type    VARCHAR(50), -- Type de l'objet (COMMANDE, OFFRE, etc.)
+    metadata          JSONB,
+    created_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT notifications_pkey PRIMARY KEY (notification_id, created_at),
+    CONSTRAINT uq_notifications_uuid UNIQUE (notification_uuid, created_at),
+    CONSTRAINT fk_notifications_user FOREIGN KEY (user_id)
+        REFERENCES users (user_id) ON UPDATE CASCADE ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+SELECT creer_partitions_mensuelles('notifications',
+    COALESCE((SELECT MIN(created_at) FROM notifications_v2)::date, CURRENT_DATE),
+    (CURRENT_DATE + INTERVAL '4 months')::date);
+CREATE TABLE notifications_defaut PARTITION OF notifications DEFAULT;
+
+INSERT INTO notifications (notification_id, notification_uuid, user_id, type_notification, categorie,
+                           titre, message, lue, envoyee, date_envoi, date_lecture,
+                           reference_id, reference_type, metadata, created_at)
+SELECT notification_id, notification_uuid, user_id, type_notification, categorie,
+       titre, message, lue, envoyee, date_envoi, date_lecture,
+       reference_id, reference_type, metadata, COALESCE(created_at, date_envoi, CURRENT_TIMESTAMP)
+FROM notifications_v2;
+
+ALTER SEQUENCE notifications_notification_id_seq OWNED BY notifications.notification_id;
+DROP TABLE notifications_v2;
+
+-- Index (créés sur chaque partition)
+CREATE INDEX idx_notifications_user_fil
+    ON notifications (user_id, created_at DESC, notification_id DESC);
+CREATE INDEX idx_notifications_lue ON notifications (user_id, lue) WHERE lue = FALSE;
+CREATE INDEX idx_notifications_remplissage
+    ON notifications (reference_id, user_id, categorie)
+    WHERE reference_type = 'OFFRE' AND categorie LIKE 'REMPLISSAGE\_%';
+
+-- Compteurs de non lues (V50) : triggers d'instruction sur la table partitionnée,
+-- les tables de transition couvrent toutes les partitions touchées.
+CREATE TRIGGER trg_notifications_compteurs_ins
+    AFTER INSERT ON notifications
+    REFERENCING NEW TABLE AS nouvelles
+    FOR EACH STATEMENT EXECUTE FUNCTION trg_notifications_compteurs();
+CREATE TRIGGER trg_notifications_compteurs_upd
+    AFTER UPDATE ON notifications
+    REFERENCING OLD TABLE AS anciennes NEW TABLE AS nouvelles
+    FOR EACH STATEMENT EXECUTE FUNCTION trg_notifications_compteurs();
+CREATE TRIGGER trg_notifications_compteurs_del
+    AFTER DELETE ON notifications
+    REFERENCING OLD TABLE AS anciennes
+    FOR EACH STATEMENT EXECUTE FUNCTION trg_notifications_compteurs();
+
+ANALYZE notifications;
+
+-- =====================================================
+-- AUDIT_LOGS
+-- =====================================================
+
+ALTER TABLE audit_logs RENAME TO audit_logs_v2;
+ALTER TABLE audit_logs_v2 RENAME CONSTRAINT audit_logs_pkey TO audit_logs_v2_pkey;
+DROP INDEX IF EXISTS idx_audit_logs_user;
+DROP INDEX IF EXISTS idx_audit_logs_entite;
+DROP INDEX IF EXISTS idx_audit_logs_date;
+ALTER SEQUENCE audit_logs_log_id_seq OWNED BY NONE;
+
+CREATE TABLE audit_logs (
+    log_id            BIGINT NOT NULL DEFAULT nextval('audit_logs_log_id_seq'),
+    user_id           BIGINT,
+    action            VARCHAR(50) NOT NULL, -- CREATE, UPDATE, DELETE, LOGIN, LOGOUT, etc.
+    entite            VARCHAR(50) NOT NULL, -- Nom de la table/entité concernée
+    entite_id         BIGINT,
+    anciennes_valeurs JSONB,
+    nouvelles_valeurs JSONB,
+    ip_address        VARCHAR(45),
+    user_agent        TEXT,
+    created_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT audit_logs_pkey PRIMARY KEY (log_id, created_at),
+    CONSTRAINT fk_audit_logs_user FOREIGN KEY (user_id)
+        REFERENCES users (user_id) ON UPDATE CASCADE ON DELETE SET NULL
+) PARTITION BY RANGE (created_at);
+
+SELECT creer_partitions_mensuelles('audit_logs',
+    COALESCE((SELECT MIN(created_at) FROM audit_logs_v2)::date, CURRENT_DATE),
+    (CURRENT_DATE + INTERVAL '4 months')::date);
+CREATE TABLE audit_logs_defaut PARTITION OF audit_logs DEFAULT;
+
+INSERT INTO audit_logs (log_id, user_id, action, entite, entite_id, anciennes_valeurs, nouvelles_valeurs,
+                        ip_address, user_agent, created_at)
+SELECT log_id, user_id, action, entite, entite_id, anciennes_valeurs, nouvelles_valeurs,
+       ip_address, user_agent, COALESCE(created_at, CURRENT_TIMESTAMP)
+FROM audit_logs_v2;
+
+ALTER SEQUENCE audit_logs_log_id_seq OWNED BY audit_logs.log_id;
+DROP TABLE audit_logs_v2;
+
+CREATE INDEX idx_audit_logs_user ON audit_logs (user_id, created_at);
+CREATE INDEX idx_audit_logs_entite ON audit_logs (entite, entite_id, created_at);
+
+ANALYZE audit_logs;
@@ -0,0 +1,37 @@
+-- V52 : retraits du manifeste hors ligne (tombstones).
+--
+-- Une commande déplacée sur une autre offre (changement de date) fait
+-- réapparaître ses billets dans le delta de l'offre cible (V41), mais l'appareil
+-- du contrôleur de l'offre d'origine les garde. billets_retraits note, pour
+-- l'offre quittée, chaque code retiré avec la même version que billets.version
+-- (transaction d'écriture) : le delta [depuis, xmin[ de l'offre d'origine les
+-- renvoie comme retraits. Les annulations n'en ont pas besoin : le billet passe
+-- ANNULE et apparaît déjà dans le delta de son offre.
+-- Table en insertion seule : PurgeRetraitsBillets (billetterieservice) supprime
+-- chaque nuit les retraits des offres parties depuis quelques jours.
+
+CREATE TABLE IF NOT EXISTS billets_retraits (
+    retrait_id  BIGSERIAL PRIMARY KEY,
+    billet_id   BIGINT       NOT NULL,
+    code_billet VARCHAR(20)  NOT NULL,
+    offre_id    BIGINT       NOT NULL,
+    motif       VARCHAR(20)  NOT NULL DEFAULT 'DEPLACE',
+    version     BIGINT       NOT NULL DEFAULT pg_current_xact_id()::TEXT::BIGINT,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_billets_retraits_offre_version ON billets_retraits (offre_id, version);
+
+CREATE OR REPLACE FUNCTION touch_billets_commande()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO billets_retraits (billet_id, code_billet, offre_id)
+    SELECT billet_id, code_billet, OLD.offre_id
+    FROM billets
+    WHERE commande_id = NEW.commande_id;
+
+    UPDATE billets SET updated_at = CURRENT_TIMESTAMP
+    WHERE commande_id = NEW.commande_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
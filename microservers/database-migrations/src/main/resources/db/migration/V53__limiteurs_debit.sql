@@ -0,0 +1,15 @@
+-- V53 : seaux à jetons partagés entre répliques (géocodage Nominatim / Google).
+--
+-- ProxyGeocodage bornait le débit par instance : N répliques envoyaient N
+-- requêtes/s à Nominatim, dont la politique d'usage en autorise une. Le seau
+-- est désormais une ligne par clé, consommée par un seul UPSERT (verrou de
+-- ligne le temps de l'instruction) : le débit configuré vaut pour le parc
+-- entier. Le seau local reste un premier filtre, sans aller-retour en base.
+--
+-- jetons : réserve après le dernier prélèvement ; maj : instant de ce prélèvement.
+
+CREATE TABLE IF NOT EXISTS limiteurs_debit (
+    cle    VARCHAR(50) PRIMARY KEY,
+    jetons DOUBLE PRECISION NOT NULL,
+    maj    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
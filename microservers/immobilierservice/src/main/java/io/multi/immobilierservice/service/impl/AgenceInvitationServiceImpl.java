@@ -1,6 +1,6 @@
 package io.multi.immobilierservice.service.impl;
 
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import io.multi.immobilierservice.domain.Agence;
 import io.multi.immobilierservice.domain.AgenceInvitation;
@@ -31,7 +31,7 @@ public class AgenceInvitationServiceImpl implements AgenceInvitationService {
     private final AgenceInvitationRepository invitationRepository;
     private final AgenceRepository agenceRepository;
     private final ProfilImmoRepository profilImmoRepository;
-    private final UserClient userClient;
+    private final UserCache userCache;
 
     @Value("${immo.invitations.duree-jours:7}")
     private int dureeJours;
@@ -49,7 +49,7 @@ public class AgenceInvitationServiceImpl implements AgenceInvitationService {
         // Vérifier que le user à inviter existe (via Feign UserClient)
         User userInvite;
         try {
-            userInvite = userClient.getUserById(request.getUserId());
+            userInvite = userCache.getUserById(request.getUserId());
         } catch (Exception e) {
             throw new ApiException("Impossible de récupérer l'utilisateur " + request.getUserId());
         }
@@ -1,6 +1,6 @@
 package io.multi.immobilierservice.service.impl;
 
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import io.multi.immobilierservice.domain.Agence;
 import io.multi.immobilierservice.domain.AgenceInvitation;
@@ -28,7 +28,7 @@ public class AgenceServiceImpl implements AgenceService {
     private final AgenceRepository agenceRepository;
     private final ProfilImmoRepository profilImmoRepository;
     private final AgenceInvitationService invitationService;
-    private final UserClient userClient;
+    private final UserCache userCache;
     private final io.multi.immobilierservice.service.PhotoStorageService photoStorageService;
     private final io.multi.immobilierservice.service.ImmoNotificationProducer notificationProducer;
     private final io.multi.immobilierservice.repository.ProprieteRepository proprieteRepository;
@@ -349,7 +349,7 @@ public class AgenceServiceImpl implements AgenceService {
     private String lookupClientNom(Long userId) {
         if (userId == null) return "";
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             if (user != null) {
                 String prenom = user.getFirstName() != null ? user.getFirstName() : "";
                 String nom = user.getLastName() != null ? user.getLastName() : "";
@@ -374,7 +374,7 @@ public class AgenceServiceImpl implements AgenceService {
 
     private User fetchUserOrFail(Long userId) {
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             if (user == null || user.getUserId() == null) {
                 throw new ApiException("Utilisateur introuvable : " + userId);
             }
@@ -1,5 +1,6 @@
 package io.multi.immobilierservice.service.impl;
 
+import io.multi.clients.UserCache;
 import io.multi.clients.UserClient;
 import io.multi.clients.domain.User;
 import io.multi.immobilierservice.domain.Contact;
@@ -38,6 +39,7 @@ public class ContactServiceImpl implements ContactService {
     private final ContactRepository contactRepository;
     private final FavoriRepository favoriRepository;  // réutilise lookupProprieteIdByUuid
     private final UserClient userClient;
+    private final UserCache userCache;
     private final ProprieteRepository proprieteRepository;
     private final ProfilImmoRepository profilImmoRepository;
     private final ImmoNotificationProducer notificationProducer;
@@ -57,7 +59,7 @@ public class ContactServiceImpl implements ContactService {
         // ne peut pas recontacter. C'est volontairement strict.
         User demandeur;
         try {
-            demandeur = userClient.getUserById(userId);
+            demandeur = userCache.getUserById(userId);
         } catch (Exception e) {
             log.error("Feign UserClient échec pour userId={}: {}", userId, e.getMessage());
             throw new ApiException("Service utilisateur indisponible, réessayez plus tard");
@@ -107,7 +109,7 @@ public class ContactServiceImpl implements ContactService {
             ProfilImmo vendeurProfil = profilImmoRepository.findById(propriete.getProfilId()).orElse(null);
             if (vendeurProfil != null) {
                 try {
-                    User proprietaire = userClient.getUserById(vendeurProfil.getUserId());
+                    User proprietaire = userCache.getUserById(vendeurProfil.getUserId());
                     if (proprietaire != null) {
                         proprietaireNom = UserDisplayUtils.nomComplet(proprietaire);
                         proprietaireTelephone = proprietaire.getPhone() != null ? proprietaire.getPhone() : "";
@@ -199,7 +201,7 @@ public class ContactServiceImpl implements ContactService {
     private ContactView toViewEnrichedLive(Contact c) {
         ContactView view = ContactView.fromContact(c);
         try {
-            User u = userClient.getUserById(c.getDemandeurUserId());
+            User u = userCache.getUserById(c.getDemandeurUserId());
             if (u != null) {
                 String nomLive = ((u.getFirstName() != null ? u.getFirstName() : "")
                         + " " + (u.getLastName() != null ? u.getLastName() : "")).trim();
@@ -284,7 +286,7 @@ public class ContactServiceImpl implements ContactService {
                 .orElseThrow(() -> new NotFoundException("Profil propriétaire introuvable"));
         User u;
         try {
-            u = userClient.getUserById(profil.getUserId());
+            u = userCache.getUserById(profil.getUserId());
         } catch (Exception e) {
             log.error("Lookup propriétaire Feign échec userId={} : {}", profil.getUserId(), e.getMessage());
             throw new ApiException("Service utilisateur indisponible, réessayez plus tard");
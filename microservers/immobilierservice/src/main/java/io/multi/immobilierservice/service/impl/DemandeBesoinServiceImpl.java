@@ -1,6 +1,6 @@
 package io.multi.immobilierservice.service.impl;
 
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import io.multi.immobilierservice.domain.Agence;
 import io.multi.immobilierservice.domain.DemandeBesoin;
@@ -30,7 +30,7 @@ public class DemandeBesoinServiceImpl implements DemandeBesoinService {
     private final DemandeBesoinRepository demandeRepository;
     private final AgenceRepository agenceRepository;
     private final ImmoNotificationProducer notificationProducer;
-    private final UserClient userClient;
+    private final UserCache userCache;
 
     @Override
     @Transactional
@@ -167,7 +167,7 @@ public class DemandeBesoinServiceImpl implements DemandeBesoinService {
 
     private String lookupClientNom(Long userId) {
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             if (user != null) {
                 String prenom = user.getFirstName() != null ? user.getFirstName() : "";
                 String nom = user.getLastName() != null ? user.getLastName() : "";
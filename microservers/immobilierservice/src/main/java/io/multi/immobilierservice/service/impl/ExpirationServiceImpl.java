@@ -1,7 +1,8 @@
 package io.multi.immobilierservice.service.impl;
 
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
+import io.multi.clients.jobs.CoordinateurJobs;
 import io.multi.immobilierservice.config.ImmoProperties;
 import io.multi.immobilierservice.domain.ProfilImmo;
 import io.multi.immobilierservice.domain.Propriete;
@@ -16,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
@@ -30,8 +32,9 @@ public class ExpirationServiceImpl implements ExpirationService {
     private final ProprieteRepository proprieteRepository;
     private final ImmoProperties immoProperties;
     private final ProfilImmoRepository profilImmoRepository;
-    private final UserClient userClient;
+    private final UserCache userCache;
     private final ImmoNotificationProducer notificationProducer;
+    private final CoordinateurJobs coordinateurJobs;
 
     /**
      * Tâche planifiée. La valeur du cron et son fuseau viennent de {@link ImmoProperties} :
@@ -41,15 +44,19 @@ public class ExpirationServiceImpl implements ExpirationService {
      *       job-cron: "0 0 2 * * *"
      *       job-tz: "Africa/Conakry"
      * </pre>
+     * Une seule réplique l'exécute (verrou consultatif, cf {@link CoordinateurJobs}).
      */
     @Scheduled(cron = "${immo.expiration.job-cron:0 0 2 * * *}",
                zone = "${immo.expiration.job-tz:Africa/Conakry}")
     public void runScheduled() {
-        log.info("Job expiration : démarrage planifié ({})",
-                immoProperties.getExpiration().getJobTz());
-        Map<String, Integer> stats = executeJob();
-        log.info("Job expiration : terminé — rappels={} retires={}",
-                stats.get("rappels"), stats.get("retires"));
+        coordinateurJobs.executer("expirationProprietes", Duration.ofHours(1), () -> {
+            log.info("Job expiration : démarrage planifié ({})",
+                    immoProperties.getExpiration().getJobTz());
+            Map<String, Integer> stats = executeJob();
+            log.info("Job expiration : terminé — rappels={} retires={}",
+                    stats.get("rappels"), stats.get("retires"));
+            return stats.get("rappels") + stats.get("retires");
+        });
     }
 
     @Override
@@ -90,7 +97,7 @@ public class ExpirationServiceImpl implements ExpirationService {
             if (profil == null) return;
             User vendeur;
             try {
-                vendeur = userClient.getUserById(profil.getUserId());
+                vendeur = userCache.getUserById(profil.getUserId());
             } catch (Exception e) {
                 log.error("Lookup vendeur Feign échec pour profil {} : {}", profil.getProfilId(), e.getMessage());
                 return;
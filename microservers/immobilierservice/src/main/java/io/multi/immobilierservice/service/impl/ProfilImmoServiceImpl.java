@@ -1,6 +1,6 @@
 package io.multi.immobilierservice.service.impl;
 
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import io.multi.immobilierservice.domain.Agence;
 import io.multi.immobilierservice.domain.ProfilImmo;
@@ -23,7 +23,7 @@ public class ProfilImmoServiceImpl implements ProfilImmoService {
 
     private final ProfilImmoRepository profilImmoRepository;
     private final AgenceRepository agenceRepository;
-    private final UserClient userClient;
+    private final UserCache userCache;
 
     @Override
     @Transactional
@@ -113,7 +113,7 @@ public class ProfilImmoServiceImpl implements ProfilImmoService {
 
     private User fetchUserOrFail(Long userId) {
         try {
-            User user = userClient.getUserById(userId);
+            User user = userCache.getUserById(userId);
             if (user == null || user.getUserId() == null) {
                 throw new NotFoundException("Utilisateur introuvable : " + userId);
             }
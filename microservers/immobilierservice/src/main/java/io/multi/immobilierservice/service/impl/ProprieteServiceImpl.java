@@ -13,7 +13,7 @@ import io.multi.immobilierservice.event.EventType;
 import io.multi.immobilierservice.exception.ApiException;
 import io.multi.immobilierservice.exception.ForbiddenException;
 import io.multi.immobilierservice.exception.NotFoundException;
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import io.multi.immobilierservice.repository.*;
 import io.multi.immobilierservice.service.ImmoNotificationProducer;
@@ -43,7 +43,7 @@ public class ProprieteServiceImpl implements ProprieteService {
     private final AdminActionRepository adminActionRepository;
     private final ImmoProperties immoProperties;
     private final ImmoNotificationProducer notificationProducer;
-    private final UserClient userClient;
+    private final UserCache userCache;
 
     @Override
     @Transactional
@@ -227,7 +227,7 @@ public class ProprieteServiceImpl implements ProprieteService {
             vendeur.put("bio", profil.getBio());
             vendeur.put("telephoneContactProfil", profil.getTelephoneContact());
             try {
-                User u = userClient.getUserById(profil.getUserId());
+                User u = userCache.getUserById(profil.getUserId());
                 vendeur.put("userId", u.getUserId());
                 vendeur.put("firstName", u.getFirstName());
                 vendeur.put("lastName", u.getLastName());
@@ -470,7 +470,7 @@ public class ProprieteServiceImpl implements ProprieteService {
         ProfilImmo profil = profilImmoRepository.findById(profilId).orElse(null);
         if (profil == null) return null;
         try {
-            return userClient.getUserById(profil.getUserId());
+            return userCache.getUserById(profil.getUserId());
         } catch (Exception e) {
             log.error("Lookup vendeur Feign échec pour profil {} : {}", profilId, e.getMessage());
             return null;
@@ -1,5 +1,6 @@
 package io.multi.immobilierservice.service.impl;
 
+import io.multi.clients.UserCache;
 import io.multi.clients.UserClient;
 import io.multi.clients.domain.User;
 import io.multi.immobilierservice.domain.ProfilImmo;
@@ -39,6 +40,7 @@ public class VisiteServiceImpl implements VisiteService {
     private final ProprieteRepository proprieteRepository;
     private final ProfilImmoRepository profilImmoRepository;
     private final UserClient userClient;
+    private final UserCache userCache;
     private final ImmoNotificationProducer notificationProducer;
     private final PreferencesNotificationService preferencesService;
 
@@ -255,7 +257,7 @@ public class VisiteServiceImpl implements VisiteService {
 
     private User fetchUserSafe(Long userId) {
         try {
-            return userClient.getUserById(userId);
+            return userCache.getUserById(userId);
         } catch (Exception e) {
             log.error("Lookup user Feign échec pour userId={} : {}", userId, e.getMessage());
             return null;
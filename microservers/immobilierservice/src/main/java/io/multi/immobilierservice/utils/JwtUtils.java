@@ -1,6 +1,6 @@
 package io.multi.immobilierservice.utils;
 
-import io.multi.clients.UserClient;
+import io.multi.clients.UserCache;
 import io.multi.clients.domain.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,7 +12,7 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class JwtUtils {
 
-    private final UserClient userClient;
+    private final UserCache userCache;
 
     public Long extractUserId(Jwt jwt) {
         Object userIdClaim = jwt.getClaim("user_id");
@@ -30,7 +30,7 @@ public class JwtUtils {
 
         if (userUuid != null && !userUuid.isBlank()) {
             try {
-                User user = userClient.getUserByUuid(userUuid);
+                User user = userCache.getUserByUuid(userUuid);
                 if (user != null && user.getUserId() != null) {
                     return user.getUserId();
                 }
@@ -7,6 +7,7 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 
+import static org.springframework.kafka.support.KafkaHeaders.KEY;
 import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
 
 @Component
@@ -14,10 +15,21 @@ import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
 public class ApiEventListener {
     private final KafkaTemplate<String, Notification> kafkaTemplate;
     private static final String NOTIFICATION_TOPIC = "NOTIFICATION_TOPIC";
+    private static final String USER_UPDATED_TOPIC = "USER_UPDATED_TOPIC";
 
     @EventListener
     public void onApiEvent(Event event) {
         var message = MessageBuilder.withPayload(new Notification(event)).setHeader(TOPIC, NOTIFICATION_TOPIC).build();
         kafkaTemplate.send(message);
     }
+
+    @EventListener
+    public void onUserUpdated(UserUpdatedEvent event) {
+        if (event.getUserId() == null) return;
+        var message = MessageBuilder.withPayload(event.getUserId())
+                .setHeader(TOPIC, USER_UPDATED_TOPIC)
+                .setHeader(KEY, event.getUserId().toString())
+                .build();
+        kafkaTemplate.send(message);
+    }
 }
@@ -0,0 +1,14 @@
+package io.multi.userservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Un utilisateur a été modifié : relayé sur USER_UPDATED_TOPIC pour invalider
+ * les caches UserCache des services consommateurs.
+ */
+@Getter
+@AllArgsConstructor
+public class UserUpdatedEvent {
+    private Long userId;
+}
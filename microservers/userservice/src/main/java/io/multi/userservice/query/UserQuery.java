@@ -58,6 +58,31 @@ public class UserQuery {
             FROM users u JOIN user_roles ur ON ur.user_id = u.user_id JOIN roles r ON r.role_id = ur.role_id WHERE u.user_id =:userId
             GROUP BY u.user_id;
             """;
+    public static final String SELECT_USERS_BY_IDS_QUERY=
+            """
+            SELECT   STRING_AGG(DISTINCT r.name, ',' ORDER BY r.name) AS role,
+            STRING_AGG(DISTINCT r.authority, ',') AS authorities,
+            u.qr_code_image_uri,
+            u.member_id,
+            u.account_non_expired,
+            u.account_non_locked,
+            u.created_at,
+            u.email,
+            u.username,
+            u.enabled,
+            u.first_name,
+            u.user_id,
+            u.image_url,
+            u.last_login,
+            u.last_name,
+            u.updated_at,
+            u.user_uuid,
+            u.bio,
+            u.phone,
+            u.address
+            FROM users u JOIN user_roles ur ON ur.user_id = u.user_id JOIN roles r ON r.role_id = ur.role_id WHERE u.user_id = ANY(:userIds)
+            GROUP BY u.user_id;
+            """;
     public static final String SELECT_USER_BY_EMAIL_QUERY=
             """
             SELECT   STRING_AGG(DISTINCT r.name, ',' ORDER BY r.name) AS role,
@@ -9,6 +9,7 @@ public interface UserRepository {
     User getUserByEmail(String email);
     User getUserByUuid(String userUuid);
     User getUserById(Long userId);
+    List<User> getUsersByIds(List<Long> userIds);
     User updateUser(String userUuid, String firstName, String lastName, String email, String phone, String bio, String address);
     String createUser(String firstName, String lastName, String email, String username, String password, String phone);
     String createAccountUser(String firstName, String lastName, String email, String username, String password, String roleName);
@@ -65,6 +65,18 @@ public class UserRepositoryImpl implements UserRepository {
         }
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> userIds) {
+        try {
+            return jdbcClient.sql(SELECT_USERS_BY_IDS_QUERY)
+                    .param("userIds", userIds.toArray(Long[]::new))
+                    .query(User.class).list();
+        }catch (Exception e){
+            log.error(e.getMessage());
+            throw  new ApiException("An error occurred please try again");
+        }
+    }
+
     @Override
     public User updateUser(String userUuid, String firstName, String lastName, String email, String phone, String bio, String address) {
         try {
@@ -72,6 +72,15 @@ public class UserResource {
         return ResponseEntity.ok(user);
     }
 
+    /**
+     *   Batch lookup (UserClient.getUsersByIds) — List<User> DIRECT, 500 ids max.
+     *   Jeton de service ou ADMIN/SUPER_ADMIN exigé (cf ResourceServerConfig), pas de permitAll.
+     */
+    @PostMapping("/getUser/lot")
+    public ResponseEntity<List<User>> getUsersByIds(@RequestBody List<Long> userIds) {
+        return ResponseEntity.ok(userService.getUsersByIds(userIds));
+    }
+
     @GetMapping("/getUser/uuid/{uuid}")
     public ResponseEntity<User> getUserByUuid(@PathVariable(name = "uuid") String uuid) {
         User user = userService.getUserByUuid(uuid);
@@ -8,14 +8,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.List;
 
@@ -31,9 +37,15 @@ import static org.springframework.http.HttpMethod.OPTIONS;
 @org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity
 @RequiredArgsConstructor
 public class ResourceServerConfig {
+    /** En-tête posé par les clients Feign (clients/ClientsAutoConfiguration). */
+    private static final String EN_TETE_JETON_SERVICE = "X-Service-Token";
+
     @Value("${jwks.uri}")
     private String jwtSetUri;
 
+    @Value("${services.jeton-interne:}")
+    private String jetonInterne;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
@@ -55,6 +67,9 @@ public class ResourceServerConfig {
                         //
                         // À RETIRER QUAND : Feign interceptor M2M en place (tâche backlog).
                         // NE PAS "corriger" naïvement en supprimant /user/getUser/** = casse Feign immo.
+                        // Lot d'utilisateurs (jusqu'à 500 par appel) : réservé aux services
+                        // (jeton partagé) et aux administrateurs, déclaré AVANT le permitAll.
+                        .requestMatchers(POST, "/user/getUser/lot").access(serviceOuAdministrateur())
                         .requestMatchers("/actuator/health","/actuator/info","/user/register/**", "/user/verify/account/**","/user/verify/password/**", "/user/resetpassword/**", "/user/image/**","/user/getUser/**","/user/by-role/**","/user/client/**","/user/offLine/**").permitAll()
                         .anyRequest().authenticated())
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -66,6 +81,18 @@ public class ResourceServerConfig {
         return http.build();
     }
 
+    private AuthorizationManager<RequestAuthorizationContext> serviceOuAdministrateur() {
+        return (authentication, contexte) -> {
+            String jeton = contexte.getRequest().getHeader(EN_TETE_JETON_SERVICE);
+            boolean service = !jetonInterne.isBlank() && jeton != null
+                    && MessageDigest.isEqual(jeton.getBytes(StandardCharsets.UTF_8), jetonInterne.getBytes(StandardCharsets.UTF_8));
+            Authentication auth = authentication.get();
+            boolean administrateur = auth != null && auth.isAuthenticated() && auth.getAuthorities().stream()
+                    .anyMatch(a -> "ADMIN".equals(a.getAuthority()) || "SUPER_ADMIN".equals(a.getAuthority()));
+            return new AuthorizationDecision(service || administrateur);
+        };
+    }
+
     //@Bean
     public CorsConfigurationSource corsConfigurationSource() {
         var corsConfiguration = new CorsConfiguration();
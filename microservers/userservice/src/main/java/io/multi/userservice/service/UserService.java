@@ -39,5 +39,6 @@ public interface UserService {
     List<Device> getDevices(String userUuid);
 
     User getUserId(Long userId);
+    List<User> getUsersByIds(List<Long> userIds);
 
 }
@@ -1,6 +1,7 @@
 package io.multi.userservice.service.impl;
 
 import io.multi.userservice.event.Event;
+import io.multi.userservice.event.UserUpdatedEvent;
 import io.multi.userservice.model.Credential;
 import io.multi.userservice.model.Device;
 import io.multi.userservice.model.Role;
@@ -62,7 +63,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User updateUser(String userUuid, String firstName, String lastName, String email, String phone, String bio, String address) {
-        return userRepository.updateUser(userUuid,firstName,lastName,email,phone,bio,address);
+        return modifie(userRepository.updateUser(userUuid,firstName,lastName,email,phone,bio,address));
     }
 
     @Override
@@ -101,6 +102,7 @@ public class UserServiceImpl implements UserService {
         }
         userRepository.updateAccountSettings(accountToken.getUserId());
         userRepository.deleteAccountToken(token);
+        publisher.publishEvent(new UserUpdatedEvent(accountToken.getUserId()));
     }
 
     @Override
@@ -118,12 +120,12 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User enableMfa(String userUuid) {
-        return userRepository.enableMfa(userUuid);
+        return modifie(userRepository.enableMfa(userUuid));
     }
 
     @Override
     public User disableMfa(String userUuid) {
-        return userRepository.disableMfa(userUuid);
+        return modifie(userRepository.disableMfa(userUuid));
     }
 
     @Override
@@ -132,28 +134,28 @@ public class UserServiceImpl implements UserService {
         var imageUrl=photoFunction.apply(user.getImageUrl(), file);
         userRepository.updateImageUrl(userUuid,imageUrl);
         user.setImageUrl(imageUrl + "?timestamp=" + System.currentTimeMillis());
-        return user;
+        return modifie(user);
     }
 
     @Override
     public User toggleAccountExpired(String userUuid) {
-        return userRepository.toggleAccountExpired(userUuid);
+        return modifie(userRepository.toggleAccountExpired(userUuid));
     }
 
     @Override
     public User toggleAccountLocked(String userUuid) {
-        return userRepository.toggleAccountLocked(userUuid);
+        return modifie(userRepository.toggleAccountLocked(userUuid));
     }
 
     @Override
     public User toggleAccountEnabled(String userUuid) {
         // Corrigé : délègue au repo (SQL toggle_account_enabled) au lieu de renvoyer null.
-        return userRepository.toggleAccountEnabled(userUuid);
+        return modifie(userRepository.toggleAccountEnabled(userUuid));
     }
 
     @Override
     public User toggleCredentialsExpired(String userUuid) {
-        return userRepository.toggleAccountEnabled(userUuid);
+        return modifie(userRepository.toggleAccountEnabled(userUuid));
     }
 
     /** Rôles qu'un admin peut assigner en créant/modifiant un compte backoffice. */
@@ -193,7 +195,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User updateRole(String userUuid, String role) {
-        return userRepository.updateRole(userUuid, role);
+        return modifie(userRepository.updateRole(userUuid, role));
     }
 
     @Override
@@ -261,6 +263,21 @@ public class UserServiceImpl implements UserService {
         return userRepository.getUserById(userId);
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) return List.of();
+        if (userIds.size() > 500) {
+            throw new ApiException("500 users maximum per request");
+        }
+        return userRepository.getUsersByIds(userIds);
+    }
+
+    /** Signale la modification aux caches des autres services (UserCache). */
+    private User modifie(User user) {
+        if (user != null) publisher.publishEvent(new UserUpdatedEvent(user.getUserId()));
+        return user;
+    }
+
     private final Function<String, String> fileExtension = filename -> Optional.of(filename).filter(name -> name.contains("."))
             .map(name -> "." + name.substring(filename.lastIndexOf(".") + 1)).orElse(".png");
 
@@ -90,7 +90,9 @@ class _NotificationsScreenState extends State<NotificationsScreen> {
   Future<void> _onTap(AppNotification notif) async {
     // Marque comme lue (optimiste) côté serveur + UI.
     if (!notif.lue) {
-      _service.markNotificationAsRead(notif.notificationId).catchError((_) {});
+      _service
+          .markNotificationAsRead(notif.notificationId, createdAt: notif.createdAt)
+          .catchError((_) {});
       setState(() {
         final i = _notifications.indexWhere(
             (n) => n.notificationId == notif.notificationId);
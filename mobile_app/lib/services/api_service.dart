@@ -79,8 +79,12 @@ class ApiService {
   }
 
   // PUT request
-  Future<Response> put(String path, {dynamic data}) async {
-    return await _dio.put(path, data: data);
+  Future<Response> put(
+    String path, {
+    dynamic data,
+    Map<String, dynamic>? queryParameters,
+  }) async {
+    return await _dio.put(path, data: data, queryParameters: queryParameters);
   }
 
   // DELETE request
@@ -175,11 +175,16 @@ class BilletterieService {
     );
   }
 
-  /// GET /billetterie/notifications - Notifications in-app de l'utilisateur
-  Future<List<AppNotification>> getNotifications({int page = 0, int size = 30}) async {
+  /// GET /billetterie/notifications - Notifications in-app de l'utilisateur.
+  /// Pagination par curseur : [curseur] = curseurSuivant de la page précédente
+  /// (absent pour la première page).
+  Future<List<AppNotification>> getNotifications({String? curseur, int taille = 30}) async {
     final response = await _api.get(
       '$_basePath/notifications',
-      queryParameters: {'page': page, 'size': size},
+      queryParameters: {
+        'taille': taille,
+        if (curseur != null) 'curseur': curseur,
+      },
     );
     final data = response.data['data'];
     return (data['notifications'] as List)
@@ -194,9 +199,16 @@ class BilletterieService {
     return (data['unreadCount'] as num?)?.toInt() ?? 0;
   }
 
-  /// PUT /billetterie/notifications/{id}/read - Marquer une notification comme lue
-  Future<void> markNotificationAsRead(int notificationId) async {
-    await _api.put('$_basePath/notifications/$notificationId/read');
+  /// PUT /billetterie/notifications/{id}/read - Marquer une notification comme lue.
+  /// [createdAt] (celui reçu avec la notification) limite la mise à jour à la
+  /// partition mensuelle de la notification côté serveur.
+  Future<void> markNotificationAsRead(int notificationId, {DateTime? createdAt}) async {
+    await _api.put(
+      '$_basePath/notifications/$notificationId/read',
+      queryParameters: {
+        if (createdAt != null) 'createdAt': createdAt.toUtc().toIso8601String(),
+      },
+    );
   }
 
   /// PUT /billetterie/notifications/read-all - Tout marquer comme lu